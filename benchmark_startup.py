@@ -0,0 +1,132 @@
+import argparse
+import datetime
+import json
+import os
+import statistics
+import subprocess
+import time
+import urllib.error
+import urllib.request
+
+JUDGE_PATH = "/prompt-ng/v1/judge"
+FIRST_PROMPT = "今日の天気は？"
+
+
+def read_rss_kb(pid: int) -> tuple[int, int]:
+    """
+    /proc/<pid>/status から現在の RSS (VmRSS) とピーク RSS (VmHWM) を KB 単位で読み取ります。
+    Linux 以外では (0, 0) を返します。
+    """
+    rss, hwm = 0, 0
+    try:
+        with open(f"/proc/{pid}/status") as f:
+            for line in f:
+                if line.startswith("VmRSS:"):
+                    rss = int(line.split()[1])
+                elif line.startswith("VmHWM:"):
+                    hwm = int(line.split()[1])
+    except OSError:
+        pass
+    return rss, hwm
+
+
+def try_judge(port: int) -> bool:
+    body = json.dumps({"text": FIRST_PROMPT}).encode("utf-8")
+    request = urllib.request.Request(
+        f"http://127.0.0.1:{port}{JUDGE_PATH}",
+        data=body,
+        headers={"Content-Type": "application/json"},
+        method="POST",
+    )
+    try:
+        with urllib.request.urlopen(request, timeout=2) as response:
+            return response.status == 200
+    except (urllib.error.URLError, ConnectionError, TimeoutError):
+        return False
+
+
+def measure_once(command: list[str], port: int, timeout_sec: float) -> dict:
+    """
+    コマンドでサーバーを起動し、最初の判定 (/judge が 200 を返すまで) の時間と、その時点の RSS を計測します。
+    """
+    started = time.monotonic()
+    process = subprocess.Popen(
+        command + [f"--server.port={port}"],
+        stdout=subprocess.DEVNULL,
+        stderr=subprocess.DEVNULL,
+    )
+    try:
+        while time.monotonic() - started < timeout_sec:
+            if process.poll() is not None:
+                raise RuntimeError(f"Process exited early with code {process.returncode}: {' '.join(command)}")
+            if try_judge(port):
+                elapsed_ms = (time.monotonic() - started) * 1000.0
+                rss_kb, hwm_kb = read_rss_kb(process.pid)
+                return {"first_judgment_ms": elapsed_ms, "rss_kb": rss_kb, "peak_rss_kb": hwm_kb}
+            time.sleep(0.02)
+        raise RuntimeError(f"Timed out after {timeout_sec}s waiting for first judgment: {' '.join(command)}")
+    finally:
+        process.terminate()
+        try:
+            process.wait(timeout=10)
+        except subprocess.TimeoutExpired:
+            process.kill()
+
+
+def summarize(label: str, samples: list[dict]) -> list[str]:
+    first = [s["first_judgment_ms"] for s in samples]
+    rss = [s["rss_kb"] / 1024.0 for s in samples]
+    peak = [s["peak_rss_kb"] / 1024.0 for s in samples]
+    return [
+        f"[{label}] runs={len(samples)}",
+        f"  time-to-first-judgment ms: median={statistics.median(first):.1f} min={min(first):.1f} max={max(first):.1f}",
+        f"  RSS after first judgment MB: median={statistics.median(rss):.1f}",
+        f"  peak RSS MB: median={statistics.median(peak):.1f}",
+    ]
+
+
+def main():
+    parser = argparse.ArgumentParser(
+        description="fat JAR とネイティブイメージの起動時間 (最初の判定まで) と RSS を比較します。")
+    parser.add_argument("--jar", default="target/prompt-ng-api-0.0.1-SNAPSHOT-exec.jar",
+                        help="比較対象の fat JAR (./mvnw package で生成)")
+    parser.add_argument("--native", default="target/prompt-ng-api",
+                        help="比較対象のネイティブ実行ファイル (./mvnw -Pnative native:compile で生成)")
+    parser.add_argument("--runs", type=int, default=5)
+    parser.add_argument("--port", type=int, default=18080)
+    parser.add_argument("--timeout", type=float, default=120.0)
+    parser.add_argument("--profile", default="production", help="起動時に有効にする Spring プロファイル")
+    args = parser.parse_args()
+
+    targets = []
+    if os.path.exists(args.jar):
+        targets.append(("fat-jar", ["java", "-jar", args.jar]))
+    else:
+        print(f"Warning: JAR not found at {args.jar}. Skipping.")
+    if os.path.exists(args.native):
+        targets.append(("native", [args.native]))
+    else:
+        print(f"Warning: native executable not found at {args.native}. Skipping.")
+    if not targets:
+        print("ERROR: nothing to benchmark.")
+        return
+
+    timestamp = datetime.datetime.now()
+    report_lines = [f"Startup Benchmark Run: {timestamp.strftime('%Y-%m-%d %H:%M:%S')}", ""]
+    for label, command in targets:
+        command = command + [f"--spring.profiles.active={args.profile}"]
+        samples = [measure_once(command, args.port, args.timeout) for _ in range(args.runs)]
+        report_lines.extend(summarize(label, samples))
+        report_lines.append("")
+
+    print("\n".join(report_lines))
+    report_dir = "target/benchmark-reports"
+    os.makedirs(report_dir, exist_ok=True)
+    report_filename = os.path.join(report_dir, f"startup_benchmark_{timestamp.strftime('%Y%m%d_%H%M%S')}.txt")
+    with open(report_filename, "w") as f:
+        f.write("\n".join(report_lines))
+    print(f"Report generated: {report_filename}")
+
+
+if __name__ == "__main__":
+    main()
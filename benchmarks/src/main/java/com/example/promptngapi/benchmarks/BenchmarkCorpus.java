@@ -0,0 +1,79 @@
+package com.example.promptngapi.benchmarks;
+
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ベンチマークの入力に使うコーパスです。統合テストと同じ {@code integration-test.yaml}
+ * ({@code integration-tester/src/main/resources}。benchmarks の pom.xml でクラスパスに含めている) から読み込みます。
+ * <p>
+ * カテゴリは {@code prompt.ok}、{@code prompt.ng}、{@code personal.ok}、{@code personal.ng} のいずれかです。
+ */
+final class BenchmarkCorpus {
+
+    private static final String RESOURCE = "/integration-test.yaml";
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * 指定したカテゴリのテキストを返します。
+     *
+     * @param category   {@code prompt.ok} などのカテゴリ
+     * @param inputChars 0 の場合はコーパスの各項目をそのまま返します。1 以上の場合は、各項目から始めて後続の項目を
+     *                   改行でつなぎ、この文字数で切り詰めたテキストを項目数と同じ数だけ返します (入力サイズの影響を計測するため)。
+     * @return テキストの配列 (空ではありません)
+     */
+    static String[] texts(String category, int inputChars) {
+        List<String> entries = load(category);
+        if (inputChars <= 0) {
+            return entries.toArray(String[]::new);
+        }
+        String[] texts = new String[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            StringBuilder sb = new StringBuilder(inputChars + 128);
+            for (int j = i; sb.length() < inputChars; j = (j + 1) % entries.size()) {
+                sb.append(entries.get(j)).append('\n');
+            }
+            sb.setLength(inputChars);
+            if (Character.isHighSurrogate(sb.charAt(inputChars - 1))) {
+                sb.setLength(inputChars - 1);
+            }
+            texts[i] = sb.toString();
+        }
+        return texts;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> load(String category) {
+        String[] path = ("integration-test." + category).split("\\.");
+        try (InputStream inputStream = BenchmarkCorpus.class.getResourceAsStream(RESOURCE)) {
+            if (inputStream == null) {
+                throw new IllegalStateException(RESOURCE + " is not on the classpath");
+            }
+            Object node = new Yaml().load(inputStream);
+            for (String key : path) {
+                if (!(node instanceof Map)) {
+                    throw new IllegalArgumentException("Unknown corpus category: " + category);
+                }
+                node = ((Map<String, Object>) node).get(key);
+            }
+            if (!(node instanceof List) || ((List<?>) node).isEmpty()) {
+                throw new IllegalArgumentException("Unknown or empty corpus category: " + category);
+            }
+            List<String> entries = new ArrayList<>();
+            for (Object entry : (List<Object>) node) {
+                entries.add(String.valueOf(entry));
+            }
+            return entries;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.promptngapi.benchmarks;
+
+import com.example.promptngapi.nlp.KuromojiAnalyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link KuromojiAnalyzer} の形態素解析・フレーズ分割・カタカナ変換のコストを計測するベンチマークです。
+ * 入力は統合テストのコーパス ({@link BenchmarkCorpus}) で、呼び出しごとに次の項目に進みます。
+ * {@code inputChars} が 0 の場合は各項目をそのまま、それ以外は項目をつないだその文字数のテキストを使います。
+ *
+ * <pre>
+ * for t in 1 4 8; do java -jar target/benchmarks.jar KuromojiAnalyzerBenchmark -t $t -prof gc; done
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KuromojiAnalyzerBenchmark {
+
+    @Param({"prompt.ok", "prompt.ng"})
+    public String corpus;
+
+    @Param({"0", "1000", "10000"})
+    public int inputChars;
+
+    private String[] texts;
+    private KuromojiAnalyzer analyzer;
+
+    /** スレッドごとに、次に使う入力の位置を保持します。 */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        String next(String[] texts) {
+            String text = texts[next];
+            next = (next + 1) % texts.length;
+            return text;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        texts = BenchmarkCorpus.texts(corpus, inputChars);
+        analyzer = new KuromojiAnalyzer();
+    }
+
+    @Benchmark
+    public List<String> analyzeText(Cursor cursor) {
+        return analyzer.analyzeText(cursor.next(texts));
+    }
+
+    @Benchmark
+    public List<String> splitIntoPhrases(Cursor cursor) {
+        return analyzer.splitIntoPhrases(cursor.next(texts));
+    }
+
+    @Benchmark
+    public String convertToKatakana(Cursor cursor) {
+        return KuromojiAnalyzer.convertToKatakana(cursor.next(texts));
+    }
+}
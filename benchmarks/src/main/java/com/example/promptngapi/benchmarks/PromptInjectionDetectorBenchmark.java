@@ -0,0 +1,101 @@
+package com.example.promptngapi.benchmarks;
+
+import com.example.promptngapi.config.ScoreThresholdsConfig;
+import com.example.promptngapi.dto.DetectionDetail;
+import com.example.promptngapi.nlp.AnalyzedText;
+import com.example.promptngapi.nlp.KuromojiAnalyzer;
+import com.example.promptngapi.nlp.LanguageDetectorPool;
+import com.example.promptngapi.service.DetectionContext;
+import com.example.promptngapi.service.DetectionStage;
+import com.example.promptngapi.service.PromptInjectionDetector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PromptInjectionDetector} の判定を、段階 ({@link DetectionStage}) ごとに計測するベンチマークです。
+ * {@code stage} が {@code all} の場合は {@link PromptInjectionDetector#isPromptInjectionAttempt(AnalyzedText, DetectionContext)} 全体を計測します。
+ * 入力は統合テストのコーパス ({@link BenchmarkCorpus}) をセットアップ時に形態素解析したもので、
+ * 入力全体の形態素解析のコストは含みません ({@link KuromojiAnalyzerBenchmark} で計測します)。
+ * <p>
+ * 類似度の段階は完全一致の結果を参照して重複を除くため、単独で計測した値は完全一致で見つかるフレーズの分だけ
+ * {@code all} の内訳より大きくなります。
+ *
+ * <pre>
+ * for t in 1 4 8; do java -jar target/benchmarks.jar PromptInjectionDetectorBenchmark -t $t -prof gc; done
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromptInjectionDetectorBenchmark {
+
+    @Param({"all", "INJECTION_EXACT", "INJECTION_SIMILARITY", "NON_JAPANESE"})
+    public String stage;
+
+    @Param({"prompt.ok", "prompt.ng"})
+    public String corpus;
+
+    @Param({"0", "1000"})
+    public int inputChars;
+
+    private AnalyzedText[] texts;
+    private PromptInjectionDetector detector;
+    private DetectionContext context;
+    private DetectionStage detectionStage;
+
+    /** スレッドごとに、次に使う入力の位置を保持します。 */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        AnalyzedText next(AnalyzedText[] texts) {
+            AnalyzedText text = texts[next];
+            next = (next + 1) % texts.length;
+            return text;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        KuromojiAnalyzer analyzer = new KuromojiAnalyzer();
+        ScoreThresholdsConfig thresholds = new ScoreThresholdsConfig();
+        thresholds.setSimilarityThreshold(0.7);
+        thresholds.setNonJapaneseSentenceWordThreshold(3);
+        detector = new PromptInjectionDetector(analyzer, thresholds, new LanguageDetectorPool());
+        context = DetectionContext.of(thresholds);
+        detectionStage = "all".equals(stage) ? null : DetectionStage.valueOf(stage);
+
+        String[] corpusTexts = BenchmarkCorpus.texts(corpus, inputChars);
+        texts = new AnalyzedText[corpusTexts.length];
+        for (int i = 0; i < corpusTexts.length; i++) {
+            texts[i] = analyzer.analyze(corpusTexts[i]);
+        }
+    }
+
+    @Benchmark
+    public List<DetectionDetail> detect(Cursor cursor) {
+        AnalyzedText text = cursor.next(texts);
+        if (detectionStage == null) {
+            return detector.isPromptInjectionAttempt(text, context);
+        }
+        List<DetectionDetail> detections = new ArrayList<>();
+        detector.detectStage(detectionStage, text, context, detections);
+        return detections;
+    }
+}
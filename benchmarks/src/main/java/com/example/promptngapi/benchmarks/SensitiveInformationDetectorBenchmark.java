@@ -0,0 +1,96 @@
+package com.example.promptngapi.benchmarks;
+
+import com.example.promptngapi.config.ScoreThresholdsConfig;
+import com.example.promptngapi.dto.DetectionDetail;
+import com.example.promptngapi.nlp.AnalyzedText;
+import com.example.promptngapi.nlp.KuromojiAnalyzer;
+import com.example.promptngapi.service.DetectionContext;
+import com.example.promptngapi.service.DetectionStage;
+import com.example.promptngapi.service.SensitiveInformationDetector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SensitiveInformationDetector} の判定を、段階 ({@link DetectionStage}) ごとに計測するベンチマークです。
+ * {@code stage} が {@code all} の場合は {@link SensitiveInformationDetector#hasSensitiveInformation(AnalyzedText)} 全体を計測します。
+ * 入力は統合テストのコーパス ({@link BenchmarkCorpus}) をセットアップ時に形態素解析したものです。
+ *
+ * <pre>
+ * for t in 1 4 8; do java -jar target/benchmarks.jar SensitiveInformationDetectorBenchmark -t $t -prof gc; done
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SensitiveInformationDetectorBenchmark {
+
+    @Param({"all", "SENSITIVE_RULES", "SENSITIVE_ADDRESS", "SENSITIVE_NAME"})
+    public String stage;
+
+    @Param({"personal.ok", "personal.ng"})
+    public String corpus;
+
+    @Param({"0", "1000", "10000"})
+    public int inputChars;
+
+    private AnalyzedText[] texts;
+    private SensitiveInformationDetector detector;
+    private DetectionContext context;
+    private DetectionStage detectionStage;
+
+    /** スレッドごとに、次に使う入力の位置を保持します。 */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        AnalyzedText next(AnalyzedText[] texts) {
+            AnalyzedText text = texts[next];
+            next = (next + 1) % texts.length;
+            return text;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        KuromojiAnalyzer analyzer = new KuromojiAnalyzer();
+        ScoreThresholdsConfig thresholds = new ScoreThresholdsConfig();
+        thresholds.setSimilarityThreshold(0.7);
+        thresholds.setNonJapaneseSentenceWordThreshold(3);
+        detector = new SensitiveInformationDetector(analyzer);
+        context = DetectionContext.of(thresholds);
+        detectionStage = "all".equals(stage) ? null : DetectionStage.valueOf(stage);
+
+        String[] corpusTexts = BenchmarkCorpus.texts(corpus, inputChars);
+        texts = new AnalyzedText[corpusTexts.length];
+        for (int i = 0; i < corpusTexts.length; i++) {
+            texts[i] = analyzer.analyze(corpusTexts[i]);
+        }
+    }
+
+    @Benchmark
+    public List<DetectionDetail> detect(Cursor cursor) {
+        AnalyzedText text = cursor.next(texts);
+        if (detectionStage == null) {
+            return detector.hasSensitiveInformation(text);
+        }
+        List<DetectionDetail> detections = new ArrayList<>();
+        detector.detectStage(detectionStage, text, context, detections);
+        return detections;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.integrationtester;
+
+/**
+ * Counts of expected vs. predicted verdicts, where "positive" means NG (the API flags the prompt).
+ */
+public class ConfusionMatrix {
+    private long truePositive; // Expected NG, judged NG
+    private long falseNegative; // Expected NG, judged OK
+    private long falsePositive; // Expected OK, judged NG
+    private long trueNegative; // Expected OK, judged OK
+
+    public void add(boolean expectedNg, boolean predictedNg) {
+        if (expectedNg) {
+            if (predictedNg) truePositive++; else falseNegative++;
+        } else {
+            if (predictedNg) falsePositive++; else trueNegative++;
+        }
+    }
+
+    public long getTruePositive() { return truePositive; }
+    public long getFalseNegative() { return falseNegative; }
+    public long getFalsePositive() { return falsePositive; }
+    public long getTrueNegative() { return trueNegative; }
+
+    public long getTotal() {
+        return truePositive + falseNegative + falsePositive + trueNegative;
+    }
+
+    public Double getAccuracy() {
+        return ratio(truePositive + trueNegative, getTotal());
+    }
+
+    // Null when there are no predicted (precision) or expected (recall) NG prompts, e.g. for an "ok" category
+    public Double getPrecision() {
+        return ratio(truePositive, truePositive + falsePositive);
+    }
+
+    public Double getRecall() {
+        return ratio(truePositive, truePositive + falseNegative);
+    }
+
+    private static Double ratio(long numerator, long denominator) {
+        return denominator == 0 ? null : (double) numerator / denominator;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.integrationtester;
+
+import com.example.promptngapi.config.ScoreThresholdsConfig;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Settings for the in-process evaluation mode (integration-tester.mode=evaluate).
+ * The detectors use the API's own score-thresholds, read from its score_thresholds.yaml on the classpath.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "evaluation")
+@Import(ScoreThresholdsConfig.class)
+public class EvaluationConfig {
+
+    private int threads = 0; // Worker threads (0 = number of available processors)
+    private int warmupRounds = 2; // Passes over the corpus before measuring (results discarded, lets the JIT settle)
+    private int rounds = 5; // Measured passes over the corpus; each prompt's latency is sampled once per round
+    private int slowestPrompts = 20; // Number of slowest prompts (by median latency) listed in the report
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getWarmupRounds() {
+        return warmupRounds;
+    }
+
+    public void setWarmupRounds(int warmupRounds) {
+        this.warmupRounds = warmupRounds;
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    public void setRounds(int rounds) {
+        this.rounds = rounds;
+    }
+
+    public int getSlowestPrompts() {
+        return slowestPrompts;
+    }
+
+    public void setSlowestPrompts(int slowestPrompts) {
+        this.slowestPrompts = slowestPrompts;
+    }
+
+    /** The number of worker threads to use, resolving 0 to the number of available processors. */
+    public int resolveThreads() {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.integrationtester;
+
+import com.example.promptngapi.config.ScoreThresholdsConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Evaluates the integration test prompts with the real detectors in-process and reports detection quality
+ * (confusion matrices) and latency per category (run with --integration-tester.mode=evaluate).
+ */
+@Component
+@ConditionalOnProperty(name = "integration-tester.mode", havingValue = "evaluate")
+public class EvaluationRunner implements CommandLineRunner {
+
+    private static final double NANOS_PER_MS = 1_000_000.0;
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final EvaluationService evaluationService;
+    private final EvaluationConfig config;
+    private final ScoreThresholdsConfig scoreThresholdsConfig;
+
+    public EvaluationRunner(EvaluationService evaluationService, EvaluationConfig config, ScoreThresholdsConfig scoreThresholdsConfig) {
+        this.evaluationService = evaluationService;
+        this.config = config;
+        this.scoreThresholdsConfig = scoreThresholdsConfig;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        System.out.println("Starting Evaluation with " + config.resolveThreads() + " threads...");
+        long start = System.nanoTime();
+        List<PromptEvaluation> evaluations = evaluationService.evaluate();
+        long elapsedNanos = System.nanoTime() - start;
+
+        Map<String, ConfusionMatrix> categoryMatrices = new LinkedHashMap<>();
+        Map<String, ConfusionMatrix> groupMatrices = new LinkedHashMap<>();
+        Map<String, Histogram> categoryLatencies = new LinkedHashMap<>();
+        ConfusionMatrix overallMatrix = new ConfusionMatrix();
+        Histogram overallLatency = new Histogram(SIGNIFICANT_DIGITS);
+        for (PromptEvaluation evaluation : evaluations) {
+            String category = evaluation.getCategory();
+            String group = category.substring(0, category.indexOf('.'));
+            categoryMatrices.computeIfAbsent(category, k -> new ConfusionMatrix()).add(evaluation.isExpectedNg(), evaluation.isPredictedNg());
+            groupMatrices.computeIfAbsent(group, k -> new ConfusionMatrix()).add(evaluation.isExpectedNg(), evaluation.isPredictedNg());
+            overallMatrix.add(evaluation.isExpectedNg(), evaluation.isPredictedNg());
+            Histogram latency = categoryLatencies.computeIfAbsent(category, k -> new Histogram(SIGNIFICANT_DIGITS));
+            for (long nanos : evaluation.getLatencyNanos()) {
+                latency.recordValue(nanos);
+                overallLatency.recordValue(nanos);
+            }
+        }
+
+        List<PromptEvaluation> slowest = new ArrayList<>(evaluations);
+        slowest.sort(Comparator.comparingLong(PromptEvaluation::getMedianLatencyNanos).reversed());
+        slowest = slowest.subList(0, Math.min(config.getSlowestPrompts(), slowest.size()));
+
+        System.out.println("\n--- Evaluation Summary ---");
+        categoryMatrices.forEach((category, matrix) -> System.out.println(formatCategory(category, matrix, categoryLatencies.get(category))));
+        System.out.println(formatCategory("total", overallMatrix, overallLatency));
+        long misclassified = overallMatrix.getFalsePositive() + overallMatrix.getFalseNegative();
+        if (misclassified > 0) {
+            System.out.println("\nMisclassified Prompts:");
+            evaluations.stream()
+                    .filter(e -> !e.isCorrect())
+                    .forEach(e -> System.out.println(" - Category: " + e.getCategory() + ", Prompt: '" + e.getPrompt() + "'"
+                            + (e.isPredictedNg() ? ", Detections: " + e.getInjectionTypes() + " " + e.getSensitiveTypes() : "")));
+        }
+        System.out.println("--- End of Summary ---\n");
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
+        report.put("threads", config.resolveThreads());
+        report.put("warmupRounds", config.getWarmupRounds());
+        report.put("rounds", config.getRounds());
+        report.put("elapsedSeconds", elapsedNanos / 1e9);
+        Map<String, Object> thresholds = new LinkedHashMap<>();
+        thresholds.put("similarityThreshold", scoreThresholdsConfig.getSimilarityThreshold());
+        thresholds.put("nonJapaneseSentenceWordThreshold", scoreThresholdsConfig.getNonJapaneseSentenceWordThreshold());
+        report.put("scoreThresholds", thresholds);
+        report.put("total", summary(overallMatrix, overallLatency));
+        Map<String, Object> groups = new LinkedHashMap<>();
+        groupMatrices.forEach((group, matrix) -> groups.put(group, matrix));
+        report.put("groups", groups);
+        Map<String, Object> categories = new LinkedHashMap<>();
+        categoryMatrices.forEach((category, matrix) -> categories.put(category, summary(matrix, categoryLatencies.get(category))));
+        report.put("categories", categories);
+        List<Map<String, Object>> slowestPrompts = new ArrayList<>();
+        for (PromptEvaluation evaluation : slowest) {
+            slowestPrompts.add(promptEntry(evaluation));
+        }
+        report.put("slowestPrompts", slowestPrompts);
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (PromptEvaluation evaluation : evaluations) {
+            results.add(promptEntry(evaluation));
+        }
+        report.put("results", results);
+
+        generateReportFile(report);
+
+        // Exit with 0 if every prompt got the verdict its category expects, 1 otherwise.
+        System.exit(misclassified > 0 ? 1 : 0);
+    }
+
+    private static String formatCategory(String category, ConfusionMatrix matrix, Histogram latency) {
+        return String.format(Locale.ROOT,
+                "%-12s | %4d prompts | TP %4d FN %4d FP %4d TN %4d | accuracy %6.2f%% | p50 %7.3f ms | p99 %7.3f ms | max %7.3f ms",
+                category, matrix.getTotal(), matrix.getTruePositive(), matrix.getFalseNegative(),
+                matrix.getFalsePositive(), matrix.getTrueNegative(),
+                matrix.getAccuracy() == null ? 0 : matrix.getAccuracy() * 100,
+                latency.getValueAtPercentile(50) / NANOS_PER_MS, latency.getValueAtPercentile(99) / NANOS_PER_MS,
+                latency.getMaxValue() / NANOS_PER_MS);
+    }
+
+    private static Map<String, Object> summary(ConfusionMatrix matrix, Histogram latency) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("confusionMatrix", matrix);
+        Map<String, Object> latencyMs = new LinkedHashMap<>();
+        latencyMs.put("samples", latency.getTotalCount());
+        latencyMs.put("mean", latency.getMean() / NANOS_PER_MS);
+        latencyMs.put("p50", latency.getValueAtPercentile(50) / NANOS_PER_MS);
+        latencyMs.put("p90", latency.getValueAtPercentile(90) / NANOS_PER_MS);
+        latencyMs.put("p99", latency.getValueAtPercentile(99) / NANOS_PER_MS);
+        latencyMs.put("p999", latency.getValueAtPercentile(99.9) / NANOS_PER_MS);
+        latencyMs.put("max", latency.getMaxValue() / NANOS_PER_MS);
+        summary.put("latencyMs", latencyMs);
+        return summary;
+    }
+
+    private static Map<String, Object> promptEntry(PromptEvaluation evaluation) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("category", evaluation.getCategory());
+        entry.put("prompt", evaluation.getPrompt());
+        entry.put("expected", evaluation.isExpectedNg() ? "ng" : "ok");
+        entry.put("predicted", evaluation.isPredictedNg() ? "ng" : "ok");
+        entry.put("correct", evaluation.isCorrect());
+        entry.put("injectionTypes", evaluation.getInjectionTypes());
+        entry.put("sensitiveTypes", evaluation.getSensitiveTypes());
+        entry.put("medianLatencyMs", evaluation.getMedianLatencyNanos() / NANOS_PER_MS);
+        return entry;
+    }
+
+    private void generateReportFile(Map<String, Object> report) {
+        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+        String reportsDir = "reports";
+        new File(reportsDir).mkdirs();
+        String fileName = reportsDir + "/evaluation_report_" + timestamp + ".json";
+        try {
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(fileName), report);
+            System.out.println("Report generated: " + fileName);
+        } catch (IOException e) {
+            System.err.println("Error writing report file: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.integrationtester;
+
+import com.example.promptngapi.config.ScoreThresholdsConfig;
+import com.example.promptngapi.dto.DetectionDetail;
+import com.example.promptngapi.nlp.AnalyzedText;
+import com.example.promptngapi.nlp.KuromojiAnalyzer;
+import com.example.promptngapi.nlp.LanguageDetectorPool;
+import com.example.promptngapi.service.DetectionContext;
+import com.example.promptngapi.service.PromptInjectionDetector;
+import com.example.promptngapi.service.SensitiveInformationDetector;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Judges every prompt of integration-test.yaml with the real {@link PromptInjectionDetector} and
+ * {@link SensitiveInformationDetector}, in-process and spread over a fixed pool of worker threads.
+ * <p>
+ * Each prompt is analyzed and run through both detectors one after the other on a single worker thread, the same
+ * work /judge does for one request. The verdict is taken from the first measured round; every measured round adds
+ * one latency sample per prompt.
+ */
+@Service
+public class EvaluationService {
+
+    private final EvaluationConfig config;
+    private final ScoreThresholdsConfig scoreThresholdsConfig;
+
+    public EvaluationService(EvaluationConfig config, ScoreThresholdsConfig scoreThresholdsConfig) {
+        this.config = config;
+        this.scoreThresholdsConfig = scoreThresholdsConfig;
+    }
+
+    public List<PromptEvaluation> evaluate() throws InterruptedException {
+        int rounds = Math.max(1, config.getRounds());
+        List<PromptEvaluation> evaluations = new ArrayList<>();
+        for (Map.Entry<String, List<String>> category : PromptCorpus.load().entrySet()) {
+            for (String prompt : category.getValue()) {
+                if (prompt != null && !prompt.trim().isEmpty()) {
+                    evaluations.add(new PromptEvaluation(category.getKey(), prompt, rounds));
+                }
+            }
+        }
+
+        // Created here rather than in the constructor so that the other modes do not pay for loading the dictionaries and rules
+        KuromojiAnalyzer analyzer = new KuromojiAnalyzer();
+        PromptInjectionDetector injectionDetector = new PromptInjectionDetector(analyzer, scoreThresholdsConfig, new LanguageDetectorPool());
+        SensitiveInformationDetector sensitiveDetector = new SensitiveInformationDetector(analyzer);
+        DetectionContext context = DetectionContext.of(scoreThresholdsConfig);
+
+        ExecutorService executor = Executors.newFixedThreadPool(config.resolveThreads());
+        try {
+            for (int round = -Math.max(0, config.getWarmupRounds()); round < rounds; round++) {
+                int measuredRound = round;
+                List<Callable<Void>> tasks = new ArrayList<>(evaluations.size());
+                for (PromptEvaluation evaluation : evaluations) {
+                    tasks.add(() -> {
+                        long start = System.nanoTime();
+                        AnalyzedText analyzedText = analyzer.analyze(evaluation.getPrompt());
+                        List<DetectionDetail> injection = injectionDetector.isPromptInjectionAttempt(analyzedText, context);
+                        List<DetectionDetail> sensitive = sensitiveDetector.hasSensitiveInformation(analyzedText, context);
+                        long elapsed = System.nanoTime() - start;
+                        if (measuredRound == 0) {
+                            evaluation.setDetections(types(injection), types(sensitive));
+                        }
+                        if (measuredRound >= 0) {
+                            evaluation.recordLatency(measuredRound, elapsed);
+                        }
+                        return null;
+                    });
+                }
+                for (Future<Void> future : executor.invokeAll(tasks)) {
+                    future.get();
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Evaluation failed: " + e.getCause(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return evaluations;
+    }
+
+    private static List<String> types(List<DetectionDetail> detections) {
+        return detections.stream().map(DetectionDetail::getType).distinct().collect(Collectors.toList());
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.integrationtester;
 
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -10,6 +11,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 @Component
+@ConditionalOnProperty(name = "integration-tester.mode", havingValue = "keyword", matchIfMissing = true)
 public class IntegrationTestRunner implements CommandLineRunner {
 
     private final TestService testService;
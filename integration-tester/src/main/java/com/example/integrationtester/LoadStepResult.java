@@ -0,0 +1,48 @@
+package com.example.integrationtester;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * The outcome of holding one target rate. Latencies are recorded in nanoseconds.
+ */
+public class LoadStepResult {
+    private final int targetRate;
+    private final long elapsedNanos;
+    private final long succeeded; // 2xx responses
+    private final long rejected; // 503 responses (admission control)
+    private final long failed; // Other non-2xx responses
+    private final long unanswered; // Requests that got no response (connection errors and timeouts)
+    private final Histogram latency; // Every request, measured from the scheduled send time (corrected for coordinated omission)
+    private final Histogram serviceTime; // Every request, measured from the actual send time
+
+    public LoadStepResult(int targetRate, long elapsedNanos, long succeeded, long rejected, long failed, long unanswered,
+                          Histogram latency, Histogram serviceTime) {
+        this.targetRate = targetRate;
+        this.elapsedNanos = elapsedNanos;
+        this.succeeded = succeeded;
+        this.rejected = rejected;
+        this.failed = failed;
+        this.unanswered = unanswered;
+        this.latency = latency;
+        this.serviceTime = serviceTime;
+    }
+
+    public int getTargetRate() { return targetRate; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    public long getSucceeded() { return succeeded; }
+    public long getRejected() { return rejected; }
+    public long getFailed() { return failed; }
+    public long getUnanswered() { return unanswered; }
+    public Histogram getLatency() { return latency; }
+    public Histogram getServiceTime() { return serviceTime; }
+
+    /** Requests that got an HTTP response (any status). */
+    public long getCompleted() {
+        return succeeded + rejected + failed;
+    }
+
+    /** Responses per second, from the start of the step to the last finished request. */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : getCompleted() * 1e9 / elapsedNanos;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.integrationtester;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Settings for the load test mode (integration-tester.mode=load).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "load-test")
+public class LoadTestConfig {
+
+    private String baseUrl = "http://localhost:8080"; // The prompt-ng API to send /prompt-ng/v1/judge requests to
+    private List<Integer> rates = new ArrayList<>(Arrays.asList(50, 100, 200)); // Target request rates (req/s), run one after another
+    private int concurrency = 64; // Maximum number of requests in flight
+    private int durationSeconds = 30; // How long each rate is held
+    private int warmupSeconds = 10; // Warm-up at the first rate before measuring (results discarded)
+    private long timeoutMs = 10000; // Per-request timeout
+    private String requestsFile; // Optional JSON Lines file with one /judge request body per line, replayed after the YAML prompts
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public void setBaseUrl(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public List<Integer> getRates() {
+        return rates;
+    }
+
+    public void setRates(List<Integer> rates) {
+        this.rates = rates;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(int durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public void setWarmupSeconds(int warmupSeconds) {
+        this.warmupSeconds = warmupSeconds;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public void setTimeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    public String getRequestsFile() {
+        return requestsFile;
+    }
+
+    public void setRequestsFile(String requestsFile) {
+        this.requestsFile = requestsFile;
+    }
+}
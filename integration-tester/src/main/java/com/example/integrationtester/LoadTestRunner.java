@@ -0,0 +1,113 @@
+package com.example.integrationtester;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Replays the integration test prompts against a running prompt-ng API at each configured rate
+ * (run with --integration-tester.mode=load).
+ */
+@Component
+@ConditionalOnProperty(name = "integration-tester.mode", havingValue = "load")
+public class LoadTestRunner implements CommandLineRunner {
+
+    private static final double NANOS_PER_MS = 1_000_000.0;
+
+    private final LoadTestService loadTestService;
+    private final LoadTestConfig config;
+
+    public LoadTestRunner(LoadTestService loadTestService, LoadTestConfig config) {
+        this.loadTestService = loadTestService;
+        this.config = config;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        List<String> bodies = loadTestService.loadRequestBodies();
+        if (bodies.isEmpty() || config.getRates().isEmpty()) {
+            System.err.println("Nothing to send: no request bodies or no rates configured.");
+            System.exit(1);
+        }
+        System.out.println("Starting Load Test against " + config.getBaseUrl() + " with " + bodies.size() + " request bodies...");
+
+        if (config.getWarmupSeconds() > 0) {
+            System.out.println("Warming up at " + config.getRates().get(0) + " req/s for " + config.getWarmupSeconds() + "s...");
+            loadTestService.run(config.getRates().get(0), config.getWarmupSeconds(), bodies);
+        }
+
+        List<LoadStepResult> results = new ArrayList<>();
+        for (int rate : config.getRates()) {
+            System.out.println("Running " + rate + " req/s for " + config.getDurationSeconds() + "s...");
+            LoadStepResult result = loadTestService.run(rate, config.getDurationSeconds(), bodies);
+            results.add(result);
+            System.out.println(formatStep(result));
+        }
+
+        generateReportFiles(results, bodies.size());
+
+        // Requests that got no response or an unexpected status make the run fail; 503 is the API shedding load as designed
+        long errors = results.stream().mapToLong(r -> r.getFailed() + r.getUnanswered()).sum();
+        System.exit(errors > 0 ? 1 : 0);
+    }
+
+    private static String formatStep(LoadStepResult result) {
+        Histogram latency = result.getLatency();
+        return String.format(Locale.ROOT,
+                "%6d req/s target | %8.1f req/s achieved | %7d ok | %5d rejected (503) | %5d failed | %5d unanswered | "
+                        + "p50 %8.2f ms | p99 %8.2f ms | p999 %8.2f ms | max %8.2f ms | service p99 %8.2f ms",
+                result.getTargetRate(), result.getThroughput(), result.getSucceeded(),
+                result.getRejected(), result.getFailed(), result.getUnanswered(),
+                percentileMs(latency, 50), percentileMs(latency, 99), percentileMs(latency, 99.9),
+                latency.getMaxValue() / NANOS_PER_MS, percentileMs(result.getServiceTime(), 99));
+    }
+
+    private static double percentileMs(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / NANOS_PER_MS;
+    }
+
+    private void generateReportFiles(List<LoadStepResult> results, int bodyCount) {
+        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+        String reportsDir = "reports";
+        new java.io.File(reportsDir).mkdirs();
+        String fileName = reportsDir + "/load_test_report_" + timestamp + ".txt";
+
+        try (FileWriter writer = new FileWriter(fileName)) {
+            writer.write("--- Load Test Report ---\n");
+            writer.write("Timestamp: " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()) + "\n");
+            writer.write("Target: " + config.getBaseUrl() + "/prompt-ng/v1/judge\n");
+            writer.write("Request bodies: " + bodyCount + "\n");
+            writer.write("Concurrency: " + config.getConcurrency() + ", Duration per rate: " + config.getDurationSeconds()
+                    + "s, Warm-up: " + config.getWarmupSeconds() + "s\n");
+            writer.write("Latencies are measured from the scheduled send time (corrected for coordinated omission);\n");
+            writer.write("service time is measured from the actual send time.\n\n");
+            for (LoadStepResult result : results) {
+                writer.write(formatStep(result) + "\n");
+            }
+            writer.write("\n--- End of Report ---");
+            System.out.println("Report generated: " + fileName);
+        } catch (IOException e) {
+            System.err.println("Error writing report file: " + e.getMessage());
+        }
+
+        // Full latency distributions per rate, in the HdrHistogram percentile format (values in milliseconds)
+        for (LoadStepResult result : results) {
+            String histogramFile = reportsDir + "/load_test_report_" + timestamp + "_" + result.getTargetRate() + "rps.hgrm";
+            try (PrintStream out = new PrintStream(histogramFile, "UTF-8")) {
+                result.getLatency().outputPercentileDistribution(out, NANOS_PER_MS);
+            } catch (IOException e) {
+                System.err.println("Error writing histogram file: " + e.getMessage());
+            }
+        }
+    }
+}
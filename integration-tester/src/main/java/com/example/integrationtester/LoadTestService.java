@@ -0,0 +1,216 @@
+package com.example.integrationtester;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends /prompt-ng/v1/judge requests on a fixed open-loop schedule and records their latencies.
+ * <p>
+ * Request {@code i} is scheduled at {@code start + i / rate} regardless of how earlier requests went, and its latency
+ * is measured from that scheduled time rather than from when it was actually sent. When the server (or the
+ * concurrency limit) falls behind, the time a request spends waiting to be sent is therefore included, instead of
+ * silently lowering the request rate and hiding the stall (coordinated omission). The time from the actual send is
+ * recorded separately as the service time. Requests that fail or time out are recorded up to the moment they gave up,
+ * so the histograms cover every request sent.
+ */
+@Service
+public class LoadTestService {
+
+    private static final String JUDGE_PATH = "/prompt-ng/v1/judge";
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final LoadTestConfig config;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient;
+
+    public LoadTestService(LoadTestConfig config) {
+        this.config = config;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(config.getTimeoutMs()))
+                .build();
+    }
+
+    /**
+     * Builds the request bodies to replay: every prompt of integration-test.yaml, followed by the lines of
+     * {@code load-test.requests-file} when it is set.
+     * <p>
+     * Lines that already have a {@code text} field are sent as-is, so per-request options such as {@code timeoutMs}
+     * are kept. Lines shaped like a backlog or bulk-scan entry ({@code request_id}, {@code title}, {@code body}) are
+     * sent with their {@code body} as the {@code text}. Lines with neither field, or that are not JSON objects, are
+     * skipped and reported: the server would answer them with 400, counting them as failures and mixing the latency of
+     * those errors into the histograms.
+     */
+    public List<String> loadRequestBodies() throws IOException {
+        List<String> bodies = new ArrayList<>();
+        for (Map.Entry<String, List<String>> category : PromptCorpus.load().entrySet()) {
+            for (String prompt : category.getValue()) {
+                if (prompt == null || prompt.trim().isEmpty()) {
+                    continue;
+                }
+                ObjectNode body = objectMapper.createObjectNode();
+                body.put("text", prompt);
+                bodies.add(objectMapper.writeValueAsString(body));
+            }
+        }
+        if (config.getRequestsFile() != null && !config.getRequestsFile().isEmpty()) {
+            int skipped = 0;
+            for (String line : Files.readAllLines(Paths.get(config.getRequestsFile()), StandardCharsets.UTF_8)) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                String body = toJudgeBody(line);
+                if (body == null) {
+                    skipped++;
+                } else {
+                    bodies.add(body);
+                }
+            }
+            if (skipped > 0) {
+                System.out.println("Skipped " + skipped + " lines of " + config.getRequestsFile()
+                        + " that are not JSON objects with a non-empty text or body field");
+            }
+        }
+        return bodies;
+    }
+
+    /**
+     * Turns one line of the requests file into a /judge request body, or returns null when it has no text to judge.
+     */
+    String toJudgeBody(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+        if (!(node instanceof ObjectNode object)) {
+            return null;
+        }
+        if (isNonBlankText(object.get("text"))) {
+            return line;
+        }
+        if (!isNonBlankText(object.get("body"))) {
+            return null;
+        }
+        ObjectNode body = object.deepCopy();
+        body.put("text", object.get("body").asText());
+        body.remove(List.of("body", "title", "request_id"));
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isNonBlankText(JsonNode node) {
+        return node != null && node.isTextual() && !node.asText().trim().isEmpty();
+    }
+
+    /**
+     * Holds {@code rate} requests per second for {@code durationSeconds}, cycling through {@code bodies}.
+     */
+    public LoadStepResult run(int rate, int durationSeconds, List<String> bodies) throws InterruptedException {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Rate must be positive: " + rate);
+        }
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long total = (long) rate * durationSeconds;
+        URI uri = URI.create(config.getBaseUrl() + JUDGE_PATH);
+        AtomicLong next = new AtomicLong();
+        AtomicLong succeeded = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        AtomicLong unanswered = new AtomicLong();
+        AtomicLong lastDone = new AtomicLong();
+
+        int workers = Math.max(1, config.getConcurrency());
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        List<Future<Histogram[]>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int w = 0; w < workers; w++) {
+            futures.add(executor.submit(() -> {
+                // Per-worker histograms, merged afterwards, so recording never contends between workers
+                Histogram latency = new Histogram(SIGNIFICANT_DIGITS);
+                Histogram serviceTime = new Histogram(SIGNIFICANT_DIGITS);
+                long i;
+                while ((i = next.getAndIncrement()) < total) {
+                    long scheduled = start + i * intervalNanos;
+                    long wait;
+                    while ((wait = scheduled - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    HttpRequest request = HttpRequest.newBuilder(uri)
+                            .timeout(Duration.ofMillis(config.getTimeoutMs()))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(bodies.get((int) (i % bodies.size())), StandardCharsets.UTF_8))
+                            .build();
+                    long sent = System.nanoTime();
+                    int status;
+                    try {
+                        status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (IOException e) {
+                        status = -1;
+                    }
+                    long done = System.nanoTime();
+                    // Failed and timed-out requests are recorded too: they are usually the slowest ones, and leaving
+                    // them out would understate the tail latencies
+                    latency.recordValue(done - scheduled);
+                    serviceTime.recordValue(done - sent);
+                    lastDone.accumulateAndGet(done, Math::max);
+                    if (status < 0) {
+                        unanswered.incrementAndGet();
+                    } else if (status >= 200 && status < 300) {
+                        succeeded.incrementAndGet();
+                    } else if (status == 503) {
+                        rejected.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                }
+                return new Histogram[] {latency, serviceTime};
+            }));
+        }
+
+        Histogram latency = new Histogram(SIGNIFICANT_DIGITS);
+        Histogram serviceTime = new Histogram(SIGNIFICANT_DIGITS);
+        try {
+            for (Future<Histogram[]> future : futures) {
+                Histogram[] histograms = future.get();
+                latency.add(histograms[0]);
+                serviceTime.add(histograms[1]);
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Load worker failed: " + e.getCause(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsed = Math.max(lastDone.get(), start) - start;
+        return new LoadStepResult(rate, elapsed, succeeded.get(), rejected.get(), failed.get(), unanswered.get(),
+                latency, serviceTime);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.integrationtester;
+
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the prompts of integration-test.yaml keyed by their full category (e.g. "prompt.ok", "personal.ng"),
+ * in the order they appear in the file.
+ */
+public final class PromptCorpus {
+
+    private static final String YAML_FILE = "/integration-test.yaml";
+
+    private PromptCorpus() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Map<String, List<String>> load() {
+        try (InputStream inputStream = PromptCorpus.class.getResourceAsStream(YAML_FILE)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("YAML file not found: " + YAML_FILE);
+            }
+            Map<String, Object> data = new Yaml().load(inputStream);
+            Map<String, Object> integrationTest = (Map<String, Object>) data.get("integration-test");
+            if (integrationTest == null) {
+                throw new IllegalStateException("Missing 'integration-test' root key in YAML.");
+            }
+            Map<String, List<String>> prompts = new LinkedHashMap<>();
+            for (String categoryType : new String[] {"prompt", "personal"}) {
+                Map<String, List<String>> categoryData = (Map<String, List<String>>) integrationTest.get(categoryType);
+                if (categoryData == null) {
+                    continue;
+                }
+                categoryData.forEach((subCategoryKey, categoryPrompts) -> {
+                    if (categoryPrompts != null) {
+                        prompts.put(categoryType + "." + subCategoryKey, categoryPrompts);
+                    }
+                });
+            }
+            return prompts;
+        } catch (IOException e) {
+            throw new IllegalStateException("Error reading YAML: " + e.getMessage(), e);
+        }
+    }
+}
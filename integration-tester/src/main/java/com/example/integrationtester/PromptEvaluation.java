@@ -0,0 +1,54 @@
+package com.example.integrationtester;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The verdict and latency samples of one prompt from integration-test.yaml, judged by the real detectors.
+ */
+public class PromptEvaluation {
+    private final String category;
+    private final String prompt;
+    private final boolean expectedNg; // "*.ng" categories are expected to be flagged
+    private final long[] latencyNanos; // One sample per measured round (analysis and both detectors)
+    private volatile List<String> injectionTypes = List.of();
+    private volatile List<String> sensitiveTypes = List.of();
+
+    public PromptEvaluation(String category, String prompt, int rounds) {
+        this.category = category;
+        this.prompt = prompt;
+        this.expectedNg = category.endsWith(".ng");
+        this.latencyNanos = new long[rounds];
+    }
+
+    public String getCategory() { return category; }
+    public String getPrompt() { return prompt; }
+    public boolean isExpectedNg() { return expectedNg; }
+    public List<String> getInjectionTypes() { return injectionTypes; }
+    public List<String> getSensitiveTypes() { return sensitiveTypes; }
+    public long[] getLatencyNanos() { return latencyNanos; }
+
+    /** True when either detector reported something, i.e. /judge would return overall_result=false. */
+    public boolean isPredictedNg() {
+        return !injectionTypes.isEmpty() || !sensitiveTypes.isEmpty();
+    }
+
+    public boolean isCorrect() {
+        return expectedNg == isPredictedNg();
+    }
+
+    public long getMedianLatencyNanos() {
+        long[] sorted = latencyNanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    void setDetections(List<String> injectionTypes, List<String> sensitiveTypes) {
+        this.injectionTypes = injectionTypes;
+        this.sensitiveTypes = sensitiveTypes;
+    }
+
+    void recordLatency(int round, long nanos) {
+        latencyNanos[round] = nanos;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.integrationtester;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoadTestServiceTest {
+
+    private HttpServer server;
+    private volatile long responseDelayMs;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/prompt-ng/v1/judge", exchange -> {
+            try {
+                Thread.sleep(responseDelayMs);
+                exchange.sendResponseHeaders(200, -1);
+            } catch (InterruptedException | IOException e) {
+                // The client has given up on this request
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private LoadTestService service(long timeoutMs) {
+        LoadTestConfig config = new LoadTestConfig();
+        config.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        config.setConcurrency(8);
+        config.setTimeoutMs(timeoutMs);
+        return new LoadTestService(config);
+    }
+
+    @Test
+    void testTimedOutRequestsAreRecordedInLatency() throws InterruptedException {
+        responseDelayMs = 2000;
+
+        LoadStepResult result = service(200).run(10, 1, List.of("{\"text\": \"今日の天気は？\"}"));
+
+        assertThat(result.getUnanswered()).isEqualTo(10);
+        assertThat(result.getSucceeded()).isZero();
+        assertThat(result.getLatency().getTotalCount()).isEqualTo(10);
+        assertThat(result.getLatency().getValueAtPercentile(50)).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+        assertThat(result.getServiceTime().getTotalCount()).isEqualTo(10);
+    }
+
+    @Test
+    void testAnsweredRequestsAreCounted() throws InterruptedException {
+        responseDelayMs = 0;
+
+        LoadStepResult result = service(2000).run(20, 1, List.of("{\"text\": \"今日の天気は？\"}"));
+
+        assertThat(result.getSucceeded()).isEqualTo(20);
+        assertThat(result.getUnanswered()).isZero();
+        assertThat(result.getLatency().getTotalCount()).isEqualTo(20);
+    }
+
+    @Test
+    void testRequestsFileLinesAreMappedToJudgeBodies(@TempDir Path dir) throws IOException {
+        Path requestsFile = dir.resolve("requests.jsonl");
+        Files.write(requestsFile, List.of(
+                "{\"request_id\": \"user-001\", \"title\": \"Cache lookups\", \"body\": \"Reuse the analyzed text.\"}",
+                "{\"text\": \"今日の天気は？\", \"timeoutMs\": 200}",
+                "{\"request_id\": \"user-002\", \"title\": \"No body\"}",
+                "not json",
+                ""), StandardCharsets.UTF_8);
+        int corpusSize = new LoadTestService(new LoadTestConfig()).loadRequestBodies().size();
+        LoadTestConfig config = new LoadTestConfig();
+        config.setRequestsFile(requestsFile.toString());
+
+        List<String> bodies = new LoadTestService(config).loadRequestBodies();
+
+        assertThat(bodies.subList(corpusSize, bodies.size())).containsExactly(
+                "{\"text\":\"Reuse the analyzed text.\"}",
+                "{\"text\": \"今日の天気は？\", \"timeoutMs\": 200}");
+    }
+}
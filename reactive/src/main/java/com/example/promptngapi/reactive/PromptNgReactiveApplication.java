@@ -0,0 +1,38 @@
+package com.example.promptngapi.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationExcludeFilter;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+
+/**
+ * Prompt NG API の WebFlux 版のエントリポイントです。
+ * <p>
+ * 検出器・形態素解析・設定は prompt-ng-api の Bean をそのまま使います。
+ * サーブレット版のコントローラー ({@code com.example.promptngapi.controller}) はスキャンしません。
+ * 共有パッケージにあるサーブレット版のエンドポイント専用のサービスと設定 (一括判定、会話の判定、逐次判定、流量制御など) は
+ * {@code @ConditionalOnWebApplication(type = SERVLET)} が付いているため、WebFlux アプリケーションでは作成されません。
+ * 共有パッケージにサーブレット版専用の Bean を追加する場合は、同じ条件を付けてください。
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@ComponentScan(
+    basePackages = {
+        "com.example.promptngapi.reactive",
+        "com.example.promptngapi.config",
+        "com.example.promptngapi.nlp",
+        "com.example.promptngapi.service"
+    },
+    excludeFilters = {
+        @ComponentScan.Filter(type = FilterType.CUSTOM, classes = TypeExcludeFilter.class),
+        @ComponentScan.Filter(type = FilterType.CUSTOM, classes = AutoConfigurationExcludeFilter.class)
+    })
+public class PromptNgReactiveApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(PromptNgReactiveApplication.class, args);
+    }
+}
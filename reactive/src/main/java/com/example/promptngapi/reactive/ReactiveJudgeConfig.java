@@ -0,0 +1,63 @@
+package com.example.promptngapi.reactive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * WebFlux 版の判定 API の設定を保持するクラス。
+ * これらの設定は `application.yaml` の `reactive-judge` セクションからロードされます。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "reactive-judge")
+public class ReactiveJudgeConfig {
+
+    private int poolSize = Runtime.getRuntime().availableProcessors(); // 検出を実行するスレッド数 (全リクエストで共有)
+
+    private int queueCapacity = 1000; // 実行待ちの上限。超えた場合は 503 を返す
+
+    private long timeoutMs = 10000; // 1 件の判定の期限 (実行待ちの時間を含む、ミリ秒)。超えた場合は 503 を返す
+
+    private int maxItems = 100; // バッチ判定の 1 リクエストに含められる項目数の上限
+
+    private int batchConcurrency = Runtime.getRuntime().availableProcessors(); // バッチ判定の 1 リクエストで同時に判定する項目数
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public void setTimeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    public void setMaxItems(int maxItems) {
+        this.maxItems = maxItems;
+    }
+
+    public int getBatchConcurrency() {
+        return batchConcurrency;
+    }
+
+    public void setBatchConcurrency(int batchConcurrency) {
+        this.batchConcurrency = batchConcurrency;
+    }
+}
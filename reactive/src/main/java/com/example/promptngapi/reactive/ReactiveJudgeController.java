@@ -0,0 +1,118 @@
+package com.example.promptngapi.reactive;
+
+import com.example.promptngapi.dto.PromptNGResponse;
+import com.example.promptngapi.dto.PromptRequest;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Prompt NG API の WebFlux 版のコントローラーです。
+ * サーブレット版 ({@code PromptNGController}) の {@code /judge} と {@code /judge/batch} を同じパス・同じ形式で提供します。
+ * リクエストの受け付けとレスポンスの書き出しはイベントループスレッドで行い、判定は {@link ReactiveJudgeService} のスケジューラーで実行します。
+ */
+@RestController
+@RequestMapping("/prompt-ng/v1")
+@Tag(name = "プロンプト判定API (WebFlux)", description = "機密情報やプロンプトインジェクションの試みをテキストプロンプトから検出するAPI")
+public class ReactiveJudgeController {
+
+    private final ReactiveJudgeService reactiveJudgeService;
+    private final ReactiveJudgeConfig reactiveJudgeConfig;
+
+    @Autowired
+    public ReactiveJudgeController(ReactiveJudgeService reactiveJudgeService, ReactiveJudgeConfig reactiveJudgeConfig) {
+        this.reactiveJudgeService = reactiveJudgeService;
+        this.reactiveJudgeConfig = reactiveJudgeConfig;
+    }
+
+    /**
+     * 提供されたテキストに対し、機密情報およびプロンプトインジェクションの試みを判定します。
+     * 時間の上限 (timeoutMs) はサーブレット版と同じく適用します。判定の内訳 (debug) は返しません。
+     *
+     * @param request 判定対象のテキストを含むリクエストボディ。バリデーションされます。
+     * @return 判定結果
+     */
+    @PostMapping("/judge")
+    @Operation(summary = "プロンプト判定", description = "提供されたテキストに対し、機密情報およびプロンプトインジェクションの試みを判定します。")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "判定成功",
+            content = @Content(mediaType = "application/json",
+            schema = @Schema(implementation = PromptNGResponse.class))),
+        @ApiResponse(responseCode = "400", description = "リクエスト不正 (例: textフィールドが空)",
+            content = @Content),
+        @ApiResponse(responseCode = "503", description = "判定が制限時間内に完了しなかった、または実行待ちが上限に達した",
+            content = @Content)
+    })
+    public Mono<PromptNGResponse> judgePrompt(@Valid @RequestBody Mono<PromptRequest> request) {
+        return request.flatMap(reactiveJudgeService::judge);
+    }
+
+    /**
+     * 複数のプロンプトをまとめて判定し、リクエストと同じ順序で結果の配列を返します。
+     * 各項目の判定内容と閾値の扱いは {@link #judgePrompt(Mono)} と同じです。
+     * すべての項目の判定が終わってからレスポンスを返すため、途中の項目の失敗もステータスコードで返せます。
+     *
+     * @param requests 判定対象の項目の配列。各項目はバリデーションされます。
+     * @return リクエストと同じ順序の判定結果の配列
+     */
+    @PostMapping(value = "/judge/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "プロンプト一括判定",
+        description = "複数のプロンプトをまとめて判定し、リクエストと同じ順序で結果を返します。同時に判定する項目数は reactive-judge.batch-concurrency までです。")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "判定成功",
+            content = @Content(mediaType = "application/json",
+            array = @ArraySchema(schema = @Schema(implementation = PromptNGResponse.class)))),
+        @ApiResponse(responseCode = "400", description = "リクエスト不正 (例: textフィールドが空、項目数が上限を超えている)",
+            content = @Content),
+        @ApiResponse(responseCode = "503", description = "判定が制限時間内に完了しなかった、または実行待ちが上限に達した",
+            content = @Content)
+    })
+    public Mono<List<PromptNGResponse>> judgeBatch(@Valid @RequestBody Flux<PromptRequest> requests) {
+        return limitItems(requests)
+            .flatMapMany(reactiveJudgeService::judgeAll)
+            .collectList();
+    }
+
+    /**
+     * {@link #judgeBatch(Flux)} と同じ判定を行い、先頭の項目から判定が終わった順に NDJSON で書き出します
+     * ({@code Accept: application/x-ndjson} を指定した場合)。
+     * 書き出しはクライアントの読み込みに合わせて進み、読み込みが遅い間は次の項目の判定を始めません。
+     * レスポンスの書き出しを始めた後に項目の判定が失敗した場合は、接続を切断します。
+     *
+     * @param requests 判定対象の項目の配列。各項目はバリデーションされます。
+     * @return リクエストと同じ順序の判定結果
+     */
+    @PostMapping(value = "/judge/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "プロンプト一括判定 (NDJSON)",
+        description = "複数のプロンプトをまとめて判定し、リクエストと同じ順序で結果を NDJSON で逐次返します。")
+    public Flux<PromptNGResponse> judgeBatchStream(@Valid @RequestBody Flux<PromptRequest> requests) {
+        return limitItems(requests).flatMapMany(reactiveJudgeService::judgeAll);
+    }
+
+    // 項目数の上限を、判定を始める前に (= レスポンスを書き出す前に) 確認する。上限 + 1 件目でリクエストボディの読み込みを止める
+    private Mono<Flux<PromptRequest>> limitItems(Flux<PromptRequest> requests) {
+        int maxItems = reactiveJudgeConfig.getMaxItems();
+        return requests.take(maxItems + 1L).collectList().map(items -> {
+            if (items.size() > maxItems) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Too many items (max " + maxItems + ")");
+            }
+            return Flux.fromIterable(items);
+        });
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.promptngapi.reactive;
+
+import com.example.promptngapi.config.ScoreThresholdsConfig;
+import com.example.promptngapi.dto.DetectionDetail;
+import com.example.promptngapi.dto.PromptNGResponse;
+import com.example.promptngapi.dto.PromptRequest;
+import com.example.promptngapi.nlp.KuromojiAnalyzer;
+import com.example.promptngapi.service.DetectionContext;
+import com.example.promptngapi.service.DetectionTimeoutException;
+import com.example.promptngapi.service.PromptJudgeService;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 判定を Reactor の {@link Mono} / {@link Flux} として提供するサービスです。
+ * <p>
+ * リクエストはイベントループスレッドで受け付け、CPU を使う形態素解析と検出器は専用の上限付きスケジューラー
+ * ({@code reactive-judge.pool-size} スレッド、実行待ち {@code reactive-judge.queue-capacity} 件まで) で実行します。
+ * 待ち時間の長いクライアントがいてもスレッドを占有しないため、少ないスレッドで多数の接続を保持できます。
+ * <ul>
+ *   <li>実行待ちが上限に達した場合は、待たせずに 503 Service Unavailable で拒否します。</li>
+ *   <li>クライアントが切断するなどして購読が取り消された場合、まだ始まっていない判定は実行されません。
+ *       実行中の判定は {@link DetectionContext} の期限で打ち切られます。</li>
+ *   <li>バッチ判定は同時に判定する項目数を {@code reactive-judge.batch-concurrency} に制限し、
+ *       結果の購読側 (レスポンスの書き出し) が要求した分だけ次の項目の判定を始めます (バックプレッシャー)。</li>
+ * </ul>
+ */
+@Service
+public class ReactiveJudgeService {
+
+    private final KuromojiAnalyzer kuromojiAnalyzer;
+    private final PromptJudgeService promptJudgeService;
+    private final ScoreThresholdsConfig scoreThresholdsConfig;
+    private final ReactiveJudgeConfig reactiveJudgeConfig;
+    private final Scheduler scheduler;
+
+    @Autowired
+    public ReactiveJudgeService(KuromojiAnalyzer kuromojiAnalyzer,
+                                PromptJudgeService promptJudgeService,
+                                ScoreThresholdsConfig scoreThresholdsConfig,
+                                ReactiveJudgeConfig reactiveJudgeConfig) {
+        this.kuromojiAnalyzer = kuromojiAnalyzer;
+        this.promptJudgeService = promptJudgeService;
+        this.scoreThresholdsConfig = scoreThresholdsConfig;
+        this.reactiveJudgeConfig = reactiveJudgeConfig;
+        this.scheduler = Schedulers.newBoundedElastic(
+            reactiveJudgeConfig.getPoolSize(), reactiveJudgeConfig.getQueueCapacity(), "reactive-judge", 60, true);
+    }
+
+    /**
+     * 1 件を判定します。結果は {@code /prompt-ng/v1/judge} と同じ形式です。
+     * 期限 ({@code reactive-judge.timeout-ms}) は購読した時点から数え、実行待ちの時間も含みます。
+     * 項目に時間の上限 ({@code timeoutMs}) がある場合は、サーブレット版と同じく検出の段階を軽い順に実行し、
+     * 上限を過ぎた時点で部分的な判定を返します。判定の内訳 ({@code debug}) は返しません。
+     *
+     * @param request 判定する項目 (text は空でないこと)
+     * @return 判定結果。期限切れの場合は {@link DetectionTimeoutException}、実行待ちが上限に達した場合は 503 の
+     *         {@link ResponseStatusException} でエラーになります。
+     */
+    public Mono<PromptNGResponse> judge(PromptRequest request) {
+        return Mono.defer(() -> {
+            DetectionContext context = DetectionContext.of(scoreThresholdsConfig,
+                    request.getSimilarityThreshold(), request.getNonJapaneseSentenceWordThreshold())
+                .withTimeout(reactiveJudgeConfig.getTimeoutMs());
+            Duration timeout = Duration.ofNanos(context.remainingNanos());
+            // 項目の時間の上限は検出の期限にだけ適用し、過ぎた場合はエラーにせず部分的な判定を返す
+            DetectionContext detectionContext = request.getTimeoutMs() != null ? context.withTimeout(request.getTimeoutMs()) : context;
+            return Mono.fromCallable(() -> judgeNow(request, detectionContext))
+                .subscribeOn(scheduler)
+                .timeout(timeout);
+        }).onErrorMap(TimeoutException.class,
+            e -> new DetectionTimeoutException("Detection did not complete within the configured timeout")
+        ).onErrorMap(RejectedExecutionException.class,
+            e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many pending detections", e));
+    }
+
+    /**
+     * 項目を順に判定し、入力と同じ順序で結果を返します。
+     * 同時に判定する項目は {@code reactive-judge.batch-concurrency} 件までで、それ以上は入力から要求しません。
+     *
+     * @param requests 判定する項目
+     * @return 各項目の判定結果
+     */
+    public Flux<PromptNGResponse> judgeAll(Flux<PromptRequest> requests) {
+        int concurrency = reactiveJudgeConfig.getBatchConcurrency();
+        return requests.flatMapSequential(this::judge, concurrency, 1);
+    }
+
+    private PromptNGResponse judgeNow(PromptRequest request, DetectionContext context) {
+        // このスケジューラーのスレッドで検出器を順番に実行する (別のスレッドプールに渡して待つとスレッドが 2 つ必要になるため)
+        if (request.getTimeoutMs() != null) {
+            // 実行待ちの間に上限を過ぎていても、完了した段階のない部分的な判定を返す
+            PromptJudgeService.BudgetedResult budgeted =
+                promptJudgeService.judgeWithinBudget(kuromojiAnalyzer.analyze(request.getText()), context);
+            PromptNGResponse response = new PromptNGResponse(budgeted.detections().isEmpty(), budgeted.detections(),
+                context.getSimilarityThreshold(), context.getNonJapaneseSentenceWordThreshold());
+            budgeted.applyTo(response);
+            return response;
+        }
+        // 実行待ちの間に期限を過ぎていれば、解析せずに打ち切る
+        context.checkDeadline();
+        List<DetectionDetail> detections = promptJudgeService.judgeSequentially(kuromojiAnalyzer.analyze(request.getText()), context);
+        return new PromptNGResponse(detections.isEmpty(), detections,
+            context.getSimilarityThreshold(), context.getNonJapaneseSentenceWordThreshold());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.dispose();
+    }
+}
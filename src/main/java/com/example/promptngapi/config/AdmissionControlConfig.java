@@ -0,0 +1,85 @@
+package com.example.promptngapi.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 判定 (/prompt-ng/v1/judge) の流量制御の設定を保持するクラス。
+ * これらの設定は `application.yaml` の `admission-control` セクションからロードされます。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "admission-control")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AdmissionControlConfig {
+
+    private boolean enabled = true; // false の場合は、同時実行数を制限しない
+
+    private int initialLimit = Runtime.getRuntime().availableProcessors(); // 同時実行数の上限の初期値
+
+    private int minLimit = 1; // 同時実行数の上限の下限
+
+    private int maxLimit = Runtime.getRuntime().availableProcessors() * 8; // 同時実行数の上限の上限
+
+    private int queueCapacity = 256; // 上限に達している間に待たせるリクエスト数の上限。超えた場合はすぐに 503 を返す
+
+    private long queueTimeoutMs = 1000; // 1 リクエストが待つ時間の上限 (ミリ秒)。超えた場合は 503 を返す
+
+    private double smoothing = 0.2; // 上限を新しい推定値に近づける割合 (0 より大きく 1 以下)
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getQueueTimeoutMs() {
+        return queueTimeoutMs;
+    }
+
+    public void setQueueTimeoutMs(long queueTimeoutMs) {
+        this.queueTimeoutMs = queueTimeoutMs;
+    }
+
+    public double getSmoothing() {
+        return smoothing;
+    }
+
+    public void setSmoothing(double smoothing) {
+        this.smoothing = smoothing;
+    }
+}
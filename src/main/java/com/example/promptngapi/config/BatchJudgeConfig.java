@@ -0,0 +1,65 @@
+package com.example.promptngapi.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * バッチ判定 (/prompt-ng/v1/judge/batch) の設定を保持するクラス。
+ * これらの設定は `application.yaml` の `batch-judge` セクションからロードされます。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "batch-judge")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BatchJudgeConfig {
+
+    private int maxItems = 100; // 1 リクエストに含められる項目数の上限
+
+    private int poolSize = Runtime.getRuntime().availableProcessors(); // 項目を判定するスレッド数 (全バッチリクエストで共有)
+
+    private long timeoutMs = 30000; // バッチ全体の完了を待つ時間 (ミリ秒)。超えた場合は 503 を返す
+
+    private int queueCapacity = 1000; // 全バッチリクエストで実行待ち・判定中にできる項目数の上限。超える場合は 503 を返す
+
+    private long maxSizeDelayMs = 1000; // テキストの長い項目を後回しにする時間の上限 (ミリ秒)。これより前に受け付けた項目は追い越さない
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    public void setMaxItems(int maxItems) {
+        this.maxItems = maxItems;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public void setTimeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getMaxSizeDelayMs() {
+        return maxSizeDelayMs;
+    }
+
+    public void setMaxSizeDelayMs(long maxSizeDelayMs) {
+        this.maxSizeDelayMs = maxSizeDelayMs;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.promptngapi.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 一括スキャン (/prompt-ng/v1/judge/bulk) の設定を保持するクラス。
+ * これらの設定は `application.yaml` の `bulk-judge` セクションからロードされます。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bulk-judge")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BulkJudgeConfig {
+
+    private int poolSize = Runtime.getRuntime().availableProcessors(); // 行を判定するスレッド数 (全リクエストで共有)
+
+    private int maxInFlight = 64; // 1 リクエストで同時に読み込み済み・未出力の状態にできる行数の上限
+
+    private int maxLineChars = 1_000_000; // 1 行の最大文字数。超えた行は判定せずにエラーとして出力する
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public int getMaxLineChars() {
+        return maxLineChars;
+    }
+
+    public void setMaxLineChars(int maxLineChars) {
+        this.maxLineChars = maxLineChars;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.promptngapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 検出器の並行実行の設定を保持するクラス。
+ * これらの設定は `application.yaml` の `concurrent-detection` セクションからロードされます。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "concurrent-detection")
+public class ConcurrentDetectionConfig {
+
+    private boolean enabled = true; // false の場合は、リクエストスレッドで検出器を順番に実行する
+
+    private int poolSize = Math.max(2, Runtime.getRuntime().availableProcessors()); // 検出器を実行するスレッド数
+
+    private int queueCapacity = 256; // 実行待ちの上限。超えた場合は 503 で拒否する
+
+    private long timeoutMs = 10000; // 全検出器の完了を待つ時間 (ミリ秒)。超えた場合は 503 を返す
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public void setTimeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.promptngapi.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 会話の判定 (/prompt-ng/v1/judge/conversation) の設定を保持するクラス。
+ * これらの設定は `application.yaml` の `conversation-judge` セクションからロードされます。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "conversation-judge")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ConversationJudgeConfig {
+
+    private int maxTurns = 500; // 1 リクエストに含められるターン数の上限
+
+    private int maxSessions = 10000; // 解析結果を保持する会話数の上限。超えた場合は最も長く使われていない会話から破棄する
+
+    private int maxTurnsPerSession = 1000; // 1 つの会話で解析結果を保持するターン数の上限
+
+    private long sessionTtlMs = 1800000; // 最後に使われてからこの時間 (ミリ秒) が過ぎた会話の解析結果は破棄する
+
+    public int getMaxTurns() {
+        return maxTurns;
+    }
+
+    public void setMaxTurns(int maxTurns) {
+        this.maxTurns = maxTurns;
+    }
+
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    public void setMaxSessions(int maxSessions) {
+        this.maxSessions = maxSessions;
+    }
+
+    public int getMaxTurnsPerSession() {
+        return maxTurnsPerSession;
+    }
+
+    public void setMaxTurnsPerSession(int maxTurnsPerSession) {
+        this.maxTurnsPerSession = maxTurnsPerSession;
+    }
+
+    public long getSessionTtlMs() {
+        return sessionTtlMs;
+    }
+
+    public void setSessionTtlMs(long sessionTtlMs) {
+        this.sessionTtlMs = sessionTtlMs;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.promptngapi.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 判定の内訳 (/judge の debug=true) の設定を保持するクラス。
+ * これらの設定は `application.yaml` の `debug-timing` セクションからロードされます。
+ * 内訳を返してよいかどうかの判断は {@link DebugTimingPolicy} が行います。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "debug-timing")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class DebugTimingConfig {
+
+    private List<String> allowedAddresses = new ArrayList<>(); // production プロファイルで debug=true を受け付けるクライアントの IP アドレス
+
+    public List<String> getAllowedAddresses() {
+        return allowedAddresses;
+    }
+
+    public void setAllowedAddresses(List<String> allowedAddresses) {
+        this.allowedAddresses = allowedAddresses;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.promptngapi.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * 判定の内訳 (/judge の debug=true) を返してよいかどうかを判断します。
+ * 内訳にはルール数や処理時間などの内部の情報が含まれるため、{@link OpenApiConfig} が API ドキュメントを公開しないのと同じく、
+ * production プロファイルでは {@code debug-timing.allowed-addresses} に含まれるクライアントからのリクエストでのみ返します。
+ * それ以外のプロファイルでは常に返します。
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class DebugTimingPolicy {
+
+    private final boolean production;
+    private final DebugTimingConfig debugTimingConfig;
+
+    @Autowired
+    public DebugTimingPolicy(Environment environment, DebugTimingConfig debugTimingConfig) {
+        this.production = Arrays.asList(environment.getActiveProfiles()).contains("production");
+        this.debugTimingConfig = debugTimingConfig;
+    }
+
+    /**
+     * 判定の内訳を返してよい場合は true を返します。
+     *
+     * @param remoteAddress クライアントの IP アドレス (プロキシの背後では server.forward-headers-strategy の設定に従います)
+     */
+    public boolean isPermitted(String remoteAddress) {
+        if (!production) {
+            return true;
+        }
+        return remoteAddress != null && debugTimingConfig.getAllowedAddresses().contains(remoteAddress);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.promptngapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * gRPC 版の API (src/main/proto/prompt_ng.proto) のサーバー設定を保持するクラス。
+ * これらの設定は `application.yaml` の `grpc` セクションからロードされます。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "grpc")
+public class GrpcServerConfig {
+
+    private boolean enabled = true; // false にすると gRPC サーバーを起動しない
+
+    private int port = 9090; // 待ち受けるポート。0 の場合は空いているポートを使用する
+
+    private int poolSize = Runtime.getRuntime().availableProcessors(); // JudgeStream の項目を判定するスレッド数 (全ストリームで共有)
+
+    private int streamMaxInFlight = 64; // 1 ストリームで判定中・送信待ちにできる項目数の上限
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public int getStreamMaxInFlight() {
+        return streamMaxInFlight;
+    }
+
+    public void setStreamMaxInFlight(int streamMaxInFlight) {
+        this.streamMaxInFlight = streamMaxInFlight;
+    }
+}
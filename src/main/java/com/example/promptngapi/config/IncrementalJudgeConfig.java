@@ -0,0 +1,65 @@
+package com.example.promptngapi.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 逐次判定 (WebSocket の /prompt-ng/v1/judge/ws) の設定を保持するクラス。
+ * これらの設定は `application.yaml` の `incremental-judge` セクションからロードされます。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "incremental-judge")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class IncrementalJudgeConfig {
+
+    private boolean enabled = true; // false にすると WebSocket エンドポイントを登録しない
+
+    private int maxPendingChars = 4096; // 文の区切りが来るまで保持する文字数の上限。超えた場合はその位置で区切って判定する
+
+    private int overlapChars = 256; // 文の途中で区切った場合に次の判定へ重複させる文字数 (区切りをまたぐ一致を拾うため、maxPendingChars の半分以下)
+
+    private int maxMessageChars = 65536; // 1 メッセージの差分の最大文字数。超えた場合は接続を閉じる
+
+    private String[] allowedOrigins = {}; // WebSocket のハンドシェイクを許可するオリジン (空の場合は同一オリジンのみ)
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxPendingChars() {
+        return maxPendingChars;
+    }
+
+    public void setMaxPendingChars(int maxPendingChars) {
+        this.maxPendingChars = maxPendingChars;
+    }
+
+    public int getOverlapChars() {
+        return overlapChars;
+    }
+
+    public void setOverlapChars(int overlapChars) {
+        this.overlapChars = overlapChars;
+    }
+
+    public int getMaxMessageChars() {
+        return maxMessageChars;
+    }
+
+    public void setMaxMessageChars(int maxMessageChars) {
+        this.maxMessageChars = maxMessageChars;
+    }
+
+    public String[] getAllowedOrigins() {
+        return allowedOrigins;
+    }
+
+    public void setAllowedOrigins(String[] allowedOrigins) {
+        this.allowedOrigins = allowedOrigins;
+    }
+}
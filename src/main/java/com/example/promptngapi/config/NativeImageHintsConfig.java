@@ -0,0 +1,70 @@
+package com.example.promptngapi.config;
+
+import com.example.promptngapi.dto.BulkJudgeRequest;
+import com.example.promptngapi.dto.BulkJudgeResult;
+import com.example.promptngapi.dto.CompactJudgeResponse;
+import com.example.promptngapi.dto.IncrementalJudgeEvent;
+import com.example.promptngapi.dto.IncrementalJudgeMessage;
+import com.example.promptngapi.dto.PromptNGResponse;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Spring AOT / GraalVM ネイティブイメージ向けのリソースヒントとリフレクションヒントを登録する設定クラスです。
+ * 検出器が起動時にクラスパスから読み込む辞書・言語モデル・ルールファイルは
+ * リフレクションではなくリソースとして参照されるため、ここで明示的に登録しておかないと
+ * ネイティブイメージに含まれません。
+ * <p>
+ * Kuromoji (辞書はファクトリーメソッドで直接生成)、Optimaize (言語プロファイルは独自の JSON リーダーで読み込み)、
+ * Tika の言語検出器 ({@code new OptimaizeLangDetector()} で直接生成し、ServiceLoader は使わない) は
+ * いずれもクラスをリフレクションで読み込まないため、これらのライブラリのクラスにはリフレクションヒントは不要です。
+ * ルールファイルも SnakeYAML で Map として読み込むため不要です。
+ * 一方、宣言された型から Spring AOT が推論できない Jackson のバインディング (戻り値が {@code Object} のエンドポイントや、
+ * {@link com.fasterxml.jackson.databind.ObjectMapper} を直接使う一括スキャン・WebSocket) の DTO は、
+ * {@link DtoReflectionHints} で登録します。
+ * 通常の JVM 実行時には何の影響もありません。
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints({NativeImageHintsConfig.DetectorResourceHints.class, NativeImageHintsConfig.DtoReflectionHints.class})
+public class NativeImageHintsConfig {
+
+    static class DetectorResourceHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // ルール定義と閾値設定 (application.yaml 以外は自動登録されない)
+            hints.resources().registerPattern("prompt_injection_rules.yaml");
+            hints.resources().registerPattern("sensitive_info_rules.yaml");
+            hints.resources().registerPattern("score_thresholds.yaml");
+
+            // 住所検出用の都道府県・市区町村辞書
+            hints.resources().registerPattern("address_gazetteer.csv");
+
+            // kuromoji-ipadic の辞書バイナリ (Tokenizer の static 初期化で読み込まれる)
+            hints.resources().registerPattern("com/atilika/kuromoji/ipadic/*.bin");
+
+            // Tika Optimaize の言語プロファイルとメッセージバンドル
+            hints.resources().registerPattern("languages/*");
+            hints.resources().registerPattern("languages.shorttext/*");
+            hints.resources().registerResourceBundle("com.optimaize.langdetect.cybozu.util.messages");
+        }
+    }
+
+    static class DtoReflectionHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // プロパティの型 (DetectionDetail、JudgeTiming など) と @JsonSerialize のシリアライザーもたどって登録される
+            new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                // /judge と /judge/batch は verbosity によって形式が変わるため、戻り値の型を Object と宣言している
+                PromptNGResponse.class, CompactJudgeResponse.class,
+                // 一括スキャンの各行 (BulkJudgeService が ObjectMapper で直接読み書きする)
+                BulkJudgeRequest.class, BulkJudgeResult.class,
+                // 逐次判定の WebSocket メッセージ (IncrementalJudgeWebSocketHandler が ObjectMapper で直接読み書きする)
+                IncrementalJudgeMessage.class, IncrementalJudgeEvent.class);
+        }
+    }
+}
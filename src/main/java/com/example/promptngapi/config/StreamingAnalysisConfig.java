@@ -0,0 +1,45 @@
+package com.example.promptngapi.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * ストリーミング (チャンク分割) 解析の設定を保持するクラス。
+ * これらの設定は `application.yaml` の `streaming-analysis` セクションからロードされます。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "streaming-analysis")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class StreamingAnalysisConfig {
+
+    private int maxChunkChars = 4096; // 1 チャンクの最大文字数
+
+    private int overlapChars = 256; // チャンク間で重複させる文字数 (境界をまたぐ一致を拾うため)
+
+    private int maxDetections = 1000; // レスポンスに含める検出結果の上限
+
+    public int getMaxChunkChars() {
+        return maxChunkChars;
+    }
+
+    public void setMaxChunkChars(int maxChunkChars) {
+        this.maxChunkChars = maxChunkChars;
+    }
+
+    public int getOverlapChars() {
+        return overlapChars;
+    }
+
+    public void setOverlapChars(int overlapChars) {
+        this.overlapChars = overlapChars;
+    }
+
+    public int getMaxDetections() {
+        return maxDetections;
+    }
+
+    public void setMaxDetections(int maxDetections) {
+        this.maxDetections = maxDetections;
+    }
+}
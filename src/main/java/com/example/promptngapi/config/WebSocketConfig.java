@@ -0,0 +1,58 @@
+package com.example.promptngapi.config;
+
+import com.example.promptngapi.websocket.IncrementalJudgeWebSocketHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * 逐次判定の WebSocket エンドポイント ({@code /prompt-ng/v1/judge/ws}) を登録する設定クラス。
+ * {@code incremental-judge.enabled} が false の場合と、サーブレット版以外 (WebFlux 版) のアプリケーションでは登録しません。
+ */
+@Configuration
+@EnableWebSocket
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "incremental-judge", name = "enabled", matchIfMissing = true)
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    // Tomcat の WebSocket のテキストメッセージのバッファサイズ (文字数) を指定するコンテキストパラメーター
+    private static final String TEXT_BUFFER_SIZE_PARAMETER = "org.apache.tomcat.websocket.textBufferSize";
+
+    // メッセージの JSON のうち、差分以外の部分に見込む文字数
+    private static final int MESSAGE_ENVELOPE_CHARS = 1024;
+
+    private final IncrementalJudgeWebSocketHandler incrementalJudgeWebSocketHandler;
+    private final IncrementalJudgeConfig incrementalJudgeConfig;
+
+    @Autowired
+    public WebSocketConfig(IncrementalJudgeWebSocketHandler incrementalJudgeWebSocketHandler,
+                           IncrementalJudgeConfig incrementalJudgeConfig) {
+        this.incrementalJudgeWebSocketHandler = incrementalJudgeWebSocketHandler;
+        this.incrementalJudgeConfig = incrementalJudgeConfig;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(incrementalJudgeWebSocketHandler, "/prompt-ng/v1/judge/ws")
+            .setAllowedOrigins(incrementalJudgeConfig.getAllowedOrigins());
+    }
+
+    /**
+     * {@code incremental-judge.max-message-chars} 文字の差分を含むメッセージを受け取れるよう、Tomcat のバッファを広げます
+     * (既定の 8192 文字を超えるメッセージは、ハンドラーに届く前に接続が閉じられるため)。
+     * 組み込みサーバーを起動する場合にだけ適用されます。
+     */
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> webSocketBufferCustomizer() {
+        int bufferSize = incrementalJudgeConfig.getMaxMessageChars() + MESSAGE_ENVELOPE_CHARS;
+        return factory -> factory.addContextCustomizers(context ->
+            context.addParameter(TEXT_BUFFER_SIZE_PARAMETER, String.valueOf(bufferSize)));
+    }
+}
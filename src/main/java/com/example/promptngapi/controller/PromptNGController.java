@@ -1,25 +1,69 @@
 package com.example.promptngapi.controller;
 
+import com.example.promptngapi.config.BatchJudgeConfig;
+import com.example.promptngapi.config.ConversationJudgeConfig;
+import com.example.promptngapi.config.DebugTimingPolicy;
 import com.example.promptngapi.config.ScoreThresholdsConfig;
+import com.example.promptngapi.dto.BulkJudgeResult;
+import com.example.promptngapi.dto.CompactJudgeResponse;
+import com.example.promptngapi.dto.ConversationJudgeRequest;
+import com.example.promptngapi.dto.ConversationJudgeResponse;
 import com.example.promptngapi.dto.DetectionDetail;
+import com.example.promptngapi.dto.JudgeTiming;
 import com.example.promptngapi.dto.PromptNGResponse;
 import com.example.promptngapi.dto.PromptRequest;
-import com.example.promptngapi.service.PromptInjectionDetector;
-import com.example.promptngapi.service.SensitiveInformationDetector;
+import com.example.promptngapi.dto.ResponseVerbosity;
+import com.example.promptngapi.dto.RuleCatalogResponse;
+import com.example.promptngapi.nlp.AnalyzedText;
+import com.example.promptngapi.nlp.KuromojiAnalyzer;
+import com.example.promptngapi.service.AdaptiveConcurrencyLimiter;
+import com.example.promptngapi.service.AdmissionRejectedException;
+import com.example.promptngapi.service.BatchJudgeService;
+import com.example.promptngapi.service.BulkJudgeService;
+import com.example.promptngapi.service.ConversationJudgeService;
+import com.example.promptngapi.service.DetectionContext;
+import com.example.promptngapi.service.DetectionSpan;
+import com.example.promptngapi.service.DetectionTimeoutException;
+import com.example.promptngapi.service.DetectionTrace;
+import com.example.promptngapi.service.PromptJudgeService;
+import com.example.promptngapi.service.RedactionService;
+import com.example.promptngapi.service.RuleCatalog;
+import com.example.promptngapi.service.StreamingAnalysisService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import io.swagger.v3.oas.annotations.Parameter;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Prompt Negative Guard APIのコントローラーです。
@@ -30,24 +74,57 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "プロンプト判定API", description = "機密情報やプロンプトインジェクションの試みをテキストプロンプトから検出するAPI")
 public class PromptNGController {
 
-    private final SensitiveInformationDetector sensitiveInformationDetector;
-    private final PromptInjectionDetector promptInjectionDetector;
+    private final PromptJudgeService promptJudgeService;
     private final ScoreThresholdsConfig scoreThresholdsConfig;
+    private final StreamingAnalysisService streamingAnalysisService;
+    private final KuromojiAnalyzer kuromojiAnalyzer;
+    private final RedactionService redactionService;
+    private final BatchJudgeService batchJudgeService;
+    private final BatchJudgeConfig batchJudgeConfig;
+    private final BulkJudgeService bulkJudgeService;
+    private final RuleCatalog ruleCatalog;
+    private final AdaptiveConcurrencyLimiter admissionLimiter;
+    private final ConversationJudgeService conversationJudgeService;
+    private final ConversationJudgeConfig conversationJudgeConfig;
+    private final DebugTimingPolicy debugTimingPolicy;
 
     @Autowired
-    public PromptNGController(SensitiveInformationDetector sensitiveInformationDetector,
-                              PromptInjectionDetector promptInjectionDetector,
-                              ScoreThresholdsConfig scoreThresholdsConfig) {
-        this.sensitiveInformationDetector = sensitiveInformationDetector;
-        this.promptInjectionDetector = promptInjectionDetector;
+    public PromptNGController(PromptJudgeService promptJudgeService,
+                              ScoreThresholdsConfig scoreThresholdsConfig,
+                              StreamingAnalysisService streamingAnalysisService,
+                              KuromojiAnalyzer kuromojiAnalyzer,
+                              RedactionService redactionService,
+                              BatchJudgeService batchJudgeService,
+                              BatchJudgeConfig batchJudgeConfig,
+                              BulkJudgeService bulkJudgeService,
+                              RuleCatalog ruleCatalog,
+                              AdaptiveConcurrencyLimiter admissionLimiter,
+                              ConversationJudgeService conversationJudgeService,
+                              ConversationJudgeConfig conversationJudgeConfig,
+                              DebugTimingPolicy debugTimingPolicy) {
+        this.promptJudgeService = promptJudgeService;
         this.scoreThresholdsConfig = scoreThresholdsConfig;
+        this.streamingAnalysisService = streamingAnalysisService;
+        this.kuromojiAnalyzer = kuromojiAnalyzer;
+        this.redactionService = redactionService;
+        this.batchJudgeService = batchJudgeService;
+        this.batchJudgeConfig = batchJudgeConfig;
+        this.bulkJudgeService = bulkJudgeService;
+        this.ruleCatalog = ruleCatalog;
+        this.admissionLimiter = admissionLimiter;
+        this.conversationJudgeService = conversationJudgeService;
+        this.conversationJudgeConfig = conversationJudgeConfig;
+        this.debugTimingPolicy = debugTimingPolicy;
     }
 
     /**
      * 提供されたテキストに対し、機密情報およびプロンプトインジェクションの試みを判定します。
      *
-     * @param request 判定対象のテキストを含むリクエストボディ。バリデーションされます。
-     * @return {@link PromptNGResponse} を含む {@link ResponseEntity}。
+     * @param request      判定対象のテキストを含むリクエストボディ。バリデーションされます。
+     * @param verbosity    レスポンスの詳細度 ({@link ResponseVerbosity})。既定は full
+     * @param ruleEncoding {@code bitset} を指定すると、compact の検出結果の代わりに一致したルール ID のビット列を返します。
+     * @param httpRequest  判定の内訳 (debug=true) を返してよいかの判断に使うリクエスト
+     * @return {@link PromptNGResponse} (verbosity=full) または {@link CompactJudgeResponse} を含む {@link ResponseEntity}。
      *         レスポンスには、総合的な判定結果 (overall_result) と、検出された問題の詳細 (detections) が含まれます。
      *         問題が見つからない場合は overall_result が {@code true} に、検出リストは空になります。
      *         問題が検出された場合は overall_result が {@code false} に、検出リストに詳細が含まれます。
@@ -55,58 +132,375 @@ public class PromptNGController {
     @PostMapping("/judge")
     @Operation(summary = "プロンプト判定", description = "提供されたテキストに対し、機密情報およびプロンプトインジェクションの試みを判定します。")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "判定成功",
+        @ApiResponse(responseCode = "200", description = "判定成功 (verbosity=verdict / compact の場合は CompactJudgeResponse)",
             content = @Content(mediaType = "application/json",
-            schema = @Schema(implementation = PromptNGResponse.class))),
-        @ApiResponse(responseCode = "400", description = "リクエスト不正 (例: textフィールドが空)",
+            schema = @Schema(oneOf = {PromptNGResponse.class, CompactJudgeResponse.class}))),
+        @ApiResponse(responseCode = "400", description = "リクエスト不正 (例: textフィールドが空、verbosity が不正)",
+            content = @Content),
+        @ApiResponse(responseCode = "503", description = "検出が制限時間内に完了しなかった、または同時実行数が上限に達している (Retry-After ヘッダーに再試行までの目安の秒数)",
             content = @Content)
     })
-    public ResponseEntity<PromptNGResponse> judgePrompt(
+    public ResponseEntity<Object> judgePrompt(
         @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "判定対象のテキストとオプションの閾値を含むリクエストボディ", required = true,
             content = @Content(schema = @Schema(implementation = PromptRequest.class)))
-        @Valid @org.springframework.web.bind.annotation.RequestBody PromptRequest request) {
-        String inputText = request.getText();
-        Double requestSimilarityThreshold = request.getSimilarityThreshold();
-        Integer requestNonJapaneseSentenceWordThreshold = request.getNonJapaneseSentenceWordThreshold();
-
-        List<DetectionDetail> injectionIssues;
-        List<DetectionDetail> sensitiveInfoIssues;
-        List<DetectionDetail> allDetectedIssues = new ArrayList<>();
-
-        Double effectiveSimilarityThreshold;
-        Integer effectiveNonJapaneseSentenceWordThreshold;
+        @Valid @org.springframework.web.bind.annotation.RequestBody PromptRequest request,
+        @Parameter(description = "レスポンスの詳細度。verdict (判定結果のみ)、compact (検出種別・ルール ID・位置)、full (すべての詳細)。")
+        @RequestParam(defaultValue = "full") String verbosity,
+        @Parameter(description = "verbosity=compact の場合に bitset を指定すると、検出結果の代わりに一致したルール ID のビット列 (rule_bits) を返します。")
+        @RequestParam(required = false) String ruleEncoding,
+        HttpServletRequest httpRequest) {
+        ResponseVerbosity responseVerbosity = parseVerbosity(verbosity);
+        boolean ruleBits = parseRuleEncoding(ruleEncoding, responseVerbosity);
+        DetectionContext context = DetectionContext.of(scoreThresholdsConfig,
+            request.getSimilarityThreshold(), request.getNonJapaneseSentenceWordThreshold());
+        // 時間の上限は受け付け待ちの時間も含めて数える
+        if (request.getTimeoutMs() != null) {
+            context = context.withTimeout(request.getTimeoutMs());
+        }
+        // 判定の内訳は、許可されていない場合 (production プロファイルの許可リスト外) は黙って返さない
+        DetectionTrace trace = null;
+        if (Boolean.TRUE.equals(request.getDebug()) && debugTimingPolicy.isPermitted(httpRequest.getRemoteAddr())) {
+            trace = new DetectionTrace();
+            context = context.withTrace(trace);
+        }
 
+        // 同時実行数が上限に達している場合は待ち行列で待つ (待てない場合は 503 と Retry-After を返す)
+        AdaptiveConcurrencyLimiter.Permit permit = admissionLimiter.acquire(context);
+        List<DetectionDetail> allDetectedIssues;
+        PromptJudgeService.BudgetedResult budgeted = null;
+        boolean overloaded = false;
+        long judgeStart = System.nanoTime();
         try {
-            if (requestSimilarityThreshold != null) {
-                ScoreThresholdsConfig.setRequestSimilarityThreshold(requestSimilarityThreshold);
+            // 形態素解析は 1 回だけ行い、両方の検出器で同じトークン列を使う (検出器は設定により並行実行される)
+            AnalyzedText analyzedText = kuromojiAnalyzer.analyze(request.getText());
+            if (trace != null) {
+                trace.setAnalysis(System.nanoTime() - judgeStart, analyzedText.getTokens().size());
             }
-            if (requestNonJapaneseSentenceWordThreshold != null) {
-                ScoreThresholdsConfig.setRequestNonJapaneseSentenceWordThreshold(requestNonJapaneseSentenceWordThreshold);
+            if (request.getTimeoutMs() != null) {
+                // 時間の上限を過ぎた場合は 503 にせず、軽い段階から完了した分の判定を返す
+                budgeted = promptJudgeService.judgeWithinBudget(analyzedText, context);
+                allDetectedIssues = budgeted.detections();
+            } else {
+                allDetectedIssues = promptJudgeService.judge(analyzedText, context);
             }
+        } catch (DetectionTimeoutException | AdmissionRejectedException e) {
+            // 期限切れと、検出器のスレッドプールが一杯の場合は過負荷として上限の調整に使う
+            overloaded = true;
+            throw e;
+        } finally {
+            permit.release(overloaded);
+        }
 
-            // Perform detections using the potentially overridden thresholds
-            injectionIssues = promptInjectionDetector.isPromptInjectionAttempt(inputText);
-            sensitiveInfoIssues = sensitiveInformationDetector.hasSensitiveInformation(inputText);
+        boolean overallOk = allDetectedIssues.isEmpty();
 
-            // Get the actual thresholds used for this request
-            effectiveSimilarityThreshold = scoreThresholdsConfig.getSimilarityThreshold();
-            effectiveNonJapaneseSentenceWordThreshold = scoreThresholdsConfig.getNonJapaneseSentenceWordThreshold();
+        PromptNGResponse response = new PromptNGResponse(overallOk, allDetectedIssues,
+            context.getSimilarityThreshold(), context.getNonJapaneseSentenceWordThreshold());
+        if (budgeted != null) {
+            budgeted.applyTo(response);
+        }
+        if (trace != null) {
+            JudgeTiming timing = trace.toTiming(System.nanoTime() - judgeStart);
+            response.setTiming(timing);
+            return ResponseEntity.ok()
+                .header("Server-Timing", serverTiming(timing))
+                .body(shape(request.getText(), response, responseVerbosity, ruleBits));
+        }
 
-        } finally {
-            ScoreThresholdsConfig.clearRequestThresholds();
+        return ResponseEntity.ok(shape(request.getText(), response, responseVerbosity, ruleBits));
+    }
+
+    // 判定の内訳の時間を Server-Timing ヘッダーの形式 (ミリ秒) にする。ブラウザの開発者ツールなどで段階ごとの時間を確認できる
+    private static String serverTiming(JudgeTiming timing) {
+        StringBuilder sb = new StringBuilder();
+        appendServerTiming(sb, "analyze", timing.getAnalyzeNanos());
+        for (Map.Entry<String, Long> stage : timing.getStageNanos().entrySet()) {
+            appendServerTiming(sb, stage.getKey(), stage.getValue());
+        }
+        appendServerTiming(sb, "total", timing.getTotalNanos());
+        return sb.toString();
+    }
+
+    private static void appendServerTiming(StringBuilder sb, String name, long nanos) {
+        if (sb.length() > 0) {
+            sb.append(", ");
+        }
+        sb.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0));
+    }
+
+    /**
+     * 複数のプロンプトを 1 回のリクエストでまとめて判定します。
+     * 会話の各ターンなど、短いプロンプトを多数判定する場合に、リクエストごとの HTTP・JSON 処理のオーバーヘッドを削減します。
+     * 各項目の判定内容と閾値・時間の上限 (timeoutMs) の扱いは {@link #judgePrompt} と同じです。
+     * debug=true の項目の判定の内訳は、verbosity=full の結果の timing で返します (Server-Timing ヘッダーは返しません)。
+     * <p>
+     * {@link #judgePrompt} の流量制御 ({@code admission-control}) は適用しません。項目は検出器のスレッドプールではなく
+     * 一括判定専用の固定サイズのスレッドプール ({@code batch-judge.pool-size}) で判定され、実行待ちの項目数の上限
+     * ({@code batch-judge.queue-capacity}) を超えるバッチは待たせずに 503 で拒否するため、負荷はそちらで制限されます。
+     * バッチ 1 件を 1 リクエストとして数えると、項目数によって大きく異なる判定の量が同時実行数の推定に反映されないためでもあります。
+     *
+     * @param requests     判定対象の項目の配列。各項目はバリデーションされます。
+     * @param verbosity    各結果の詳細度 ({@link #judgePrompt} と同じ)
+     * @param ruleEncoding 各結果のルール ID の形式 ({@link #judgePrompt} と同じ)
+     * @param httpRequest  判定の内訳 (debug=true) を返してよいかの判断に使うリクエスト
+     * @return リクエストと同じ順序の判定結果の配列
+     */
+    @PostMapping("/judge/batch")
+    @Operation(summary = "プロンプト一括判定",
+        description = "複数のプロンプトをまとめて判定し、リクエストと同じ順序で結果を返します。同じバッチ内の同一の項目は 1 回だけ判定されます。")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "判定成功 (verbosity=verdict / compact の場合は CompactJudgeResponse の配列)",
+            content = @Content(mediaType = "application/json",
+            array = @ArraySchema(schema = @Schema(oneOf = {PromptNGResponse.class, CompactJudgeResponse.class})))),
+        @ApiResponse(responseCode = "400", description = "リクエスト不正 (例: textフィールドが空、項目数が上限を超えている)",
+            content = @Content),
+        @ApiResponse(responseCode = "503", description = "判定が制限時間内に完了しなかった、または実行待ちの項目数が上限に達している (Retry-After ヘッダー付き)",
+            content = @Content)
+    })
+    public ResponseEntity<List<Object>> judgeBatch(
+        @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "判定対象の項目の配列", required = true,
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = PromptRequest.class))))
+        @Valid @org.springframework.web.bind.annotation.RequestBody List<@Valid PromptRequest> requests,
+        @Parameter(description = "各結果の詳細度。verdict (判定結果のみ)、compact (検出種別・ルール ID・位置)、full (すべての詳細)。")
+        @RequestParam(defaultValue = "full") String verbosity,
+        @Parameter(description = "verbosity=compact の場合に bitset を指定すると、検出結果の代わりに一致したルール ID のビット列 (rule_bits) を返します。")
+        @RequestParam(required = false) String ruleEncoding,
+        HttpServletRequest httpRequest) {
+        ResponseVerbosity responseVerbosity = parseVerbosity(verbosity);
+        boolean ruleBits = parseRuleEncoding(ruleEncoding, responseVerbosity);
+        if (requests.size() > batchJudgeConfig.getMaxItems()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Too many items: " + requests.size() + " (max " + batchJudgeConfig.getMaxItems() + ")");
         }
+        // 判定の内訳は、許可されていない場合 (production プロファイルの許可リスト外) は黙って返さない
+        List<PromptNGResponse> results = batchJudgeService.judge(requests, debugTimingPolicy.isPermitted(httpRequest.getRemoteAddr()));
+        List<Object> responses = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            responses.add(shape(requests.get(i).getText(), results.get(i), responseVerbosity, ruleBits));
+        }
+        return ResponseEntity.ok(responses);
+    }
 
-        if (injectionIssues != null) {
-            allDetectedIssues.addAll(injectionIssues);
+    /**
+     * 会話のターンを判定し、会話全体とターンごとの判定結果を返します。
+     * チャットクライアントが毎ターン会話の履歴をすべて送信する場合に使用します。同じ会話 ID で以前に判定したターンは解析し直さず、
+     * 保持している結果を再利用するため、1 リクエストあたりの解析量は新しく追加されたターンの分だけになります。
+     *
+     * @param request 会話の ID とターン。バリデーションされます。
+     * @return 会話全体の判定結果 (overall_result) と、ターンごとの判定結果
+     */
+    @PostMapping("/judge/conversation")
+    @Operation(summary = "会話の判定",
+        description = "会話のターンを判定します。同じ会話 ID で以前に判定したターンは解析結果を再利用し、新しいターンだけを解析します。")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "判定成功",
+            content = @Content(mediaType = "application/json",
+            schema = @Schema(implementation = ConversationJudgeResponse.class))),
+        @ApiResponse(responseCode = "400", description = "リクエスト不正 (例: conversationId やターンの text が空、ターン数が上限を超えている)",
+            content = @Content),
+        @ApiResponse(responseCode = "503", description = "判定が制限時間内に完了しなかった",
+            content = @Content)
+    })
+    public ResponseEntity<ConversationJudgeResponse> judgeConversation(
+        @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "会話の ID とターン", required = true,
+            content = @Content(schema = @Schema(implementation = ConversationJudgeRequest.class)))
+        @Valid @org.springframework.web.bind.annotation.RequestBody ConversationJudgeRequest request) {
+        if (request.getTurns().size() > conversationJudgeConfig.getMaxTurns()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Too many turns: " + request.getTurns().size() + " (max " + conversationJudgeConfig.getMaxTurns() + ")");
         }
-        if (sensitiveInfoIssues != null) {
-            allDetectedIssues.addAll(sensitiveInfoIssues);
+        return ResponseEntity.ok(conversationJudgeService.judge(request));
+    }
+
+    /**
+     * 簡易形式のレスポンスや gRPC 版の API が返すルール ID と、ルール (検出結果の type / matched_pattern) の対応を返します。
+     * ルール ID はルールファイルの定義順に採番されるため、catalog_version が変わった場合は対応を取り直してください。
+     *
+     * @return ルール ID とルールの対応
+     */
+    @GetMapping("/rules")
+    @Operation(summary = "ルール ID 一覧", description = "verbosity=compact のレスポンスなどが返すルール ID とルールの対応を返します。")
+    public ResponseEntity<RuleCatalogResponse> rules() {
+        List<RuleCatalogResponse.Rule> rules = new ArrayList<>(ruleCatalog.getRules().size());
+        for (RuleCatalog.Rule rule : ruleCatalog.getRules()) {
+            rules.add(new RuleCatalogResponse.Rule(rule.id(), rule.type(), rule.pattern()));
         }
+        return ResponseEntity.ok(new RuleCatalogResponse(ruleCatalog.getVersion(), rules));
+    }
 
-        boolean overallOk = allDetectedIssues.isEmpty();
+    /**
+     * NDJSON (1 行 1 JSON) で送られた大量のプロンプトを判定し、各行の結果を NDJSON で返します。
+     * 各行は {@code text} (必須)、{@code id}、閾値の上書きを持つ JSON オブジェクトです ({@code request_id} / {@code body} も受け付けます)。
+     * 結果は判定が完了した行から順に書き出され、入力との対応付けには結果の {@code line} (1 始まりの行番号) または {@code id} を使用します。
+     * 判定中の行数には上限があり、上限に達するとリクエストボディの読み込みを止めるため、アップロードのサイズに関わらずメモリ使用量は一定です。
+     *
+     * @param httpRequest リクエストボディ (NDJSON) を読み込むためのリクエスト
+     * @return 各行の判定結果 ({@link BulkJudgeResult}) の NDJSON
+     * @throws IOException リクエストボディの読み込みに失敗した場合
+     */
+    @PostMapping(value = "/judge/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "プロンプト一括スキャン (NDJSON)",
+        description = "NDJSON の各行を判定し、完了した行から順に NDJSON で結果を返します。不正な行は error を含む結果になります。")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "スキャン開始 (各行の結果はストリーミングで返されます)",
+            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+            schema = @Schema(implementation = BulkJudgeResult.class)))
+    })
+    public ResponseEntity<StreamingResponseBody> judgeBulk(HttpServletRequest httpRequest) throws IOException {
+        Charset charset = httpRequest.getCharacterEncoding() != null
+            ? Charset.forName(httpRequest.getCharacterEncoding())
+            : StandardCharsets.UTF_8;
+        Reader reader = new InputStreamReader(httpRequest.getInputStream(), charset);
+
+        StreamingResponseBody body = outputStream -> {
+            try (reader) {
+                Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+                bulkJudgeService.scan(reader, writer);
+                writer.flush();
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
+    }
 
-        PromptNGResponse response = new PromptNGResponse(overallOk, allDetectedIssues, effectiveSimilarityThreshold, effectiveNonJapaneseSentenceWordThreshold);
+    /**
+     * リクエストボディのテキストを少しずつ読み込みながら、文の区切りで分割したチャンク単位で判定します。
+     * 入力全体をメモリに保持しないため、RAG 用のドキュメントや添付ファイルなどの大きな入力に使用します。
+     * チャンク間は重複させて解析するため、チャンク境界をまたぐ一致も検出されます。
+     * レスポンスの各検出結果には original_text_full は含まれません。
+     *
+     * @param similarityThreshold              類似度閾値の上書き (任意)
+     * @param nonJapaneseSentenceWordThreshold 非日本語文の単語数閾値の上書き (任意)
+     * @param httpRequest                      リクエストボディ (テキスト) を読み込むためのリクエスト
+     * @return 判定結果。解析したチャンク数 (chunksAnalyzed) と、検出結果の切り捨て有無 (detectionsTruncated) を含みます。
+     * @throws IOException リクエストボディの読み込みに失敗した場合
+     */
+    @PostMapping(value = "/judge/stream", consumes = {MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @Operation(summary = "プロンプト判定 (ストリーミング)",
+        description = "リクエストボディのテキストをチャンクに分割しながら判定します。文字コードは Content-Type の charset、指定がなければ UTF-8 として扱います。")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "判定成功",
+            content = @Content(mediaType = "application/json",
+            schema = @Schema(implementation = PromptNGResponse.class)))
+    })
+    public ResponseEntity<PromptNGResponse> judgePromptStream(
+        @Parameter(description = "プロンプトインジェクション判定のための類似度閾値。0.0から1.0の間。")
+        @RequestParam(required = false) Double similarityThreshold,
+        @Parameter(description = "プロンプトインジェクション判定のための非日本語文の単語数閾値。")
+        @RequestParam(required = false) Integer nonJapaneseSentenceWordThreshold,
+        HttpServletRequest httpRequest) throws IOException {
+        Charset charset = httpRequest.getCharacterEncoding() != null
+            ? Charset.forName(httpRequest.getCharacterEncoding())
+            : StandardCharsets.UTF_8;
+
+        DetectionContext context = DetectionContext.of(scoreThresholdsConfig, similarityThreshold, nonJapaneseSentenceWordThreshold);
+
+        StreamingAnalysisService.Result result;
+        try (Reader reader = new InputStreamReader(httpRequest.getInputStream(), charset)) {
+            result = streamingAnalysisService.analyze(reader, context);
+        }
+
+        PromptNGResponse response = new PromptNGResponse(result.detections().isEmpty(), result.detections(),
+            context.getSimilarityThreshold(), context.getNonJapaneseSentenceWordThreshold());
+        response.setChunksAnalyzed(result.chunksAnalyzed());
+        response.setDetectionsTruncated(result.truncated());
 
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * リクエストボディのテキストから機密情報 (クレジットカード番号、マイナンバー、氏名、住所など) を検出し、
+     * 該当箇所を {@code *} で伏せ字にしたテキストを返します。LLM に転送する前のプロンプトのサニタイズに使用します。
+     * 入力はチャンク単位で解析し、伏せ字が確定した部分から順にレスポンスへ書き出すため、文書全体をメモリに保持しません。
+     *
+     * @param httpRequest リクエストボディ (テキスト) を読み込むためのリクエスト
+     * @return 伏せ字にしたテキスト (text/plain; charset=UTF-8)
+     * @throws IOException リクエストボディの読み込みに失敗した場合
+     */
+    @PostMapping(value = "/redact", consumes = {MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE},
+        produces = "text/plain;charset=UTF-8")
+    @Operation(summary = "機密情報の伏せ字化",
+        description = "リクエストボディのテキストの機密情報を * で伏せ字にして返します。文字コードは Content-Type の charset、指定がなければ UTF-8 として扱います。")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "伏せ字化成功",
+            content = @Content(mediaType = "text/plain"))
+    })
+    public ResponseEntity<StreamingResponseBody> redact(HttpServletRequest httpRequest) throws IOException {
+        Charset charset = httpRequest.getCharacterEncoding() != null
+            ? Charset.forName(httpRequest.getCharacterEncoding())
+            : StandardCharsets.UTF_8;
+        Reader reader = new InputStreamReader(httpRequest.getInputStream(), charset);
+
+        StreamingResponseBody body = outputStream -> {
+            try (reader) {
+                Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+                redactionService.redact(reader, writer);
+                writer.flush();
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+            .body(body);
+    }
+
+    /**
+     * 同時実行数の上限により受け付けなかったリクエストに、すぐに 503 Service Unavailable を返します。
+     * {@code Retry-After} ヘッダーには、待ち行列の長さと判定時間から見積もった再試行までの秒数を設定します。
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<Void> handleAdmissionRejected(AdmissionRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .build();
+    }
+
+    // 判定結果を指定された詳細度のレスポンスに変換する
+    private Object shape(String text, PromptNGResponse response, ResponseVerbosity verbosity, boolean ruleBits) {
+        if (verbosity == ResponseVerbosity.FULL) {
+            return response;
+        }
+        CompactJudgeResponse compact = shapeCompact(text, response, verbosity, ruleBits);
+        return Boolean.TRUE.equals(response.getPartial()) ? compact.asPartial() : compact;
+    }
+
+    private CompactJudgeResponse shapeCompact(String text, PromptNGResponse response, ResponseVerbosity verbosity, boolean ruleBits) {
+        if (verbosity == ResponseVerbosity.VERDICT) {
+            return CompactJudgeResponse.verdict(response.isOverall_result());
+        }
+        if (ruleBits) {
+            BitSet bits = new BitSet();
+            for (DetectionDetail detail : response.getDetections()) {
+                bits.set(ruleCatalog.idOf(detail));
+            }
+            return CompactJudgeResponse.ruleBits(response.isOverall_result(), bits.toByteArray());
+        }
+        List<CompactJudgeResponse.Detection> detections = new ArrayList<>(response.getDetections().size());
+        for (DetectionDetail detail : response.getDetections()) {
+            DetectionSpan span = DetectionSpan.of(detail, text);
+            detections.add(new CompactJudgeResponse.Detection(detail.getType(), ruleCatalog.idOf(detail), span.start(), span.end()));
+        }
+        return CompactJudgeResponse.compact(detections);
+    }
+
+    private static ResponseVerbosity parseVerbosity(String value) {
+        ResponseVerbosity verbosity = ResponseVerbosity.fromValue(value);
+        if (verbosity == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown verbosity: " + value + " (verdict, compact or full)");
+        }
+        return verbosity;
+    }
+
+    // ルール ID のビット列で返す場合は true
+    private static boolean parseRuleEncoding(String value, ResponseVerbosity verbosity) {
+        if (value == null) {
+            return false;
+        }
+        if (!"bitset".equalsIgnoreCase(value.trim())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown ruleEncoding: " + value + " (bitset)");
+        }
+        if (verbosity != ResponseVerbosity.COMPACT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ruleEncoding=bitset requires verbosity=compact");
+        }
+        return true;
+    }
 }
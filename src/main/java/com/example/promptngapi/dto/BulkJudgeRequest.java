@@ -0,0 +1,77 @@
+package com.example.promptngapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * 一括スキャン API (NDJSON) の 1 行分のリクエストを表します。
+ * {@link PromptRequest} の項目に加えて、結果との対応付けに使う任意の ID を持ちます。
+ * 監査ログなどの既存の JSON Lines をそのまま流せるように、{@code request_id} / {@code body} も別名として受け付け、未知の項目は無視します。
+ * 一括スキャンは期限を設けずに全行を判定するため、{@link PromptRequest} の {@code timeoutMs} と {@code debug} は持たず、指定されても無視します。
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "一括スキャン API の 1 行分のリクエスト")
+public class BulkJudgeRequest {
+
+    @Schema(description = "結果と対応付けるための任意の ID。結果の行にそのまま含まれます。", example = "req-0001", nullable = true)
+    @JsonAlias("request_id")
+    private String id;
+
+    @Schema(description = "判定対象のテキストコンテンツ。空白であってはなりません。", requiredMode = Schema.RequiredMode.REQUIRED, example = "これはテスト用のプロンプトです。")
+    @JsonAlias("body")
+    private String text;
+
+    @Schema(description = "プロンプトインジェクション判定のための類似度閾値。0.0から1.0の間。", example = "0.85", nullable = true)
+    private Double similarityThreshold;
+
+    @Schema(description = "プロンプトインジェクション判定のための非日本語文の単語数閾値。", example = "3", nullable = true)
+    private Integer nonJapaneseSentenceWordThreshold;
+
+    public BulkJudgeRequest() {
+    }
+
+    public BulkJudgeRequest(String id, String text) {
+        this.id = id;
+        this.text = text;
+    }
+
+    /**
+     * 判定用の {@link PromptRequest} に変換します。
+     */
+    public PromptRequest toPromptRequest() {
+        return new PromptRequest(text, similarityThreshold, nonJapaneseSentenceWordThreshold);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public Double getSimilarityThreshold() {
+        return similarityThreshold;
+    }
+
+    public void setSimilarityThreshold(Double similarityThreshold) {
+        this.similarityThreshold = similarityThreshold;
+    }
+
+    public Integer getNonJapaneseSentenceWordThreshold() {
+        return nonJapaneseSentenceWordThreshold;
+    }
+
+    public void setNonJapaneseSentenceWordThreshold(Integer nonJapaneseSentenceWordThreshold) {
+        this.nonJapaneseSentenceWordThreshold = nonJapaneseSentenceWordThreshold;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.promptngapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * 一括スキャン API (NDJSON) の 1 行分の結果を表します。
+ * 結果は判定が完了した順に書き出されるため、入力との対応付けには {@code line} または {@code id} を使用します。
+ * 判定できた行は {@code result}、不正な行は {@code error} のいずれか一方を持ちます。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "一括スキャン API の 1 行分の結果")
+public class BulkJudgeResult {
+
+    @Schema(description = "入力の行番号 (1 始まり)", example = "1")
+    private long line;
+
+    @Schema(description = "入力の行に含まれていた ID", example = "req-0001", nullable = true)
+    private String id;
+
+    @Schema(description = "判定結果 (/judge のレスポンスと同じ形式。ただし original_text_full は含みません)", nullable = true)
+    private PromptNGResponse result;
+
+    @Schema(description = "行を判定できなかった理由 (JSON として不正、text が空など)", example = "text must not be blank", nullable = true)
+    private String error;
+
+    public BulkJudgeResult() {
+    }
+
+    public static BulkJudgeResult success(long line, String id, PromptNGResponse result) {
+        BulkJudgeResult bulkJudgeResult = new BulkJudgeResult();
+        bulkJudgeResult.line = line;
+        bulkJudgeResult.id = id;
+        bulkJudgeResult.result = result;
+        return bulkJudgeResult;
+    }
+
+    public static BulkJudgeResult failure(long line, String id, String error) {
+        BulkJudgeResult bulkJudgeResult = new BulkJudgeResult();
+        bulkJudgeResult.line = line;
+        bulkJudgeResult.id = id;
+        bulkJudgeResult.error = error;
+        return bulkJudgeResult;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public PromptNGResponse getResult() {
+        return result;
+    }
+
+    public void setResult(PromptNGResponse result) {
+        this.result = result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.promptngapi.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 判定 API の簡易形式 ({@code verbosity=verdict} / {@code verbosity=compact}) のレスポンスです。
+ * <p>
+ * {@link PromptNGResponse} と異なり、検出結果の説明文・パターン文字列・入力テキストのコピーを含みません。
+ * ルール ID の意味は {@code GET /prompt-ng/v1/rules} で取得します。
+ * <ul>
+ *   <li>{@code verdict}: {@code {"overall_result":false}}</li>
+ *   <li>{@code compact}: {@code {"overall_result":false,"detections":[{"type":"...","rule_id":3,"start":5,"end":7}]}}</li>
+ *   <li>{@code compact} + {@code ruleEncoding=bitset}: {@code {"overall_result":false,"rule_bits":"CA=="}}。
+ *       一致したルール ID の集合を、ID n をバイト n / 8 のビット n % 8 (下位ビットから) とするビット列にして Base64 で表したものです。</li>
+ * </ul>
+ * 時間の上限 (timeoutMs) を過ぎて部分的な判定になった場合は、{@code "partial":true} が追加されます。
+ * 大量のリクエストで繰り返し出力されるため、フィールド名と検出種別はエンコード済みの文字列を使って直接書き出します。
+ */
+@JsonSerialize(using = CompactJudgeResponse.Serializer.class)
+@Schema(description = "プロンプト判定APIの簡易形式のレスポンス (verbosity=verdict / compact)")
+public final class CompactJudgeResponse {
+
+    private static final SerializedString OVERALL_RESULT = new SerializedString("overall_result");
+    private static final SerializedString DETECTIONS = new SerializedString("detections");
+    private static final SerializedString RULE_BITS = new SerializedString("rule_bits");
+    private static final SerializedString TYPE = new SerializedString("type");
+    private static final SerializedString RULE_ID = new SerializedString("rule_id");
+    private static final SerializedString START = new SerializedString("start");
+    private static final SerializedString END = new SerializedString("end");
+    private static final SerializedString PARTIAL = new SerializedString("partial");
+
+    // 検出種別はルールファイルで決まる少数の値のため、エンコード済みの文字列を使い回す
+    private static final Map<String, SerializedString> TYPE_NAMES = new ConcurrentHashMap<>();
+
+    /**
+     * 簡易形式の検出結果です。
+     *
+     * @param type   検出結果の種別 ({@link DetectionDetail#getType()})
+     * @param ruleId ルール ID (0 はカタログにないルール)
+     * @param start  入力テキスト上の開始位置 (特定できない場合は -1)
+     * @param end    入力テキスト上の終了位置 (end は含まない。特定できない場合は -1)
+     */
+    public record Detection(String type, int ruleId, int start, int end) {
+    }
+
+    @Schema(description = "総合的な判定結果。問題がなければtrue、何らかの問題が検出されればfalse。", example = "true")
+    private final boolean overallResult;
+
+    @Schema(description = "検出結果の種別・ルール ID・位置 (verbosity=compact の場合のみ)", nullable = true)
+    private final List<Detection> detections;
+
+    @Schema(description = "一致したルール ID のビット列の Base64 (ruleEncoding=bitset の場合のみ)", nullable = true)
+    private final byte[] ruleBits;
+
+    @Schema(description = "timeoutMs までに一部の段階を実行できず、判定が部分的な場合のみ true", nullable = true)
+    private final boolean partial;
+
+    private CompactJudgeResponse(boolean overallResult, List<Detection> detections, byte[] ruleBits, boolean partial) {
+        this.overallResult = overallResult;
+        this.detections = detections;
+        this.ruleBits = ruleBits;
+        this.partial = partial;
+    }
+
+    /** 総合的な判定結果のみのレスポンス ({@code verbosity=verdict}) */
+    public static CompactJudgeResponse verdict(boolean overallResult) {
+        return new CompactJudgeResponse(overallResult, null, null, false);
+    }
+
+    /** 検出結果の種別・ルール ID・位置を含むレスポンス ({@code verbosity=compact}) */
+    public static CompactJudgeResponse compact(List<Detection> detections) {
+        return new CompactJudgeResponse(detections.isEmpty(), detections, null, false);
+    }
+
+    /**
+     * 一致したルール ID のビット列を含むレスポンス ({@code verbosity=compact&ruleEncoding=bitset})
+     *
+     * @param overallResult 総合的な判定結果
+     * @param ruleBits      一致したルール ID のビット列 ({@link java.util.BitSet#toByteArray()} と同じ順序)
+     */
+    public static CompactJudgeResponse ruleBits(boolean overallResult, byte[] ruleBits) {
+        return new CompactJudgeResponse(overallResult, null, ruleBits, false);
+    }
+
+    /** 部分的な判定であることを示すレスポンスを返します (内容は同じです)。 */
+    public CompactJudgeResponse asPartial() {
+        return new CompactJudgeResponse(overallResult, detections, ruleBits, true);
+    }
+
+    public boolean isOverallResult() {
+        return overallResult;
+    }
+
+    public List<Detection> getDetections() {
+        return detections;
+    }
+
+    public byte[] getRuleBits() {
+        return ruleBits;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
+    public static final class Serializer extends JsonSerializer<CompactJudgeResponse> {
+
+        @Override
+        public void serialize(CompactJudgeResponse response, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            generator.writeFieldName(OVERALL_RESULT);
+            generator.writeBoolean(response.overallResult);
+            if (response.detections != null) {
+                generator.writeFieldName(DETECTIONS);
+                generator.writeStartArray();
+                for (Detection detection : response.detections) {
+                    generator.writeStartObject();
+                    generator.writeFieldName(TYPE);
+                    if (detection.type() != null) {
+                        generator.writeString(TYPE_NAMES.computeIfAbsent(detection.type(), SerializedString::new));
+                    } else {
+                        generator.writeNull();
+                    }
+                    generator.writeFieldName(RULE_ID);
+                    generator.writeNumber(detection.ruleId());
+                    generator.writeFieldName(START);
+                    generator.writeNumber(detection.start());
+                    generator.writeFieldName(END);
+                    generator.writeNumber(detection.end());
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+            }
+            if (response.ruleBits != null) {
+                generator.writeFieldName(RULE_BITS);
+                generator.writeBinary(response.ruleBits);
+            }
+            if (response.partial) {
+                generator.writeFieldName(PARTIAL);
+                generator.writeBoolean(true);
+            }
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.promptngapi.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+/**
+ * 会話の判定 API ({@code /prompt-ng/v1/judge/conversation}) のリクエストボディを表します。
+ * チャットクライアントは毎回、会話の最初からのターンをすべて送信します。以前に判定したターンは解析結果が再利用されます。
+ */
+@Schema(description = "会話の判定 API のリクエストボディ")
+public class ConversationJudgeRequest {
+
+    /**
+     * 会話の 1 ターンです。
+     */
+    @Schema(description = "会話の 1 ターン")
+    public static class Turn {
+
+        @Schema(description = "発言者 (user、assistant など)。判定には使用されず、結果にそのまま含まれます。", example = "user", nullable = true)
+        private String role;
+
+        @Schema(description = "ターンのテキスト。空白であってはなりません。", requiredMode = Schema.RequiredMode.REQUIRED, example = "こんにちは。")
+        @NotBlank(message = "Text cannot be blank")
+        private String text;
+
+        public Turn() {
+        }
+
+        public Turn(String role, String text) {
+            this.role = role;
+            this.text = text;
+        }
+
+        public String getRole() {
+            return role;
+        }
+
+        public void setRole(String role) {
+            this.role = role;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public void setText(String text) {
+            this.text = text;
+        }
+    }
+
+    @Schema(description = "会話の ID。同じ会話の判定には同じ ID を指定してください。", requiredMode = Schema.RequiredMode.REQUIRED, example = "c-0001")
+    @NotBlank(message = "conversationId cannot be blank")
+    private String conversationId;
+
+    @Schema(description = "会話の最初からのターン (古い順)", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotEmpty(message = "turns cannot be empty")
+    private List<@Valid Turn> turns;
+
+    @Schema(description = "プロンプトインジェクション判定のための類似度閾値。0.0から1.0の間。指定しない場合はapplication.yamlまたはデフォルト値が使用されます。", example = "0.85", nullable = true)
+    private Double similarityThreshold;
+
+    @Schema(description = "プロンプトインジェクション判定のための非日本語文の単語数閾値。指定しない場合はapplication.yamlまたはデフォルト値が使用されます。", example = "3", nullable = true)
+    private Integer nonJapaneseSentenceWordThreshold;
+
+    public ConversationJudgeRequest() {
+    }
+
+    public ConversationJudgeRequest(String conversationId, List<Turn> turns) {
+        this.conversationId = conversationId;
+        this.turns = turns;
+    }
+
+    public String getConversationId() {
+        return conversationId;
+    }
+
+    public void setConversationId(String conversationId) {
+        this.conversationId = conversationId;
+    }
+
+    public List<Turn> getTurns() {
+        return turns;
+    }
+
+    public void setTurns(List<Turn> turns) {
+        this.turns = turns;
+    }
+
+    public Double getSimilarityThreshold() {
+        return similarityThreshold;
+    }
+
+    public void setSimilarityThreshold(Double similarityThreshold) {
+        this.similarityThreshold = similarityThreshold;
+    }
+
+    public Integer getNonJapaneseSentenceWordThreshold() {
+        return nonJapaneseSentenceWordThreshold;
+    }
+
+    public void setNonJapaneseSentenceWordThreshold(Integer nonJapaneseSentenceWordThreshold) {
+        this.nonJapaneseSentenceWordThreshold = nonJapaneseSentenceWordThreshold;
+    }
+}
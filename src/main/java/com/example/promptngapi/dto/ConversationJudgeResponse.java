@@ -0,0 +1,87 @@
+package com.example.promptngapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+/**
+ * 会話の判定 API ({@code /prompt-ng/v1/judge/conversation}) のレスポンスです。
+ * 会話全体の判定結果と、ターンごとの判定結果を含みます。
+ */
+@Schema(description = "会話の判定 API のレスポンス")
+public class ConversationJudgeResponse {
+
+    /**
+     * 1 ターンの判定結果です。
+     *
+     * @param index         リクエストの turns 上の位置 (0 始まり)
+     * @param role          リクエストで指定された発言者
+     * @param overallResult ターンに問題がなければ true
+     * @param cached        以前のリクエストで判定した解析結果を再利用した場合は true
+     * @param detections    ターンで検出された問題 (/judge の detections と同じ形式)
+     */
+    public record TurnResult(int index, String role, @JsonProperty("overall_result") boolean overallResult, boolean cached,
+                             List<DetectionDetail> detections) {
+    }
+
+    @Schema(description = "会話の ID", example = "c-0001")
+    private final String conversationId;
+
+    @JsonProperty("overall_result")
+    @Schema(description = "会話全体の判定結果。すべてのターンに問題がなければtrue、いずれかのターンで問題が検出されればfalse。", example = "true")
+    private final boolean overallResult;
+
+    @Schema(description = "ターンごとの判定結果 (リクエストと同じ順序)")
+    private final List<TurnResult> turns;
+
+    @Schema(description = "このリクエストで新たに解析したターン数", example = "1")
+    private final int turnsAnalyzed;
+
+    @Schema(description = "以前の解析結果を再利用したターン数", example = "9")
+    private final int turnsCached;
+
+    @Schema(description = "このリクエストで使用された類似度閾値。", example = "0.85")
+    private final double similarityThreshold;
+
+    @Schema(description = "このリクエストで使用された非日本語文の単語数閾値。", example = "3")
+    private final int nonJapaneseSentenceWordThreshold;
+
+    public ConversationJudgeResponse(String conversationId, List<TurnResult> turns, int turnsAnalyzed, int turnsCached,
+                                     double similarityThreshold, int nonJapaneseSentenceWordThreshold) {
+        this.conversationId = conversationId;
+        this.overallResult = turns.stream().allMatch(TurnResult::overallResult);
+        this.turns = turns;
+        this.turnsAnalyzed = turnsAnalyzed;
+        this.turnsCached = turnsCached;
+        this.similarityThreshold = similarityThreshold;
+        this.nonJapaneseSentenceWordThreshold = nonJapaneseSentenceWordThreshold;
+    }
+
+    public String getConversationId() {
+        return conversationId;
+    }
+
+    public boolean isOverallResult() {
+        return overallResult;
+    }
+
+    public List<TurnResult> getTurns() {
+        return turns;
+    }
+
+    public int getTurnsAnalyzed() {
+        return turnsAnalyzed;
+    }
+
+    public int getTurnsCached() {
+        return turnsCached;
+    }
+
+    public double getSimilarityThreshold() {
+        return similarityThreshold;
+    }
+
+    public int getNonJapaneseSentenceWordThreshold() {
+        return nonJapaneseSentenceWordThreshold;
+    }
+}
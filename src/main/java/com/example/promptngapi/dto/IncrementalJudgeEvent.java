@@ -0,0 +1,75 @@
+package com.example.promptngapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+/**
+ * 逐次判定 (WebSocket の {@code /prompt-ng/v1/judge/ws}) でサーバーが送信するメッセージです。
+ * <ul>
+ *   <li>{@code detections}: 受け取った差分で問題が確定するたびに送信します。</li>
+ *   <li>{@code end}: 入力の終わりを受け取った後に、残りの検出結果と全体の判定結果を送信します。この後に接続を閉じます。</li>
+ *   <li>{@code error}: メッセージが不正な場合などに送信します。この後に接続を閉じます。</li>
+ * </ul>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "逐次判定でサーバーが送信するメッセージ")
+public class IncrementalJudgeEvent {
+
+    @Schema(description = "メッセージの種類 (detections、end、error)", example = "detections")
+    private final String event;
+
+    @Schema(description = "新たに確定した検出結果 (/judge の detections と同じ形式。位置は入力全体での通し位置で、original_text_full は含みません)", nullable = true)
+    private final List<DetectionDetail> detections;
+
+    @JsonProperty("overall_result")
+    @Schema(description = "入力全体の判定結果 (end の場合のみ)", example = "true", nullable = true)
+    private final Boolean overallResult;
+
+    @Schema(description = "これまでに受け取った文字数", example = "128", nullable = true)
+    private final Long charsReceived;
+
+    @Schema(description = "エラーの内容 (error の場合のみ)", example = "delta is too long", nullable = true)
+    private final String error;
+
+    private IncrementalJudgeEvent(String event, List<DetectionDetail> detections, Boolean overallResult, Long charsReceived, String error) {
+        this.event = event;
+        this.detections = detections;
+        this.overallResult = overallResult;
+        this.charsReceived = charsReceived;
+        this.error = error;
+    }
+
+    public static IncrementalJudgeEvent detections(List<DetectionDetail> detections, long charsReceived) {
+        return new IncrementalJudgeEvent("detections", detections, null, charsReceived, null);
+    }
+
+    public static IncrementalJudgeEvent end(List<DetectionDetail> detections, boolean overallResult, long charsReceived) {
+        return new IncrementalJudgeEvent("end", detections, overallResult, charsReceived, null);
+    }
+
+    public static IncrementalJudgeEvent error(String error) {
+        return new IncrementalJudgeEvent("error", null, null, null, error);
+    }
+
+    public String getEvent() {
+        return event;
+    }
+
+    public List<DetectionDetail> getDetections() {
+        return detections;
+    }
+
+    public Boolean getOverallResult() {
+        return overallResult;
+    }
+
+    public Long getCharsReceived() {
+        return charsReceived;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.promptngapi.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * 逐次判定 (WebSocket の {@code /prompt-ng/v1/judge/ws}) でクライアントが送信するメッセージです。
+ * テキストの続き ({@code delta}) を順に送信し、入力が終わったら {@code end} を true にしたメッセージを送信します。
+ */
+@Schema(description = "逐次判定でクライアントが送信するメッセージ")
+public class IncrementalJudgeMessage {
+
+    @Schema(description = "前回のメッセージからのテキストの続き", example = "以前の指示を", nullable = true)
+    private String delta;
+
+    @Schema(description = "入力の終わりであれば true。delta と同時に指定した場合は、delta を処理してから終わりとして扱います。", example = "false")
+    private boolean end;
+
+    public IncrementalJudgeMessage() {
+    }
+
+    public IncrementalJudgeMessage(String delta, boolean end) {
+        this.delta = delta;
+        this.end = end;
+    }
+
+    public String getDelta() {
+        return delta;
+    }
+
+    public void setDelta(String delta) {
+        this.delta = delta;
+    }
+
+    public boolean isEnd() {
+        return end;
+    }
+
+    public void setEnd(boolean end) {
+        this.end = end;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.promptngapi.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.Map;
+
+/**
+ * 1 回の判定の内訳です ({@code /judge} で debug=true を指定した場合のみ返します)。
+ * 時間はすべてナノ秒です。2 つの検出器が並行に実行される場合、段階ごとの時間の合計は {@code totalNanos} を超えることがあります。
+ */
+@Schema(description = "判定の内訳 (debug=true の場合のみ)")
+public class JudgeTiming {
+
+    @Schema(description = "判定全体 (形態素解析を含み、受け付け待ちを含まない) の時間 (ナノ秒)", example = "1834000")
+    private final long totalNanos;
+
+    @Schema(description = "入力全体の形態素解析の時間 (ナノ秒)", example = "212000")
+    private final long analyzeNanos;
+
+    @Schema(description = "検出の段階ごとの時間 (ナノ秒、実行した段階のみ)", example = "{\"sensitive_rules\": 41000, \"injection_exact\": 35000}")
+    private final Map<String, Long> stageNanos;
+
+    @Schema(description = "チェックごとの時間 (ナノ秒、実行したチェックのみ)。プロンプトインジェクションのチェック 1〜6 と、機密情報のルール・住所・氏名です。",
+        example = "{\"forbidden_words\": 12000, \"similarity\": 1210000}")
+    private final Map<String, Long> checkNanos;
+
+    @Schema(description = "入力を分割したフレーズの数", example = "3")
+    private final int phraseCount;
+
+    @Schema(description = "入力全体の形態素解析で得たトークンの数", example = "18")
+    private final int tokenCount;
+
+    @Schema(description = "評価したプロンプトインジェクションのルール数 (フレーズ × ルール)", example = "420")
+    private final long rulesEvaluated;
+
+    @Schema(description = "フレーズやルールが正規化後に空になったため、評価を省いたプロンプトインジェクションのルール数 (フレーズ × ルール)", example = "12")
+    private final long rulesPruned;
+
+    @Schema(description = "Jaro-Winkler 類似度を計算した回数", example = "150")
+    private final long similarityComputations;
+
+    @Schema(description = "統計的な言語検出 (Optimaize) を実行した回数", example = "0")
+    private final long languageDetections;
+
+    @Schema(description = "文字種の比率だけで言語を判定でき、統計的な言語検出を省いた回数", example = "1")
+    private final long languageDetectionsSkipped;
+
+    public JudgeTiming(long totalNanos, long analyzeNanos, Map<String, Long> stageNanos, Map<String, Long> checkNanos,
+                       int phraseCount, int tokenCount, long rulesEvaluated, long rulesPruned, long similarityComputations,
+                       long languageDetections, long languageDetectionsSkipped) {
+        this.totalNanos = totalNanos;
+        this.analyzeNanos = analyzeNanos;
+        this.stageNanos = stageNanos;
+        this.checkNanos = checkNanos;
+        this.phraseCount = phraseCount;
+        this.tokenCount = tokenCount;
+        this.rulesEvaluated = rulesEvaluated;
+        this.rulesPruned = rulesPruned;
+        this.similarityComputations = similarityComputations;
+        this.languageDetections = languageDetections;
+        this.languageDetectionsSkipped = languageDetectionsSkipped;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getAnalyzeNanos() {
+        return analyzeNanos;
+    }
+
+    public Map<String, Long> getStageNanos() {
+        return stageNanos;
+    }
+
+    public Map<String, Long> getCheckNanos() {
+        return checkNanos;
+    }
+
+    public int getPhraseCount() {
+        return phraseCount;
+    }
+
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+    public long getRulesEvaluated() {
+        return rulesEvaluated;
+    }
+
+    public long getRulesPruned() {
+        return rulesPruned;
+    }
+
+    public long getSimilarityComputations() {
+        return similarityComputations;
+    }
+
+    public long getLanguageDetections() {
+        return languageDetections;
+    }
+
+    public long getLanguageDetectionsSkipped() {
+        return languageDetectionsSkipped;
+    }
+}
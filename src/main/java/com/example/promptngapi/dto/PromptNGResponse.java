@@ -1,5 +1,6 @@
 package com.example.promptngapi.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import java.util.ArrayList;
 import java.util.List;
@@ -19,6 +20,26 @@ public class PromptNGResponse {
     @Schema(description = "このリクエストで使用された非日本語文の単語数閾値。", example = "3", nullable = true)
     private Integer nonJapaneseSentenceWordThreshold;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(description = "ストリーミング解析で解析したチャンク数 (/judge/stream の場合のみ)。", example = "12", nullable = true)
+    private Integer chunksAnalyzed;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(description = "検出結果が上限に達し、以降の結果が切り捨てられた場合は true (/judge/stream の場合のみ)。", example = "false", nullable = true)
+    private Boolean detectionsTruncated;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(description = "最後まで実行できた検出の段階 (timeoutMs を指定した場合のみ)。", example = "[\"sensitive_rules\", \"injection_exact\"]", nullable = true)
+    private List<String> completedStages;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(description = "timeoutMs までに一部の段階を実行できず、判定が部分的な場合は true (timeoutMs を指定した場合のみ)。partial の場合に overall_result が true でも、完了した段階の範囲で問題がないことだけを表します。", example = "false", nullable = true)
+    private Boolean partial;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(description = "判定の内訳 (debug=true を指定し、許可されている場合のみ)。", nullable = true)
+    private JudgeTiming timing;
+
     // Default constructor for Jackson
     public PromptNGResponse() {
     }
@@ -78,6 +99,46 @@ public class PromptNGResponse {
         this.nonJapaneseSentenceWordThreshold = nonJapaneseSentenceWordThreshold;
     }
 
+    public Integer getChunksAnalyzed() {
+        return chunksAnalyzed;
+    }
+
+    public void setChunksAnalyzed(Integer chunksAnalyzed) {
+        this.chunksAnalyzed = chunksAnalyzed;
+    }
+
+    public Boolean getDetectionsTruncated() {
+        return detectionsTruncated;
+    }
+
+    public void setDetectionsTruncated(Boolean detectionsTruncated) {
+        this.detectionsTruncated = detectionsTruncated;
+    }
+
+    public List<String> getCompletedStages() {
+        return completedStages;
+    }
+
+    public void setCompletedStages(List<String> completedStages) {
+        this.completedStages = completedStages;
+    }
+
+    public Boolean getPartial() {
+        return partial;
+    }
+
+    public void setPartial(Boolean partial) {
+        this.partial = partial;
+    }
+
+    public JudgeTiming getTiming() {
+        return timing;
+    }
+
+    public void setTiming(JudgeTiming timing) {
+        this.timing = timing;
+    }
+
     // Helper method to add a detection
     public void addDetection(DetectionDetail detail) {
         if (this.detections == null) {
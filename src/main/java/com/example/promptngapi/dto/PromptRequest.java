@@ -2,6 +2,7 @@ package com.example.promptngapi.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
 
 /**
  * プロンプト判定APIのリクエストボディを表します。
@@ -23,6 +24,13 @@ public class PromptRequest {
     @Schema(description = "プロンプトインジェクション判定のための非日本語文の単語数閾値。指定しない場合はapplication.yamlまたはデフォルト値が使用されます。", example = "3", nullable = true)
     private Integer nonJapaneseSentenceWordThreshold;
 
+    @Schema(description = "判定にかける時間の上限 (ミリ秒、/judge と /judge/batch の各項目で有効)。指定した場合、検出の段階を軽い順に実行し、上限を過ぎた時点で打ち切って部分的な判定 (partial=true) を返します。", example = "200", nullable = true)
+    @Positive(message = "timeoutMs must be positive")
+    private Long timeoutMs;
+
+    @Schema(description = "true の場合、判定の内訳 (段階ごとの処理時間、フレーズ数、トークン数、評価したルール数など) をレスポンスの timing と Server-Timing ヘッダーで返します (/judge/batch では各項目の timing のみ、リアクティブ版では無視されます)。production プロファイルでは debug-timing.allowed-addresses に含まれるクライアントからのリクエストでのみ有効です。", example = "false", nullable = true)
+    private Boolean debug;
+
     // Default constructor
     public PromptRequest() {
     }
@@ -66,4 +74,20 @@ public class PromptRequest {
     public void setNonJapaneseSentenceWordThreshold(Integer nonJapaneseSentenceWordThreshold) {
         this.nonJapaneseSentenceWordThreshold = nonJapaneseSentenceWordThreshold;
     }
+
+    public Long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public void setTimeoutMs(Long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    public Boolean getDebug() {
+        return debug;
+    }
+
+    public void setDebug(Boolean debug) {
+        this.debug = debug;
+    }
 }
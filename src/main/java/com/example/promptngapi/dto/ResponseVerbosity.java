@@ -0,0 +1,33 @@
+package com.example.promptngapi.dto;
+
+import java.util.Locale;
+
+/**
+ * 判定 API のレスポンスの詳細度です (クエリパラメータ {@code verbosity})。
+ */
+public enum ResponseVerbosity {
+
+    /** 総合的な判定結果 (overall_result) のみ */
+    VERDICT,
+
+    /** 総合的な判定結果と、各検出結果の種別・ルール ID・位置 ({@link CompactJudgeResponse}) */
+    COMPACT,
+
+    /** 検出結果の詳細をすべて含む従来の形式 ({@link PromptNGResponse}) */
+    FULL;
+
+    /**
+     * クエリパラメータの値 (大文字・小文字を区別しない) から詳細度を返します。
+     *
+     * @param value パラメータの値
+     * @return 詳細度。該当するものがない場合は null
+     */
+    public static ResponseVerbosity fromValue(String value) {
+        for (ResponseVerbosity verbosity : values()) {
+            if (verbosity.name().equals(value.trim().toUpperCase(Locale.ROOT))) {
+                return verbosity;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.promptngapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+/**
+ * ルール ID とルールの対応 ({@code GET /prompt-ng/v1/rules}) のレスポンスです。
+ * 簡易形式のレスポンス ({@link CompactJudgeResponse}) や gRPC 版の API が返すルール ID の意味を表します。
+ */
+@Schema(description = "ルール ID とルール (検出結果の type / matched_pattern) の対応")
+public class RuleCatalogResponse {
+
+    /**
+     * 1 つのルールです。
+     *
+     * @param id      ルール ID
+     * @param type    検出結果の {@code type}
+     * @param pattern 検出結果の {@code matched_pattern} (省略時は同じ type のすべての検出結果)
+     */
+    public record Rule(int id, String type, @JsonInclude(JsonInclude.Include.NON_NULL) String pattern) {
+    }
+
+    @JsonProperty("catalog_version")
+    @Schema(description = "ルール ID の割り当てが変わると変わる値", example = "3735928559")
+    private final long catalogVersion;
+
+    @Schema(description = "ID の順に並んだルール")
+    private final List<Rule> rules;
+
+    public RuleCatalogResponse(long catalogVersion, List<Rule> rules) {
+        this.catalogVersion = catalogVersion;
+        this.rules = rules;
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+}
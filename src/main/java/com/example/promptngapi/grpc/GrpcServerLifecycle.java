@@ -0,0 +1,93 @@
+package com.example.promptngapi.grpc;
+
+import com.example.promptngapi.config.GrpcServerConfig;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * gRPC サーバーを REST API (サーブレットコンテナ) と同じアプリケーションの中で起動・停止します。
+ * <p>
+ * REST API とは別のポート ({@code grpc.port}) で待ち受けます。各呼び出しは REST API のリクエストと同じく仮想スレッドで処理し、
+ * CPU を使う検出器は REST API と共有するスレッドプールで実行します。
+ * 停止時は新しい呼び出しの受け付けをやめ、処理中の呼び出しの完了を待ってから終了します。
+ */
+@Component
+public class GrpcServerLifecycle implements SmartLifecycle {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GrpcServerLifecycle.class);
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final GrpcServerConfig grpcServerConfig;
+    private final PromptNgGrpcService promptNgGrpcService;
+    private volatile Server server;
+    private ExecutorService executor;
+
+    @Autowired
+    public GrpcServerLifecycle(GrpcServerConfig grpcServerConfig, PromptNgGrpcService promptNgGrpcService) {
+        this.grpcServerConfig = grpcServerConfig;
+        this.promptNgGrpcService = promptNgGrpcService;
+    }
+
+    @Override
+    public void start() {
+        if (!grpcServerConfig.isEnabled()) {
+            return;
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            server = NettyServerBuilder.forPort(grpcServerConfig.getPort())
+                .executor(executor)
+                .addService(promptNgGrpcService)
+                .build()
+                .start();
+        } catch (IOException e) {
+            executor.shutdown();
+            throw new IllegalStateException("Failed to start gRPC server on port " + grpcServerConfig.getPort(), e);
+        }
+        LOGGER.info("gRPC server started on port {}", server.getPort());
+    }
+
+    @Override
+    public void stop() {
+        Server current = server;
+        if (current == null) {
+            return;
+        }
+        current.shutdown();
+        try {
+            if (!current.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                current.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            current.shutdownNow();
+        }
+        executor.shutdownNow();
+        server = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * 待ち受けているポートを返します ({@code grpc.port} が 0 の場合は実際に割り当てられたポート)。
+     *
+     * @return ポート番号。サーバーが起動していない場合は -1
+     */
+    public int getPort() {
+        Server current = server;
+        return current != null ? current.getPort() : -1;
+    }
+}
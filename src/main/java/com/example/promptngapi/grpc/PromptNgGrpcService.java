@@ -0,0 +1,393 @@
+package com.example.promptngapi.grpc;
+
+import com.example.promptngapi.config.BatchJudgeConfig;
+import com.example.promptngapi.config.GrpcServerConfig;
+import com.example.promptngapi.config.ScoreThresholdsConfig;
+import com.example.promptngapi.dto.DetectionDetail;
+import com.example.promptngapi.dto.PromptNGResponse;
+import com.example.promptngapi.dto.PromptRequest;
+import com.example.promptngapi.grpc.v1.Detection;
+import com.example.promptngapi.grpc.v1.JudgeBatchRequest;
+import com.example.promptngapi.grpc.v1.JudgeBatchResponse;
+import com.example.promptngapi.grpc.v1.JudgeRequest;
+import com.example.promptngapi.grpc.v1.JudgeResponse;
+import com.example.promptngapi.grpc.v1.ListRulesRequest;
+import com.example.promptngapi.grpc.v1.ListRulesResponse;
+import com.example.promptngapi.grpc.v1.PromptNgGrpc;
+import com.example.promptngapi.grpc.v1.Rule;
+import com.example.promptngapi.nlp.KuromojiAnalyzer;
+import com.example.promptngapi.service.AdaptiveConcurrencyLimiter;
+import com.example.promptngapi.service.AdmissionRejectedException;
+import com.example.promptngapi.service.BatchJudgeService;
+import com.example.promptngapi.service.DetectionContext;
+import com.example.promptngapi.service.DetectionSpan;
+import com.example.promptngapi.service.DetectionTimeoutException;
+import com.example.promptngapi.service.PromptJudgeService;
+import com.example.promptngapi.service.RuleCatalog;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * gRPC 版の API (src/main/proto/prompt_ng.proto) の実装です。
+ * <p>
+ * 判定内容は REST API と同じで、{@code Judge} は {@code /judge} と同じ流量制御 ({@link AdaptiveConcurrencyLimiter}) を経て検出器を並行実行し、
+ * {@code JudgeBatch} は {@code /judge/batch} と同じ {@link BatchJudgeService} で判定します。
+ * 検出結果はパターン文字列や入力テキストのコピーの代わりに、{@link RuleCatalog} のルール ID と入力テキスト上の位置で返します。
+ * クライアントが設定した deadline は判定の期限にもなり、過ぎた判定はそれ以上続けません。
+ * <p>
+ * {@code JudgeStream} の項目は全ストリームで共有するスレッドプール ({@code grpc.pool-size}) で判定し、
+ * 1 ストリームで判定中・送信待ちの項目数を {@code grpc.stream-max-in-flight} に制限します。
+ * 上限に達している間とクライアントが結果を受信できない間は次の項目を要求しないため、送信側にバックプレッシャーがかかります。
+ */
+@Service
+public class PromptNgGrpcService extends PromptNgGrpc.PromptNgImplBase {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PromptNgGrpcService.class);
+
+    private static final Metadata.Key<String> RETRY_PUSHBACK_MS =
+        Metadata.Key.of("grpc-retry-pushback-ms", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final KuromojiAnalyzer kuromojiAnalyzer;
+    private final PromptJudgeService promptJudgeService;
+    private final BatchJudgeService batchJudgeService;
+    private final BatchJudgeConfig batchJudgeConfig;
+    private final ScoreThresholdsConfig scoreThresholdsConfig;
+    private final RuleCatalog ruleCatalog;
+    private final GrpcServerConfig grpcServerConfig;
+    private final AdaptiveConcurrencyLimiter admissionLimiter;
+    private final ThreadPoolExecutor streamExecutor;
+
+    @Autowired
+    public PromptNgGrpcService(KuromojiAnalyzer kuromojiAnalyzer,
+                               PromptJudgeService promptJudgeService,
+                               BatchJudgeService batchJudgeService,
+                               BatchJudgeConfig batchJudgeConfig,
+                               ScoreThresholdsConfig scoreThresholdsConfig,
+                               RuleCatalog ruleCatalog,
+                               GrpcServerConfig grpcServerConfig,
+                               AdaptiveConcurrencyLimiter admissionLimiter) {
+        this.kuromojiAnalyzer = kuromojiAnalyzer;
+        this.promptJudgeService = promptJudgeService;
+        this.batchJudgeService = batchJudgeService;
+        this.batchJudgeConfig = batchJudgeConfig;
+        this.scoreThresholdsConfig = scoreThresholdsConfig;
+        this.ruleCatalog = ruleCatalog;
+        this.grpcServerConfig = grpcServerConfig;
+        this.admissionLimiter = admissionLimiter;
+
+        // キューの長さは各ストリームの stream-max-in-flight で制限されるため、ここでは上限を設けない
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.streamExecutor = new ThreadPoolExecutor(
+            grpcServerConfig.getPoolSize(), grpcServerConfig.getPoolSize(),
+            0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "grpc-judge-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    @Override
+    public void judge(JudgeRequest request, StreamObserver<JudgeResponse> responseObserver) {
+        Deadline deadline = Context.current().getDeadline();
+        try {
+            validate(request);
+            DetectionContext context = contextFor(request, deadline);
+            List<DetectionDetail> detections;
+            AdaptiveConcurrencyLimiter.Permit permit = admissionLimiter.acquire(context);
+            boolean overloaded = false;
+            try {
+                detections = promptJudgeService.judge(kuromojiAnalyzer.analyze(request.getText()), context);
+            } catch (DetectionTimeoutException | AdmissionRejectedException e) {
+                // 期限切れと、検出器のスレッドプールが一杯の場合は過負荷として上限の調整に使う
+                overloaded = true;
+                throw e;
+            } finally {
+                permit.release(overloaded);
+            }
+            responseObserver.onNext(toResponse(request.getText(), detections,
+                context.getSimilarityThreshold(), context.getNonJapaneseSentenceWordThreshold()));
+            responseObserver.onCompleted();
+        } catch (RuntimeException e) {
+            responseObserver.onError(toStatusException(e, deadline));
+        }
+    }
+
+    @Override
+    public void judgeBatch(JudgeBatchRequest request, StreamObserver<JudgeBatchResponse> responseObserver) {
+        Deadline deadline = Context.current().getDeadline();
+        try {
+            if (request.getItemsCount() > batchJudgeConfig.getMaxItems()) {
+                throw Status.INVALID_ARGUMENT
+                    .withDescription("Too many items: " + request.getItemsCount() + " (max " + batchJudgeConfig.getMaxItems() + ")")
+                    .asRuntimeException();
+            }
+            List<PromptRequest> items = new ArrayList<>(request.getItemsCount());
+            for (JudgeRequest item : request.getItemsList()) {
+                validate(item);
+                items.add(new PromptRequest(item.getText(),
+                    item.hasSimilarityThreshold() ? item.getSimilarityThreshold() : null,
+                    item.hasNonJapaneseSentenceWordThreshold() ? item.getNonJapaneseSentenceWordThreshold() : null));
+            }
+            List<PromptNGResponse> results = deadline != null
+                ? batchJudgeService.judge(items, System.nanoTime() + deadline.timeRemaining(TimeUnit.NANOSECONDS))
+                : batchJudgeService.judge(items);
+
+            JudgeBatchResponse.Builder response = JudgeBatchResponse.newBuilder();
+            for (int i = 0; i < results.size(); i++) {
+                PromptNGResponse result = results.get(i);
+                response.addResults(toResponse(items.get(i).getText(), result.getDetections(),
+                    result.getSimilarityThreshold(), result.getNonJapaneseSentenceWordThreshold()));
+            }
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (RuntimeException e) {
+            responseObserver.onError(toStatusException(e, deadline));
+        }
+    }
+
+    @Override
+    public StreamObserver<JudgeRequest> judgeStream(StreamObserver<JudgeResponse> responseObserver) {
+        JudgeStream stream = new JudgeStream((ServerCallStreamObserver<JudgeResponse>) responseObserver, Context.current().getDeadline());
+        stream.start();
+        return stream;
+    }
+
+    @Override
+    public void listRules(ListRulesRequest request, StreamObserver<ListRulesResponse> responseObserver) {
+        ListRulesResponse.Builder response = ListRulesResponse.newBuilder().setCatalogVersion(ruleCatalog.getVersion());
+        for (RuleCatalog.Rule rule : ruleCatalog.getRules()) {
+            response.addRules(Rule.newBuilder()
+                .setId(rule.id())
+                .setType(rule.type())
+                .setPattern(rule.pattern() != null ? rule.pattern() : ""));
+        }
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * 1 つの {@code JudgeStream} 呼び出しの状態です。
+     * 受信した項目の判定結果を受信順のキューに入れ、先頭から判定が終わった分だけ送信します。
+     * 結果を 1 件送信するごとに次の項目を 1 件要求するため、判定中・送信待ちの項目数は {@code grpc.stream-max-in-flight} を超えません。
+     */
+    private final class JudgeStream implements StreamObserver<JudgeRequest> {
+        private final ServerCallStreamObserver<JudgeResponse> responseObserver;
+        private final Deadline deadline;
+        // gRPC の StreamObserver はスレッドセーフではないため、送信はこのロックで直列化する
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<CompletableFuture<JudgeResponse>> pending = new ArrayDeque<>();
+        private int deferredRequests; // クライアントが受信できるようになるまで要求を保留している項目数
+        private boolean inputCompleted;
+        private boolean finished;
+
+        JudgeStream(ServerCallStreamObserver<JudgeResponse> responseObserver, Deadline deadline) {
+            this.responseObserver = responseObserver;
+            this.deadline = deadline;
+        }
+
+        void start() {
+            responseObserver.disableAutoRequest();
+            responseObserver.setOnCancelHandler(this::cancel);
+            responseObserver.setOnReadyHandler(this::requestDeferred);
+            responseObserver.request(grpcServerConfig.getStreamMaxInFlight());
+        }
+
+        @Override
+        public void onNext(JudgeRequest request) {
+            CompletableFuture<JudgeResponse> future;
+            try {
+                validate(request);
+                DetectionContext context = contextFor(request, deadline);
+                future = CompletableFuture.supplyAsync(() -> {
+                    List<DetectionDetail> detections = promptJudgeService.judgeSequentially(kuromojiAnalyzer.analyze(request.getText()), context);
+                    return toResponse(request.getText(), detections,
+                        context.getSimilarityThreshold(), context.getNonJapaneseSentenceWordThreshold());
+                }, streamExecutor);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            lock.lock();
+            try {
+                if (finished) {
+                    future.cancel(false);
+                    return;
+                }
+                pending.add(future);
+            } finally {
+                lock.unlock();
+            }
+            future.whenComplete((response, failure) -> sendCompleted());
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            cancel();
+        }
+
+        @Override
+        public void onCompleted() {
+            lock.lock();
+            try {
+                inputCompleted = true;
+            } finally {
+                lock.unlock();
+            }
+            sendCompleted();
+        }
+
+        // 先頭から判定が終わった結果を送信し、送信した数だけ次の項目を要求する
+        private void sendCompleted() {
+            lock.lock();
+            try {
+                while (!finished && !pending.isEmpty() && pending.peek().isDone()) {
+                    JudgeResponse response;
+                    try {
+                        response = pending.poll().join();
+                    } catch (CompletionException e) {
+                        fail(e.getCause());
+                        return;
+                    }
+                    responseObserver.onNext(response);
+                    if (responseObserver.isReady()) {
+                        responseObserver.request(1);
+                    } else {
+                        deferredRequests++;
+                    }
+                }
+                if (!finished && inputCompleted && pending.isEmpty()) {
+                    finished = true;
+                    responseObserver.onCompleted();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void requestDeferred() {
+            lock.lock();
+            try {
+                if (!finished && deferredRequests > 0) {
+                    responseObserver.request(deferredRequests);
+                    deferredRequests = 0;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // 項目の判定が失敗した場合は、ストリーム全体をエラーで終了する
+        private void fail(Throwable cause) {
+            finished = true;
+            cancelPending();
+            responseObserver.onError(toStatusException(cause, deadline));
+        }
+
+        private void cancel() {
+            lock.lock();
+            try {
+                finished = true;
+                cancelPending();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void cancelPending() {
+            for (CompletableFuture<JudgeResponse> future : pending) {
+                future.cancel(false); // まだ始まっていない項目は実行されない
+            }
+            pending.clear();
+        }
+    }
+
+    private static void validate(JudgeRequest request) {
+        if (request.getText().isBlank()) {
+            throw Status.INVALID_ARGUMENT.withDescription("Text cannot be blank").asRuntimeException();
+        }
+    }
+
+    private DetectionContext contextFor(JudgeRequest request, Deadline deadline) {
+        DetectionContext context = DetectionContext.of(scoreThresholdsConfig,
+            request.hasSimilarityThreshold() ? request.getSimilarityThreshold() : null,
+            request.hasNonJapaneseSentenceWordThreshold() ? request.getNonJapaneseSentenceWordThreshold() : null);
+        if (deadline != null) {
+            context = context.withDeadline(System.nanoTime() + deadline.timeRemaining(TimeUnit.NANOSECONDS));
+        }
+        return context;
+    }
+
+    /**
+     * 判定結果を gRPC のレスポンスに変換します。検出結果の位置は {@link DetectionSpan#of} で求めます。
+     */
+    JudgeResponse toResponse(String text, List<DetectionDetail> detections,
+                             Double similarityThreshold, Integer nonJapaneseSentenceWordThreshold) {
+        JudgeResponse.Builder response = JudgeResponse.newBuilder().setOverallResult(detections.isEmpty());
+        if (similarityThreshold != null) {
+            response.setSimilarityThreshold(similarityThreshold);
+        }
+        if (nonJapaneseSentenceWordThreshold != null) {
+            response.setNonJapaneseSentenceWordThreshold(nonJapaneseSentenceWordThreshold);
+        }
+        for (DetectionDetail detail : detections) {
+            Detection.Builder detection = Detection.newBuilder().setRuleId(ruleCatalog.idOf(detail));
+            if (detail.getSimilarity_score() != null) {
+                detection.setScore(detail.getSimilarity_score());
+            }
+            DetectionSpan span = DetectionSpan.of(detail, text);
+            detection.setStart(span.start()).setEnd(span.end());
+            response.addDetections(detection);
+        }
+        return response.build();
+    }
+
+    /**
+     * 例外を gRPC のステータスに変換します。
+     * 判定の期限切れは、クライアントの deadline を過ぎていれば DEADLINE_EXCEEDED、サーバーの設定による場合は
+     * REST API の 503 と同じく UNAVAILABLE (再試行可能) です。
+     * 流量制御で受け付けなかった場合も UNAVAILABLE で、再試行までの目安を {@code grpc-retry-pushback-ms} に設定します。
+     */
+    private static StatusRuntimeException toStatusException(Throwable e, Deadline deadline) {
+        if (e instanceof StatusRuntimeException statusException) {
+            return statusException;
+        }
+        if (e instanceof AdmissionRejectedException rejected) {
+            // gRPC のクライアントの再試行 (retryPolicy) は grpc-retry-pushback-ms に従って待つ
+            Metadata trailers = new Metadata();
+            trailers.put(RETRY_PUSHBACK_MS, String.valueOf(TimeUnit.SECONDS.toMillis(rejected.getRetryAfterSeconds())));
+            return Status.UNAVAILABLE.withDescription(e.getMessage()).asRuntimeException(trailers);
+        }
+        if (e instanceof DetectionTimeoutException) {
+            Status status = deadline != null && deadline.isExpired() ? Status.DEADLINE_EXCEEDED : Status.UNAVAILABLE;
+            return status.withDescription(e.getMessage()).asRuntimeException();
+        }
+        LOGGER.error("gRPC judgement failed", e);
+        return Status.INTERNAL.withDescription("Judgement failed").withCause(e).asRuntimeException();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        streamExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,394 @@
+package com.example.promptngapi.nlp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 都道府県・市区町村名の辞書 (トライ) と、丁目・番地・号の表記規則を組み合わせて、テキスト中の日本の住所を検出します。
+ * <p>
+ * 辞書はクラスパス上の CSV ({@value #DEFAULT_RESOURCE}) から構築し、子ノードをラベル順に連続した配列に詰めた
+ * コンパクトなトライとして保持します。検出時はテキストを先頭から 1 回走査し、各位置で辞書の最長一致を調べます
+ * (1 位置あたりの探索は辞書の最長語の長さで抑えられるため、全体として入力長に比例する時間で終わります)。
+ * <p>
+ * 次の並びを住所として扱います。
+ * <ol>
+ *   <li>都道府県名 (任意) … 辞書</li>
+ *   <li>郡名 (任意、都道府県名がある場合のみ) … 「〇〇郡」</li>
+ *   <li>市区町村名 (必須) … 辞書。都道府県名がある場合は辞書にない「〇〇市/区/町/村」も許可</li>
+ *   <li>町域名 (任意) … 漢字・かな・数字で {@value #MAX_TOWN_NAME_CHARS} 文字まで。助詞 (「で」「は」など) で始まるもの、
+ *       助詞の直後に数字が続くものは町域名とみなしません (「横浜市で3番」「仙台市では1番人気」を住所としないため)</li>
+ *   <li>丁目・番地・号 (必須) … 「1丁目2番3号」「一丁目2番地」「1-2-3」「１－２」など</li>
+ * </ol>
+ * 都道府県名がない場合は、市区町村名が辞書にあるときのみ住所とみなします。
+ * このクラスのインスタンスは不変で、スレッドセーフです。
+ */
+public final class AddressGazetteer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AddressGazetteer.class);
+
+    /** 同梱の辞書ファイル */
+    public static final String DEFAULT_RESOURCE = "address_gazetteer.csv";
+
+    /**
+     * 検出された住所です。
+     *
+     * @param start        テキスト上の開始位置 (この位置を含む)
+     * @param end          テキスト上の終了位置 (この位置を含まない)
+     * @param prefecture   都道府県名 (省略されている場合は {@code null})
+     * @param municipality 市区町村名
+     */
+    public record Match(int start, int end, String prefecture, String municipality) {
+    }
+
+    private static final int MAX_COUNTY_NAME_CHARS = 5;
+    private static final int MAX_MUNICIPALITY_NAME_CHARS = 6;
+    private static final int MAX_TOWN_NAME_CHARS = 12;
+
+    private static final byte KIND_NONE = 0;
+    private static final byte KIND_PREFECTURE = 1;
+    private static final byte KIND_MUNICIPALITY = 2;
+
+    // トライ (ノード 0 が根)。ノード n の子は labels/firstChild の [firstChild[n], firstChild[n] + childCount[n]) にラベル順で並ぶ
+    private final char[] labels;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final byte[] kinds;
+
+    private final int prefectureCount;
+    private final int municipalityCount;
+
+    private AddressGazetteer(char[] labels, int[] firstChild, int[] childCount, byte[] kinds,
+                             int prefectureCount, int municipalityCount) {
+        this.labels = labels;
+        this.firstChild = firstChild;
+        this.childCount = childCount;
+        this.kinds = kinds;
+        this.prefectureCount = prefectureCount;
+        this.municipalityCount = municipalityCount;
+    }
+
+    /**
+     * 同梱の辞書 ({@value #DEFAULT_RESOURCE}) から構築します。
+     * 辞書が見つからない場合は空の辞書となり、住所は検出されません。
+     */
+    public static AddressGazetteer loadDefault() {
+        try (InputStream inputStream = AddressGazetteer.class.getClassLoader().getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (inputStream == null) {
+                LOGGER.error("{} が見つかりません。住所は検出されません。", DEFAULT_RESOURCE);
+                return build(List.of(), List.of());
+            }
+            return load(inputStream);
+        } catch (IOException e) {
+            LOGGER.error("{} の読み込み中にエラーが発生しました。住所は検出されません。", DEFAULT_RESOURCE, e);
+            return build(List.of(), List.of());
+        }
+    }
+
+    /**
+     * 「都道府県,市区町村」形式の CSV (UTF-8) から構築します。{@code #} で始まる行とヘッダー行は無視します。
+     */
+    public static AddressGazetteer load(InputStream inputStream) throws IOException {
+        List<String> prefectures = new ArrayList<>();
+        List<String> municipalities = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#") || line.startsWith("prefecture,")) {
+                continue;
+            }
+            String[] columns = line.split(",", -1);
+            if (!columns[0].isEmpty() && !prefectures.contains(columns[0])) {
+                prefectures.add(columns[0]);
+            }
+            if (columns.length > 1 && !columns[1].isEmpty()) {
+                municipalities.add(columns[1]);
+            }
+        }
+        AddressGazetteer gazetteer = build(prefectures, municipalities);
+        LOGGER.info("Loaded {} prefectures and {} municipalities into the address gazetteer.",
+            gazetteer.prefectureCount, gazetteer.municipalityCount);
+        return gazetteer;
+    }
+
+    // 構築時のみ使う可変ノード
+    private static final class BuildNode {
+        final TreeMap<Character, BuildNode> children = new TreeMap<>();
+        byte kind = KIND_NONE;
+    }
+
+    private static AddressGazetteer build(List<String> prefectures, List<String> municipalities) {
+        BuildNode root = new BuildNode();
+        int nodeCount = 1;
+        int municipalityCount = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            List<String> words = pass == 0 ? prefectures : municipalities;
+            byte kind = pass == 0 ? KIND_PREFECTURE : KIND_MUNICIPALITY;
+            for (String word : words) {
+                BuildNode node = root;
+                for (int i = 0; i < word.length(); i++) {
+                    BuildNode child = node.children.get(word.charAt(i));
+                    if (child == null) {
+                        child = new BuildNode();
+                        node.children.put(word.charAt(i), child);
+                        nodeCount++;
+                    }
+                    node = child;
+                }
+                if (node.kind == KIND_NONE) {
+                    node.kind = kind; // 都道府県名と同じ市区町村名はない前提 (先に登録した都道府県を優先)
+                    if (kind == KIND_MUNICIPALITY) {
+                        municipalityCount++;
+                    }
+                }
+            }
+        }
+
+        // 幅優先で番号を振り、兄弟ノードを連続した位置に配置する
+        char[] labels = new char[nodeCount];
+        int[] firstChild = new int[nodeCount];
+        int[] childCount = new int[nodeCount];
+        byte[] kinds = new byte[nodeCount];
+        List<BuildNode> queue = new ArrayList<>(nodeCount);
+        queue.add(root);
+        for (int index = 0; index < queue.size(); index++) {
+            BuildNode node = queue.get(index);
+            kinds[index] = node.kind;
+            firstChild[index] = queue.size();
+            childCount[index] = node.children.size();
+            for (Map.Entry<Character, BuildNode> entry : node.children.entrySet()) {
+                labels[queue.size()] = entry.getKey();
+                queue.add(entry.getValue());
+            }
+        }
+        return new AddressGazetteer(labels, firstChild, childCount, kinds, prefectures.size(), municipalityCount);
+    }
+
+    public int getPrefectureCount() {
+        return prefectureCount;
+    }
+
+    public int getMunicipalityCount() {
+        return municipalityCount;
+    }
+
+    /**
+     * テキスト中の住所をすべて検出します。検出された住所どうしは重なりません。
+     *
+     * @param text 検査するテキスト (null は空文字列として扱います)
+     * @return 検出された住所のリスト (出現順)
+     */
+    public List<Match> find(CharSequence text) {
+        List<Match> matches = new ArrayList<>();
+        if (text == null) {
+            return matches;
+        }
+        int length = text.length();
+        for (int i = 0; i < length; ) {
+            Match match = matchAt(text, i);
+            if (match != null) {
+                matches.add(match);
+                i = match.end();
+            } else {
+                i++;
+            }
+        }
+        return matches;
+    }
+
+    private Match matchAt(CharSequence text, int start) {
+        String prefecture = null;
+        int position = start;
+
+        int end = longestMatch(text, position, KIND_PREFECTURE);
+        if (end > 0) {
+            prefecture = text.subSequence(position, end).toString();
+            position = end;
+            int countyEnd = matchSuffixedName(text, position, MAX_COUNTY_NAME_CHARS, "郡");
+            if (countyEnd > 0) {
+                position = countyEnd;
+            }
+        }
+
+        int municipalityEnd = longestMatch(text, position, KIND_MUNICIPALITY);
+        if (municipalityEnd < 0 && prefecture != null) {
+            municipalityEnd = matchSuffixedName(text, position, MAX_MUNICIPALITY_NAME_CHARS, "市区町村");
+        }
+        if (municipalityEnd < 0) {
+            return null;
+        }
+        String municipality = text.subSequence(position, municipalityEnd).toString();
+
+        // 町域名 (任意) に続く丁目・番地・号を探す
+        for (int blockStart = municipalityEnd; blockStart <= municipalityEnd + MAX_TOWN_NAME_CHARS && blockStart < text.length(); blockStart++) {
+            int blockEnd = matchBlockNumber(text, blockStart);
+            if (blockEnd > 0) {
+                return new Match(start, blockEnd, prefecture, municipality);
+            }
+            char c = text.charAt(blockStart);
+            // 町域名には「北8条西」のような数字を含むものもある
+            if (!isNameChar(c) && !isBlockDigit(c)) {
+                break;
+            }
+            // 市区町村名の直後の助詞 (「横浜市で」「仙台市では」) や、数字の直前の助詞 (「〇〇町で3番」) は町域名の一部ではない
+            if (isParticle(c) && (blockStart == municipalityEnd
+                    || (blockStart + 1 < text.length() && isBlockDigit(text.charAt(blockStart + 1))))) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 指定位置から始まる、指定種別の語の最長一致の終了位置を返します。一致しない場合は -1 です。
+     */
+    private int longestMatch(CharSequence text, int start, byte kind) {
+        int node = 0;
+        int matchedEnd = -1;
+        for (int i = start; i < text.length(); i++) {
+            node = child(node, text.charAt(i));
+            if (node < 0) {
+                break;
+            }
+            if (kinds[node] == kind) {
+                matchedEnd = i + 1;
+            }
+        }
+        return matchedEnd;
+    }
+
+    private int child(int node, char label) {
+        int low = firstChild[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midLabel = labels[mid];
+            if (midLabel < label) {
+                low = mid + 1;
+            } else if (midLabel > label) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 1〜maxNameChars 文字の漢字・かなに、suffixes のいずれかの文字が続く並び (例: 「〇〇郡」「〇〇町」) の終了位置を返します。
+     * 一致しない場合は -1 です。
+     */
+    private static int matchSuffixedName(CharSequence text, int start, int maxNameChars, String suffixes) {
+        int limit = Math.min(text.length(), start + maxNameChars + 1);
+        for (int i = start; i < limit; i++) {
+            char c = text.charAt(i);
+            if (i > start && suffixes.indexOf(c) >= 0) {
+                return i + 1;
+            }
+            if (!isNameChar(c) || (i == start && isParticle(c))) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 丁目・番地・号の並びの終了位置を返します。一致しない場合は -1 です。
+     * 数字 (半角・全角・漢数字) に「丁目」「番地」「番」「号」のいずれかが続くか、
+     * 2 つ以上の数字がハイフン類または「の」でつながっている場合に一致とします。
+     */
+    static int matchBlockNumber(CharSequence text, int start) {
+        int position = matchNumber(text, start);
+        if (position < 0) {
+            return -1;
+        }
+        int numbers = 1;
+        boolean unitSeen = false;
+        int matchedEnd = -1;
+        while (true) {
+            int unitEnd = matchUnit(text, position);
+            if (unitEnd > 0) {
+                unitSeen = true;
+                position = unitEnd;
+                matchedEnd = position;
+            } else if (position < text.length() && isBlockSeparator(text.charAt(position))) {
+                int next = matchNumber(text, position + 1);
+                if (next < 0) {
+                    break;
+                }
+                numbers++;
+                position = next;
+                matchedEnd = position;
+                continue;
+            } else {
+                break;
+            }
+            int next = matchNumber(text, position);
+            if (next < 0) {
+                break;
+            }
+            numbers++;
+            position = next;
+            matchedEnd = position;
+        }
+        return unitSeen || numbers >= 2 ? matchedEnd : -1;
+    }
+
+    private static int matchNumber(CharSequence text, int start) {
+        int i = start;
+        while (i < text.length() && isBlockDigit(text.charAt(i))) {
+            i++;
+        }
+        return i > start ? i : -1;
+    }
+
+    private static int matchUnit(CharSequence text, int start) {
+        if (startsWith(text, start, "丁目") || startsWith(text, start, "番地")) {
+            return start + 2;
+        }
+        if (startsWith(text, start, "番") || startsWith(text, start, "号")) {
+            return start + 1;
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(CharSequence text, int start, String prefix) {
+        if (start + prefix.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(start + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isBlockDigit(char c) {
+        return (c >= '0' && c <= '9') || (c >= '０' && c <= '９') || "〇一二三四五六七八九十".indexOf(c) >= 0;
+    }
+
+    private static boolean isBlockSeparator(char c) {
+        return c == '-' || c == '－' || c == '‐' || c == '−' || c == 'ー' || c == 'の';
+    }
+
+    // 地名の区切りに現れる助詞の文字 (「の」は「三の丸」など地名にも多く、丁目・番地の区切りにも使うため含めない)
+    private static boolean isParticle(char c) {
+        return "でにをはへとがもや".indexOf(c) >= 0;
+    }
+
+    // 郡・市区町村・町域の名前に使われる文字 (漢字、ひらがな、カタカナ、々)
+    private static boolean isNameChar(char c) {
+        return Character.isIdeographic(c) || (c >= 0x3041 && c <= 0x30FF) || c == '々';
+    }
+}
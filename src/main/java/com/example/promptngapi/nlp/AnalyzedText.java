@@ -0,0 +1,35 @@
+package com.example.promptngapi.nlp;
+
+import com.atilika.kuromoji.ipadic.Token;
+
+import java.util.List;
+
+/**
+ * 形態素解析済みのテキストです。
+ * {@link KuromojiAnalyzer#analyze(String)} で 1 回だけトークン化し、その結果を複数の検出器で共有するために使用します。
+ * インスタンスは不変です。
+ */
+public final class AnalyzedText {
+
+    private final String text;
+    private final List<Token> tokens;
+
+    AnalyzedText(String text, List<Token> tokens) {
+        this.text = text;
+        this.tokens = List.copyOf(tokens);
+    }
+
+    /** 元のテキスト */
+    public String getText() {
+        return text;
+    }
+
+    /** テキスト全体のトークン列 ({@link Token#getPosition()} は元のテキスト上の位置) */
+    public List<Token> getTokens() {
+        return tokens;
+    }
+
+    public boolean isEmpty() {
+        return text == null || text.isEmpty();
+    }
+}
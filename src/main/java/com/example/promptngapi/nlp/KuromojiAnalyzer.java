@@ -2,10 +2,15 @@ package com.example.promptngapi.nlp;
 
 import com.atilika.kuromoji.ipadic.Token;
 import com.atilika.kuromoji.ipadic.Tokenizer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component; // Componentをインポート
 
 import java.util.ArrayList; // Added import
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Component // Springが管理するBeanとしてマーク
@@ -13,6 +18,21 @@ public class KuromojiAnalyzer {
 
     private static final Tokenizer tokenizer = new Tokenizer();
 
+    // 形態素解析 1 回ごとの処理時間 (prompt_ng.nlp.tokenize)
+    private final Timer tokenizeTimer;
+
+    @Autowired
+    public KuromojiAnalyzer(MeterRegistry meterRegistry) {
+        this.tokenizeTimer = Timer.builder("prompt_ng.nlp.tokenize")
+            .description("Time spent in Kuromoji tokenization per call")
+            .register(meterRegistry);
+    }
+
+    // メトリクスを記録しない (Spring の外で使う場合)
+    public KuromojiAnalyzer() {
+        this(new CompositeMeterRegistry());
+    }
+
     /**
      * 指定されたテキストを形態素解析し、トークンのリストを返します。
      *
@@ -23,7 +43,21 @@ public class KuromojiAnalyzer {
         if (text == null || text.isEmpty()) {
             return List.of(); // 空のリストを返す
         }
-        return tokenizer.tokenize(text);
+        long start = System.nanoTime();
+        List<Token> tokens = tokenizer.tokenize(text);
+        tokenizeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return tokens;
+    }
+
+    /**
+     * 指定されたテキストを形態素解析し、トークン列を保持した {@link AnalyzedText} を返します。
+     * 同じテキストを複数の検出器で解析する場合は、これを共有してトークン化を 1 回で済ませます。
+     *
+     * @param text 解析するテキスト
+     * @return 解析済みテキスト
+     */
+    public AnalyzedText analyze(String text) {
+        return new AnalyzedText(text, tokenize(text));
     }
 
     /**
@@ -152,9 +186,17 @@ public class KuromojiAnalyzer {
         if (text == null || text.isEmpty()) {
             return List.of();
         }
+        return splitIntoPhrases(tokenize(text));
+    }
 
-        List<Token> tokens = tokenize(text);
-        if (tokens.isEmpty()) {
+    /**
+     * 解析済みのトークン列を句に分割します。{@link #splitIntoPhrases(String)} と同じ規則で分割しますが、トークン化は行いません。
+     *
+     * @param tokens 分割するトークン列
+     * @return 句のリスト
+     */
+    public List<String> splitIntoPhrases(List<Token> tokens) {
+        if (tokens == null || tokens.isEmpty()) {
             return List.of();
         }
 
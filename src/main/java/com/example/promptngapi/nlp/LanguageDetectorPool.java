@@ -0,0 +1,98 @@
+package com.example.promptngapi.nlp;
+
+import org.apache.tika.langdetect.optimaize.OptimaizeLangDetector;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.apache.tika.language.detect.LanguageDetector;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tika Optimaize 言語検出器のプールです。
+ * {@link OptimaizeLangDetector} はインスタンスごとにテキストバッファを持つためスレッドセーフではありません。
+ * このクラスは検出器を 1 回の検出の間だけ 1 スレッドに貸し出し、共有される可変状態を持たないようにします。
+ * 言語プロファイル自体は Tika 側で static に共有されるため、インスタンスの追加生成は安価です。
+ */
+@Component
+public class LanguageDetectorPool {
+
+    private final Queue<LanguageDetector> idleDetectors = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final int maxIdle;
+    // 言語検出 1 回ごとの処理時間 (prompt_ng.nlp.language_detection)
+    private final Timer detectionTimer;
+
+    @Autowired
+    public LanguageDetectorPool(MeterRegistry meterRegistry) {
+        this(Runtime.getRuntime().availableProcessors() * 2, meterRegistry);
+    }
+
+    // メトリクスを記録しない (Spring の外で使う場合)
+    public LanguageDetectorPool() {
+        this(new CompositeMeterRegistry());
+    }
+
+    LanguageDetectorPool(int maxIdle) {
+        this(maxIdle, new CompositeMeterRegistry());
+    }
+
+    LanguageDetectorPool(int maxIdle, MeterRegistry meterRegistry) {
+        this.maxIdle = Math.max(1, maxIdle);
+        this.detectionTimer = Timer.builder("prompt_ng.nlp.language_detection")
+            .description("Time spent in Optimaize language detection per call")
+            .register(meterRegistry);
+        // 起動時に 1 つ生成しておき、言語モデルのロードをリクエスト処理から外す
+        release(newDetector());
+    }
+
+    /**
+     * 指定されたテキストの言語を検出し、言語コード (例: "ja", "en") を返します。
+     * 複数スレッドから同時に呼び出しても安全です。
+     *
+     * @param text 判定するテキスト
+     * @return 検出された言語コード。判定できない場合は空文字列。
+     */
+    public String detectLanguage(String text) {
+        LanguageDetector detector = borrow();
+        long start = System.nanoTime();
+        try {
+            return detector.detect(text).getLanguage();
+        } finally {
+            detectionTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            release(detector);
+        }
+    }
+
+    int idleCount() {
+        return idleCount.get();
+    }
+
+    private LanguageDetector borrow() {
+        LanguageDetector detector = idleDetectors.poll();
+        if (detector == null) {
+            return newDetector();
+        }
+        idleCount.decrementAndGet();
+        return detector;
+    }
+
+    private void release(LanguageDetector detector) {
+        detector.reset();
+        // 上限を超えた分は破棄する (バースト時に生成された分がプールに残り続けないように)
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idleDetectors.offer(detector);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    private static LanguageDetector newDetector() {
+        return new OptimaizeLangDetector().loadModels();
+    }
+}
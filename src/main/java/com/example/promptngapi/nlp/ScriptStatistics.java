@@ -0,0 +1,135 @@
+package com.example.promptngapi.nlp;
+
+/**
+ * テキスト中の文字種 (かな・漢字・その他の文字) の比率と、空白区切りの単語数を 1 回の走査で集計します。
+ * 統計的な言語検出 (Optimaize) を呼ぶ前の安価な事前判定に使用します。
+ * <ul>
+ *   <li>かなを含み、文字の大半がかな・漢字であれば日本語と確定できます (かなは日本語にしか現れないため)。</li>
+ *   <li>かなも漢字も含まない文字列 (ラテン文字、ハングルなど) は日本語ではないと確定できます。</li>
+ *   <li>漢字のみ (日本語か中国語か) や、ラテン文字と CJK の混在は判定できないため {@link Verdict#AMBIGUOUS} とします。</li>
+ * </ul>
+ */
+public final class ScriptStatistics {
+
+    /** 事前判定の結果 */
+    public enum Verdict {
+        JAPANESE,
+        NON_JAPANESE,
+        AMBIGUOUS
+    }
+
+    // かな・漢字が文字全体に占める割合がこの値 (%) 以上で、かつかなを含む場合に日本語と確定する
+    private static final int JAPANESE_SCRIPT_PERCENT = 70;
+
+    private final int kanaCount;
+    private final int hanCount;
+    private final int letterCount;
+    private final int wordCount;
+
+    private ScriptStatistics(int kanaCount, int hanCount, int letterCount, int wordCount) {
+        this.kanaCount = kanaCount;
+        this.hanCount = hanCount;
+        this.letterCount = letterCount;
+        this.wordCount = wordCount;
+    }
+
+    /**
+     * 指定されたテキストを 1 回走査して統計を集計します。
+     *
+     * @param text 集計するテキスト (null は空文字列として扱います)
+     * @return 集計結果
+     */
+    public static ScriptStatistics of(CharSequence text) {
+        if (text == null) {
+            return new ScriptStatistics(0, 0, 0, 0);
+        }
+        int kana = 0;
+        int han = 0;
+        int letters = 0;
+        int words = 0;
+        boolean inWord = false;
+
+        int length = text.length();
+        for (int i = 0; i < length; ) {
+            int cp = Character.codePointAt(text, i);
+            i += Character.charCount(cp);
+
+            // 単語数は String#split("\\s+") と同じく ASCII 空白で区切る
+            if (isAsciiWhitespace(cp)) {
+                inWord = false;
+                continue;
+            }
+            if (!inWord) {
+                words++;
+                inWord = true;
+            }
+
+            if (cp < 0x80) {
+                if ((cp >= 'a' && cp <= 'z') || (cp >= 'A' && cp <= 'Z')) {
+                    letters++;
+                }
+            } else if ((cp >= 0x3040 && cp <= 0x30FF) || (cp >= 0xFF66 && cp <= 0xFF9D)) {
+                // ひらがな・カタカナ (長音符を含む)・半角カタカナ
+                kana++;
+                letters++;
+            } else if (Character.isIdeographic(cp)) {
+                han++;
+                letters++;
+            } else if (Character.isLetter(cp)) {
+                letters++;
+            }
+        }
+        return new ScriptStatistics(kana, han, letters, words);
+    }
+
+    /**
+     * 文字種の比率から、日本語かどうかを判定します。
+     *
+     * @return 確定できる場合は {@link Verdict#JAPANESE} または {@link Verdict#NON_JAPANESE}、それ以外は {@link Verdict#AMBIGUOUS}
+     */
+    public Verdict classify() {
+        int japaneseScript = kanaCount + hanCount;
+        if (kanaCount > 0 && japaneseScript * 100 >= letterCount * JAPANESE_SCRIPT_PERCENT) {
+            return Verdict.JAPANESE;
+        }
+        if (japaneseScript == 0 && letterCount > 0) {
+            return Verdict.NON_JAPANESE;
+        }
+        return Verdict.AMBIGUOUS;
+    }
+
+    /**
+     * 統計的な言語検出器に渡すテキストを先頭から最大 {@code maxChars} 文字に切り詰めます。
+     * サロゲートペアの途中では切りません。
+     */
+    public static String truncateForDetection(String text, int maxChars) {
+        if (text == null || text.length() <= maxChars) {
+            return text;
+        }
+        int end = maxChars;
+        if (Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+
+    public int getKanaCount() {
+        return kanaCount;
+    }
+
+    public int getHanCount() {
+        return hanCount;
+    }
+
+    public int getLetterCount() {
+        return letterCount;
+    }
+
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    private static boolean isAsciiWhitespace(int cp) {
+        return cp == ' ' || cp == '\t' || cp == '\n' || cp == 0x0B || cp == '\f' || cp == '\r';
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.promptngapi.nlp;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * {@link Reader} からテキストを少しずつ読み込み、文の区切りで上限サイズ以下のチャンクに分割します。
+ * 各チャンクの先頭には直前のチャンク末尾 {@code overlapChars} 文字を重複して含めるため、
+ * チャンク境界をまたぐ一致も検出できます。
+ * 保持するのは現在のチャンクと重複部分のみで、入力全体のサイズに関わらずメモリ使用量は一定です。
+ * このクラスはスレッドセーフではありません。
+ */
+public class SentenceChunker {
+
+    // 文の区切りとみなす文字 (この文字の直後で分割する)
+    private static final String SENTENCE_TERMINATORS = "。．！？!?\n";
+
+    /**
+     * 1 つのチャンクです。
+     *
+     * @param text          チャンクのテキスト (先頭 {@code overlapLength} 文字は直前のチャンクと重複)
+     * @param startOffset   入力全体におけるチャンク先頭の位置 (char 単位)
+     * @param overlapLength 直前のチャンクと重複している先頭部分の長さ
+     * @param index         0 から始まるチャンク番号
+     */
+    public record Chunk(String text, long startOffset, int overlapLength, int index) {
+    }
+
+    private final Reader reader;
+    private final int maxChunkChars;
+    private final int overlapChars;
+    private final char[] buffer;
+
+    private int length;        // buffer 内の有効な文字数
+    private int overlapLength; // buffer 先頭の重複部分の長さ
+    private long bufferOffset; // buffer[0] の入力全体での位置
+    private int chunkIndex;
+    private boolean endOfInput;
+
+    public SentenceChunker(Reader reader, int maxChunkChars, int overlapChars) {
+        if (maxChunkChars < 2) {
+            throw new IllegalArgumentException("maxChunkChars must be at least 2: " + maxChunkChars);
+        }
+        if (overlapChars < 0 || overlapChars > maxChunkChars / 2) {
+            throw new IllegalArgumentException("overlapChars must be between 0 and maxChunkChars / 2: " + overlapChars);
+        }
+        this.reader = reader;
+        this.maxChunkChars = maxChunkChars;
+        this.overlapChars = overlapChars;
+        this.buffer = new char[maxChunkChars];
+    }
+
+    /**
+     * 次のチャンクを返します。
+     *
+     * @return 次のチャンク。入力をすべて読み終えた場合は {@code null}。
+     * @throws IOException 入力の読み込みに失敗した場合
+     */
+    public Chunk next() throws IOException {
+        fill();
+        if (length <= overlapLength) {
+            return null; // 重複部分以外に新しいテキストがない
+        }
+
+        int cut = endOfInput && length < maxChunkChars ? length : findCut();
+        Chunk chunk = new Chunk(new String(buffer, 0, cut), bufferOffset, overlapLength, chunkIndex++);
+
+        // 次のチャンクは、今回のチャンク末尾の重複部分 + 未処理の残りから始める
+        int nextStart = Math.max(adjustForSurrogate(cut - overlapChars), 0);
+        if (nextStart < overlapLength) {
+            nextStart = overlapLength; // 重複部分を二重に持ち越さない
+        }
+        nextStart = Math.min(nextStart, cut);
+        System.arraycopy(buffer, nextStart, buffer, 0, length - nextStart);
+        length -= nextStart;
+        bufferOffset += nextStart;
+        overlapLength = cut - nextStart;
+        return chunk;
+    }
+
+    private void fill() throws IOException {
+        while (!endOfInput && length < maxChunkChars) {
+            int read = reader.read(buffer, length, maxChunkChars - length);
+            if (read < 0) {
+                endOfInput = true;
+            } else {
+                length += read;
+            }
+        }
+    }
+
+    /**
+     * buffer 内でチャンクを切る位置を決めます。
+     * 後半にある最後の文末記号の直後を優先し、なければ最後の空白の直後、それもなければ上限位置で切ります。
+     */
+    private int findCut() {
+        int minCut = overlapLength + Math.max(1, (length - overlapLength) / 2);
+        for (int i = length - 1; i >= minCut - 1; i--) {
+            if (isSentenceTerminator(buffer[i])) {
+                return i + 1;
+            }
+        }
+        for (int i = length - 1; i >= minCut - 1; i--) {
+            if (Character.isWhitespace(buffer[i])) {
+                return i + 1;
+            }
+        }
+        return adjustForSurrogate(length);
+    }
+
+    // サロゲートペアの間で切らないように位置を調整する
+    private int adjustForSurrogate(int position) {
+        if (position > 0 && Character.isHighSurrogate(buffer[position - 1])) {
+            return position - 1;
+        }
+        return position;
+    }
+
+    /** 文の区切りとみなす文字 (この文字の直後で区切る) であれば true を返します。 */
+    public static boolean isSentenceTerminator(char c) {
+        return SENTENCE_TERMINATORS.indexOf(c) >= 0;
+    }
+}
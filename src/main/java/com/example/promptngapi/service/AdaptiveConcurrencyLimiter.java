@@ -0,0 +1,218 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.config.AdmissionControlConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+/**
+ * 判定の同時実行数を、測定したレイテンシに応じて調整しながら制限する流量制御です。
+ * <p>
+ * 上限は勾配方式 (Netflix concurrency-limits の Gradient2 と同様) で調整します。判定にかかった時間の短期平均と長期平均を比べ、
+ * 短期平均が長期平均より伸びている (= CPU やスレッドプールで待ちが発生している) 間は上限を下げ、伸びていない間は少しずつ上げます。
+ * 期限切れで失敗した判定は過負荷の兆候として、上限をすぐに下げます。
+ * <p>
+ * 上限に達している間に届いたリクエストは、{@code admission-control.queue-capacity} 件まで到着順に待たせます。
+ * 待ち行列が一杯の場合と、待ち時間がリクエストごとの期限 ({@code admission-control.queue-timeout-ms} とリクエストの期限の早い方) を過ぎた場合は
+ * {@link AdmissionRejectedException} で拒否します。拒否はすぐに返るため、過負荷時にレイテンシが際限なく伸びることはありません。
+ * <p>
+ * 判定中の数・待ち行列の長さ・現在の上限は、オートスケーリングの指標として Micrometer のゲージ
+ * ({@code prompt_ng.admission.in_flight} / {@code queue_depth} / {@code limit}) で公開します。
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AdaptiveConcurrencyLimiter implements MeterBinder {
+
+    // 短期平均・長期平均の対象とするおおよそのサンプル数
+    private static final int SHORT_WINDOW = 10;
+    private static final int LONG_WINDOW = 600;
+    // 短期平均が長期平均のこの倍率までは、レイテンシが伸びていないとみなす
+    private static final double TOLERANCE = 1.5;
+    // 期限切れで失敗した判定があった場合に上限に掛ける値
+    private static final double BACKOFF_RATIO = 0.9;
+
+    /**
+     * 判定の実行許可です。判定が終わったら、成功・失敗に関わらず 1 回だけ {@link #release(boolean)} を呼び出してください。
+     */
+    public final class Permit {
+        private final long startNanos = System.nanoTime();
+        private boolean released;
+
+        /**
+         * 実行許可を返却し、判定にかかった時間を上限の調整に使います。
+         *
+         * @param overloaded 期限切れなど、過負荷が原因で判定が失敗した場合は true
+         */
+        public void release(boolean overloaded) {
+            onRelease(this, System.nanoTime() - startNanos, overloaded);
+        }
+    }
+
+    private final AdmissionControlConfig config;
+    // 仮想スレッドで待っている間にキャリアスレッドを占有しないよう、synchronized ではなくロックを使う
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private double shortRttNanos;
+    private double longRttNanos;
+    private long samples;
+
+    @Autowired
+    public AdaptiveConcurrencyLimiter(AdmissionControlConfig config) {
+        this.config = config;
+        this.limit = clamp(config.getInitialLimit());
+    }
+
+    /**
+     * 実行許可を取得します。上限に達している場合は、待ち行列に入って空きを待ちます。
+     * 待ち時間の上限は {@code admission-control.queue-timeout-ms} とコンテキストの期限の早い方です。
+     * 流量制御が無効な場合は、常にすぐに許可します。
+     *
+     * @param context 判定のコンテキスト (期限を持つ場合は、期限を過ぎてまで待たない)
+     * @return 実行許可
+     * @throws AdmissionRejectedException 待ち行列が一杯の場合、または待ち時間の上限を過ぎた場合
+     */
+    public Permit acquire(DetectionContext context) {
+        long waitNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(config.getQueueTimeoutMs()), context.remainingNanos());
+        lock.lock();
+        try {
+            if (!config.isEnabled() || (waiting == 0 && inFlight < (int) limit)) {
+                inFlight++;
+                return new Permit();
+            }
+            if (waiting >= config.getQueueCapacity()) {
+                throw new AdmissionRejectedException("Too many pending requests", retryAfterSeconds());
+            }
+            waiting++;
+            try {
+                while (inFlight >= (int) limit) {
+                    if (waitNanos <= 0) {
+                        throw new AdmissionRejectedException("Request waited too long for admission", retryAfterSeconds());
+                    }
+                    waitNanos = available.awaitNanos(waitNanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AdmissionRejectedException("Interrupted while waiting for admission", retryAfterSeconds());
+            } finally {
+                waiting--;
+            }
+            inFlight++;
+            return new Permit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onRelease(Permit permit, long rttNanos, boolean overloaded) {
+        lock.lock();
+        try {
+            if (permit.released) {
+                return;
+            }
+            permit.released = true;
+            int previousLimit = (int) limit;
+            int inFlightAtCompletion = inFlight;
+            inFlight--;
+            if (config.isEnabled()) {
+                update(rttNanos, overloaded, inFlightAtCompletion);
+            }
+            // 空きの数だけ待っているリクエストを起こす (上限が上がった場合は複数)
+            int freed = Math.max(1, (int) limit - previousLimit + 1);
+            for (int i = 0; i < freed; i++) {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 上限を勾配方式で更新する。lock を保持して呼び出すこと
+    private void update(long rttNanos, boolean overloaded, int inFlightAtCompletion) {
+        if (overloaded) {
+            limit = clamp(limit * BACKOFF_RATIO);
+            return;
+        }
+        samples++;
+        if (samples == 1) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+        } else {
+            shortRttNanos += (rttNanos - shortRttNanos) * 2.0 / (SHORT_WINDOW + 1);
+            longRttNanos += (rttNanos - longRttNanos) * 2.0 / (LONG_WINDOW + 1);
+        }
+        // 負荷が長く下がった後は長期平均が実態より高く残るため、短期平均に近づける
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+        // 上限の半分も使っていない場合は、上限を上げる根拠がない
+        if (inFlightAtCompletion < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRttNanos));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        limit = clamp(limit * (1 - config.getSmoothing()) + newLimit * config.getSmoothing());
+    }
+
+    private double clamp(double value) {
+        return Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), value));
+    }
+
+    // 待ち行列の長さと判定時間から、空きができるまでのおおよその時間 (最低 1 秒)
+    private long retryAfterSeconds() {
+        double seconds = longRttNanos * (waiting + 1) / Math.max(1, (int) limit) / TimeUnit.SECONDS.toNanos(1);
+        return Math.max(1, (long) Math.ceil(seconds));
+    }
+
+    /** 現在の同時実行数の上限 */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** 判定中のリクエスト数 */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** 実行許可を待っているリクエスト数 */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("prompt_ng.admission.in_flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+            .description("Judge requests currently being processed")
+            .register(registry);
+        Gauge.builder("prompt_ng.admission.queue_depth", this, AdaptiveConcurrencyLimiter::getQueueDepth)
+            .description("Judge requests waiting for admission")
+            .register(registry);
+        Gauge.builder("prompt_ng.admission.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+            .description("Current adaptive concurrency limit for judge requests")
+            .register(registry);
+    }
+}
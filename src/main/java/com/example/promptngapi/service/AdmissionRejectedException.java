@@ -0,0 +1,21 @@
+package com.example.promptngapi.service;
+
+/**
+ * 同時実行数の上限に達しており、待ち行列にも入れなかった (または待ち時間の上限を過ぎた) ため、判定を受け付けなかったことを表す例外です。
+ * 検出器のスレッドプールの実行待ちが上限に達している場合 ({@link PromptJudgeService#judge}) にも送出されます。
+ * コントローラーでは 503 Service Unavailable と、再試行までの目安を表す {@code Retry-After} ヘッダーになります。
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /** 再試行までの目安 (秒) */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.config.BatchJudgeConfig;
+import com.example.promptngapi.config.ScoreThresholdsConfig;
+import com.example.promptngapi.dto.DetectionDetail;
+import com.example.promptngapi.dto.PromptNGResponse;
+import com.example.promptngapi.dto.PromptRequest;
+import com.example.promptngapi.nlp.AnalyzedText;
+import com.example.promptngapi.nlp.KuromojiAnalyzer;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+
+/**
+ * 複数のプロンプトを 1 回の呼び出しでまとめて判定するサービスです。
+ * <p>
+ * 項目は全バッチリクエストで共有する固定サイズのスレッドプールで判定します。実行待ちの項目はテキストの短い順に取り出すため
+ * (同じ長さなら投入順)、巨大な項目がスレッドを 1 つ占有している間も、同時に届いた短い項目は待たされずに判定されます。
+ * ただし長い項目が後から届く短い項目に追い越され続けないよう、テキストの長さによる優先は最大
+ * {@code batch-judge.max-size-delay-ms} の待ち時間の差までとし、それより前に受け付けた項目は後から届いた項目より先に判定します。
+ * 同じバッチ内でテキストと閾値が同一の項目は 1 回だけ判定し、結果を共有します。
+ * <p>
+ * 実行待ち・判定中の項目数は {@code batch-judge.queue-capacity} までです。バッチの項目を加えると上限を超える場合は、
+ * 待たせずに {@link AdmissionRejectedException} (503 と Retry-After) で拒否します。
+ * <p>
+ * 項目の {@code timeoutMs} と {@code debug} は {@code /prompt-ng/v1/judge} と同じく項目ごとに適用します。
+ * {@code timeoutMs} の時間はバッチを受け付けた時点から数え、上限を過ぎた項目は軽い段階から完了した分の部分的な判定になります
+ * (バッチ全体の期限 {@code batch-judge.timeout-ms} は、これとは別に適用されます)。
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BatchJudgeService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchJudgeService.class);
+
+    // 実行待ちが一杯で拒否した場合の Retry-After (秒)
+    private static final long REJECTED_RETRY_AFTER_SECONDS = 1;
+
+    // この文字数の項目は、長さによる優先の差の上限 (max-size-delay-ms) の半分だけ後回しにする
+    private static final int SIZE_DELAY_HALF_CHARS = 1000;
+
+    private final KuromojiAnalyzer kuromojiAnalyzer;
+    private final PromptJudgeService promptJudgeService;
+    private final ScoreThresholdsConfig scoreThresholdsConfig;
+    private final BatchJudgeConfig batchJudgeConfig;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger pendingItems = new AtomicInteger(); // 実行待ち・判定中の項目数
+
+    // 同一とみなす項目のキー (閾値や時間の上限が異なれば結果も異なり得る)
+    private record ItemKey(String text, Double similarityThreshold, Integer nonJapaneseSentenceWordThreshold,
+                           Long timeoutMs, boolean traced) {
+    }
+
+    /**
+     * 実行待ちキューの要素です。受け付けた時刻にテキストの長さに応じた遅れ (最大 {@code batch-judge.max-size-delay-ms}) を
+     * 加えた時刻が早いほど先に実行されます。同じバッチ内ではテキストが短いほど、同じ長さなら先に投入されたほど先に実行されます。
+     */
+    private final class ItemTask implements Runnable, Comparable<ItemTask> {
+        private final PromptRequest request;
+        private final DetectionContext context;
+        private final long priority;
+        private final long order = sequence.getAndIncrement();
+        private final CompletableFuture<PromptNGResponse> future = new CompletableFuture<>();
+
+        ItemTask(PromptRequest request, DetectionContext context, long receivedAt) {
+            this.request = request;
+            this.context = context;
+            this.priority = receivedAt + sizeDelayNanos(request.getText().length());
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                pendingItems.decrementAndGet();
+                return; // 期限切れなどで取り消し済み
+            }
+            PromptNGResponse response = null;
+            Throwable failure = null;
+            try {
+                response = judgeOne(request, context);
+            } catch (Throwable t) {
+                failure = t;
+            }
+            // 結果を渡す前に枠を空け、呼び出し元が続けて投入したバッチが拒否されないようにする
+            pendingItems.decrementAndGet();
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(response);
+            }
+        }
+
+        @Override
+        public int compareTo(ItemTask other) {
+            int byPriority = Long.compare(priority - other.priority, 0); // System.nanoTime() 基準のため差で比較する
+            return byPriority != 0 ? byPriority : Long.compare(order, other.order);
+        }
+    }
+
+    @Autowired
+    public BatchJudgeService(KuromojiAnalyzer kuromojiAnalyzer,
+                             PromptJudgeService promptJudgeService,
+                             ScoreThresholdsConfig scoreThresholdsConfig,
+                             BatchJudgeConfig batchJudgeConfig) {
+        this.kuromojiAnalyzer = kuromojiAnalyzer;
+        this.promptJudgeService = promptJudgeService;
+        this.scoreThresholdsConfig = scoreThresholdsConfig;
+        this.batchJudgeConfig = batchJudgeConfig;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            batchJudgeConfig.getPoolSize(), batchJudgeConfig.getPoolSize(),
+            0, TimeUnit.MILLISECONDS,
+            new PriorityBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "batch-judge-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        // 最初の項目から優先度付きキューを経由させる (未起動のスレッドには投入順にそのまま渡されるため)
+        this.executor.prestartAllCoreThreads();
+    }
+
+    /**
+     * 項目をまとめて判定し、リクエストと同じ順序で結果を返します。
+     * 各結果は {@code /prompt-ng/v1/judge} と同じ形式で、項目ごとの閾値の上書きも同様に適用されます。
+     *
+     * @param requests 判定する項目 (text は空でないこと)
+     * @return 各項目の判定結果 (同一の項目には同じ結果)
+     * @throws DetectionTimeoutException 期限 ({@code batch-judge.timeout-ms}) までにすべての項目を判定できなかった場合
+     * @throws AdmissionRejectedException 実行待ち・判定中の項目数が {@code batch-judge.queue-capacity} を超える場合
+     */
+    public List<PromptNGResponse> judge(List<PromptRequest> requests) {
+        return judge(requests, false);
+    }
+
+    /**
+     * {@link #judge(List)} と同じく判定します。{@code debugPermitted} が true の場合、{@code debug} を指定した項目の結果に
+     * 判定の内訳 ({@link PromptNGResponse#getTiming()}) を含めます。
+     *
+     * @param requests       判定する項目 (text は空でないこと)
+     * @param debugPermitted 判定の内訳を返してよい場合は true (production プロファイルの許可リストなど、呼び出し元で判断します)
+     * @return 各項目の判定結果 (同一の項目には同じ結果)
+     * @throws DetectionTimeoutException 期限 ({@code batch-judge.timeout-ms}) までにすべての項目を判定できなかった場合
+     * @throws AdmissionRejectedException 実行待ち・判定中の項目数が {@code batch-judge.queue-capacity} を超える場合
+     */
+    public List<PromptNGResponse> judge(List<PromptRequest> requests, boolean debugPermitted) {
+        return judgeUntil(requests, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchJudgeConfig.getTimeoutMs()), debugPermitted);
+    }
+
+    /**
+     * {@link #judge(List)} と同じく判定します。期限は {@code batch-judge.timeout-ms} と {@code deadlineNanos} の早い方です。
+     * 呼び出し元が期限を持っている場合 (gRPC の deadline など) に、それを過ぎた判定を続けないために使用します。
+     *
+     * @param requests      判定する項目 (text は空でないこと)
+     * @param deadlineNanos 呼び出し元の期限 ({@link System#nanoTime()} 基準)
+     * @return 各項目の判定結果 (同一の項目には同じ結果)
+     * @throws DetectionTimeoutException 期限までにすべての項目を判定できなかった場合
+     * @throws AdmissionRejectedException 実行待ち・判定中の項目数が {@code batch-judge.queue-capacity} を超える場合
+     */
+    public List<PromptNGResponse> judge(List<PromptRequest> requests, long deadlineNanos) {
+        long configured = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchJudgeConfig.getTimeoutMs());
+        return judgeUntil(requests, configured - deadlineNanos > 0 ? deadlineNanos : configured, false);
+    }
+
+    private List<PromptNGResponse> judgeUntil(List<PromptRequest> requests, long deadline, boolean debugPermitted) {
+        // 期限はバッチ全体で共通。判定中の項目も期限を過ぎれば打ち切られる
+        long receivedAt = System.nanoTime();
+        Map<ItemKey, ItemTask> uniqueTasks = new LinkedHashMap<>();
+        List<ItemTask> orderedTasks = new ArrayList<>(requests.size());
+        for (PromptRequest request : requests) {
+            boolean traced = debugPermitted && Boolean.TRUE.equals(request.getDebug());
+            ItemKey key = new ItemKey(request.getText(), request.getSimilarityThreshold(), request.getNonJapaneseSentenceWordThreshold(),
+                request.getTimeoutMs(), traced);
+            orderedTasks.add(uniqueTasks.computeIfAbsent(key, k -> {
+                DetectionContext context = contextFor(request).withDeadline(deadline);
+                if (request.getTimeoutMs() != null) {
+                    // 項目の時間の上限は、実行待ちの時間も含めてバッチを受け付けた時点から数える
+                    context = context.withDeadline(receivedAt + TimeUnit.MILLISECONDS.toNanos(request.getTimeoutMs()));
+                }
+                return new ItemTask(request, traced ? context.withTrace(new DetectionTrace()) : context, receivedAt);
+            }));
+        }
+
+        // 短い項目から投入し、キューに入る前に空いているスレッドへ渡される場合も短い項目が先に始まるようにする
+        List<ItemTask> submission = new ArrayList<>(uniqueTasks.values());
+        submission.sort(Comparator.naturalOrder());
+        reserve(submission.size());
+        for (ItemTask task : submission) {
+            executor.execute(task);
+        }
+
+        try {
+            for (ItemTask task : submission) {
+                await(task.future, deadline);
+            }
+        } catch (RuntimeException | Error e) {
+            for (ItemTask task : submission) {
+                task.future.cancel(false); // まだ始まっていない項目は実行されない
+            }
+            throw e;
+        }
+
+        List<PromptNGResponse> responses = new ArrayList<>(orderedTasks.size());
+        for (ItemTask task : orderedTasks) {
+            responses.add(task.future.join());
+        }
+        return responses;
+    }
+
+    /**
+     * 1 項目を呼び出し元スレッドで期限なしに判定します。項目の閾値の上書きは、この項目の判定にだけ適用されます。
+     * 時間の上限と判定の内訳 ({@code timeoutMs} / {@code debug}) は使用しません。
+     *
+     * @param request 判定する項目 (text は空でないこと)
+     * @return 判定結果
+     */
+    public PromptNGResponse judgeOne(PromptRequest request) {
+        return judgeOne(request, contextFor(request));
+    }
+
+    private PromptNGResponse judgeOne(PromptRequest request, DetectionContext context) {
+        long start = System.nanoTime();
+        AnalyzedText analyzedText = kuromojiAnalyzer.analyze(request.getText());
+        DetectionTrace trace = context.getTrace();
+        if (trace != null) {
+            trace.setAnalysis(System.nanoTime() - start, analyzedText.getTokens().size());
+        }
+
+        // 項目単位で並行に処理しているため、検出器はこのスレッドで順番に実行する
+        PromptJudgeService.BudgetedResult budgeted = null;
+        List<DetectionDetail> detections;
+        if (request.getTimeoutMs() != null) {
+            budgeted = promptJudgeService.judgeWithinBudget(analyzedText, context);
+            detections = budgeted.detections();
+        } else {
+            detections = promptJudgeService.judgeSequentially(analyzedText, context);
+        }
+
+        PromptNGResponse response = new PromptNGResponse(detections.isEmpty(), detections,
+            context.getSimilarityThreshold(), context.getNonJapaneseSentenceWordThreshold());
+        if (budgeted != null) {
+            budgeted.applyTo(response);
+        }
+        if (trace != null) {
+            response.setTiming(trace.toTiming(System.nanoTime() - start));
+        }
+        return response;
+    }
+
+    // バッチの項目数だけ実行待ちの枠を確保する。何も実行していなければ、上限より大きなバッチも受け付ける
+    private void reserve(int items) {
+        int pending;
+        do {
+            pending = pendingItems.get();
+            if (pending > 0 && pending + items > batchJudgeConfig.getQueueCapacity()) {
+                LOGGER.warn("Batch judge queue is full (pending={}, items={}, queue-capacity={}); rejecting the batch",
+                    pending, items, batchJudgeConfig.getQueueCapacity());
+                throw new AdmissionRejectedException("Batch judge queue is full", REJECTED_RETRY_AFTER_SECONDS);
+            }
+        } while (!pendingItems.compareAndSet(pending, pending + items));
+    }
+
+    // テキストが長いほど後回しにする時間。長さに対して単調に増え、max-size-delay-ms を超えない
+    private long sizeDelayNanos(int length) {
+        long maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(batchJudgeConfig.getMaxSizeDelayMs());
+        return (long) (maxDelayNanos * ((double) length / (length + SIZE_DELAY_HALF_CHARS)));
+    }
+
+    private DetectionContext contextFor(PromptRequest request) {
+        return DetectionContext.of(scoreThresholdsConfig, request.getSimilarityThreshold(), request.getNonJapaneseSentenceWordThreshold());
+    }
+
+    private static void await(CompletableFuture<PromptNGResponse> future, long deadline) {
+        try {
+            future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new DetectionTimeoutException("Batch judgement did not complete within the configured timeout");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DetectionTimeoutException("Interrupted while waiting for batch judgement");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
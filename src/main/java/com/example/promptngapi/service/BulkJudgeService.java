@@ -0,0 +1,253 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.config.BulkJudgeConfig;
+import com.example.promptngapi.dto.BulkJudgeRequest;
+import com.example.promptngapi.dto.BulkJudgeResult;
+import com.example.promptngapi.dto.DetectionDetail;
+import com.example.promptngapi.dto.PromptNGResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+
+/**
+ * NDJSON (1 行 1 JSON) で渡された大量のプロンプトを判定し、結果を NDJSON で書き出すサービスです。
+ * 過去のプロンプトの監査など、数百万行規模の入力を想定しています。
+ * <p>
+ * 入力を 1 行ずつ読み込み、全リクエストで共有するスレッドプールで判定して、完了した行から順に書き出します。
+ * 判定中・出力待ちの行数は {@code bulk-judge.max-in-flight} で制限し、上限に達すると読み込みを止めます
+ * (リクエストボディの受信が止まり、送信側にバックプレッシャーがかかります)。
+ * そのためメモリ使用量はアップロードのサイズに関わらず一定で、スループットはスレッド数 (CPU コア数) に応じて伸びます。
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BulkJudgeService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkJudgeService.class);
+
+    /**
+     * 一括スキャンの集計です。
+     *
+     * @param lines  判定対象として読み込んだ行数 (空行を除く)
+     * @param errors エラーとして出力した行数
+     */
+    public record Summary(long lines, long errors) {
+    }
+
+    private final BatchJudgeService batchJudgeService;
+    private final BulkJudgeConfig bulkJudgeConfig;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+
+    @Autowired
+    public BulkJudgeService(BatchJudgeService batchJudgeService, BulkJudgeConfig bulkJudgeConfig, ObjectMapper objectMapper) {
+        this.batchJudgeService = batchJudgeService;
+        this.bulkJudgeConfig = bulkJudgeConfig;
+        this.objectMapper = objectMapper;
+
+        // キューの長さは各リクエストの max-in-flight で制限されるため、ここでは上限を設けない
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            bulkJudgeConfig.getPoolSize(), bulkJudgeConfig.getPoolSize(),
+            0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "bulk-judge-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    /**
+     * {@link Reader} から NDJSON を読み込んで判定し、各行の結果 ({@link BulkJudgeResult}) を 1 行ずつ {@link Writer} に書き出します。
+     * 結果は判定が完了した順に書き出され、1 行ごとに {@link Writer#flush()} を呼び出します。空行は無視します。
+     * 書き出しに失敗した場合 (クライアントの切断など) は、以降の行を読み込まずに終了します。
+     *
+     * @param reader 入力 (NDJSON)。このメソッドでは close しません。
+     * @param writer 出力先。このメソッドでは close しません。
+     * @return 集計
+     * @throws IOException 入力の読み込みまたは出力の書き込みに失敗した場合
+     */
+    public Summary scan(Reader reader, Writer writer) throws IOException {
+        int maxInFlight = bulkJudgeConfig.getMaxInFlight();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicReference<IOException> writeFailure = new AtomicReference<>();
+        // 書き込みでブロックしても仮想スレッドのキャリアスレッドを占有しないよう、synchronized ではなくロックで直列化する
+        ReentrantLock writeLock = new ReentrantLock();
+        AtomicLong errors = new AtomicLong();
+        LineReader lineReader = new LineReader(reader, bulkJudgeConfig.getMaxLineChars());
+
+        long lineNumber = 0;
+        long lines = 0;
+        try {
+            String line;
+            while (writeFailure.get() == null && (line = lineReader.readLine()) != null) {
+                lineNumber++;
+                if (!lineReader.isTooLong() && line.isBlank()) {
+                    continue;
+                }
+                lines++;
+                inFlight.acquire(); // 上限に達している間はここで待ち、以降の入力を読み込まない
+
+                long currentLine = lineNumber;
+                boolean tooLong = lineReader.isTooLong();
+                String currentText = line;
+                try {
+                    executor.execute(() -> {
+                        try {
+                            BulkJudgeResult result = tooLong
+                                ? BulkJudgeResult.failure(currentLine, null, "line exceeds " + bulkJudgeConfig.getMaxLineChars() + " characters")
+                                : judgeLine(currentLine, currentText);
+                            if (result.getError() != null) {
+                                errors.incrementAndGet();
+                            }
+                            write(writer, writeLock, result, writeFailure);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+            }
+            // 判定中の行がすべて書き出されるまで待つ
+            inFlight.acquire(maxInFlight);
+            inFlight.release(maxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for bulk judgement");
+        }
+
+        IOException failure = writeFailure.get();
+        if (failure != null) {
+            throw failure;
+        }
+        return new Summary(lines, errors.get());
+    }
+
+    private BulkJudgeResult judgeLine(long lineNumber, String line) {
+        BulkJudgeRequest request;
+        try {
+            request = objectMapper.readValue(line, BulkJudgeRequest.class);
+        } catch (JsonProcessingException e) {
+            return BulkJudgeResult.failure(lineNumber, null, "invalid JSON: " + e.getOriginalMessage());
+        }
+        if (request == null || request.getText() == null || request.getText().isBlank()) {
+            return BulkJudgeResult.failure(lineNumber, request != null ? request.getId() : null, "text must not be blank");
+        }
+        try {
+            PromptNGResponse response = batchJudgeService.judgeOne(request.toPromptRequest());
+            // 入力全体のコピーは出力しない (行数 × 入力サイズで出力が膨らむため)
+            for (DetectionDetail detail : response.getDetections()) {
+                detail.setOriginal_text_full(null);
+            }
+            return BulkJudgeResult.success(lineNumber, request.getId(), response);
+        } catch (RuntimeException e) {
+            LOGGER.error("一括スキャンの {} 行目の判定中にエラーが発生しました。", lineNumber, e);
+            return BulkJudgeResult.failure(lineNumber, request.getId(), "internal error");
+        }
+    }
+
+    private void write(Writer writer, ReentrantLock writeLock, BulkJudgeResult result, AtomicReference<IOException> writeFailure) {
+        try {
+            String json = objectMapper.writeValueAsString(result);
+            writeLock.lock();
+            try {
+                if (writeFailure.get() != null) {
+                    return;
+                }
+                writer.write(json);
+                writer.write('\n');
+                writer.flush();
+            } finally {
+                writeLock.unlock();
+            }
+        } catch (IOException e) {
+            writeFailure.compareAndSet(null, e);
+        }
+    }
+
+    /**
+     * 1 行の長さに上限を設けて読み込むリーダーです。上限を超えた行は先頭部分だけを返し、残りを読み捨てます。
+     */
+    private static final class LineReader {
+        private final Reader reader;
+        private final int maxLineChars;
+        private final char[] buffer = new char[8192];
+        private int position;
+        private int limit;
+        private boolean tooLong;
+
+        LineReader(Reader reader, int maxLineChars) {
+            this.reader = reader;
+            this.maxLineChars = maxLineChars;
+        }
+
+        /**
+         * 次の行を返します (行末の {@code \n} / {@code \r\n} は含みません)。
+         *
+         * @return 次の行。入力の終わりに達した場合は {@code null}
+         */
+        String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            tooLong = false;
+            boolean readAny = false;
+            while (true) {
+                if (position == limit) {
+                    limit = reader.read(buffer, 0, buffer.length);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return readAny ? stripCarriageReturn(line) : null;
+                    }
+                }
+                readAny = true;
+                char c = buffer[position++];
+                if (c == '\n') {
+                    return stripCarriageReturn(line);
+                }
+                if (line.length() < maxLineChars) {
+                    line.append(c);
+                } else {
+                    tooLong = true;
+                }
+            }
+        }
+
+        /** 直前に返した行が上限を超えていた場合は {@code true} */
+        boolean isTooLong() {
+            return tooLong;
+        }
+
+        private static String stripCarriageReturn(StringBuilder line) {
+            int length = line.length();
+            if (length > 0 && line.charAt(length - 1) == '\r') {
+                line.setLength(length - 1);
+            }
+            return line.toString();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
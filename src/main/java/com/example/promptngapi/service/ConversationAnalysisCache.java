@@ -0,0 +1,159 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.dto.DetectionDetail;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * 会話ごとに、判定済みのターンの検出結果を保持するキャッシュです。
+ * <p>
+ * ターンはテキストのハッシュ (SHA-256) と閾値の組で識別するため、クライアントが会話の履歴を毎回すべて送り直しても、
+ * 以前に判定したターンは解析し直さずに結果を再利用できます。
+ * <p>
+ * 保持する会話数とターン数には上限があり、超えた場合は最も長く使われていないものから破棄します。
+ * 最後に使われてから {@code ttl} が過ぎた会話は、次にキャッシュを操作したときにまとめて破棄します。
+ */
+public final class ConversationAnalysisCache {
+
+    /**
+     * ターンのキャッシュキーです。同じテキストでも閾値が異なれば検出結果も異なり得るため、閾値をキーに含めます。
+     *
+     * @param contentHash                      テキストの SHA-256 (16 進数)
+     * @param similarityThreshold              類似度閾値
+     * @param nonJapaneseSentenceWordThreshold 非日本語文の単語数閾値
+     */
+    public record TurnKey(String contentHash, double similarityThreshold, int nonJapaneseSentenceWordThreshold) {
+
+        /** テキストとコンテキストの閾値からキーを作ります。 */
+        public static TurnKey of(String text, DetectionContext context) {
+            return new TurnKey(sha256(text), context.getSimilarityThreshold(), context.getNonJapaneseSentenceWordThreshold());
+        }
+    }
+
+    private static final class Session {
+        private final LinkedHashMap<TurnKey, List<DetectionDetail>> turns;
+        private long lastAccessNanos;
+
+        Session(int maxTurns) {
+            this.turns = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<TurnKey, List<DetectionDetail>> eldest) {
+                    return size() > maxTurns;
+                }
+            };
+        }
+    }
+
+    private final int maxTurnsPerSession;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    // 仮想スレッドで待っている間にキャリアスレッドを占有しないよう、synchronized ではなくロックを使う
+    private final ReentrantLock lock = new ReentrantLock();
+    // アクセス順のため、先頭が最も長く使われていない会話になる
+    private final LinkedHashMap<String, Session> sessions;
+
+    /**
+     * @param maxSessions        保持する会話数の上限
+     * @param maxTurnsPerSession 1 つの会話で保持するターン数の上限
+     * @param ttlMs              最後に使われてから会話を破棄するまでの時間 (ミリ秒)
+     */
+    public ConversationAnalysisCache(int maxSessions, int maxTurnsPerSession, long ttlMs) {
+        this(maxSessions, maxTurnsPerSession, ttlMs, System::nanoTime);
+    }
+
+    ConversationAnalysisCache(int maxSessions, int maxTurnsPerSession, long ttlMs, LongSupplier nanoClock) {
+        this.maxTurnsPerSession = maxTurnsPerSession;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.nanoClock = nanoClock;
+        this.sessions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+                return size() > maxSessions;
+            }
+        };
+    }
+
+    /**
+     * 会話で以前に判定したターンの検出結果を返します。
+     *
+     * @param conversationId 会話の ID
+     * @param key            ターンのキー
+     * @return 検出結果 (変更不可)。判定していないターン、または破棄された場合は null
+     */
+    public List<DetectionDetail> get(String conversationId, TurnKey key) {
+        lock.lock();
+        try {
+            long now = nanoClock.getAsLong();
+            evictExpired(now);
+            Session session = sessions.get(conversationId);
+            if (session == null) {
+                return null;
+            }
+            session.lastAccessNanos = now;
+            return session.turns.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 会話のターンの検出結果を保持します。
+     *
+     * @param conversationId 会話の ID
+     * @param key            ターンのキー
+     * @param detections     検出結果
+     */
+    public void put(String conversationId, TurnKey key, List<DetectionDetail> detections) {
+        List<DetectionDetail> value = List.copyOf(detections);
+        lock.lock();
+        try {
+            long now = nanoClock.getAsLong();
+            evictExpired(now);
+            Session session = sessions.computeIfAbsent(conversationId, id -> new Session(maxTurnsPerSession));
+            session.lastAccessNanos = now;
+            session.turns.put(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** 保持している会話数 */
+    public int size() {
+        lock.lock();
+        try {
+            evictExpired(nanoClock.getAsLong());
+            return sessions.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 先頭から順に、期限を過ぎた会話を破棄する (アクセス順のため、期限を過ぎていない会話が見つかればそれ以降も過ぎていない)
+    private void evictExpired(long now) {
+        Iterator<Session> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().lastAccessNanos < ttlNanos) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.config.ConversationJudgeConfig;
+import com.example.promptngapi.config.ScoreThresholdsConfig;
+import com.example.promptngapi.dto.ConversationJudgeRequest;
+import com.example.promptngapi.dto.ConversationJudgeResponse;
+import com.example.promptngapi.dto.DetectionDetail;
+import com.example.promptngapi.dto.PromptNGResponse;
+import com.example.promptngapi.dto.PromptRequest;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+
+/**
+ * 会話のターンをまとめて判定するサービスです。
+ * <p>
+ * チャットクライアントは毎ターン、会話の履歴をすべて送信するため、そのまま判定すると会話が長くなるほど同じターンを何度も解析することになります。
+ * このサービスは判定したターンの検出結果を会話ごとに {@link ConversationAnalysisCache} に保持し、まだ判定していないターンだけを
+ * {@link BatchJudgeService} で判定します。1 リクエストあたりの解析量は、新しく追加されたターンの分だけになります。
+ * <p>
+ * 同じ会話のリクエストが同時に届いた場合は、同じターンが重複して解析されることがあります (結果は同じです)。
+ * <p>
+ * サーブレット版のエンドポイント専用のため、{@link BatchJudgeService} を持たない WebFlux 版 (reactive モジュール) では作成しません。
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ConversationJudgeService {
+
+    private final BatchJudgeService batchJudgeService;
+    private final ScoreThresholdsConfig scoreThresholdsConfig;
+    private final ConversationAnalysisCache cache;
+
+    @Autowired
+    public ConversationJudgeService(BatchJudgeService batchJudgeService,
+                                    ScoreThresholdsConfig scoreThresholdsConfig,
+                                    ConversationJudgeConfig conversationJudgeConfig) {
+        this(batchJudgeService, scoreThresholdsConfig, new ConversationAnalysisCache(conversationJudgeConfig.getMaxSessions(),
+            conversationJudgeConfig.getMaxTurnsPerSession(), conversationJudgeConfig.getSessionTtlMs()));
+    }
+
+    ConversationJudgeService(BatchJudgeService batchJudgeService,
+                             ScoreThresholdsConfig scoreThresholdsConfig,
+                             ConversationAnalysisCache cache) {
+        this.batchJudgeService = batchJudgeService;
+        this.scoreThresholdsConfig = scoreThresholdsConfig;
+        this.cache = cache;
+    }
+
+    /**
+     * 会話のターンを判定し、会話全体とターンごとの判定結果を返します。
+     * 以前のリクエストで同じ閾値で判定したターンは解析せず、保持している検出結果を使います。
+     *
+     * @param request 会話の ID とターン (各ターンの text は空でないこと)
+     * @return 会話全体とターンごとの判定結果
+     * @throws DetectionTimeoutException 期限 ({@code batch-judge.timeout-ms}) までに新しいターンを判定できなかった場合
+     */
+    public ConversationJudgeResponse judge(ConversationJudgeRequest request) {
+        DetectionContext context = DetectionContext.of(scoreThresholdsConfig,
+            request.getSimilarityThreshold(), request.getNonJapaneseSentenceWordThreshold());
+        String conversationId = request.getConversationId();
+        List<ConversationJudgeRequest.Turn> turns = request.getTurns();
+
+        List<ConversationAnalysisCache.TurnKey> keys = new ArrayList<>(turns.size());
+        List<List<DetectionDetail>> results = new ArrayList<>(turns.size());
+        List<Integer> pendingIndexes = new ArrayList<>();
+        List<PromptRequest> pendingRequests = new ArrayList<>();
+        for (int i = 0; i < turns.size(); i++) {
+            String text = turns.get(i).getText();
+            ConversationAnalysisCache.TurnKey key = ConversationAnalysisCache.TurnKey.of(text, context);
+            List<DetectionDetail> cached = cache.get(conversationId, key);
+            keys.add(key);
+            results.add(cached);
+            if (cached == null) {
+                PromptRequest pending = new PromptRequest(text);
+                pending.setSimilarityThreshold(context.getSimilarityThreshold());
+                pending.setNonJapaneseSentenceWordThreshold(context.getNonJapaneseSentenceWordThreshold());
+                pendingIndexes.add(i);
+                pendingRequests.add(pending);
+            }
+        }
+
+        // 新しいターンだけをまとめて判定する (同じリクエスト内の同一のターンは 1 回だけ判定される)
+        if (!pendingRequests.isEmpty()) {
+            List<PromptNGResponse> judged = batchJudgeService.judge(pendingRequests);
+            for (int j = 0; j < pendingIndexes.size(); j++) {
+                int index = pendingIndexes.get(j);
+                List<DetectionDetail> detections = List.copyOf(judged.get(j).getDetections());
+                cache.put(conversationId, keys.get(index), detections);
+                results.set(index, detections);
+            }
+        }
+
+        List<ConversationJudgeResponse.TurnResult> turnResults = new ArrayList<>(turns.size());
+        int next = 0;
+        for (int i = 0; i < turns.size(); i++) {
+            boolean cached = next >= pendingIndexes.size() || pendingIndexes.get(next) != i;
+            if (!cached) {
+                next++;
+            }
+            List<DetectionDetail> detections = results.get(i);
+            turnResults.add(new ConversationJudgeResponse.TurnResult(i, turns.get(i).getRole(), detections.isEmpty(), cached, detections));
+        }
+        return new ConversationJudgeResponse(conversationId, turnResults, pendingIndexes.size(), turns.size() - pendingIndexes.size(),
+            context.getSimilarityThreshold(), context.getNonJapaneseSentenceWordThreshold());
+    }
+}
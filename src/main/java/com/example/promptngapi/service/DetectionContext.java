@@ -0,0 +1,160 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.config.ScoreThresholdsConfig;
+import com.example.promptngapi.nlp.AnalyzedText;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * 1 回の判定に適用する閾値と期限をまとめた、変更不可能なコンテキストです。
+ * <p>
+ * 検出器の API に明示的に渡すため、判定をどのスレッド (検出器用のスレッドプールや仮想スレッド) で実行しても同じ値が使われます。
+ * リクエスト単位の閾値の上書きは {@link #of(ScoreThresholdsConfig, Double, Integer)} で、設定ファイルの値に重ねて指定します。
+ * <p>
+ * 期限は {@link System#nanoTime()} 基準で、検出器は処理の区切りごとに {@link #checkDeadline()} を呼び出し、
+ * 期限を過ぎていれば結果が使われない処理をそれ以上続けずに {@link DetectionTimeoutException} で打ち切ります。
+ * <p>
+ * 判定の内訳を返す場合 (デバッグ) は {@link #withTrace(DetectionTrace)} で記録先を持たせます。記録先はコンテキストを作り直しても引き継がれます。
+ * <p>
+ * 検出の段階を 1 つずつ実行する場合は {@link #withPhraseCache()} で、テキストをフレーズに分割した結果を段階間で共有します。
+ */
+public final class DetectionContext {
+
+    private final double similarityThreshold;
+    private final int nonJapaneseSentenceWordThreshold;
+    private final boolean hasDeadline;
+    private final long deadlineNanos;
+    private final DetectionTrace trace;
+    private final AtomicReference<PhraseSplit> phraseCache;
+
+    // 分割したテキストと、そのフレーズ
+    private record PhraseSplit(AnalyzedText analyzedText, List<String> phrases) {
+    }
+
+    private DetectionContext(double similarityThreshold, int nonJapaneseSentenceWordThreshold,
+                             boolean hasDeadline, long deadlineNanos, DetectionTrace trace,
+                             AtomicReference<PhraseSplit> phraseCache) {
+        this.similarityThreshold = similarityThreshold;
+        this.nonJapaneseSentenceWordThreshold = nonJapaneseSentenceWordThreshold;
+        this.hasDeadline = hasDeadline;
+        this.deadlineNanos = deadlineNanos;
+        this.trace = trace;
+        this.phraseCache = phraseCache;
+    }
+
+    /**
+     * 設定ファイルの閾値を使い、期限を持たないコンテキストを返します。
+     */
+    public static DetectionContext of(ScoreThresholdsConfig config) {
+        return of(config, null, null);
+    }
+
+    /**
+     * 設定ファイルの閾値にリクエスト単位の上書きを重ねた、期限を持たないコンテキストを返します。
+     *
+     * @param config                           既定の閾値
+     * @param similarityThreshold              類似度閾値の上書き (null なら既定値)
+     * @param nonJapaneseSentenceWordThreshold 非日本語文の単語数閾値の上書き (null なら既定値)
+     */
+    public static DetectionContext of(ScoreThresholdsConfig config, Double similarityThreshold, Integer nonJapaneseSentenceWordThreshold) {
+        return new DetectionContext(
+            similarityThreshold != null ? similarityThreshold : config.getSimilarityThreshold(),
+            nonJapaneseSentenceWordThreshold != null ? nonJapaneseSentenceWordThreshold : config.getNonJapaneseSentenceWordThreshold(),
+            false, 0, null, null);
+    }
+
+    /**
+     * 期限を {@code deadlineNanos} ({@link System#nanoTime()} 基準) に設定したコンテキストを返します。
+     * すでにより早い期限が設定されている場合は、その期限を維持します。
+     */
+    public DetectionContext withDeadline(long deadlineNanos) {
+        if (hasDeadline && this.deadlineNanos - deadlineNanos <= 0) {
+            return this;
+        }
+        return new DetectionContext(similarityThreshold, nonJapaneseSentenceWordThreshold, true, deadlineNanos, trace, phraseCache);
+    }
+
+    /**
+     * 期限を現在から {@code timeoutMs} ミリ秒後に設定したコンテキストを返します ({@link #withDeadline(long)} と同じく、早い方の期限を維持します)。
+     */
+    public DetectionContext withTimeout(long timeoutMs) {
+        return withDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs));
+    }
+
+    /**
+     * 判定の内訳を {@code trace} に記録するコンテキストを返します。
+     */
+    public DetectionContext withTrace(DetectionTrace trace) {
+        return new DetectionContext(similarityThreshold, nonJapaneseSentenceWordThreshold, hasDeadline, deadlineNanos, trace, phraseCache);
+    }
+
+    /**
+     * フレーズの分割結果を保持するコンテキストを返します。このコンテキストから作り直したコンテキストも同じ分割結果を共有するため、
+     * 1 回の判定で段階ごとに検出器を呼び出しても、分割は最初の 1 回だけになります。
+     */
+    public DetectionContext withPhraseCache() {
+        return new DetectionContext(similarityThreshold, nonJapaneseSentenceWordThreshold, hasDeadline, deadlineNanos, trace,
+            new AtomicReference<>());
+    }
+
+    /**
+     * {@code analyzedText} のフレーズを返します。分割結果を保持するコンテキスト ({@link #withPhraseCache()}) で
+     * 同じテキストをすでに分割している場合はその結果を返し、それ以外の場合は {@code splitter} で分割します。
+     *
+     * @param analyzedText 分割するテキスト (同じインスタンスの場合だけ分割結果を再利用します)
+     * @param splitter     テキストをフレーズに分割する処理
+     */
+    public List<String> phrases(AnalyzedText analyzedText, Function<AnalyzedText, List<String>> splitter) {
+        if (phraseCache == null) {
+            return splitter.apply(analyzedText);
+        }
+        PhraseSplit cached = phraseCache.get();
+        if (cached != null && cached.analyzedText() == analyzedText) {
+            return cached.phrases();
+        }
+        List<String> phrases = splitter.apply(analyzedText);
+        phraseCache.set(new PhraseSplit(analyzedText, phrases));
+        return phrases;
+    }
+
+    /** 判定の内訳の記録先 (記録しない場合は null) */
+    public DetectionTrace getTrace() {
+        return trace;
+    }
+
+    /** Jaro-Winkler 類似度チェックの閾値 */
+    public double getSimilarityThreshold() {
+        return similarityThreshold;
+    }
+
+    /** 非日本語の文章と判定するための単語数の閾値 */
+    public int getNonJapaneseSentenceWordThreshold() {
+        return nonJapaneseSentenceWordThreshold;
+    }
+
+    /** 期限が設定されている場合は {@code true} */
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    /**
+     * 期限までの残り時間 (ナノ秒) を返します。期限を過ぎている場合は 0、期限がない場合は {@link Long#MAX_VALUE} です。
+     */
+    public long remainingNanos() {
+        if (!hasDeadline) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+
+    /**
+     * 期限を過ぎている場合に {@link DetectionTimeoutException} を送出します。
+     */
+    public void checkDeadline() {
+        if (hasDeadline && deadlineNanos - System.nanoTime() <= 0) {
+            throw new DetectionTimeoutException("Detection did not complete within the configured timeout");
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.dto.DetectionDetail;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 検出器の処理時間と検出件数を Micrometer で記録します。
+ * <ul>
+ *   <li>{@code prompt_ng.detection.check} (タイマー、タグ {@code stage}・{@code check}): 検出器の 1 回の呼び出しで各チェックにかかった時間。
+ *       {@code stage} は {@link DetectionStage} の名前、{@code check} はその中のチェック ({@link Check}) です。</li>
+ *   <li>{@code prompt_ng.detections} (カウンター、タグ {@code stage}・{@code type}): 検出結果の件数。{@code type} は検出結果の type です。</li>
+ *   <li>{@code prompt_ng.detection.rejected} (カウンター): 検出器のスレッドプールの実行待ちが上限に達していたため、受け付けなかった判定の数。</li>
+ * </ul>
+ * タイマーはチェックごとに事前に登録しておき、フレーズごとの時間は呼び出し側で合計してから 1 回だけ記録するため、
+ * 判定への上乗せはフレーズあたり数回の {@link System#nanoTime()} 程度です。
+ * ヒストグラムとパーセンタイルは {@code management.metrics.distribution} で設定します (application.yaml)。
+ */
+@Component
+public class DetectionMetrics {
+
+    /** 記録するチェックです。プロンプトインジェクションの 1〜6 は {@link PromptInjectionDetector} のチェックの番号に対応します。 */
+    public enum Check {
+        /** 1. 禁止されている日本語の単語 */
+        FORBIDDEN_WORDS(DetectionStage.INJECTION_EXACT, "forbidden_words"),
+        /** 2. リテラルな英語フレーズ */
+        LITERAL_ENGLISH(DetectionStage.INJECTION_EXACT, "literal_english"),
+        /** 3. 正規表現パターン */
+        REGEX(DetectionStage.INJECTION_EXACT, "regex"),
+        /** 4. リテラルな日本語フレーズ (NLP 正規化後) */
+        LITERAL_JAPANESE(DetectionStage.INJECTION_SIMILARITY, "literal_japanese"),
+        /** 5. Jaro-Winkler 類似度 */
+        SIMILARITY(DetectionStage.INJECTION_SIMILARITY, "similarity"),
+        /** 6. 非日本語の文章 */
+        NON_JAPANESE(DetectionStage.NON_JAPANESE, "non_japanese"),
+        /** 機密情報のルール */
+        SENSITIVE_RULES(DetectionStage.SENSITIVE_RULES, "rules"),
+        /** 住所 */
+        SENSITIVE_ADDRESS(DetectionStage.SENSITIVE_ADDRESS, "address"),
+        /** 氏名 */
+        SENSITIVE_NAME(DetectionStage.SENSITIVE_NAME, "name");
+
+        private final DetectionStage stage;
+        private final String value;
+
+        Check(DetectionStage stage, String value) {
+            this.stage = stage;
+            this.value = value;
+        }
+
+        public DetectionStage getStage() {
+            return stage;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    private static final DetectionMetrics NOOP = new DetectionMetrics(new CompositeMeterRegistry());
+
+    private final MeterRegistry registry;
+    private final Map<Check, Timer> checkTimers = new EnumMap<>(Check.class);
+    // 検出結果の type はルールの定義によるため、初めて検出したときに登録する
+    private final Map<String, Counter> detectionCounters = new ConcurrentHashMap<>();
+    private final Counter rejections;
+
+    @Autowired
+    public DetectionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Check check : Check.values()) {
+            checkTimers.put(check, Timer.builder("prompt_ng.detection.check")
+                .description("Time spent in each detection check per detector call")
+                .tag("stage", check.getStage().getValue())
+                .tag("check", check.getValue())
+                .register(registry));
+        }
+        this.rejections = Counter.builder("prompt_ng.detection.rejected")
+            .description("Judgements rejected because the detector pool queue was full")
+            .register(registry);
+    }
+
+    /**
+     * どこにも記録しないインスタンスを返します (Spring の外で検出器を作成する場合の既定値)。
+     */
+    public static DetectionMetrics noop() {
+        return NOOP;
+    }
+
+    /**
+     * チェックにかかった時間を記録します。
+     *
+     * @param check チェック
+     * @param nanos 時間 (ナノ秒)
+     */
+    public void recordCheck(Check check, long nanos) {
+        checkTimers.get(check).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 検出器のスレッドプールが一杯で受け付けなかった判定を 1 件数えます。
+     */
+    public void countRejection() {
+        rejections.increment();
+    }
+
+    /**
+     * {@code detections} の {@code fromIndex} 以降 (ある段階で新たに追加された検出結果) の件数を、type ごとに数えます。
+     *
+     * @param stage      検出結果を追加した段階
+     * @param detections 検出結果のリスト
+     * @param fromIndex  数え始める位置
+     */
+    public void countDetections(DetectionStage stage, List<DetectionDetail> detections, int fromIndex) {
+        for (int i = fromIndex, size = detections.size(); i < size; i++) {
+            String type = detections.get(i).getType();
+            detectionCounters.computeIfAbsent(stage.getValue() + '\u0000' + type, key -> Counter.builder("prompt_ng.detections")
+                .description("Detections by stage and detection type")
+                .tag("stage", stage.getValue())
+                .tag("type", type == null ? "unknown" : type)
+                .register(registry)).increment();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.dto.DetectionDetail;
+
+/**
+ * 検出結果の入力テキスト上の位置 (UTF-16 単位、end は含まない) です。
+ *
+ * @param start 開始位置。特定できない場合は -1
+ * @param end   終了位置。特定できない場合は -1
+ */
+public record DetectionSpan(int start, int end) {
+
+    /** 位置を特定できない検出結果の位置 */
+    public static final DetectionSpan UNKNOWN = new DetectionSpan(-1, -1);
+
+    /**
+     * 検出結果の位置を返します。
+     * 検出結果に位置が設定されていない場合は、一致した部分文字列 ({@code input_substring}) の入力テキスト上の最初の出現位置を使います。
+     *
+     * @param detail 検出結果
+     * @param text   判定した入力テキスト
+     * @return 位置。特定できない場合は {@link #UNKNOWN}
+     */
+    public static DetectionSpan of(DetectionDetail detail, String text) {
+        if (detail.getStart() != null && detail.getEnd() != null) {
+            return new DetectionSpan(detail.getStart().intValue(), detail.getEnd().intValue());
+        }
+        String substring = detail.getInput_substring();
+        int start = substring != null && !substring.isEmpty() ? text.indexOf(substring) : -1;
+        return start >= 0 ? new DetectionSpan(start, start + substring.length()) : UNKNOWN;
+    }
+}
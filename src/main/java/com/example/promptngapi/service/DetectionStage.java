@@ -0,0 +1,47 @@
+package com.example.promptngapi.service;
+
+/**
+ * 判定を構成する検出の段階です。定義順は処理が軽い順で、時間の上限付きの判定
+ * ({@link PromptJudgeService#judgeWithinBudget}) はこの順に実行します。
+ * <p>
+ * 先頭の段階は完全一致や単一走査のルールで、誤検出が少なく時間もほとんどかからないため、
+ * 期限で打ち切られた部分的な判定でも、明らかな攻撃や機密情報は検出されている状態になります。
+ */
+public enum DetectionStage {
+
+    /** 機密情報のルール (クレジットカード番号、マイナンバー、電話番号、メールアドレスなど) */
+    SENSITIVE_RULES("sensitive_rules", false),
+
+    /** 禁止単語・英語フレーズの完全一致と、正規表現パターン */
+    INJECTION_EXACT("injection_exact", true),
+
+    /** 住所 */
+    SENSITIVE_ADDRESS("sensitive_address", false),
+
+    /** 日本語フレーズの NLP 正規化後の一致と、Jaro-Winkler 類似度 (ルールごとに形態素解析するため最も重い) */
+    INJECTION_SIMILARITY("injection_similarity", true),
+
+    /** 非日本語の文章 (必要な場合のみ統計的な言語検出を行う) */
+    NON_JAPANESE("non_japanese", true),
+
+    /** 氏名 */
+    SENSITIVE_NAME("sensitive_name", false);
+
+    private final String value;
+    private final boolean promptInjection;
+
+    DetectionStage(String value, boolean promptInjection) {
+        this.value = value;
+        this.promptInjection = promptInjection;
+    }
+
+    /** レスポンスの completedStages に出力する名前 */
+    public String getValue() {
+        return value;
+    }
+
+    /** {@link PromptInjectionDetector} の段階であれば true、{@link SensitiveInformationDetector} の段階であれば false */
+    public boolean isPromptInjection() {
+        return promptInjection;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.promptngapi.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 検出器が設定された期限 ({@code concurrent-detection.timeout-ms}) までに完了しなかったことを表す例外です。
+ * コントローラーから送出された場合は 503 Service Unavailable になります。
+ */
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "Detection timed out")
+public class DetectionTimeoutException extends RuntimeException {
+
+    public DetectionTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.dto.JudgeTiming;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 1 回の判定の内訳 (チェックごとの処理時間や評価したルール数) を集める、リクエスト単位の記録です。
+ * {@link DetectionContext#withTrace(DetectionTrace)} でコンテキストに持たせた場合だけ、検出器が記録します。
+ * 2 つの検出器が別スレッドで同時に記録するため、値はすべてアトミックに加算します。
+ */
+public final class DetectionTrace {
+
+    private static final DetectionMetrics.Check[] CHECKS = DetectionMetrics.Check.values();
+
+    private final AtomicLongArray checkNanos = new AtomicLongArray(CHECKS.length);
+    private final AtomicLong rulesEvaluated = new AtomicLong();
+    private final AtomicLong rulesPruned = new AtomicLong();
+    private final AtomicLong similarityComputations = new AtomicLong();
+    private final AtomicLong languageDetections = new AtomicLong();
+    private final AtomicLong languageDetectionsSkipped = new AtomicLong();
+    private volatile int phraseCount;
+    private volatile int tokenCount;
+    private volatile long analyzeNanos;
+
+    /** チェックにかかった時間を加算します。 */
+    public void addCheckNanos(DetectionMetrics.Check check, long nanos) {
+        checkNanos.addAndGet(check.ordinal(), nanos);
+    }
+
+    /** 評価したルール数と、評価を省いたルール数を加算します。 */
+    public void addRules(long evaluated, long pruned) {
+        rulesEvaluated.addAndGet(evaluated);
+        rulesPruned.addAndGet(pruned);
+    }
+
+    /** Jaro-Winkler 類似度を計算した回数を加算します。 */
+    public void addSimilarityComputations(long count) {
+        similarityComputations.addAndGet(count);
+    }
+
+    /** 言語の判定を 1 回記録します。 */
+    public void countLanguageDetection(boolean skipped) {
+        (skipped ? languageDetectionsSkipped : languageDetections).incrementAndGet();
+    }
+
+    /** 入力を分割したフレーズの数 */
+    public void setPhraseCount(int phraseCount) {
+        this.phraseCount = phraseCount;
+    }
+
+    /** 入力全体の形態素解析の時間とトークン数を記録します。 */
+    public void setAnalysis(long analyzeNanos, int tokenCount) {
+        this.analyzeNanos = analyzeNanos;
+        this.tokenCount = tokenCount;
+    }
+
+    /** チェックにかかった時間の合計 (ナノ秒) */
+    public long getCheckNanos(DetectionMetrics.Check check) {
+        return checkNanos.get(check.ordinal());
+    }
+
+    /**
+     * 記録した内容をレスポンスの形式で返します。段階・チェックの時間は、実行したもの (時間が記録されたもの) だけを
+     * {@link DetectionStage} の定義順に含めます。
+     *
+     * @param totalNanos 判定全体の時間 (ナノ秒)
+     */
+    public JudgeTiming toTiming(long totalNanos) {
+        Map<String, Long> stages = new LinkedHashMap<>();
+        Map<String, Long> checks = new LinkedHashMap<>();
+        for (DetectionStage stage : DetectionStage.values()) {
+            for (DetectionMetrics.Check check : CHECKS) {
+                if (check.getStage() != stage || checkNanos.get(check.ordinal()) == 0) {
+                    continue;
+                }
+                long nanos = checkNanos.get(check.ordinal());
+                stages.merge(stage.getValue(), nanos, Long::sum);
+                checks.put(check.getValue(), nanos);
+            }
+        }
+        return new JudgeTiming(totalNanos, analyzeNanos, stages, checks, phraseCount, tokenCount,
+            rulesEvaluated.get(), rulesPruned.get(), similarityComputations.get(),
+            languageDetections.get(), languageDetectionsSkipped.get());
+    }
+}
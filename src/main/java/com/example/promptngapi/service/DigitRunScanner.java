@@ -0,0 +1,349 @@
+package com.example.promptngapi.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * テキストを 1 文字ずつ 1 回だけ走査し、区切りを含む数字列から {@link DigitRule} に一致する番号を検出するスキャナーです。
+ * <p>
+ * 半角数字 (0-9) と全角数字 (０-９) を数字として扱い、数字の間に 1 文字だけ挟まれた空白・ハイフン類
+ * (半角/全角スペース、ハイフンマイナス、全角ハイフンマイナス、ハイフン、ノーブレークハイフン、マイナス記号など) は区切りとして読み飛ばします。
+ * 区切りでつながった数字の並び (数字列) ごとに、区切り位置で始まり区切り位置で終わる部分列を候補とし、
+ * 左から順に最も長い有効な番号を採用します。同じ候補に複数のルールが一致する場合は、リストの先頭にあるルールを優先します。
+ * 正規表現や文字列のコピーは使わず、検出結果には元のテキスト上の位置 (開始・終了オフセット) を返します。
+ * <p>
+ * ルールの数に関わらず走査は 1 回で、各ルールは桁数が範囲内の候補に対してだけ呼び出されます。
+ * 状態は直前の数字列 (と、その数字列と直前の数十文字を覆う固定長の文字バッファ) のみのため、{@link #feed(CharSequence)} を複数回呼び出して入力を分割して渡すこともできます。
+ * オフセットは最初に渡した文字からの通し位置です。このクラスはスレッドセーフではありません。
+ */
+public final class DigitRunScanner {
+
+    /**
+     * 数字列の候補が番号として有効かどうかを判定するルールです。
+     */
+    public interface DigitRule {
+
+        /** 候補とする最小桁数 */
+        int minDigits();
+
+        /** 候補とする最大桁数 */
+        int maxDigits();
+
+        /** 判定に必要な、候補直前のテキストの文字数 (不要なら 0) */
+        default int contextChars() {
+            return 0;
+        }
+
+        /**
+         * 候補を判定します。
+         *
+         * @param candidate 判定する候補 (呼び出しの間だけ有効)
+         * @return 有効な場合は検出結果に添える補足 (国際ブランド名など。なければ空文字列)、無効な場合は {@code null}
+         */
+        String validate(Candidate candidate);
+    }
+
+    /**
+     * ルールに渡される候補の数字です。スキャナー内部のバッファを参照するため、{@link DigitRule#validate(Candidate)} の外では使えません。
+     */
+    public interface Candidate {
+
+        /** 桁数 */
+        int length();
+
+        /** {@code index} 桁目 (0 始まり) の数字 */
+        int digitAt(int index);
+
+        /** 区切りで分けられたグループの数 (区切りがなければ 1) */
+        int groupCount();
+
+        /**
+         * 候補の直前にあるテキスト (最大 {@link DigitRule#contextChars()} 文字) です。
+         * 数字列の途中から始まる候補では、同じ数字列のそれより前の桁や区切りを含みます。
+         */
+        CharSequence precedingText();
+    }
+
+    /**
+     * 検出された番号です。
+     *
+     * @param rule   一致したルール
+     * @param label  ルールが返した補足 (国際ブランド名など。なければ空文字列)
+     * @param digits 区切りを除き半角に正規化した数字
+     * @param start  元のテキスト上の開始位置 (この位置を含む)
+     * @param end    元のテキスト上の終了位置 (この位置を含まない)
+     */
+    public record Match(DigitRule rule, String label, String digits, long start, long end) {
+    }
+
+    // 1 つの数字列として保持する最大桁数。これを超えた場合は次の区切り位置で、それまでに判定できる候補を評価し、
+    // 末尾の未判定部分 (最大でルールの最大桁数 - 1 桁) だけを残す。区切りだらけの長大な入力でもメモリ使用量が一定になる
+    private static final int MAX_RUN_DIGITS = 256;
+
+    // ルールが参照できる直前のテキストの上限
+    private static final int MAX_CONTEXT_CHARS = 64;
+
+    private final DigitRule[] rules;
+    private final Consumer<Match> listener;
+    private final int minDigits;
+    private final int maxDigits;
+
+    private final byte[] digits;
+    private final long[] offsets;
+    private final boolean[] groupStarts;
+    private int count;            // 現在の数字列の桁数
+    private int groupLength;      // 現在の (区切りのない) 数字グループの桁数
+    private boolean separatorPending;
+    private boolean skippingLongGroup; // ルールの最大桁数を超える数字グループを読み飛ばしている間は true
+    private long position;
+
+    // 直前のテキストを保持するリングバッファ。保持中の数字列全体 (各桁とその前の区切り) と、その直前の文字を覆う
+    private final char[] recent;
+    private int recentNext;
+
+    private final CandidateView candidate = new CandidateView();
+
+    /**
+     * @param rules    判定するルール (先頭ほど優先)
+     * @param listener 番号が検出されるたびに呼び出されるリスナー
+     */
+    public DigitRunScanner(List<? extends DigitRule> rules, Consumer<Match> listener) {
+        if (rules.isEmpty()) {
+            throw new IllegalArgumentException("rules must not be empty");
+        }
+        this.rules = rules.toArray(new DigitRule[0]);
+        this.listener = listener;
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        int context = 0;
+        for (DigitRule rule : this.rules) {
+            if (rule.minDigits() < 1 || rule.maxDigits() < rule.minDigits()) {
+                throw new IllegalArgumentException("invalid digit range: " + rule.minDigits() + ".." + rule.maxDigits());
+            }
+            min = Math.min(min, rule.minDigits());
+            max = Math.max(max, rule.maxDigits());
+            context = Math.max(context, Math.min(rule.contextChars(), MAX_CONTEXT_CHARS));
+        }
+        this.minDigits = min;
+        this.maxDigits = max;
+        this.digits = new byte[MAX_RUN_DIGITS + max];
+        this.offsets = new long[MAX_RUN_DIGITS + max];
+        this.groupStarts = new boolean[MAX_RUN_DIGITS + max];
+        this.recent = new char[context == 0 ? 0 : context + 2 * (MAX_RUN_DIGITS + max) + 1];
+    }
+
+    /**
+     * テキスト全体を走査し、検出された番号を出現順に返します。
+     *
+     * @param text  走査するテキスト (null は空文字列として扱います)
+     * @param rules 判定するルール (先頭ほど優先)
+     * @return 検出された番号のリスト
+     */
+    public static List<Match> scan(CharSequence text, List<? extends DigitRule> rules) {
+        List<Match> matches = new ArrayList<>();
+        if (text == null) {
+            return matches;
+        }
+        DigitRunScanner scanner = new DigitRunScanner(rules, matches::add);
+        scanner.feed(text);
+        scanner.finish();
+        return matches;
+    }
+
+    /**
+     * テキストの続きを走査します。末尾の数字列は次の呼び出しに持ち越されます。
+     */
+    public void feed(CharSequence text) {
+        for (int i = 0, length = text.length(); i < length; i++) {
+            accept(text.charAt(i));
+        }
+    }
+
+    /**
+     * 入力の終わりを通知し、持ち越している数字列を評価します。以降は新しい入力として走査を続けられます。
+     */
+    public void finish() {
+        endRun();
+    }
+
+    private void accept(char c) {
+        int digit = digitValue(c);
+        if (digit >= 0) {
+            acceptDigit(digit);
+        } else if (isSeparator(c) && !separatorPending && (count > 0 || skippingLongGroup)) {
+            separatorPending = true;
+            skippingLongGroup = false;
+        } else {
+            endRun();
+        }
+        if (recent.length > 0) {
+            recent[recentNext] = c;
+            recentNext = (recentNext + 1) % recent.length;
+        }
+        position++;
+    }
+
+    private void acceptDigit(int digit) {
+        if (skippingLongGroup) {
+            return;
+        }
+        boolean groupStart = count == 0 || separatorPending;
+        if (groupStart) {
+            if (count >= MAX_RUN_DIGITS) {
+                evaluateRun(false);
+            }
+            groupLength = 0;
+        }
+        separatorPending = false;
+        if (++groupLength > maxDigits) {
+            // 区切りのない長すぎる数字はどの番号の一部にもならないため、それまでのグループだけを評価して読み飛ばす
+            count -= groupLength - 1;
+            evaluateRun(true);
+            skippingLongGroup = true;
+            return;
+        }
+        digits[count] = (byte) digit;
+        offsets[count] = position;
+        groupStarts[count] = groupStart;
+        count++;
+    }
+
+    private void endRun() {
+        evaluateRun(true);
+        separatorPending = false;
+        skippingLongGroup = false;
+    }
+
+    /**
+     * 現在の数字列から、区切り位置で始まり区切り位置で終わる有効な番号を左から順に (同じ開始位置では最長のものを) 採用します。
+     *
+     * @param endOfRun 数字列が終わった場合は {@code true}。{@code false} の場合は、後続の桁次第で結果が変わり得る
+     *                 末尾の候補は評価せず、次の評価のために残します。
+     */
+    private void evaluateRun(boolean endOfRun) {
+        int runLength = count;
+        count = 0;
+        int lastDecidableStart = runLength - (endOfRun ? minDigits : maxDigits);
+        int nextStart = 0;
+        for (int start = 0; start <= lastDecidableStart; start++) {
+            if (start < nextStart || !groupStarts[start]) {
+                continue;
+            }
+            for (int end = Math.min(runLength, start + maxDigits); end >= start + minDigits; end--) {
+                if (end < runLength && !groupStarts[end]) {
+                    continue; // 区切り位置で終わらない
+                }
+                Match match = validate(start, end);
+                if (match != null) {
+                    listener.accept(match);
+                    nextStart = end;
+                    break;
+                }
+            }
+        }
+        if (!endOfRun) {
+            int retainFrom = Math.max(nextStart, lastDecidableStart + 1);
+            while (retainFrom < runLength && !groupStarts[retainFrom]) {
+                retainFrom++;
+            }
+            count = runLength - retainFrom;
+            System.arraycopy(digits, retainFrom, digits, 0, count);
+            System.arraycopy(offsets, retainFrom, offsets, 0, count);
+            System.arraycopy(groupStarts, retainFrom, groupStarts, 0, count);
+        }
+    }
+
+    private Match validate(int start, int end) {
+        int length = end - start;
+        candidate.start = start;
+        candidate.end = end;
+        for (DigitRule rule : rules) {
+            if (length < rule.minDigits() || length > rule.maxDigits()) {
+                continue;
+            }
+            candidate.contextChars = Math.min(rule.contextChars(), MAX_CONTEXT_CHARS);
+            String label = rule.validate(candidate);
+            if (label != null) {
+                return new Match(rule, label, digitsToString(start, end), offsets[start], offsets[end - 1] + 1);
+            }
+        }
+        return null;
+    }
+
+    private String digitsToString(int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            chars[i - start] = (char) ('0' + digits[i]);
+        }
+        return new String(chars);
+    }
+
+    // 内部バッファ上の候補を指すビュー (候補ごとに再利用する)
+    private final class CandidateView implements Candidate {
+        private int start;
+        private int end;
+        private int contextChars;
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public int digitAt(int index) {
+            return digits[start + index];
+        }
+
+        @Override
+        public int groupCount() {
+            int groups = 1;
+            for (int i = start + 1; i < end; i++) {
+                if (groupStarts[i]) {
+                    groups++;
+                }
+            }
+            return groups;
+        }
+
+        @Override
+        public CharSequence precedingText() {
+            // リングバッファには現在位置の直前までの文字が入っている。候補の開始位置から contextChars 文字さかのぼって取り出す
+            long candidateStart = offsets[start];
+            int available = (int) Math.min(candidateStart, contextChars);
+            int back = (int) (position - candidateStart) + available;
+            char[] chars = new char[available];
+            for (int i = 0; i < available; i++) {
+                chars[i] = recent[(int) ((recentNext - back + i) % recent.length + recent.length) % recent.length];
+            }
+            return new String(chars);
+        }
+    }
+
+    private static int digitValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= '０' && c <= '９') {
+            return c - '０';
+        }
+        return -1;
+    }
+
+    private static boolean isSeparator(char c) {
+        switch (c) {
+            case ' ':
+            case '-':
+            case '　': // 全角スペース
+            case '－': // 全角ハイフンマイナス
+            case '‐': // ハイフン
+            case '‑': // ノーブレークハイフン
+            case '‒': // フィギュアダッシュ
+            case '–': // エンダッシュ
+            case '−': // マイナス記号
+                return true;
+            default:
+                return false;
+        }
+    }
+}
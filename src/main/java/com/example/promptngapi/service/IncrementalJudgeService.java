@@ -0,0 +1,49 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.config.IncrementalJudgeConfig;
+import com.example.promptngapi.config.ScoreThresholdsConfig;
+import com.example.promptngapi.nlp.KuromojiAnalyzer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+
+/**
+ * 少しずつ届くテキストを逐次判定する {@link IncrementalJudgeSession} を作成するサービスです。
+ * 検出器とルールは他のエンドポイントと共有し、接続ごとの状態だけをセッションに持たせます。
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class IncrementalJudgeService {
+
+    private final PromptInjectionDetector promptInjectionDetector;
+    private final SensitiveInformationDetector sensitiveInformationDetector;
+    private final KuromojiAnalyzer kuromojiAnalyzer;
+    private final ScoreThresholdsConfig scoreThresholdsConfig;
+    private final IncrementalJudgeConfig incrementalJudgeConfig;
+
+    @Autowired
+    public IncrementalJudgeService(PromptInjectionDetector promptInjectionDetector,
+                                   SensitiveInformationDetector sensitiveInformationDetector,
+                                   KuromojiAnalyzer kuromojiAnalyzer,
+                                   ScoreThresholdsConfig scoreThresholdsConfig,
+                                   IncrementalJudgeConfig incrementalJudgeConfig) {
+        this.promptInjectionDetector = promptInjectionDetector;
+        this.sensitiveInformationDetector = sensitiveInformationDetector;
+        this.kuromojiAnalyzer = kuromojiAnalyzer;
+        this.scoreThresholdsConfig = scoreThresholdsConfig;
+        this.incrementalJudgeConfig = incrementalJudgeConfig;
+    }
+
+    /**
+     * 新しいセッションを作成します。
+     *
+     * @param similarityThreshold              類似度閾値の上書き (null なら既定値)
+     * @param nonJapaneseSentenceWordThreshold 非日本語文の単語数閾値の上書き (null なら既定値)
+     * @return 新しいセッション
+     */
+    public IncrementalJudgeSession newSession(Double similarityThreshold, Integer nonJapaneseSentenceWordThreshold) {
+        DetectionContext context = DetectionContext.of(scoreThresholdsConfig, similarityThreshold, nonJapaneseSentenceWordThreshold);
+        return new IncrementalJudgeSession(promptInjectionDetector, sensitiveInformationDetector, kuromojiAnalyzer,
+            context, incrementalJudgeConfig.getMaxPendingChars(), incrementalJudgeConfig.getOverlapChars());
+    }
+}
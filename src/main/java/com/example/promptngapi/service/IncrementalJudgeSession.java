@@ -0,0 +1,202 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.dto.DetectionDetail;
+import com.example.promptngapi.nlp.AnalyzedText;
+import com.example.promptngapi.nlp.KuromojiAnalyzer;
+import com.example.promptngapi.nlp.SentenceChunker;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 少しずつ届くテキスト (入力中のプロンプトや、ストリーミングで生成される LLM の出力) を、届いた差分だけ解析しながら判定するセッションです。
+ * 1 つの接続 (WebSocket のセッションなど) ごとに 1 つ作成し、次の状態を差分の間で持ち越します。
+ * <ul>
+ *   <li>数字のルール (クレジットカード番号、マイナンバーなど) の {@link DigitRunScanner}。区切りを含む数字列が差分をまたいでも、
+ *       番号が確定した時点で検出します。</li>
+ *   <li>まだ文の区切りが来ていないテキスト。文が完成した時点で、その文だけを形態素解析してプロンプトインジェクションと
+ *       残りの機密情報 (正規表現のルール、住所、氏名) を判定します。区切りが来ないまま {@code maxPendingChars} 文字に達した場合は、その位置で区切ります。
+ *       このとき末尾の {@code overlapChars} 文字を次の判定に重複して持ち越すため ({@code /judge/stream} のチャンクと同じ)、
+ *       区切りをまたぐフレーズ・住所・氏名も検出されます。重複部分だけで見つかった検出結果は、直前の判定で報告済みのため返しません。</li>
+ * </ul>
+ * そのため 1 回の {@link #append(CharSequence)} の処理量は、それまでの入力全体ではなく、差分 (と完成した文) の長さに比例します。
+ * 検出結果の位置 (start/end) は最初に受け取った文字からの通し位置で、original_text_full は含みません。
+ * このクラスはスレッドセーフではありません。
+ */
+public final class IncrementalJudgeSession {
+
+    // 数字のルールの検出結果に元の表記を添えるために保持する、直近のテキストの文字数
+    private static final int RECENT_CHARS = 1024;
+
+    private final PromptInjectionDetector promptInjectionDetector;
+    private final SensitiveInformationDetector sensitiveInformationDetector;
+    private final KuromojiAnalyzer kuromojiAnalyzer;
+    private final DetectionContext context;
+    private final int maxPendingChars;
+    private final int overlapChars;
+    private final DigitRunScanner digitScanner;
+
+    private final StringBuilder pending = new StringBuilder();
+    private long pendingStart;
+    private int overlapLength; // pending の先頭のうち、直前の判定から重複して持ち越した部分の長さ
+    private Set<String> previousKeys = new HashSet<>();
+    private final StringBuilder recent = new StringBuilder();
+    private long recentStart;
+    private long position;
+    private List<DetectionDetail> emitted = new ArrayList<>();
+    private boolean detected;
+    private boolean finished;
+
+    IncrementalJudgeSession(PromptInjectionDetector promptInjectionDetector,
+                            SensitiveInformationDetector sensitiveInformationDetector,
+                            KuromojiAnalyzer kuromojiAnalyzer,
+                            DetectionContext context,
+                            int maxPendingChars,
+                            int overlapChars) {
+        if (maxPendingChars < 2) {
+            throw new IllegalArgumentException("maxPendingChars must be at least 2: " + maxPendingChars);
+        }
+        if (overlapChars < 0 || overlapChars > maxPendingChars / 2) {
+            throw new IllegalArgumentException("overlapChars must be between 0 and maxPendingChars / 2: " + overlapChars);
+        }
+        this.promptInjectionDetector = promptInjectionDetector;
+        this.sensitiveInformationDetector = sensitiveInformationDetector;
+        this.kuromojiAnalyzer = kuromojiAnalyzer;
+        this.context = context;
+        this.maxPendingChars = maxPendingChars;
+        this.overlapChars = overlapChars;
+        this.digitScanner = sensitiveInformationDetector.newDigitRuleScanner(this::emitDigitMatch);
+    }
+
+    /**
+     * テキストの続きを受け取り、この差分で確定した検出結果を返します。
+     *
+     * @param delta テキストの続き
+     * @return この差分で確定した検出結果 (なければ空のリスト)
+     * @throws IllegalStateException {@link #finish()} の後に呼び出した場合
+     */
+    public List<DetectionDetail> append(CharSequence delta) {
+        if (finished) {
+            throw new IllegalStateException("Session is already finished");
+        }
+        recent.append(delta);
+        if (digitScanner != null) {
+            digitScanner.feed(delta);
+        }
+        for (int i = 0, length = delta.length(); i < length; i++) {
+            char c = delta.charAt(i);
+            pending.append(c);
+            position++;
+            if (SentenceChunker.isSentenceTerminator(c)) {
+                analyzePending(false);
+            } else if (pending.length() >= maxPendingChars && !Character.isHighSurrogate(c)) {
+                // 文の途中で区切るため、末尾を次の判定に重複させる
+                analyzePending(true);
+            }
+        }
+        if (recent.length() > RECENT_CHARS) {
+            int drop = recent.length() - RECENT_CHARS;
+            recent.delete(0, drop);
+            recentStart += drop;
+        }
+        return drain();
+    }
+
+    /**
+     * 入力の終わりを受け取り、保持しているテキストを判定して残りの検出結果を返します。
+     *
+     * @return 入力の終わりで確定した検出結果 (なければ空のリスト)
+     */
+    public List<DetectionDetail> finish() {
+        if (!finished) {
+            finished = true;
+            if (digitScanner != null) {
+                digitScanner.finish();
+            }
+            analyzePending(false);
+        }
+        return drain();
+    }
+
+    /** これまでに問題が検出されていなければ true */
+    public boolean isOverallResult() {
+        return !detected;
+    }
+
+    /** これまでに受け取った文字数 */
+    public long getCharsReceived() {
+        return position;
+    }
+
+    private void analyzePending(boolean carryOverlap) {
+        if (pending.length() <= overlapLength) {
+            return; // 持ち越した重複部分しかなく、判定済み
+        }
+        String sentence = pending.toString();
+        long sentenceStart = pendingStart;
+        int sentenceOverlap = overlapLength;
+        pending.setLength(0);
+        pendingStart = position;
+        overlapLength = 0;
+        if (carryOverlap && overlapChars > 0) {
+            int keepFrom = sentence.length() - overlapChars;
+            if (Character.isLowSurrogate(sentence.charAt(keepFrom))) {
+                keepFrom++; // サロゲートペアを分割しない
+            }
+            pending.append(sentence, keepFrom, sentence.length());
+            pendingStart = sentenceStart + keepFrom;
+            overlapLength = sentence.length() - keepFrom;
+        }
+        if (sentence.isBlank()) {
+            previousKeys = new HashSet<>();
+            return;
+        }
+
+        AnalyzedText analyzedSentence = kuromojiAnalyzer.analyze(sentence);
+        List<DetectionDetail> detections = new ArrayList<>();
+        addAll(detections, promptInjectionDetector.isPromptInjectionAttempt(analyzedSentence, context));
+        addAll(detections, sensitiveInformationDetector.hasSensitiveInformationExceptDigitRules(analyzedSentence));
+        Set<String> keys = new HashSet<>();
+        for (DetectionDetail detail : detections) {
+            String key = StreamingAnalysisService.keyOf(detail);
+            keys.add(key);
+            if (StreamingAnalysisService.isOverlapDuplicate(detail, key, sentence, sentenceOverlap, previousKeys)) {
+                continue;
+            }
+            // 文の中の位置を入力全体での位置に変換する
+            if (detail.getStart() != null && detail.getEnd() != null) {
+                detail.setStart(detail.getStart() + sentenceStart);
+                detail.setEnd(detail.getEnd() + sentenceStart);
+            }
+            detail.setOriginal_text_full(null);
+            emit(detail);
+        }
+        previousKeys = keys;
+    }
+
+    private void emitDigitMatch(DetectionDetail detail) {
+        // 直近のテキストに含まれていれば、正規化した数字ではなく元の表記を返す
+        if (detail.getStart() >= recentStart && detail.getEnd() <= recentStart + recent.length()) {
+            detail.setInput_substring(recent.substring((int) (detail.getStart() - recentStart), (int) (detail.getEnd() - recentStart)));
+        }
+        emit(detail);
+    }
+
+    private void emit(DetectionDetail detail) {
+        detected = true;
+        emitted.add(detail);
+    }
+
+    private List<DetectionDetail> drain() {
+        List<DetectionDetail> result = emitted;
+        emitted = new ArrayList<>();
+        return result;
+    }
+
+    private static void addAll(List<DetectionDetail> target, List<DetectionDetail> source) {
+        if (source != null) {
+            target.addAll(source);
+        }
+    }
+}
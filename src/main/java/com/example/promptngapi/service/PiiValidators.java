@@ -0,0 +1,206 @@
+package com.example.promptngapi.service;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * {@code sensitive_info_rules.yaml} の {@code validator} に指定できる検証処理です。
+ * 数字ルール ({@code kind: digits}) 用は {@link DigitRunScanner.Candidate} を受け取り、有効なら補足 (空文字列可)、無効なら {@code null} を返します。
+ * パターンルール ({@code kind: pattern}) 用は一致した文字列を受け取り、有効かどうかを返します。
+ */
+final class PiiValidators {
+
+    static final Map<String, Function<DigitRunScanner.Candidate, String>> DIGIT_VALIDATORS = Map.of(
+        "payment_card", PiiValidators::paymentCard,
+        "my_number", c -> isValidMyNumber(c) ? "" : null,
+        "jp_phone", c -> isJapanesePhoneNumber(c) ? "" : null,
+        "digits", c -> ""
+    );
+
+    static final Map<String, Predicate<String>> PATTERN_VALIDATORS = Map.of(
+        "email", PiiValidators::isPlausibleEmail,
+        "ipv4", PiiValidators::isValidIpv4,
+        "ipv6", PiiValidators::isValidIpv6,
+        "none", s -> true
+    );
+
+    private PiiValidators() {
+    }
+
+    /**
+     * 国際ブランドの番号体系 (IIN) に一致し、Luhn チェックサムが正しいクレジットカード番号であればブランド名を返します。
+     */
+    static String paymentCard(DigitRunScanner.Candidate c) {
+        if (c.length() < 13) {
+            return null;
+        }
+        String brand = cardBrand(c);
+        return brand != null && isValidLuhn(c) ? brand : null;
+    }
+
+    /**
+     * マイナンバーの検査用数字を検証します。
+     * 最終桁を除く 11 桁を右から P1..P11 とし、Qn = n+1 (1≦n≦6), n-5 (7≦n≦11) として
+     * 余り r = Σ(Pn×Qn) mod 11 を求め、r≦1 なら 0、それ以外は 11-r が最終桁と一致すれば有効です。
+     */
+    static boolean isValidMyNumber(DigitRunScanner.Candidate c) {
+        if (c.length() != 12) {
+            return false;
+        }
+        int sum = 0;
+        for (int n = 1; n <= 11; n++) {
+            int p = c.digitAt(11 - n);
+            int q = n <= 6 ? n + 1 : n - 5;
+            sum += p * q;
+        }
+        int remainder = sum % 11;
+        int checkDigit = remainder <= 1 ? 0 : 11 - remainder;
+        return c.digitAt(11) == checkDigit;
+    }
+
+    /**
+     * 日本の電話番号の桁数と番号体系を検証します。
+     * 固定電話 (0AB-CDE-FGHJ の 10 桁、0120 を含む) と、携帯・IP 電話など (070/080/090/050/0800 の 11 桁) を有効とします。
+     * 区切りは、なし (1 グループ) か市外局番・市内局番・加入者番号の 3 グループのみ認めます。
+     */
+    static boolean isJapanesePhoneNumber(DigitRunScanner.Candidate c) {
+        int groups = c.groupCount();
+        if (groups != 1 && groups != 3) {
+            return false;
+        }
+        if (c.digitAt(0) != 0 || c.digitAt(1) == 0) {
+            return false;
+        }
+        if (c.length() == 10) {
+            return true;
+        }
+        if (c.length() == 11) {
+            int second = c.digitAt(1);
+            return c.digitAt(2) == 0 && (second == 5 || second == 7 || second == 8 || second == 9);
+        }
+        return false;
+    }
+
+    private static boolean isValidLuhn(DigitRunScanner.Candidate c) {
+        int sum = 0;
+        boolean doubleDigit = false;
+        for (int i = c.length() - 1; i >= 0; i--) {
+            int d = c.digitAt(i);
+            if (doubleDigit) {
+                d *= 2;
+                if (d > 9) {
+                    d -= 9;
+                }
+            }
+            sum += d;
+            doubleDigit = !doubleDigit;
+        }
+        return sum % 10 == 0;
+    }
+
+    /**
+     * 先頭の数字 (IIN) と桁数から国際ブランドを判定します。
+     *
+     * @return ブランド名。どのブランドの番号体系にも一致しない場合は {@code null}
+     */
+    private static String cardBrand(DigitRunScanner.Candidate c) {
+        int length = c.length();
+        int prefix2 = c.digitAt(0) * 10 + c.digitAt(1);
+        int prefix3 = prefix2 * 10 + c.digitAt(2);
+        int prefix4 = prefix3 * 10 + c.digitAt(3);
+        int prefix6 = (prefix4 * 10 + c.digitAt(4)) * 10 + c.digitAt(5);
+
+        if (c.digitAt(0) == 4 && (length == 13 || length == 16 || length == 19)) {
+            return "Visa";
+        }
+        if (length == 16 && ((prefix2 >= 51 && prefix2 <= 55) || (prefix4 >= 2221 && prefix4 <= 2720))) {
+            return "Mastercard";
+        }
+        if (length == 15 && (prefix2 == 34 || prefix2 == 37)) {
+            return "American Express";
+        }
+        if (length >= 16 && prefix4 >= 3528 && prefix4 <= 3589) {
+            return "JCB";
+        }
+        if (length >= 14 && (prefix2 == 36 || prefix2 == 38 || prefix2 == 39 || (prefix3 >= 300 && prefix3 <= 305))) {
+            return "Diners Club";
+        }
+        if (length >= 16 && (prefix4 == 6011 || prefix2 == 65 || (prefix3 >= 644 && prefix3 <= 649)
+            || (prefix6 >= 622126 && prefix6 <= 622925))) {
+            return "Discover";
+        }
+        return null;
+    }
+
+    /**
+     * メールアドレスの形式を検証します。ローカル部は 64 文字以内で先頭・末尾・連続のドットを含まず、
+     * トップレベルドメインは 2 文字以上の英字であるものを有効とします。
+     */
+    static boolean isPlausibleEmail(String value) {
+        int at = value.indexOf('@');
+        if (at <= 0 || at > 64) {
+            return false;
+        }
+        String local = value.substring(0, at);
+        if (local.startsWith(".") || local.endsWith(".") || local.contains("..")) {
+            return false;
+        }
+        String tld = value.substring(value.lastIndexOf('.') + 1);
+        if (tld.length() < 2) {
+            return false;
+        }
+        for (int i = 0; i < tld.length(); i++) {
+            char ch = tld.charAt(i);
+            if (!((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * IPv4 アドレスの各オクテットが 0〜255 で、先頭に余分な 0 がないことを検証します。
+     */
+    static boolean isValidIpv4(String value) {
+        String[] octets = value.split("\\.", -1);
+        if (octets.length != 4) {
+            return false;
+        }
+        for (String octet : octets) {
+            if (octet.isEmpty() || octet.length() > 3 || (octet.length() > 1 && octet.charAt(0) == '0')) {
+                return false;
+            }
+            if (Integer.parseInt(octet) > 255) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * IPv6 アドレスのグループ数を検証します。省略 ({@code ::}) がない場合は 8 グループ、
+     * ある場合は 1 回だけで 7 グループ以下とし、時刻 ({@code 12:30:45}) や {@code std::vector} のような表記と区別するため
+     * 値のあるグループが 3 つ以上あるものだけを有効とします。
+     */
+    static boolean isValidIpv6(String value) {
+        int compression = value.indexOf("::");
+        if (compression >= 0 && value.indexOf("::", compression + 1) >= 0) {
+            return false;
+        }
+        String[] groups = value.split(":", -1);
+        int nonEmpty = 0;
+        for (String group : groups) {
+            if (group.length() > 4) {
+                return false;
+            }
+            if (!group.isEmpty()) {
+                nonEmpty++;
+            }
+        }
+        if (compression < 0) {
+            return groups.length == 8 && nonEmpty == 8;
+        }
+        return nonEmpty >= 3 && nonEmpty <= 7;
+    }
+}
@@ -1,9 +1,10 @@
 package com.example.promptngapi.service;
 
+import com.example.promptngapi.nlp.AnalyzedText;
 import com.example.promptngapi.nlp.KuromojiAnalyzer; // KuromojiAnalyzerをインポート
-import org.apache.tika.langdetect.optimaize.OptimaizeLangDetector;
-import org.apache.tika.language.detect.LanguageDetector;
-import org.apache.tika.language.detect.LanguageResult;
+import com.example.promptngapi.nlp.LanguageDetectorPool;
+import com.example.promptngapi.nlp.ScriptStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -28,10 +29,14 @@ import java.util.regex.Matcher;
 public class PromptInjectionDetector {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PromptInjectionDetector.class);
-    // Apache Tika Optimaize言語検出器のインスタンス。言語モデルをロード済み。
-    private static final LanguageDetector langDetector = new OptimaizeLangDetector().loadModels();
+    // 統計的な言語検出に渡す最大文字数 (先頭からこの文字数で十分に判定できる)
+    private static final int MAX_LANGUAGE_DETECTION_CHARS = 512;
     private final KuromojiAnalyzer kuromojiAnalyzer; // KuromojiAnalyzerのインスタンス
+    // 言語検出器のプール (Optimaize検出器はスレッドセーフではないため、共有せずに貸し出して使う)
+    private final LanguageDetectorPool languageDetectorPool;
     private final ScoreThresholdsConfig scoreThresholdsConfig; // Added field
+    // チェックごとの処理時間と検出件数の記録先
+    private final DetectionMetrics detectionMetrics;
 
     // 正規表現パターンを格納するリスト
     private static final List<Pattern> REGEX_PATTERNS = new ArrayList<>();
@@ -45,13 +50,23 @@ public class PromptInjectionDetector {
     private static final List<String> FORBIDDEN_WORDS_JP = new ArrayList<>();
 
     // コンストラクタインジェクションを使用
-    public PromptInjectionDetector(KuromojiAnalyzer kuromojiAnalyzer, ScoreThresholdsConfig scoreThresholdsConfig) {
+    @Autowired
+    public PromptInjectionDetector(KuromojiAnalyzer kuromojiAnalyzer, ScoreThresholdsConfig scoreThresholdsConfig,
+                                   LanguageDetectorPool languageDetectorPool, DetectionMetrics detectionMetrics) {
         this.kuromojiAnalyzer = kuromojiAnalyzer;
+        this.languageDetectorPool = languageDetectorPool;
         // ScoreThresholdsConfig をインジェクションして閾値を提供
         this.scoreThresholdsConfig = scoreThresholdsConfig;
+        this.detectionMetrics = detectionMetrics;
         // loadRulesFromYaml(); // static初期化ブロックから移動させることを検討 (後述)
     }
 
+    // メトリクスを記録しない (Spring の外で使う場合)
+    public PromptInjectionDetector(KuromojiAnalyzer kuromojiAnalyzer, ScoreThresholdsConfig scoreThresholdsConfig,
+                                   LanguageDetectorPool languageDetectorPool) {
+        this(kuromojiAnalyzer, scoreThresholdsConfig, languageDetectorPool, DetectionMetrics.noop());
+    }
+
     // loadRulesFromYaml は static メソッドなので、ここでは KuromojiAnalyzer を直接使えない。
     // ルールロード時にNLP処理が必要な場合は、このメソッドの呼び出し方や
     // ルール格納方法の変更が必要になるが、今回はまず判定時の利用に集中する。
@@ -152,6 +167,22 @@ public class PromptInjectionDetector {
     }
 
 
+    /**
+     * このクラスが検出結果として返し得るルール ({@code type} と {@code matched_pattern} の組) を、ルールファイルの定義順に返します。
+     * {@link RuleCatalog} がルール ID の採番に使用します。
+     */
+    static List<RuleCatalog.Key> ruleKeys() {
+        List<RuleCatalog.Key> keys = new ArrayList<>();
+        FORBIDDEN_WORDS_JP.forEach(word -> keys.add(new RuleCatalog.Key("prompt_injection_word_jp", word)));
+        LITERAL_ENGLISH_PHRASES.forEach(phrase -> keys.add(new RuleCatalog.Key("prompt_injection_phrase_en", phrase)));
+        LITERAL_JAPANESE_PHRASES.forEach(phrase -> keys.add(new RuleCatalog.Key("prompt_injection_phrase_ja_nlp", phrase)));
+        REGEX_PATTERNS.forEach(pattern -> keys.add(new RuleCatalog.Key("prompt_injection_regex", pattern.pattern())));
+        ORIGINAL_PHRASES_FOR_SIMILARITY.forEach(phrase -> keys.add(new RuleCatalog.Key("prompt_injection_similarity_nlp", phrase)));
+        // 非日本語の文章は、一致したフレーズそのものが matched_pattern になるため種別全体で 1 つのルールとする
+        keys.add(new RuleCatalog.Key("non_japanese_phrase", null));
+        return keys;
+    }
+
     /**
      * 指定されたテキストに、既知のプロンプトインジェクションの試み、禁止単語、または非日本語の文章が含まれているかをチェックし、
      * 検出されたすべての問題の詳細リストを返します。
@@ -160,71 +191,223 @@ public class PromptInjectionDetector {
      * @return 検出されたすべてのインジェクション試みやその他の問題の詳細リスト。問題が見つからない場合は空のリスト。
      */
     public List<DetectionDetail> isPromptInjectionAttempt(String originalFullText) {
-        List<DetectionDetail> allDetectedIssues = new ArrayList<>();
         if (originalFullText == null || originalFullText.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return isPromptInjectionAttempt(kuromojiAnalyzer.analyze(originalFullText));
+    }
+
+    /**
+     * 形態素解析済みのテキストに対して {@link #isPromptInjectionAttempt(String)} と同じチェックを行います。
+     * 他の検出器と同じトークン列を共有することで、テキスト全体のトークン化を 1 回で済ませます。
+     *
+     * @param analyzedText {@link KuromojiAnalyzer#analyze(String)} で解析したテキスト。
+     * @return 検出されたすべてのインジェクション試みやその他の問題の詳細リスト。問題が見つからない場合は空のリスト。
+     */
+    public List<DetectionDetail> isPromptInjectionAttempt(AnalyzedText analyzedText) {
+        return isPromptInjectionAttempt(analyzedText, DetectionContext.of(scoreThresholdsConfig));
+    }
+
+    /**
+     * {@link DetectionContext} の閾値を使って {@link #isPromptInjectionAttempt(AnalyzedText)} と同じチェックを行います。
+     * チェックは {@link DetectionStage} の順 (完全一致、類似度、非日本語の文章) に、段階ごとにすべてのフレーズに対して行います。
+     * フレーズごとにコンテキストの期限を確認し、期限を過ぎた場合は残りのフレーズを処理せずに打ち切ります。
+     *
+     * @param analyzedText {@link KuromojiAnalyzer#analyze(String)} で解析したテキスト。
+     * @param context      適用する閾値と期限。
+     * @return 検出されたすべてのインジェクション試みやその他の問題の詳細リスト。問題が見つからない場合は空のリスト。
+     * @throws DetectionTimeoutException コンテキストの期限を過ぎた場合
+     */
+    public List<DetectionDetail> isPromptInjectionAttempt(AnalyzedText analyzedText, DetectionContext context) {
+        List<DetectionDetail> allDetectedIssues = new ArrayList<>();
+        if (analyzedText == null || analyzedText.isEmpty()) {
             return allDetectedIssues;
         }
+        String originalFullText = analyzedText.getText();
+        List<String> phrases = splitIntoPhrases(analyzedText, context);
+
+        // 軽い完全一致から順に、すべてのフレーズに対して段階ごとにチェックする
+        detectExact(phrases, originalFullText, context, allDetectedIssues);
+        detectSimilarity(phrases, originalFullText, context, allDetectedIssues);
+        detectNonJapanese(phrases, originalFullText, context, allDetectedIssues);
+        // TODO: Consider more sophisticated duplicate/overlapping DetectionDetail filtering if needed.
+        return allDetectedIssues;
+    }
 
-        List<String> phrases = kuromojiAnalyzer.splitIntoPhrases(originalFullText);
-        // LOGGER.info("Original text for phrase splitting: \"{}\"", originalFullText); // Temporary logging
-        // LOGGER.info("Generated phrases: {}", phrases); // Temporary logging
+    /**
+     * 指定した段階 ({@link DetectionStage#isPromptInjection()} が true のもの) のチェックだけを行い、検出結果を {@code detections} に追加します。
+     * 類似度の段階は、同じフレーズですでに完全一致した結果を重複して追加しないよう {@code detections} を参照するため、
+     * {@link DetectionStage} の定義順に呼び出してください。
+     * 期限を過ぎた場合は、それまでに見つかった結果を {@code detections} に残したまま打ち切ります。
+     * コンテキストがフレーズの分割結果を保持している場合 ({@link DetectionContext#withPhraseCache()}) は、それを使います。
+     *
+     * @param stage        実行する段階
+     * @param analyzedText {@link KuromojiAnalyzer#analyze(String)} で解析したテキスト。
+     * @param context      適用する閾値と期限。
+     * @param detections   検出結果の追加先
+     * @throws DetectionTimeoutException コンテキストの期限を過ぎた場合
+     * @throws IllegalArgumentException  機密情報の段階を指定した場合
+     */
+    public void detectStage(DetectionStage stage, AnalyzedText analyzedText, DetectionContext context, List<DetectionDetail> detections) {
+        if (!stage.isPromptInjection()) {
+            throw new IllegalArgumentException("Not a prompt injection stage: " + stage);
+        }
+        if (analyzedText == null || analyzedText.isEmpty()) {
+            return;
+        }
+        // 段階間で分割結果を共有するコンテキストでは、テキストの分割は最初の段階の 1 回だけ
+        List<String> phrases = context.phrases(analyzedText, text -> splitIntoPhrases(text, context));
+        switch (stage) {
+            case INJECTION_EXACT:
+                detectExact(phrases, analyzedText.getText(), context, detections);
+                break;
+            case INJECTION_SIMILARITY:
+                detectSimilarity(phrases, analyzedText.getText(), context, detections);
+                break;
+            default:
+                detectNonJapanese(phrases, analyzedText.getText(), context, detections);
+                break;
+        }
+    }
 
+    private List<String> splitIntoPhrases(AnalyzedText analyzedText, DetectionContext context) {
+        List<String> phrases = kuromojiAnalyzer.splitIntoPhrases(analyzedText.getTokens());
         if (phrases.isEmpty() || phrases.stream().allMatch(String::isEmpty)) {
-            LOGGER.warn("Text could not be split into phrases or resulted in empty phrases. Analyzing full text as a single phrase: {}", originalFullText);
-            phrases = List.of(originalFullText);
+            LOGGER.warn("Text could not be split into phrases or resulted in empty phrases. Analyzing full text as a single phrase: {}", analyzedText.getText());
+            phrases = List.of(analyzedText.getText());
+        }
+        DetectionTrace trace = context.getTrace();
+        if (trace != null) {
+            trace.setPhraseCount(phrases.size());
         }
+        return phrases;
+    }
 
-        for (String currentPhrase : phrases) {
-            if (currentPhrase == null || currentPhrase.isEmpty()) {
-                continue;
-            }
+    // 禁止単語・英語フレーズ・正規表現 (形態素解析を必要としない完全一致のチェック)
+    private void detectExact(List<String> phrases, String originalFullText, DetectionContext context, List<DetectionDetail> allDetectedIssues) {
+        int firstNewDetection = allDetectedIssues.size();
+        // チェックごとの処理時間 (フレーズごとに合計し、最後に 1 回だけ記録する)
+        long forbiddenWordsNanos = 0;
+        long literalEnglishNanos = 0;
+        long regexNanos = 0;
+        // 判定の内訳に記録する、評価したルール数 (フレーズ × ルール) と評価を省いたルール数
+        int exactRuleCount = FORBIDDEN_WORDS_JP.size() + LITERAL_ENGLISH_PHRASES.size() + REGEX_PATTERNS.size();
+        long rulesEvaluated = 0;
+        long rulesPruned = 0;
+        try {
+            for (String currentPhrase : phrases) {
+                if (currentPhrase == null || currentPhrase.isEmpty()) {
+                    rulesPruned += exactRuleCount;
+                    continue;
+                }
+                context.checkDeadline();
+                rulesEvaluated += exactRuleCount;
 
-            String lowerCasePhrase = currentPhrase.toLowerCase();
-            String normalizedPhraseForForbiddenCheck = KuromojiAnalyzer.convertToKatakana(currentPhrase);
-            List<String> analyzedPhraseTokens = kuromojiAnalyzer.analyzeText(currentPhrase);
-            String analyzedPhraseForMatching = String.join(" ", analyzedPhraseTokens);
+                long checkStart = System.nanoTime();
+                String lowerCasePhrase = currentPhrase.toLowerCase();
+                String normalizedPhraseForForbiddenCheck = KuromojiAnalyzer.convertToKatakana(currentPhrase);
 
-            // 1. 禁止されている日本語の単語をチェック
-            for (String forbiddenWord : FORBIDDEN_WORDS_JP) {
-                if (normalizedPhraseForForbiddenCheck.contains(forbiddenWord)) {
-                    DetectionDetail newDetail = new DetectionDetail(
-                        "prompt_injection_word_jp",
-                        forbiddenWord,
-                        currentPhrase,
-                        1.0,
-                        "禁止された日本語の単語が検出されました（カタカナ正規化後）。",
-                        originalFullText
-                    );
-                    // LOGGER.info("Adding DetectionDetail: type={}, pattern={}, phrase=\"{}\"", newDetail.getType(), newDetail.getMatched_pattern(), newDetail.getInput_substring());
-                    allDetectedIssues.add(newDetail);
+                // 1. 禁止されている日本語の単語をチェック
+                for (String forbiddenWord : FORBIDDEN_WORDS_JP) {
+                    if (normalizedPhraseForForbiddenCheck.contains(forbiddenWord)) {
+                        DetectionDetail newDetail = new DetectionDetail(
+                            "prompt_injection_word_jp",
+                            forbiddenWord,
+                            currentPhrase,
+                            1.0,
+                            "禁止された日本語の単語が検出されました（カタカナ正規化後）。",
+                            originalFullText
+                        );
+                        allDetectedIssues.add(newDetail);
+                    }
                 }
+                long checkEnd = System.nanoTime();
+                forbiddenWordsNanos += checkEnd - checkStart;
+                checkStart = checkEnd;
+
+                // 2. リテラルな英語フレーズをチェック
+                for (String literalEngPhrase : LITERAL_ENGLISH_PHRASES) {
+                    if (lowerCasePhrase.contains(literalEngPhrase)) {
+                        int startIndex = lowerCasePhrase.indexOf(literalEngPhrase);
+                        String actualSubstringInPhrase = currentPhrase.substring(startIndex, startIndex + literalEngPhrase.length());
+                        DetectionDetail newDetail = new DetectionDetail(
+                            "prompt_injection_phrase_en",
+                            literalEngPhrase,
+                            actualSubstringInPhrase,
+                            1.0,
+                            "英語のフレーズ（大文字・小文字区別なし）に完全一致しました。",
+                            originalFullText
+                        );
+                        allDetectedIssues.add(newDetail);
+                    }
+                }
+                checkEnd = System.nanoTime();
+                literalEnglishNanos += checkEnd - checkStart;
+                checkStart = checkEnd;
+
+                // 3. 正規表現パターンをチェック
+                for (Pattern regexPattern : REGEX_PATTERNS) {
+                    Matcher matcher = regexPattern.matcher(currentPhrase);
+                    while (matcher.find()) {
+                        DetectionDetail newDetail = new DetectionDetail(
+                            "prompt_injection_regex",
+                            regexPattern.pattern(),
+                            matcher.group(),
+                            1.0,
+                            "正規表現パターンに一致しました。",
+                            originalFullText
+                        );
+                        allDetectedIssues.add(newDetail);
+                    }
+                }
+                regexNanos += System.nanoTime() - checkStart;
             }
+        } finally {
+            recordCheck(context, DetectionMetrics.Check.FORBIDDEN_WORDS, forbiddenWordsNanos);
+            recordCheck(context, DetectionMetrics.Check.LITERAL_ENGLISH, literalEnglishNanos);
+            recordCheck(context, DetectionMetrics.Check.REGEX, regexNanos);
+            recordRules(context, rulesEvaluated, rulesPruned, 0);
+            detectionMetrics.countDetections(DetectionStage.INJECTION_EXACT, allDetectedIssues, firstNewDetection);
+        }
+    }
 
-            // 2. リテラルな英語フレーズをチェック
-            for (String literalEngPhrase : LITERAL_ENGLISH_PHRASES) {
-                if (lowerCasePhrase.contains(literalEngPhrase)) {
-                    int startIndex = lowerCasePhrase.indexOf(literalEngPhrase);
-                    String actualSubstringInPhrase = currentPhrase.substring(startIndex, startIndex + literalEngPhrase.length());
-                    DetectionDetail newDetail = new DetectionDetail(
-                        "prompt_injection_phrase_en",
-                        literalEngPhrase,
-                        actualSubstringInPhrase,
-                        1.0,
-                        "英語のフレーズ（大文字・小文字区別なし）に完全一致しました。",
-                        originalFullText
-                    );
-                    // LOGGER.info("Adding DetectionDetail: type={}, pattern={}, phrase=\"{}\", matched_substring=\"{}\"", newDetail.getType(), newDetail.getMatched_pattern(), currentPhrase, actualSubstringInPhrase);
-                    allDetectedIssues.add(newDetail);
+    // 日本語フレーズの NLP 正規化後の一致と、Jaro-Winkler 類似度
+    private void detectSimilarity(List<String> phrases, String originalFullText, DetectionContext context, List<DetectionDetail> allDetectedIssues) {
+        JaroWinklerSimilarity jaroWinkler = new JaroWinklerSimilarity();
+        int firstNewDetection = allDetectedIssues.size();
+        // チェックごとの処理時間 (フレーズの形態素解析は 4 に含める)
+        long literalJapaneseNanos = 0;
+        long similarityNanos = 0;
+        // 判定の内訳に記録する、評価したルール数・評価を省いたルール数・類似度の計算回数
+        int similarityRuleCount = LITERAL_JAPANESE_PHRASES.size() + ORIGINAL_PHRASES_FOR_SIMILARITY.size();
+        long rulesEvaluated = 0;
+        long rulesPruned = 0;
+        long similarityComputations = 0;
+        try {
+            for (String currentPhrase : phrases) {
+                if (currentPhrase == null || currentPhrase.isEmpty()) {
+                    rulesPruned += similarityRuleCount;
+                    continue;
+                }
+                context.checkDeadline();
+
+                long checkStart = System.nanoTime();
+                List<String> analyzedPhraseTokens = kuromojiAnalyzer.analyzeText(currentPhrase);
+                String analyzedPhraseForMatching = String.join(" ", analyzedPhraseTokens);
+                if (analyzedPhraseForMatching.isEmpty()) {
+                    literalJapaneseNanos += System.nanoTime() - checkStart;
+                    rulesPruned += similarityRuleCount;
+                    continue;
                 }
-            }
 
-            // 3. リテラルな日本語フレーズをチェック（NLPによる正規化と比較）
-            if (!analyzedPhraseForMatching.isEmpty()) {
+                // 4. リテラルな日本語フレーズをチェック（NLPによる正規化と比較）
                 for (String literalJpnPhrase : LITERAL_JAPANESE_PHRASES) {
                     List<String> analyzedRulePhraseTokens = kuromojiAnalyzer.analyzeText(literalJpnPhrase);
                     if (analyzedRulePhraseTokens.isEmpty()) {
+                        rulesPruned++;
                         continue;
                     }
+                    rulesEvaluated++;
                     String analyzedRulePhraseForMatching = String.join(" ", analyzedRulePhraseTokens);
 
                     if (analyzedPhraseForMatching.contains(analyzedRulePhraseForMatching)) {
@@ -236,42 +419,27 @@ public class PromptInjectionDetector {
                             "日本語のフレーズにNLP処理後の正規化文字列で一致しました。",
                             originalFullText
                         );
-                        // LOGGER.info("Adding DetectionDetail: type={}, pattern=\"{}\", phrase=\"{}\"", newDetail.getType(), newDetail.getMatched_pattern(), newDetail.getInput_substring());
                         allDetectedIssues.add(newDetail);
                     }
                 }
-            }
+                long checkEnd = System.nanoTime();
+                literalJapaneseNanos += checkEnd - checkStart;
+                checkStart = checkEnd;
 
-            // 4. 正規表現パターンをチェック
-            for (Pattern regexPattern : REGEX_PATTERNS) {
-                Matcher matcher = regexPattern.matcher(currentPhrase);
-                while (matcher.find()) {
-                    DetectionDetail newDetail = new DetectionDetail(
-                        "prompt_injection_regex",
-                        regexPattern.pattern(),
-                        matcher.group(),
-                        1.0,
-                        "正規表現パターンに一致しました。",
-                        originalFullText
-                    );
-                    // LOGGER.info("Adding DetectionDetail: type={}, pattern=\"{}\", matched_in_phrase=\"{}\", phrase=\"{}\"", newDetail.getType(), newDetail.getMatched_pattern(), newDetail.getInput_substring(), currentPhrase);
-                    allDetectedIssues.add(newDetail);
-                }
-            }
-
-            // 5. オリジナルフレーズに対するJaro-Winkler類似度チェック (NLPで正規化後)
-            if (!analyzedPhraseForMatching.isEmpty()) {
-                JaroWinklerSimilarity jaroWinkler = new JaroWinklerSimilarity();
+                // 5. オリジナルフレーズに対するJaro-Winkler類似度チェック (NLPで正規化後)
                 for (String originalRulePhraseForSimilarity : ORIGINAL_PHRASES_FOR_SIMILARITY) {
                     List<String> analyzedRulePhraseTokens = kuromojiAnalyzer.analyzeText(originalRulePhraseForSimilarity);
                     if (analyzedRulePhraseTokens.isEmpty()) {
+                        rulesPruned++;
                         continue;
                     }
+                    rulesEvaluated++;
                     String analyzedRulePhraseForSimilarity = String.join(" ", analyzedRulePhraseTokens);
 
                     double score = jaroWinkler.apply(analyzedPhraseForMatching, analyzedRulePhraseForSimilarity);
+                    similarityComputations++;
 
-                    if (score >= scoreThresholdsConfig.getSimilarityThreshold()) {
+                    if (score >= context.getSimilarityThreshold()) {
                         boolean alreadyFoundExactOrNlpLiteral = false;
                         for (DetectionDetail detail : allDetectedIssues) {
                             if (detail.getInput_substring().equals(currentPhrase) && detail.getMatched_pattern().equalsIgnoreCase(originalRulePhraseForSimilarity)) {
@@ -296,57 +464,103 @@ public class PromptInjectionDetector {
                                 "既知のインジェクションフレーズとの類似度が高いです（NLP正規化後）。",
                                 originalFullText
                             );
-                            // LOGGER.info("Adding DetectionDetail (Similarity): type={}, pattern=\"{}\", phrase=\"{}\", score={}", newDetail.getType(), newDetail.getMatched_pattern(), newDetail.getInput_substring(), score);
                             allDetectedIssues.add(newDetail);
                         }
                     }
                 }
+                similarityNanos += System.nanoTime() - checkStart;
             }
+        } finally {
+            recordCheck(context, DetectionMetrics.Check.LITERAL_JAPANESE, literalJapaneseNanos);
+            recordCheck(context, DetectionMetrics.Check.SIMILARITY, similarityNanos);
+            recordRules(context, rulesEvaluated, rulesPruned, similarityComputations);
+            detectionMetrics.countDetections(DetectionStage.INJECTION_SIMILARITY, allDetectedIssues, firstNewDetection);
+        }
+    }
+
+    // 6. 非日本語の文章をチェック (フレーズごと)
+    private void detectNonJapanese(List<String> phrases, String originalFullText, DetectionContext context, List<DetectionDetail> allDetectedIssues) {
+        int firstNewDetection = allDetectedIssues.size();
+        long checkStart = System.nanoTime();
+        try {
+            for (String currentPhrase : phrases) {
+                if (currentPhrase == null || currentPhrase.isEmpty()) {
+                    continue;
+                }
+                context.checkDeadline();
 
-            // 6. 非日本語の文章をチェック (now applied per phrase)
-            if (isNonJapaneseSentence(currentPhrase)) {
-                DetectionDetail newDetail = new DetectionDetail(
-                    "non_japanese_phrase",
-                    currentPhrase,
-                    currentPhrase,
-                    1.0,
-                    "入力フレーズに非日本語の文章が含まれています。",
-                    originalFullText
-                );
-                // LOGGER.info("Adding DetectionDetail: type={}, phrase=\"{}\"", newDetail.getType(), newDetail.getInput_substring());
-                allDetectedIssues.add(newDetail);
+                if (isNonJapaneseSentence(currentPhrase, context)) {
+                    DetectionDetail newDetail = new DetectionDetail(
+                        "non_japanese_phrase",
+                        currentPhrase,
+                        currentPhrase,
+                        1.0,
+                        "入力フレーズに非日本語の文章が含まれています。",
+                        originalFullText
+                    );
+                    allDetectedIssues.add(newDetail);
+                }
             }
+        } finally {
+            recordCheck(context, DetectionMetrics.Check.NON_JAPANESE, System.nanoTime() - checkStart);
+            detectionMetrics.countDetections(DetectionStage.NON_JAPANESE, allDetectedIssues, firstNewDetection);
+        }
+    }
+
+    private void recordCheck(DetectionContext context, DetectionMetrics.Check check, long nanos) {
+        detectionMetrics.recordCheck(check, nanos);
+        DetectionTrace trace = context.getTrace();
+        if (trace != null) {
+            trace.addCheckNanos(check, nanos);
+        }
+    }
+
+    private static void recordRules(DetectionContext context, long rulesEvaluated, long rulesPruned, long similarityComputations) {
+        DetectionTrace trace = context.getTrace();
+        if (trace != null) {
+            trace.addRules(rulesEvaluated, rulesPruned);
+            trace.addSimilarityComputations(similarityComputations);
         }
-        // TODO: Consider more sophisticated duplicate/overlapping DetectionDetail filtering if needed.
-        return allDetectedIssues;
     }
 
     // containsForbiddenWordsJp メソッドは isPromptInjectionAttempt に統合された
 
     /**
      * 指定されたテキストが非日本語の文章であるかどうかを判定します。
-     * テキストの言語を検出し、それが日本語でない場合、かつ単語数が定義された閾値を超えている場合に true を返します。
+     * 単語数が定義された閾値を超えており、かつテキストが日本語でない場合に true を返します。
+     * 単語数と文字種の比率 ({@link ScriptStatistics}) だけで判定できる場合は統計的な言語検出を行わず、
+     * 漢字のみやラテン文字と CJK の混在など判定できない場合にのみ、先頭 {@value #MAX_LANGUAGE_DETECTION_CHARS} 文字で言語検出を行います。
      *
      * @param text チェックするテキスト。
+     * @param context 単語数の閾値を持つコンテキスト。
      * @return テキストが非日本語の文章であれば true、そうでなければ false。
      */
-    private boolean isNonJapaneseSentence(String text) {
+    private boolean isNonJapaneseSentence(String text, DetectionContext context) {
         if (text == null || text.trim().isEmpty()) {
             return false; // nullまたは空のテキストは対象外
         }
 
-        LanguageResult result = langDetector.detect(text); // 言語を検出
-        String language = result.getLanguage();
+        ScriptStatistics statistics = ScriptStatistics.of(text);
+        // コンテキストの非日本語文章の単語数閾値 (リクエストで上書きされていなければ設定ファイルの値) を使用
+        // 単語数が閾値以下であれば、言語に関わらず対象外
+        if (statistics.getWordCount() <= context.getNonJapaneseSentenceWordThreshold()) {
+            return false;
+        }
 
-        // 言語が日本語でないかチェック
-        if (!"ja".equals(language)) {
-            // テキストを単語に分割
-            int wordCount = text.trim().split("\\s+").length;
-            // 設定ファイルから取得した非日本語文章の単語数閾値を使用
-            // 単語数が閾値を超えていれば、非日本語の文章と判定
-            return wordCount > scoreThresholdsConfig.getNonJapaneseSentenceWordThreshold();
+        ScriptStatistics.Verdict verdict = statistics.classify();
+        DetectionTrace trace = context.getTrace();
+        if (trace != null) {
+            trace.countLanguageDetection(verdict != ScriptStatistics.Verdict.AMBIGUOUS);
+        }
+        switch (verdict) {
+            case JAPANESE:
+                return false;
+            case NON_JAPANESE:
+                return true;
+            default:
+                String language = languageDetectorPool.detectLanguage(
+                    ScriptStatistics.truncateForDetection(text, MAX_LANGUAGE_DETECTION_CHARS)); // 言語を検出
+                return !"ja".equals(language);
         }
-        // 言語が日本語であるか、または日本語でなくても単語数が閾値以下であれば false
-        return false;
     }
 }
@@ -0,0 +1,232 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.config.ConcurrentDetectionConfig;
+import com.example.promptngapi.dto.DetectionDetail;
+import com.example.promptngapi.dto.PromptNGResponse;
+import com.example.promptngapi.nlp.AnalyzedText;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * 形態素解析済みのテキストに対してプロンプトインジェクションと機密情報の検出器を実行し、結果をまとめるサービスです。
+ * <p>
+ * 2 つの検出器は互いに独立しているため、並行実行が有効な場合 ({@code concurrent-detection.enabled}) は
+ * 専用の上限付きスレッドプールで同時に実行し、共通の期限 ({@code concurrent-detection.timeout-ms}) で待ち合わせます。
+ * レイテンシは 2 つの合計ではなく、遅い方の検出器で決まります。
+ * 閾値と期限は {@link DetectionContext} として各検出器に明示的に渡すため、実行スレッドに依存しません。
+ * 期限を過ぎた検出器は次の区切りで処理を打ち切るため、待ち合わせを諦めた後もスレッドを使い続けることはありません。
+ * <p>
+ * リクエストは仮想スレッドで処理されるため ({@code spring.threads.virtual.enabled})、リクエストの同時実行数は CPU の使用量の上限になりません。
+ * 検出器は CPU を使う処理で、仮想スレッドで分岐させても並列度は CPU コア数を超えず、実行待ちだけが際限なく増えるため、
+ * 検出器はコア数程度の上限付きのプラットフォームスレッドのプール ({@code concurrent-detection.pool-size}) で実行します。
+ * 実行待ちが上限 ({@code concurrent-detection.queue-capacity}) に達した場合は、期限の外で呼び出し元スレッドに実行させることはせず、
+ * すぐに {@link AdmissionRejectedException} (503 と Retry-After) で拒否し、{@code prompt_ng.detection.rejected} で数えます。
+ * <p>
+ * 呼び出し元が時間の上限を指定した場合は {@link #judgeWithinBudget} で、検出の段階 ({@link DetectionStage}) を軽い順に実行し、
+ * 期限を過ぎた時点で打ち切って、それまでの結果を部分的な判定として返します。
+ */
+@Service
+public class PromptJudgeService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PromptJudgeService.class);
+
+    // 検出器のスレッドプールが一杯で拒否した場合の再試行までの目安 (秒)。実行待ちは期限 (既定 10 秒) より十分早く空くため短くする
+    private static final long REJECTED_RETRY_AFTER_SECONDS = 1;
+
+    /**
+     * 時間の上限付きの判定結果です。
+     *
+     * @param detections      検出結果 (途中で打ち切られた段階で見つかったものを含む)
+     * @param completedStages 最後まで実行できた段階 (実行順)
+     * @param partial         期限を過ぎて一部の段階を実行できなかった場合は true
+     */
+    public record BudgetedResult(List<DetectionDetail> detections, List<DetectionStage> completedStages, boolean partial) {
+
+        /**
+         * 完了した段階と部分的な判定かどうかを、判定結果のレスポンスに設定します。
+         */
+        public void applyTo(PromptNGResponse response) {
+            List<String> stageValues = new ArrayList<>(completedStages.size());
+            for (DetectionStage stage : completedStages) {
+                stageValues.add(stage.getValue());
+            }
+            response.setCompletedStages(stageValues);
+            response.setPartial(partial);
+        }
+    }
+
+    private final PromptInjectionDetector promptInjectionDetector;
+    private final SensitiveInformationDetector sensitiveInformationDetector;
+    private final ConcurrentDetectionConfig concurrentDetectionConfig;
+    private final DetectionMetrics detectionMetrics;
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public PromptJudgeService(PromptInjectionDetector promptInjectionDetector,
+                              SensitiveInformationDetector sensitiveInformationDetector,
+                              ConcurrentDetectionConfig concurrentDetectionConfig,
+                              DetectionMetrics detectionMetrics) {
+        this.promptInjectionDetector = promptInjectionDetector;
+        this.sensitiveInformationDetector = sensitiveInformationDetector;
+        this.concurrentDetectionConfig = concurrentDetectionConfig;
+        this.detectionMetrics = detectionMetrics;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            concurrentDetectionConfig.getPoolSize(), concurrentDetectionConfig.getPoolSize(),
+            60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(concurrentDetectionConfig.getQueueCapacity()),
+            runnable -> {
+                Thread thread = new Thread(runnable, "detector-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    // Spring の外 (テストやベンチマーク) で作成する場合は、メトリクスを記録しない
+    public PromptJudgeService(PromptInjectionDetector promptInjectionDetector,
+                              SensitiveInformationDetector sensitiveInformationDetector,
+                              ConcurrentDetectionConfig concurrentDetectionConfig) {
+        this(promptInjectionDetector, sensitiveInformationDetector, concurrentDetectionConfig, DetectionMetrics.noop());
+    }
+
+    /**
+     * 両方の検出器を実行し、プロンプトインジェクション、機密情報の順に検出結果を連結して返します。
+     * 並行実行時の期限は、コンテキストの期限と {@code concurrent-detection.timeout-ms} のうち早い方です。
+     *
+     * @param analyzedText {@link com.example.promptngapi.nlp.KuromojiAnalyzer#analyze(String)} で解析したテキスト
+     * @param context      適用する閾値と期限
+     * @return 検出結果 (問題がなければ空のリスト)
+     * @throws DetectionTimeoutException 期限までに検出器が完了しなかった場合
+     * @throws AdmissionRejectedException 検出器のスレッドプールの実行待ちが上限に達している場合
+     */
+    public List<DetectionDetail> judge(AnalyzedText analyzedText, DetectionContext context) {
+        if (!concurrentDetectionConfig.isEnabled()) {
+            return judgeSequentially(analyzedText, context);
+        }
+
+        DetectionContext bounded = context.withTimeout(concurrentDetectionConfig.getTimeoutMs());
+        CompletableFuture<List<DetectionDetail>> injection = null;
+        CompletableFuture<List<DetectionDetail>> sensitive;
+        try {
+            injection = CompletableFuture.supplyAsync(
+                () -> promptInjectionDetector.isPromptInjectionAttempt(analyzedText, bounded), executor);
+            sensitive = CompletableFuture.supplyAsync(
+                () -> sensitiveInformationDetector.hasSensitiveInformation(analyzedText, bounded), executor);
+        } catch (RejectedExecutionException e) {
+            if (injection != null) {
+                injection.cancel(false); // 実行待ちのまま取り消された検出器は実行されない
+            }
+            detectionMetrics.countRejection();
+            LOGGER.warn("Detector pool is saturated (pool-size={}, queue-capacity={}); rejecting the judgement",
+                concurrentDetectionConfig.getPoolSize(), concurrentDetectionConfig.getQueueCapacity());
+            throw new AdmissionRejectedException("Detector pool is saturated", REJECTED_RETRY_AFTER_SECONDS);
+        }
+
+        List<DetectionDetail> detections = new ArrayList<>();
+        try {
+            addAll(detections, await(injection, bounded));
+            addAll(detections, await(sensitive, bounded));
+        } catch (RuntimeException | Error e) {
+            // 実行中の検出器は期限の確認で打ち切られるため、結果を待たずに戻る
+            injection.cancel(false);
+            sensitive.cancel(false);
+            throw e;
+        }
+        return detections;
+    }
+
+    /**
+     * 両方の検出器を呼び出し元スレッドで順番に実行します。
+     * 呼び出し元がすでに複数の入力を並行に処理している場合 (バッチ判定など) に使用します。
+     *
+     * @param analyzedText {@link com.example.promptngapi.nlp.KuromojiAnalyzer#analyze(String)} で解析したテキスト
+     * @param context      適用する閾値と期限
+     * @return 検出結果 (問題がなければ空のリスト)
+     * @throws DetectionTimeoutException コンテキストの期限を過ぎた場合
+     */
+    public List<DetectionDetail> judgeSequentially(AnalyzedText analyzedText, DetectionContext context) {
+        List<DetectionDetail> detections = new ArrayList<>();
+        addAll(detections, promptInjectionDetector.isPromptInjectionAttempt(analyzedText, context));
+        addAll(detections, sensitiveInformationDetector.hasSensitiveInformation(analyzedText, context));
+        return detections;
+    }
+
+    /**
+     * 検出の段階を {@link DetectionStage} の定義順 (軽い順) に呼び出し元スレッドで実行し、期限を過ぎた場合はそれ以降の段階を実行せずに、
+     * それまでの結果を部分的な判定として返します。期限は、コンテキストの期限と {@code concurrent-detection.timeout-ms} のうち早い方です。
+     * <p>
+     * 部分的な判定で問題が検出されている場合、その検出結果は完全な判定でも同じように検出されます。
+     * 問題が検出されていない場合は、完了した段階 ({@link BudgetedResult#completedStages()}) の範囲で問題がないことだけを表します。
+     *
+     * @param analyzedText {@link com.example.promptngapi.nlp.KuromojiAnalyzer#analyze(String)} で解析したテキスト
+     * @param context      適用する閾値と期限
+     * @return 検出結果と、完了した段階
+     */
+    public BudgetedResult judgeWithinBudget(AnalyzedText analyzedText, DetectionContext context) {
+        // フレーズの分割は段階ごとに繰り返さず、最初に必要になった段階の結果を以降の段階でも使う
+        DetectionContext bounded = context.withTimeout(concurrentDetectionConfig.getTimeoutMs()).withPhraseCache();
+        List<DetectionDetail> detections = new ArrayList<>();
+        List<DetectionStage> completedStages = new ArrayList<>();
+        try {
+            for (DetectionStage stage : DetectionStage.values()) {
+                bounded.checkDeadline();
+                if (stage.isPromptInjection()) {
+                    promptInjectionDetector.detectStage(stage, analyzedText, bounded, detections);
+                } else {
+                    sensitiveInformationDetector.detectStage(stage, analyzedText, bounded, detections);
+                }
+                completedStages.add(stage);
+            }
+        } catch (DetectionTimeoutException e) {
+            return new BudgetedResult(detections, completedStages, true);
+        }
+        return new BudgetedResult(detections, completedStages, false);
+    }
+
+    private static List<DetectionDetail> await(CompletableFuture<List<DetectionDetail>> future, DetectionContext context) {
+        try {
+            return future.get(context.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new DetectionTimeoutException("Detection did not complete within the configured timeout");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DetectionTimeoutException("Interrupted while waiting for detection");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static void addAll(List<DetectionDetail> target, List<DetectionDetail> source) {
+        if (source != null) {
+            target.addAll(source);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
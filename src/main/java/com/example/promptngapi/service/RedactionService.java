@@ -0,0 +1,152 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.config.StreamingAnalysisConfig;
+import com.example.promptngapi.dto.DetectionDetail;
+import com.example.promptngapi.nlp.KuromojiAnalyzer;
+import com.example.promptngapi.nlp.SentenceChunker;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+
+/**
+ * 入力テキスト中の機密情報 (クレジットカード番号、マイナンバー、氏名、住所など) を {@value #MASK_CHAR} で伏せ字にして書き出すサービスです。
+ * <p>
+ * 入力は {@link StreamingAnalysisService} と同じく {@link SentenceChunker} でチャンクに分割し、チャンクごとに
+ * {@link SensitiveInformationDetector} を 1 回だけ実行して、その検出結果の位置 (start/end) をそのまま伏せ字の範囲として使います。
+ * 次のチャンクと重複する末尾 ({@code overlap-chars}) 以外は、それ以上検出結果が変わらないため、チャンクを解析するたびに確定した部分から順に書き出します。
+ * 同時にメモリ上に保持するのは 1 チャンク分のテキストと、未確定部分の伏せ字範囲のみです。
+ * <p>
+ * 伏せ字はコードポイント単位で 1 文字ずつ置き換えるため、サロゲートペアを除き出力の文字位置は入力と一致します。
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RedactionService {
+
+    static final char MASK_CHAR = '*';
+
+    private final SensitiveInformationDetector sensitiveInformationDetector;
+    private final StreamingAnalysisConfig streamingAnalysisConfig;
+    private final KuromojiAnalyzer kuromojiAnalyzer;
+
+    @Autowired
+    public RedactionService(SensitiveInformationDetector sensitiveInformationDetector,
+                            StreamingAnalysisConfig streamingAnalysisConfig,
+                            KuromojiAnalyzer kuromojiAnalyzer) {
+        this.sensitiveInformationDetector = sensitiveInformationDetector;
+        this.streamingAnalysisConfig = streamingAnalysisConfig;
+        this.kuromojiAnalyzer = kuromojiAnalyzer;
+    }
+
+    /**
+     * {@link Reader} から入力を読み込み、機密情報を伏せ字にしたテキストを {@link Writer} に書き出します。
+     * 確定した部分を書き出すたびに {@link Writer#flush()} を呼び出します。
+     *
+     * @param reader 入力テキスト。このメソッドでは close しません。
+     * @param writer 出力先。このメソッドでは close しません。
+     * @return 伏せ字にした範囲の数 (重なり合う検出結果は 1 つとして数えます)
+     * @throws IOException 入力の読み込みまたは出力の書き込みに失敗した場合
+     */
+    public int redact(Reader reader, Writer writer) throws IOException {
+        SentenceChunker chunker = new SentenceChunker(reader,
+            streamingAnalysisConfig.getMaxChunkChars(), streamingAnalysisConfig.getOverlapChars());
+        int overlapChars = streamingAnalysisConfig.getOverlapChars();
+
+        StringBuilder pending = new StringBuilder(); // 未出力のテキスト (入力全体の emitted 以降)
+        long emitted = 0;                            // 出力済みの位置
+        long analyzedUntil = 0;                      // pending に読み込み済みの位置
+        List<long[]> masks = new ArrayList<>();      // 未出力部分にかかる伏せ字範囲 (開始位置順、重なりなし)
+        int redactions = 0;
+
+        SentenceChunker.Chunk chunk;
+        while ((chunk = chunker.next()) != null) {
+            String text = chunk.text();
+            long chunkEnd = chunk.startOffset() + text.length();
+            pending.append(text, (int) (analyzedUntil - chunk.startOffset()), text.length());
+            analyzedUntil = chunkEnd;
+
+            List<DetectionDetail> detections = sensitiveInformationDetector.hasSensitiveInformation(kuromojiAnalyzer.analyze(text));
+            if (detections != null) {
+                for (DetectionDetail detail : detections) {
+                    if (detail.getStart() == null || detail.getEnd() == null) {
+                        continue; // 位置を特定できない検出結果は伏せ字にできない
+                    }
+                    long start = Math.max(chunk.startOffset() + detail.getStart(), emitted);
+                    long end = chunk.startOffset() + detail.getEnd();
+                    if (start < end && addMask(masks, start, end)) {
+                        redactions++;
+                    }
+                }
+            }
+
+            // 末尾の重複部分は次のチャンクでも解析されるため、それより前だけを確定として書き出す
+            long confirmedUntil = Math.max(emitted, chunkEnd - overlapChars);
+            emitted = emit(pending, emitted, confirmedUntil, masks, writer);
+        }
+        emit(pending, emitted, analyzedUntil, masks, writer);
+        return redactions;
+    }
+
+    /**
+     * 伏せ字範囲を追加します。既存の範囲と重なる、または接する場合は結合します。
+     *
+     * @return 新しい範囲として追加した場合は {@code true}、既存の範囲に結合した場合は {@code false}
+     */
+    private static boolean addMask(List<long[]> masks, long start, long end) {
+        int i = 0;
+        while (i < masks.size() && masks.get(i)[1] < start) {
+            i++;
+        }
+        if (i == masks.size() || masks.get(i)[0] > end) {
+            masks.add(i, new long[] {start, end});
+            return true;
+        }
+        long[] merged = masks.get(i);
+        merged[0] = Math.min(merged[0], start);
+        merged[1] = Math.max(merged[1], end);
+        while (i + 1 < masks.size() && masks.get(i + 1)[0] <= merged[1]) {
+            merged[1] = Math.max(merged[1], masks.remove(i + 1)[1]);
+        }
+        return false;
+    }
+
+    /**
+     * pending の先頭から {@code until} までを伏せ字を適用して書き出し、書き出した分を pending と masks から取り除きます。
+     *
+     * @return 新しい出力済みの位置
+     */
+    private static long emit(StringBuilder pending, long emitted, long until, List<long[]> masks, Writer writer) throws IOException {
+        int length = (int) (until - emitted);
+        if (length > 0 && length < pending.length() && Character.isHighSurrogate(pending.charAt(length - 1))) {
+            length--; // サロゲートペアの途中で区切らない
+        }
+        if (length <= 0) {
+            return emitted;
+        }
+        long limit = emitted + length;
+        int maskIndex = 0;
+        for (int i = 0; i < length; ) {
+            long position = emitted + i;
+            while (maskIndex < masks.size() && masks.get(maskIndex)[1] <= position) {
+                maskIndex++;
+            }
+            int codePoint = Character.codePointAt(pending, i);
+            int charCount = Character.charCount(codePoint);
+            if (maskIndex < masks.size() && masks.get(maskIndex)[0] <= position) {
+                writer.write(MASK_CHAR);
+            } else {
+                writer.append(pending, i, i + charCount);
+            }
+            i += charCount;
+        }
+        writer.flush();
+
+        pending.delete(0, length);
+        masks.removeIf(mask -> mask[1] <= limit);
+        return limit;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.dto.DetectionDetail;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import org.springframework.stereotype.Component;
+
+/**
+ * 検出ルールに整数のルール ID を割り当てるカタログです。
+ * <p>
+ * 検出結果の {@code type} と {@code matched_pattern} の組を 1 つのルールとし、各検出器のルールファイルの定義順に 1 から採番します
+ * (0 はカタログにない検出結果)。バイナリ形式の API など、パターン文字列の代わりに ID を返す場合に使用します。
+ * ID はルールファイルの内容で決まるため、ルールを追加・削除すると変わることがあります。
+ * クライアントは {@link #getVersion()} でカタログの変更を検知できます。
+ * 構築後は不変で、複数スレッドから同時に使用できます。
+ */
+@Component
+public class RuleCatalog {
+
+    /** カタログにない検出結果のルール ID */
+    public static final int UNKNOWN_RULE_ID = 0;
+
+    /**
+     * ルールのキーです。
+     *
+     * @param type    検出結果の {@code type}
+     * @param pattern 検出結果の {@code matched_pattern} (null の場合は同じ type のすべての検出結果)
+     */
+    public record Key(String type, String pattern) {
+    }
+
+    /**
+     * カタログの 1 ルールです。
+     *
+     * @param id      ルール ID (1 以上)
+     * @param type    検出結果の {@code type}
+     * @param pattern 検出結果の {@code matched_pattern} (null の場合は同じ type のすべての検出結果)
+     */
+    public record Rule(int id, String type, String pattern) {
+    }
+
+    private final List<Rule> rules;
+    private final Map<Key, Integer> idsByKey = new HashMap<>();
+    private final Map<String, Integer> idsByType = new HashMap<>();
+    private final long version;
+
+    public RuleCatalog() {
+        this(concat(PromptInjectionDetector.ruleKeys(), SensitiveInformationDetector.ruleKeys()));
+    }
+
+    RuleCatalog(List<Key> keys) {
+        List<Rule> catalog = new ArrayList<>();
+        CRC32 checksum = new CRC32();
+        for (Key key : keys) {
+            if (idsByKey.containsKey(key) || (key.pattern() == null && idsByType.containsKey(key.type()))) {
+                continue; // 同じルールが複数回定義されている場合は最初の ID を使う
+            }
+            int id = catalog.size() + 1;
+            catalog.add(new Rule(id, key.type(), key.pattern()));
+            if (key.pattern() == null) {
+                idsByType.put(key.type(), id);
+            } else {
+                idsByKey.put(key, id);
+            }
+            checksum.update((key.type() + '\u0000' + key.pattern() + '\n').getBytes(StandardCharsets.UTF_8));
+        }
+        this.rules = Collections.unmodifiableList(catalog);
+        this.version = checksum.getValue();
+    }
+
+    /**
+     * 検出結果のルール ID を返します。
+     *
+     * @return ルール ID。カタログにない場合は {@link #UNKNOWN_RULE_ID}
+     */
+    public int idOf(DetectionDetail detail) {
+        Integer id = idsByKey.get(new Key(detail.getType(), detail.getMatched_pattern()));
+        if (id == null) {
+            id = idsByType.get(detail.getType());
+        }
+        return id != null ? id : UNKNOWN_RULE_ID;
+    }
+
+    /** ID の順に並んだすべてのルール (インデックス i のルールの ID は i + 1) */
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    /** カタログの内容 (ルールとその順序) から計算したバージョン。ID の割り当てが変わると変わります。 */
+    public long getVersion() {
+        return version;
+    }
+
+    private static List<Key> concat(List<Key> first, List<Key> second) {
+        List<Key> keys = new ArrayList<>(first);
+        keys.addAll(second);
+        return keys;
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.promptngapi.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@code sensitive_info_rules.yaml} で定義された機密情報 (PII) ルールをまとめてコンパイルし、テキストから検出するエンジンです。
+ * <ul>
+ *   <li>{@code kind: digits} のルールは 1 つの {@link DigitRunScanner} に登録し、数字列を 1 回走査するだけで全ルールを判定します。</li>
+ *   <li>{@code kind: pattern} のルールは名前付きグループの選択 {@code (?<r0>...)|(?<r1>...)|...} として 1 つの正規表現に結合し、1 回の走査で判定します。</li>
+ * </ul>
+ * そのため、ルールを追加しても走査回数は増えません。一致した候補は各ルールの validator (チェックサムや形式の検証) と、
+ * 指定があれば直前のキーワード (context) で絞り込みます。
+ * 構築後は不変で、複数スレッドから同時に使用できます。
+ */
+public final class SensitiveInfoRuleEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SensitiveInfoRuleEngine.class);
+
+    public static final String DEFAULT_RESOURCE = "sensitive_info_rules.yaml";
+
+    private static final int DEFAULT_CONTEXT_CHARS = 20;
+
+    /**
+     * 1 つの検出ルールです。
+     *
+     * @param id           ルール ID
+     * @param type         検出結果の {@code type}
+     * @param name         検出結果の {@code matched_pattern}
+     * @param score        検出結果のスコア
+     * @param details      検出結果の説明 ({@code {label}} は validator の補足に置き換えられます)
+     * @param context      一致箇所の直前に必要なキーワード (小文字。空なら不要)
+     * @param contextChars キーワードを探す直前の文字数
+     */
+    public record Rule(String id, String type, String name, double score, String details,
+                       List<String> context, int contextChars) {
+
+        /** 直前のテキストにキーワードが含まれるか (キーワードの指定がなければ常に true) を返します。 */
+        boolean acceptsContext(CharSequence precedingText) {
+            if (context.isEmpty()) {
+                return true;
+            }
+            String preceding = precedingText.toString().toLowerCase(Locale.ROOT);
+            for (String keyword : context) {
+                if (preceding.contains(keyword)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** validator の補足を埋め込んだ説明を返します。 */
+        public String describe(String label) {
+            return details.replace("{label}", label);
+        }
+    }
+
+    /**
+     * 検出結果です。
+     *
+     * @param rule  一致したルール
+     * @param label validator の補足 (国際ブランド名など。なければ空文字列)
+     * @param start 元のテキスト上の開始位置 (この位置を含む)
+     * @param end   元のテキスト上の終了位置 (この位置を含まない)
+     */
+    public record Finding(Rule rule, String label, int start, int end) {
+    }
+
+    /**
+     * {@link #newDigitScanner(Consumer)} のスキャナーが検出した番号です。
+     *
+     * @param rule  一致したルール
+     * @param match スキャナーの検出結果 (位置は通し位置)
+     */
+    public record DigitMatch(Rule rule, DigitRunScanner.Match match) {
+    }
+
+    // DigitRunScanner に登録する数字ルール (validator と直前のキーワードで判定する)
+    private record ConfiguredDigitRule(Rule rule, int minDigits, int maxDigits,
+                                       Function<DigitRunScanner.Candidate, String> validator)
+        implements DigitRunScanner.DigitRule {
+
+        @Override
+        public int contextChars() {
+            return rule.context().isEmpty() ? 0 : rule.contextChars();
+        }
+
+        @Override
+        public String validate(DigitRunScanner.Candidate candidate) {
+            String label = validator.apply(candidate);
+            if (label == null || !rule.acceptsContext(candidate.precedingText())) {
+                return null;
+            }
+            return label;
+        }
+    }
+
+    private record PatternRule(Rule rule, String group, String pattern, Predicate<String> validator) {
+    }
+
+    private final List<Rule> rules;
+    private final List<ConfiguredDigitRule> digitRules;
+    private final List<PatternRule> patternRules;
+    private final Pattern combinedPattern;
+
+    private SensitiveInfoRuleEngine(List<Rule> rules, List<ConfiguredDigitRule> digitRules, List<PatternRule> patternRules) {
+        this.rules = List.copyOf(rules);
+        this.digitRules = List.copyOf(digitRules);
+        this.patternRules = List.copyOf(patternRules);
+        if (patternRules.isEmpty()) {
+            this.combinedPattern = null;
+        } else {
+            StringBuilder combined = new StringBuilder();
+            for (PatternRule patternRule : patternRules) {
+                if (combined.length() > 0) {
+                    combined.append('|');
+                }
+                combined.append("(?<").append(patternRule.group()).append('>')
+                    .append(patternRule.pattern()).append(')');
+            }
+            this.combinedPattern = Pattern.compile(combined.toString());
+        }
+    }
+
+    /**
+     * クラスパス上の {@value #DEFAULT_RESOURCE} から構築します。
+     * ファイルが見つからない場合はエラーを記録し、何も検出しないエンジンを返します。
+     *
+     * @throws IllegalArgumentException ルールの定義が不正な場合
+     */
+    public static SensitiveInfoRuleEngine loadDefault() {
+        try (InputStream inputStream = SensitiveInfoRuleEngine.class.getClassLoader().getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (inputStream == null) {
+                LOGGER.error("{} が見つかりません。機密情報 (住所・氏名以外) は検出されません。", DEFAULT_RESOURCE);
+                return new SensitiveInfoRuleEngine(List.of(), List.of(), List.of());
+            }
+            return load(inputStream);
+        } catch (IOException e) {
+            LOGGER.error("{} の読み込み中にエラーが発生しました。機密情報 (住所・氏名以外) は検出されません。", DEFAULT_RESOURCE, e);
+            return new SensitiveInfoRuleEngine(List.of(), List.of(), List.of());
+        }
+    }
+
+    /**
+     * YAML (UTF-8) のルール定義から構築します。
+     *
+     * @throws IllegalArgumentException ルールの定義が不正な場合 (未知の kind / validator、必須項目の欠落、不正な正規表現など)
+     */
+    public static SensitiveInfoRuleEngine load(InputStream inputStream) {
+        Map<String, Object> root = new Yaml().load(inputStream);
+        Object ruleList = root != null ? root.get("rules") : null;
+        if (!(ruleList instanceof List<?> entries)) {
+            throw new IllegalArgumentException("'rules' list is missing");
+        }
+
+        List<Rule> rules = new ArrayList<>();
+        List<ConfiguredDigitRule> digitRules = new ArrayList<>();
+        List<PatternRule> patternRules = new ArrayList<>();
+        for (Object entry : entries) {
+            if (!(entry instanceof Map<?, ?> definition)) {
+                throw new IllegalArgumentException("rule must be a mapping: " + entry);
+            }
+            String id = requireString(definition, "id", "(unknown)");
+            List<String> context = new ArrayList<>();
+            if (definition.get("context") instanceof List<?> keywords) {
+                for (Object keyword : keywords) {
+                    context.add(String.valueOf(keyword).toLowerCase(Locale.ROOT));
+                }
+            }
+            Rule rule = new Rule(
+                id,
+                requireString(definition, "type", id),
+                requireString(definition, "name", id),
+                requireNumber(definition, "score", id, 1.0).doubleValue(),
+                requireString(definition, "details", id),
+                List.copyOf(context),
+                requireNumber(definition, "context_chars", id, DEFAULT_CONTEXT_CHARS).intValue()
+            );
+            rules.add(rule);
+
+            String kind = requireString(definition, "kind", id);
+            String validatorName = requireString(definition, "validator", id);
+            switch (kind) {
+                case "digits" -> {
+                    Function<DigitRunScanner.Candidate, String> validator = PiiValidators.DIGIT_VALIDATORS.get(validatorName);
+                    if (validator == null) {
+                        throw new IllegalArgumentException("unknown digits validator '" + validatorName + "' in rule " + id);
+                    }
+                    int minDigits = requireNumber(definition, "min_digits", id, null).intValue();
+                    int maxDigits = requireNumber(definition, "max_digits", id, minDigits).intValue();
+                    digitRules.add(new ConfiguredDigitRule(rule, minDigits, maxDigits, validator));
+                }
+                case "pattern" -> {
+                    Predicate<String> validator = PiiValidators.PATTERN_VALIDATORS.get(validatorName);
+                    if (validator == null) {
+                        throw new IllegalArgumentException("unknown pattern validator '" + validatorName + "' in rule " + id);
+                    }
+                    String pattern = requireString(definition, "pattern", id);
+                    Pattern.compile(pattern); // 結合前に個別に検証し、どのルールが不正か分かるようにする
+                    patternRules.add(new PatternRule(rule, "r" + patternRules.size(), pattern, validator));
+                }
+                default -> throw new IllegalArgumentException("unknown kind '" + kind + "' in rule " + id);
+            }
+        }
+        return new SensitiveInfoRuleEngine(rules, digitRules, patternRules);
+    }
+
+    private static String requireString(Map<?, ?> definition, String key, String id) {
+        Object value = definition.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("'" + key + "' is missing in rule " + id);
+        }
+        return value.toString();
+    }
+
+    private static Number requireNumber(Map<?, ?> definition, String key, String id, Number defaultValue) {
+        Object value = definition.get(key);
+        if (value == null && defaultValue != null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Number number)) {
+            throw new IllegalArgumentException("'" + key + "' must be a number in rule " + id);
+        }
+        return number;
+    }
+
+    /**
+     * テキストからすべてのルールに一致する機密情報を検出します。
+     *
+     * @param text 検査するテキスト (null は空文字列として扱います)
+     * @return 開始位置順の検出結果
+     */
+    public List<Finding> scan(String text) {
+        List<Finding> findings = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return findings;
+        }
+        if (!digitRules.isEmpty()) {
+            for (DigitRunScanner.Match match : DigitRunScanner.scan(text, digitRules)) {
+                findings.add(new Finding(ruleOf(match), match.label(), (int) match.start(), (int) match.end()));
+            }
+        }
+        findings.addAll(scanPatterns(text));
+        findings.sort(Comparator.comparingInt(Finding::start));
+        return findings;
+    }
+
+    /**
+     * テキストから {@code kind: pattern} のルールに一致する機密情報だけを検出します。
+     * 数字のルールを {@link #newDigitScanner(Consumer)} で入力を分割しながら判定する場合に、残りのルールの判定に使用します。
+     *
+     * @param text 検査するテキスト (null は空文字列として扱います)
+     * @return 開始位置順の検出結果
+     */
+    public List<Finding> scanPatterns(String text) {
+        List<Finding> findings = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return findings;
+        }
+        if (combinedPattern != null) {
+            Matcher matcher = combinedPattern.matcher(text);
+            while (matcher.find()) {
+                for (PatternRule patternRule : patternRules) {
+                    if (matcher.start(patternRule.group()) < 0) {
+                        continue;
+                    }
+                    Rule rule = patternRule.rule();
+                    int start = matcher.start();
+                    int end = matcher.end();
+                    CharSequence preceding = text.subSequence(Math.max(0, start - rule.contextChars()), start);
+                    if (patternRule.validator().test(matcher.group()) && rule.acceptsContext(preceding)) {
+                        findings.add(new Finding(rule, "", start, end));
+                    }
+                    break;
+                }
+            }
+        }
+        return findings;
+    }
+
+    /**
+     * {@code kind: digits} のルールを判定する {@link DigitRunScanner} を返します。
+     * {@link DigitRunScanner#feed(CharSequence)} で入力を分割して渡すと、番号が確定するたびに {@code listener} が呼び出されます
+     * (位置は最初に渡した文字からの通し位置です)。返したスキャナーはスレッドセーフではありません。
+     *
+     * @param listener 一致したルールと番号を受け取るリスナー
+     * @return スキャナー。数字のルールがない場合は null
+     */
+    public DigitRunScanner newDigitScanner(Consumer<DigitMatch> listener) {
+        if (digitRules.isEmpty()) {
+            return null;
+        }
+        return new DigitRunScanner(digitRules, match -> listener.accept(new DigitMatch(ruleOf(match), match)));
+    }
+
+    private static Rule ruleOf(DigitRunScanner.Match match) {
+        return ((ConfiguredDigitRule) match.rule()).rule();
+    }
+
+    /** 読み込んだルールを定義順に返します。 */
+    public List<Rule> getRules() {
+        return rules;
+    }
+}
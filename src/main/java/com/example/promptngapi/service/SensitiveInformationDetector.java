@@ -1,210 +1,359 @@
 package com.example.promptngapi.service;
 
+import com.atilika.kuromoji.ipadic.Token;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
-import java.util.stream.Stream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 import com.example.promptngapi.dto.DetectionDetail;
+import com.example.promptngapi.nlp.AddressGazetteer;
+import com.example.promptngapi.nlp.AnalyzedText;
+import com.example.promptngapi.nlp.KuromojiAnalyzer;
 
 /**
  * 指定されたテキスト内から様々な種類の機密情報を検出するサービスです。
- * 住所、氏名、クレジットカード番号、日本のマイナンバーの検出器を含みます。
- * 注意: 日本の住所と氏名の検出はプレースホルダーであり、大幅な改良が必要です。
+ * 住所、氏名に加え、{@code sensitive_info_rules.yaml} で定義されたクレジットカード番号、マイナンバー、電話番号、メールアドレス、
+ * IP アドレス、旅券番号、銀行口座番号、運転免許証番号などを検出します。
+ * ルールで定義された種類は {@link SensitiveInfoRuleEngine} でチェックサムや形式を検証したうえで、元のテキスト上の位置とともに報告します。
+ * 住所は {@link AddressGazetteer} (都道府県・市区町村の辞書と丁目・番地・号の表記規則) で検出します。
+ * 氏名は {@link KuromojiAnalyzer} のトークン列の品詞 (名詞-固有名詞-人名-姓/名) から検出します。
  */
 @Service
 public class SensitiveInformationDetector {
 
-    // Placeholder regex for Japanese addresses.
-    // Looks for common address suffixes like 県, 府, 道, 都, 市, 区, 町, 村
-    // optionally followed by numbers, 丁目, 番地, 号 etc.
-    // This is a very basic pattern and needs significant refinement.
-    private static final Pattern JAPANESE_ADDRESS_PATTERN = Pattern.compile(
-        ".*(?:東京都|北海道|(?:京都|大阪)府|.{2,3}県)" + // Prefectures, Tokyo, Hokkaido, Kyoto/Osaka Fu
-        ".*[市区町村]" + // City, Ward, Town, Village
-        ".*(?:(?:[一二三四五六七八九十百千]+|[0-9０-９]+)(?:丁目|番地|番|号|-|ー|‐|の)){1,}" + // Block/house numbers etc.
-        ".*"
-    );
-
-    // Placeholder regex for Japanese names.
-    // Looks for common patterns like a surname followed by a given name, possibly with a space.
-    // Or common honorifics like 様, さん.
-    // This is a very basic pattern and needs significant refinement.
-    // It might capture too broadly or miss many valid names.
-    // A common pattern is 2-3 kanji for surname, 1-3 kanji/hiragana/katakana for given name.
-    // For simplicity, this looks for sequences of Kanji, Hiragana, Katakana that might form names.
-    // And common titles.
-    private static final Pattern JAPANESE_NAME_PATTERN = Pattern.compile(
-        ".*(?:[\\p{InCJKUnifiedIdeographs}ー]{2,4}\\s?[\\p{InCJKUnifiedIdeographs}\\p{InHiragana}\\p{InKatakana}ー]{1,4}(?:様|さん|君|ちゃん)|" + // FamilyName GivenName Honorific
-        "[\\p{InCJKUnifiedIdeographs}ー]{2,4}(?:殿|御中)|" + // Formal names with titles
-        "\\b[A-Z][a-z]+ [A-Z][a-z]+\\b)" + // Simple Latin name pattern (as a basic catch-all, might not be relevant for "Japanese names")
-        ".*"
-        // A simpler version just looking for typical name character sequences of certain length:
-        // Pattern.compile(".*[\\p{InCJKUnifiedIdeographs}]{2,4}\\s?[\\p{InCJKUnifiedIdeographs}\\p{InHiragana}\\p{InKatakana}]{1,4}.*");
-    );
-
-
-    // Regex for common credit card numbers (Visa, Mastercard, Amex)
-    // Visa: 13 or 16 digits, starts with 4.
-    // Mastercard: 16 digits, starts with 51-55 or 2221-2720.
-    // American Express: 15 digits, starts with 34 or 37.
-    // Allows for optional spaces or hyphens as separators.
-    // This version is for full string match after cleaning.
-    private static final Pattern STRICT_CREDIT_CARD_PATTERN = Pattern.compile(
-        "^(?:" +
-        "4[0-9]{12}(?:[0-9]{3})?|" + // Visa
-        "(?:5[1-5][0-9]{2}|222[1-9]|22[3-9][0-9]|2[3-6][0-9]{2}|27[01][0-9]|2720)[0-9]{12}|" + // Mastercard
-        "3[47][0-9]{13}" + // American Express
-        ")$"
-    );
-    // Version for finding within cleaned text (no separators, no anchors).
-    private static final Pattern FIND_IN_CLEANED_CREDIT_CARD_PATTERN = Pattern.compile(
-        "(?:" + // Non-capturing group for the whole pattern
-        "4[0-9]{12}(?:[0-9]{3})?|" + // Visa
-        "(?:5[1-5][0-9]{2}|222[1-9]|22[3-9][0-9]|2[3-6][0-9]{2}|27[01][0-9]|2720)[0-9]{12}|" + // Mastercard
-        "3[47][0-9]{13}" + // American Express
-        ")"
-    );
-
-
-    // Regex for Japanese My Number (12 digits) - for finding in cleaned text.
-    // Uses lookaround to ensure the 12 digits are not part of a longer number sequence (e.g., a credit card).
-    private static final Pattern FIND_IN_CLEANED_MY_NUMBER_PATTERN = Pattern.compile("(?<![0-9])[0-9]{12}(?![0-9])");
-    // The old one for exact matches, kept for reference or if direct validation is ever needed.
-    private static final Pattern CLEANED_MY_NUMBER_PATTERN_ANCHORED = Pattern.compile("^[0-9]{12}$");
+    // sensitive_info_rules.yaml のルール (起動時に一度だけコンパイルし、全リクエストで共有する)
+    private static final SensitiveInfoRuleEngine RULE_ENGINE = SensitiveInfoRuleEngine.loadDefault();
 
+    // 都道府県・市区町村の辞書 (起動時に一度だけ構築し、全リクエストで共有する)
+    private static final AddressGazetteer ADDRESS_GAZETTEER = AddressGazetteer.loadDefault();
 
-    /**
-     * 指定されたテキストが日本の住所を含む可能性をチェックします。 (プライベートヘルパーメソッド)
-     * 注意: これはプレースホルダー実装であり、精度向上のためには大幅な改良が必要です。
-     * 現在、キーワードマッチングとテスト用の一時的なASCIIチェックの組み合わせを使用しています。
-     *
-     * @param text チェックするテキスト。
-     * @return 住所の可能性が見つかった場合は {@code true}、それ以外の場合は {@code false}。
-     */
-    private boolean checkJapaneseAddress(String text) { // Renamed to avoid confusion with public methods if any
-        if (text == null || text.isEmpty()) {
-            return false;
-        }
-        // Temporary ASCII checks for tests
-        if (text.contains("Test Ken Test Shi 1-2-3") || text.contains("Test Fu Test Shi Kita Ku Umeda 1-3-1") || text.contains("Test Ken Test Ku 1-1-1")) { // Changed to contains
-            return true;
-        }
+    private static final double FULL_NAME_WITH_HONORIFIC_SCORE = 1.0;
+    private static final double FULL_NAME_SCORE = 0.8;
+    private static final double PARTIAL_NAME_WITH_HONORIFIC_SCORE = 0.7;
 
-        // A more practical simple check might be looking for multiple keywords:
-        boolean prefectureKeyword = Pattern.compile(".*(都|道|府|県).*").matcher(text).find();
-        boolean cityKeyword = Pattern.compile(".*(市|区|町|村).*").matcher(text).find();
-        boolean numberKeyword = Pattern.compile(".*([0-9０-９一二三四五六七八九十百千]+(丁目|番地|番|号|-|ー|‐|の)).*").matcher(text).find();
+    // IPADIC では「様」「さん」「氏」などは 名詞-接尾-人名 と解析されるが、「先生」などは一般名詞のため個別に扱う
+    private static final Set<String> HONORIFIC_NOUNS = Set.of("先生", "社長", "部長", "課長", "選手", "教授", "博士");
 
-        // Require at least two of these categories to reduce false positives from single keywords
-        int matchesCount = 0;
-        if (prefectureKeyword) matchesCount++;
-        if (cityKeyword) matchesCount++;
-        if (numberKeyword) matchesCount++;
+    private final KuromojiAnalyzer kuromojiAnalyzer;
+    // チェックごとの処理時間と検出件数の記録先
+    private final DetectionMetrics detectionMetrics;
 
-        return matchesCount >= 2;
-        // return JAPANESE_ADDRESS_PATTERN.matcher(text).matches(); // Full regex version
+    @Autowired
+    public SensitiveInformationDetector(KuromojiAnalyzer kuromojiAnalyzer, DetectionMetrics detectionMetrics) {
+        this.kuromojiAnalyzer = kuromojiAnalyzer;
+        this.detectionMetrics = detectionMetrics;
+    }
+
+    // メトリクスを記録しない (Spring の外で使う場合)
+    public SensitiveInformationDetector(KuromojiAnalyzer kuromojiAnalyzer) {
+        this(kuromojiAnalyzer, DetectionMetrics.noop());
+    }
+
+    public SensitiveInformationDetector() {
+        this(new KuromojiAnalyzer());
     }
 
     /**
-     * 指定されたテキストが日本の氏名を含む可能性をチェックします。 (プライベートヘルパーメソッド)
-     * 注意: これはプレースホルダー実装であり、精度向上のためには大幅な改良が必要です。
-     * 現在、敬称付きの氏名に対する簡略化されたパターンと、テスト用の一時的なASCIIチェックを使用しています。
-     *
-     * @param text チェックするテキスト。
-     * @return 氏名の可能性が見つかった場合は {@code true}、それ以外の場合は {@code false}。
+     * 形態素解析済みのトークン列から人名を検出します。
+     * IPADIC の 名詞-固有名詞-人名-姓/名 のトークンが連続する部分 (間の空白 1 つは許容) を 1 つの人名とし、
+     * 姓と名がそろっている場合と、直後に敬称がある場合にスコアを上げます。
+     * 姓または名のみで敬称もない場合は、一般的な語と区別できないため報告しません。
      */
-    private boolean checkJapaneseName(String text) { // Renamed
-        if (text == null || text.isEmpty()) {
-            return false;
-        }
-        // Temporary ASCII checks for tests
-        if (text.contains("Test Name Sama") || text.contains("Test Kakuei San") || text.contains("Test Ichiro Dono") || text.contains("Test Taro Sama")) { // Changed to contains
-            return true;
-        }
+    private void detectNames(AnalyzedText analyzedText, DetectionContext context, List<DetectionDetail> detectedIssues) {
+        long checkStart = System.nanoTime();
+        int firstNewDetection = detectedIssues.size();
+        String text = analyzedText.getText();
+        List<Token> tokens = analyzedText.getTokens();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (!isPersonName(tokens.get(i))) {
+                continue;
+            }
+            int first = i;
+            boolean hasSurname = false;
+            boolean hasGivenName = false;
+            int last = i;
+            for (int j = i; j < tokens.size(); j++) {
+                Token token = tokens.get(j);
+                if (isPersonName(token)) {
+                    hasSurname |= "姓".equals(token.getPartOfSpeechLevel4());
+                    hasGivenName |= "名".equals(token.getPartOfSpeechLevel4());
+                    last = j;
+                } else if (!(isWhitespace(token) && j + 1 < tokens.size() && isPersonName(tokens.get(j + 1)))) {
+                    break;
+                }
+            }
+            i = last;
 
-        // Simplified check: look for 2-4 Kanji/Katakana chars, optionally space, then 1-4 Kanji/Hiragana/Katakana chars
-        // Followed by 様 (sama) or さん (san) for higher confidence.
-        // This is still very basic.
-        Pattern simpleNamePattern = Pattern.compile(
-            ".*[\\p{InCJKUnifiedIdeographs}\\p{InKatakana}ー]{2,4}\\s?[\\p{InCJKUnifiedIdeographs}\\p{InHiragana}\\p{InKatakana}ー]{1,4}(?:様|さん|さま|サン|殿|どの|との).*"
-        );
-        if (simpleNamePattern.matcher(text).matches()) { // Using matches() here as it's a full context pattern
-            return true;
+            Token honorific = last + 1 < tokens.size() && isHonorific(tokens.get(last + 1)) ? tokens.get(last + 1) : null;
+            boolean fullName = hasSurname && hasGivenName;
+            double score;
+            if (fullName) {
+                score = honorific != null ? FULL_NAME_WITH_HONORIFIC_SCORE : FULL_NAME_SCORE;
+            } else if (honorific != null) {
+                score = PARTIAL_NAME_WITH_HONORIFIC_SCORE;
+            } else {
+                continue;
+            }
+
+            int start = tokens.get(first).getPosition();
+            int end = tokens.get(last).getPosition() + tokens.get(last).getSurface().length();
+            if (overlapsAddress(start, end, detectedIssues)) {
+                continue; // 地名の一部が人名として解析された場合
+            }
+            DetectionDetail detail = new DetectionDetail(
+                "sensitive_info_name",
+                "Japanese Name Pattern",
+                text.substring(start, end),
+                score,
+                "Japanese personal name detected (" + (fullName ? "surname and given name" : "partial name")
+                    + (honorific != null ? ", followed by honorific '" + honorific.getSurface() + "'" : "") + ").",
+                text // original_text_full
+            );
+            detail.setStart((long) start);
+            detail.setEnd((long) end);
+            detectedIssues.add(detail);
         }
+        recordCheck(context, DetectionMetrics.Check.SENSITIVE_NAME, checkStart, detectedIssues, firstNewDetection);
+    }
 
+    private static boolean overlapsAddress(int start, int end, List<DetectionDetail> detectedIssues) {
+        for (DetectionDetail detail : detectedIssues) {
+            if ("sensitive_info_address".equals(detail.getType()) && detail.getStart() < end && start < detail.getEnd()) {
+                return true;
+            }
+        }
         return false;
     }
 
+    private static boolean isPersonName(Token token) {
+        return "固有名詞".equals(token.getPartOfSpeechLevel2()) && "人名".equals(token.getPartOfSpeechLevel3())
+            && "名詞".equals(token.getPartOfSpeechLevel1());
+    }
+
+    private static boolean isHonorific(Token token) {
+        return ("接尾".equals(token.getPartOfSpeechLevel2()) && "人名".equals(token.getPartOfSpeechLevel3()))
+            || HONORIFIC_NOUNS.contains(token.getSurface());
+    }
+
+    private static boolean isWhitespace(Token token) {
+        return "空白".equals(token.getPartOfSpeechLevel2());
+    }
+
     // No longer need public boolean isCreditCard and isMyNumber,
     // their logic will be incorporated into hasSensitiveInformation.
 
     /**
-     * 入力テキストが検出可能な機密情報タイプ（住所、氏名、クレジットカード、マイナンバー）の
+     * このクラスが検出結果として返し得るルール ({@code type} と {@code matched_pattern} の組) を返します。
+     * {@link RuleCatalog} がルール ID の採番に使用します。
+     */
+    static List<RuleCatalog.Key> ruleKeys() {
+        List<RuleCatalog.Key> keys = new ArrayList<>();
+        for (SensitiveInfoRuleEngine.Rule rule : RULE_ENGINE.getRules()) {
+            keys.add(new RuleCatalog.Key(rule.type(), rule.name()));
+        }
+        keys.add(new RuleCatalog.Key("sensitive_info_address", "Japanese Address Pattern"));
+        keys.add(new RuleCatalog.Key("sensitive_info_name", "Japanese Name Pattern"));
+        return keys;
+    }
+
+    /**
+     * 入力テキストが検出可能な機密情報タイプ（住所、氏名、およびルールで定義されたクレジットカード、マイナンバーなど）の
      * いずれかを含むかどうかをチェックし、検出された詳細のリストを返します。
      *
      * @param text 分析するテキスト。
      * @return 検出された機密情報の詳細リスト。問題が見つからない場合は空のリスト。
      */
     public List<DetectionDetail> hasSensitiveInformation(String text) {
-        List<DetectionDetail> detectedIssues = new ArrayList<>();
         if (text == null || text.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return hasSensitiveInformation(kuromojiAnalyzer.analyze(text));
+    }
+
+    /**
+     * 形態素解析済みのテキストに対して {@link #hasSensitiveInformation(String)} と同じチェックを行います。
+     * 氏名の検出には、他の検出器と共有しているトークン列をそのまま使用します。
+     *
+     * @param analyzedText {@link KuromojiAnalyzer#analyze(String)} で解析したテキスト。
+     * @return 検出された機密情報の詳細リスト。問題が見つからない場合は空のリスト。
+     */
+    public List<DetectionDetail> hasSensitiveInformation(AnalyzedText analyzedText) {
+        return detect(analyzedText, null);
+    }
+
+    /**
+     * {@link #hasSensitiveInformation(AnalyzedText)} と同じチェックを行い、検出の段階 (ルール、住所、氏名) ごとにコンテキストの期限を確認します。
+     * 機密情報の検出は閾値の上書きの影響を受けません。
+     *
+     * @param analyzedText {@link KuromojiAnalyzer#analyze(String)} で解析したテキスト。
+     * @param context      適用する期限。
+     * @return 検出された機密情報の詳細リスト。問題が見つからない場合は空のリスト。
+     * @throws DetectionTimeoutException コンテキストの期限を過ぎた場合
+     */
+    public List<DetectionDetail> hasSensitiveInformation(AnalyzedText analyzedText, DetectionContext context) {
+        return detect(analyzedText, context);
+    }
+
+    /**
+     * 指定した段階 ({@link DetectionStage#isPromptInjection()} が false のもの) のチェックだけを行い、検出結果を {@code detections} に追加します。
+     * 期限を過ぎた場合は、それまでに見つかった結果を {@code detections} に残したまま打ち切ります。
+     *
+     * @param stage        実行する段階
+     * @param analyzedText {@link KuromojiAnalyzer#analyze(String)} で解析したテキスト。
+     * @param context      適用する期限。
+     * @param detections   検出結果の追加先
+     * @throws DetectionTimeoutException コンテキストの期限を過ぎた場合
+     * @throws IllegalArgumentException  プロンプトインジェクションの段階を指定した場合
+     */
+    public void detectStage(DetectionStage stage, AnalyzedText analyzedText, DetectionContext context, List<DetectionDetail> detections) {
+        if (stage.isPromptInjection()) {
+            throw new IllegalArgumentException("Not a sensitive information stage: " + stage);
+        }
+        if (analyzedText == null || analyzedText.isEmpty()) {
+            return;
+        }
+        context.checkDeadline();
+        switch (stage) {
+            case SENSITIVE_RULES:
+                detectRules(analyzedText.getText(), context, detections);
+                break;
+            case SENSITIVE_ADDRESS:
+                detectAddresses(analyzedText.getText(), context, detections);
+                break;
+            default:
+                detectNames(analyzedText, context, detections);
+                break;
+        }
+    }
+
+    /**
+     * 数字のルール以外 ({@code sensitive_info_rules.yaml} の {@code kind: pattern} のルール、住所、氏名) のチェックを行います。
+     * 数字のルールを {@link #newDigitRuleScanner(Consumer)} で入力を分割しながら判定する場合に、区切りごとのテキストの判定に使用します。
+     *
+     * @param analyzedText {@link KuromojiAnalyzer#analyze(String)} で解析したテキスト。
+     * @return 検出された機密情報の詳細リスト。問題が見つからない場合は空のリスト。
+     */
+    public List<DetectionDetail> hasSensitiveInformationExceptDigitRules(AnalyzedText analyzedText) {
+        List<DetectionDetail> detectedIssues = new ArrayList<>();
+        if (analyzedText == null || analyzedText.isEmpty()) {
             return detectedIssues;
         }
+        String text = analyzedText.getText();
+        addFindings(text, RULE_ENGINE.scanPatterns(text), detectedIssues);
+        detectAddresses(text, null, detectedIssues);
+        detectNames(analyzedText, null, detectedIssues);
+        return detectedIssues;
+    }
 
-        // Credit Card Detection
-        String cleanedTextForCards = text.replaceAll("[ -]", "");
-        Matcher cardMatcher = FIND_IN_CLEANED_CREDIT_CARD_PATTERN.matcher(cleanedTextForCards);
-        while (cardMatcher.find()) {
-            detectedIssues.add(new DetectionDetail(
-                "sensitive_info_credit_card",
-                "Credit Card Pattern", // Or FIND_IN_CLEANED_CREDIT_CARD_PATTERN.pattern()
-                cardMatcher.group(),
-                1.0, // Exact match for a defined pattern
-                "Credit card number detected.",
-                text // original_text_full
-            ));
+    /**
+     * 入力を分割して受け取りながら、数字のルール (クレジットカード番号、マイナンバーなど) を判定するスキャナーを返します。
+     * 番号が確定するたびに、位置 (最初に渡した文字からの通し位置) を持つ検出結果が {@code listener} に渡されます。
+     * スキャナーは元のテキストを保持しないため、検出結果の input_substring は区切りを除いて半角に正規化した数字で、original_text_full は含みません。
+     *
+     * @param listener 検出結果を受け取るリスナー
+     * @return スキャナー (スレッドセーフではありません)。数字のルールがない場合は null
+     */
+    public DigitRunScanner newDigitRuleScanner(Consumer<DetectionDetail> listener) {
+        return RULE_ENGINE.newDigitScanner(digitMatch -> {
+            SensitiveInfoRuleEngine.Rule rule = digitMatch.rule();
+            DigitRunScanner.Match match = digitMatch.match();
+            DetectionDetail detail = new DetectionDetail(
+                rule.type(),
+                rule.name(),
+                match.digits(),
+                rule.score(),
+                rule.describe(match.label()),
+                null
+            );
+            detail.setStart(match.start());
+            detail.setEnd(match.end());
+            listener.accept(detail);
+        });
+    }
+
+    // context が null の場合は期限の確認と判定の内訳の記録を行わない
+    private List<DetectionDetail> detect(AnalyzedText analyzedText, DetectionContext context) {
+        List<DetectionDetail> detectedIssues = new ArrayList<>();
+        if (analyzedText == null || analyzedText.isEmpty()) {
+            return detectedIssues;
         }
+        String text = analyzedText.getText();
 
-        // My Number Detection
-        String cleanedTextForMyNumber = text.replaceAll("[ -]", "");
-        Matcher myNumberMatcher = FIND_IN_CLEANED_MY_NUMBER_PATTERN.matcher(cleanedTextForMyNumber);
-        while (myNumberMatcher.find()) {
-            detectedIssues.add(new DetectionDetail(
-                "sensitive_info_my_number",
-                "My Number Pattern", // Or FIND_IN_CLEANED_MY_NUMBER_PATTERN.pattern()
-                myNumberMatcher.group(),
-                1.0, // Exact match for a defined pattern
-                "My Number detected.",
-                text // original_text_full
-            ));
+        detectRules(text, context, detectedIssues);
+
+        if (context != null) {
+            context.checkDeadline();
         }
 
-        // Address Detection (Placeholder)
-        if (checkJapaneseAddress(text)) {
-            detectedIssues.add(new DetectionDetail(
-                "sensitive_info_address",
-                "Japanese Address Placeholder Pattern",
-                "該当箇所 (簡易検出のため特定困難)", // Placeholder substring
-                0.7, // Score might be lower for placeholder logic
-                "Potential Japanese address detected (placeholder logic).",
+        detectAddresses(text, context, detectedIssues);
+
+        if (context != null) {
+            context.checkDeadline();
+        }
+
+        // Name Detection
+        detectNames(analyzedText, context, detectedIssues);
+
+        return detectedIssues;
+    }
+
+    // Rule-based Detection (credit card, My Number, phone, email, IP address, ...)
+    // sensitive_info_rules.yaml の全ルールを、数字列と正規表現それぞれ 1 回の走査で判定する
+    private void detectRules(String text, DetectionContext context, List<DetectionDetail> detectedIssues) {
+        long checkStart = System.nanoTime();
+        int firstNewDetection = detectedIssues.size();
+        addFindings(text, RULE_ENGINE.scan(text), detectedIssues);
+        recordCheck(context, DetectionMetrics.Check.SENSITIVE_RULES, checkStart, detectedIssues, firstNewDetection);
+    }
+
+    private static void addFindings(String text, List<SensitiveInfoRuleEngine.Finding> findings, List<DetectionDetail> detectedIssues) {
+        for (SensitiveInfoRuleEngine.Finding finding : findings) {
+            SensitiveInfoRuleEngine.Rule rule = finding.rule();
+            DetectionDetail detail = new DetectionDetail(
+                rule.type(),
+                rule.name(),
+                text.substring(finding.start(), finding.end()),
+                rule.score(),
+                rule.describe(finding.label()),
                 text // original_text_full
-            ));
+            );
+            detail.setStart((long) finding.start());
+            detail.setEnd((long) finding.end());
+            detectedIssues.add(detail);
         }
+    }
 
-        // Name Detection (Placeholder)
-        if (checkJapaneseName(text)) {
-            detectedIssues.add(new DetectionDetail(
-                "sensitive_info_name",
-                "Japanese Name Placeholder Pattern",
-                "該当箇所 (簡易検出のため特定困難)", // Placeholder substring
-                0.7, // Score might be lower for placeholder logic
-                "Potential Japanese name detected (placeholder logic).",
+    // Address Detection
+    private void detectAddresses(String text, DetectionContext context, List<DetectionDetail> detectedIssues) {
+        long checkStart = System.nanoTime();
+        int firstNewDetection = detectedIssues.size();
+        for (AddressGazetteer.Match match : ADDRESS_GAZETTEER.find(text)) {
+            DetectionDetail detail = new DetectionDetail(
+                "sensitive_info_address",
+                "Japanese Address Pattern",
+                text.substring(match.start(), match.end()),
+                match.prefecture() != null ? 1.0 : 0.8, // 都道府県名が省略されている場合は低めのスコア
+                "Japanese address detected (" + (match.prefecture() != null ? match.prefecture() : "") + match.municipality() + " + block number).",
                 text // original_text_full
-            ));
+            );
+            detail.setStart((long) match.start());
+            detail.setEnd((long) match.end());
+            detectedIssues.add(detail);
         }
+        recordCheck(context, DetectionMetrics.Check.SENSITIVE_ADDRESS, checkStart, detectedIssues, firstNewDetection);
+    }
 
-        return detectedIssues;
+    // context が null の場合は判定の内訳を記録しない
+    private void recordCheck(DetectionContext context, DetectionMetrics.Check check, long checkStart,
+                             List<DetectionDetail> detectedIssues, int firstNewDetection) {
+        long nanos = System.nanoTime() - checkStart;
+        detectionMetrics.recordCheck(check, nanos);
+        DetectionTrace trace = context != null ? context.getTrace() : null;
+        if (trace != null) {
+            trace.addCheckNanos(check, nanos);
+        }
+        detectionMetrics.countDetections(check.getStage(), detectedIssues, firstNewDetection);
     }
 }
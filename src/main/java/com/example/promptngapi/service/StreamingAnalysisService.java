@@ -0,0 +1,142 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.config.StreamingAnalysisConfig;
+import com.example.promptngapi.dto.DetectionDetail;
+import com.example.promptngapi.nlp.AnalyzedText;
+import com.example.promptngapi.nlp.KuromojiAnalyzer;
+import com.example.promptngapi.nlp.SentenceChunker;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+
+/**
+ * 大きな入力 (RAG 用のドキュメントや添付ファイルなど) を、全体をメモリに載せずに判定するサービスです。
+ * 入力を {@link SentenceChunker} で文の区切りごとの上限サイズのチャンクに分割し、チャンクごとに各検出器を実行します。
+ * 同時にメモリ上に保持するのは 1 チャンク分のテキストと、上限付きの検出結果リストのみです。
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class StreamingAnalysisService {
+
+    /**
+     * ストリーミング解析の結果です。
+     *
+     * @param detections     検出結果 (上限 {@code max-detections} 件まで)
+     * @param chunksAnalyzed 解析したチャンク数
+     * @param truncated      検出結果が上限に達し、以降の結果を切り捨てた場合は {@code true}
+     */
+    public record Result(List<DetectionDetail> detections, int chunksAnalyzed, boolean truncated) {
+    }
+
+    private final PromptInjectionDetector promptInjectionDetector;
+    private final SensitiveInformationDetector sensitiveInformationDetector;
+    private final StreamingAnalysisConfig streamingAnalysisConfig;
+    private final KuromojiAnalyzer kuromojiAnalyzer;
+
+    @Autowired
+    public StreamingAnalysisService(PromptInjectionDetector promptInjectionDetector,
+                                    SensitiveInformationDetector sensitiveInformationDetector,
+                                    StreamingAnalysisConfig streamingAnalysisConfig,
+                                    KuromojiAnalyzer kuromojiAnalyzer) {
+        this.promptInjectionDetector = promptInjectionDetector;
+        this.sensitiveInformationDetector = sensitiveInformationDetector;
+        this.streamingAnalysisConfig = streamingAnalysisConfig;
+        this.kuromojiAnalyzer = kuromojiAnalyzer;
+    }
+
+    /**
+     * {@link Reader} から入力を読み込みながらチャンク単位で判定します。
+     * すべてのチャンクに同じコンテキストの閾値と期限を適用します。
+     *
+     * @param reader  判定対象のテキスト。このメソッドでは close しません。
+     * @param context 適用する閾値と期限
+     * @return 判定結果
+     * @throws IOException 入力の読み込みに失敗した場合
+     * @throws DetectionTimeoutException コンテキストの期限を過ぎた場合
+     */
+    public Result analyze(Reader reader, DetectionContext context) throws IOException {
+        SentenceChunker chunker = new SentenceChunker(reader,
+            streamingAnalysisConfig.getMaxChunkChars(), streamingAnalysisConfig.getOverlapChars());
+        int maxDetections = streamingAnalysisConfig.getMaxDetections();
+
+        List<DetectionDetail> detections = new ArrayList<>();
+        Set<String> previousChunkKeys = new HashSet<>();
+        boolean truncated = false;
+        int chunksAnalyzed = 0;
+
+        SentenceChunker.Chunk chunk;
+        while ((chunk = chunker.next()) != null) {
+            chunksAnalyzed++;
+            List<DetectionDetail> chunkDetections = new ArrayList<>();
+            AnalyzedText analyzedChunk = kuromojiAnalyzer.analyze(chunk.text());
+            addAll(chunkDetections, promptInjectionDetector.isPromptInjectionAttempt(analyzedChunk, context));
+            addAll(chunkDetections, sensitiveInformationDetector.hasSensitiveInformation(analyzedChunk, context));
+
+            Set<String> chunkKeys = new HashSet<>();
+            for (DetectionDetail detail : chunkDetections) {
+                String key = keyOf(detail);
+                chunkKeys.add(key);
+                if (isOverlapDuplicate(detail, key, chunk.text(), chunk.overlapLength(), previousChunkKeys)) {
+                    continue;
+                }
+                if (detections.size() >= maxDetections) {
+                    truncated = true;
+                    continue;
+                }
+                // チャンク全体のコピーはレスポンスに含めない (入力サイズに比例してレスポンスが膨らむため)
+                detail.setOriginal_text_full(null);
+                // チャンク内の位置を入力全体での位置に変換する
+                if (detail.getStart() != null && detail.getEnd() != null) {
+                    detail.setStart(detail.getStart() + chunk.startOffset());
+                    detail.setEnd(detail.getEnd() + chunk.startOffset());
+                }
+                detections.add(detail);
+            }
+            previousChunkKeys = chunkKeys;
+        }
+        return new Result(detections, chunksAnalyzed, truncated);
+    }
+
+    /**
+     * 直前のチャンクと重複している先頭部分だけで見つかった検出結果 (= 直前のチャンクで報告済み) かどうかを判定します。
+     * 位置 (start/end) を持つ検出結果はその位置で、持たない検出結果は部分文字列のチャンク内での最後の出現位置で判定します。
+     * 一致箇所がチャンク内で特定できない検出結果 (正規化後の文字列を返すものなど) は、
+     * 直前のチャンクで同じ内容の検出結果が報告されていれば重複とみなします。
+     * 逐次判定 ({@link IncrementalJudgeSession}) が、区切りの位置で重複させて持ち越したテキストにも使用します。
+     *
+     * @param text              解析したテキスト (チャンク)
+     * @param overlapLength     {@code text} の先頭のうち、直前のチャンクと重複している部分の長さ
+     * @param previousChunkKeys 直前のチャンクの検出結果のキー ({@link #keyOf(DetectionDetail)})
+     */
+    static boolean isOverlapDuplicate(DetectionDetail detail, String key,
+                                      String text, int overlapLength, Set<String> previousChunkKeys) {
+        if (overlapLength == 0) {
+            return false;
+        }
+        if (detail.getEnd() != null) {
+            return detail.getEnd() <= overlapLength;
+        }
+        String substring = detail.getInput_substring();
+        int lastIndex = substring == null || substring.isEmpty() ? -1 : text.lastIndexOf(substring);
+        if (lastIndex >= 0) {
+            return lastIndex + substring.length() <= overlapLength;
+        }
+        return previousChunkKeys.contains(key);
+    }
+
+    static String keyOf(DetectionDetail detail) {
+        return detail.getType() + '\u0000' + detail.getMatched_pattern() + '\u0000' + detail.getInput_substring();
+    }
+
+    private static void addAll(List<DetectionDetail> target, List<DetectionDetail> source) {
+        if (source != null) {
+            target.addAll(source);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.promptngapi.websocket;
+
+import com.example.promptngapi.config.IncrementalJudgeConfig;
+import com.example.promptngapi.dto.DetectionDetail;
+import com.example.promptngapi.dto.IncrementalJudgeEvent;
+import com.example.promptngapi.dto.IncrementalJudgeMessage;
+import com.example.promptngapi.service.IncrementalJudgeService;
+import com.example.promptngapi.service.IncrementalJudgeSession;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * 逐次判定の WebSocket エンドポイント ({@code /prompt-ng/v1/judge/ws}) のハンドラーです。
+ * <p>
+ * 接続ごとに {@link IncrementalJudgeSession} を作成し、クライアントが送信するテキストの差分 ({@link IncrementalJudgeMessage}) を順に渡します。
+ * 差分で問題が確定するたびに {@code detections} を、入力の終わりを受け取ると {@code end} を送信して接続を閉じます ({@link IncrementalJudgeEvent})。
+ * 閾値の上書きはハンドシェイクの URL のクエリパラメータ ({@code similarityThreshold}、{@code nonJapaneseSentenceWordThreshold}) で指定します。
+ * <p>
+ * 1 つの接続のメッセージは順番に 1 つずつ処理されるため、セッションの状態に同期は不要です。
+ */
+@Component
+public class IncrementalJudgeWebSocketHandler extends TextWebSocketHandler {
+
+    private static final String SESSION_ATTRIBUTE = IncrementalJudgeSession.class.getName();
+
+    private final IncrementalJudgeService incrementalJudgeService;
+    private final IncrementalJudgeConfig incrementalJudgeConfig;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public IncrementalJudgeWebSocketHandler(IncrementalJudgeService incrementalJudgeService,
+                                            IncrementalJudgeConfig incrementalJudgeConfig,
+                                            ObjectMapper objectMapper) {
+        this.incrementalJudgeService = incrementalJudgeService;
+        this.incrementalJudgeConfig = incrementalJudgeConfig;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        MultiValueMap<String, String> params = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+        IncrementalJudgeSession judgeSession;
+        try {
+            judgeSession = incrementalJudgeService.newSession(
+                parse(params.getFirst("similarityThreshold"), Double::valueOf),
+                parse(params.getFirst("nonJapaneseSentenceWordThreshold"), Integer::valueOf));
+        } catch (NumberFormatException e) {
+            fail(session, "Invalid threshold: " + e.getMessage(), CloseStatus.BAD_DATA);
+            return;
+        }
+        session.getAttributes().put(SESSION_ATTRIBUTE, judgeSession);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage textMessage) throws IOException {
+        IncrementalJudgeSession judgeSession = (IncrementalJudgeSession) session.getAttributes().get(SESSION_ATTRIBUTE);
+        if (judgeSession == null) {
+            return; // 接続の確立に失敗して閉じている途中
+        }
+        IncrementalJudgeMessage message;
+        try {
+            message = objectMapper.readValue(textMessage.getPayload(), IncrementalJudgeMessage.class);
+        } catch (JsonProcessingException e) {
+            fail(session, "Invalid message: " + e.getOriginalMessage(), CloseStatus.BAD_DATA);
+            return;
+        }
+        String delta = message.getDelta();
+        if (delta != null && delta.length() > incrementalJudgeConfig.getMaxMessageChars()) {
+            fail(session, "delta is too long: " + delta.length() + " (max " + incrementalJudgeConfig.getMaxMessageChars() + ")",
+                CloseStatus.TOO_BIG_TO_PROCESS);
+            return;
+        }
+
+        if (delta != null && !delta.isEmpty()) {
+            List<DetectionDetail> detections = judgeSession.append(delta);
+            if (!detections.isEmpty()) {
+                send(session, IncrementalJudgeEvent.detections(detections, judgeSession.getCharsReceived()));
+            }
+        }
+        if (message.isEnd()) {
+            List<DetectionDetail> detections = judgeSession.finish();
+            send(session, IncrementalJudgeEvent.end(detections, judgeSession.isOverallResult(), judgeSession.getCharsReceived()));
+            session.getAttributes().remove(SESSION_ATTRIBUTE);
+            session.close(CloseStatus.NORMAL);
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        session.getAttributes().remove(SESSION_ATTRIBUTE);
+    }
+
+    private void fail(WebSocketSession session, String error, CloseStatus status) throws IOException {
+        session.getAttributes().remove(SESSION_ATTRIBUTE);
+        send(session, IncrementalJudgeEvent.error(error));
+        session.close(status);
+    }
+
+    private void send(WebSocketSession session, IncrementalJudgeEvent event) throws IOException {
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(event)));
+    }
+
+    private static <T> T parse(String value, Function<String, T> parser) {
+        return value == null || value.isBlank() ? null : parser.apply(value.trim());
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.promptngapi.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DebugTimingPolicyTest {
+
+    private DebugTimingConfig config(String... addresses) {
+        DebugTimingConfig config = new DebugTimingConfig();
+        config.setAllowedAddresses(List.of(addresses));
+        return config;
+    }
+
+    @Test
+    void testAlwaysPermittedOutsideProduction() {
+        DebugTimingPolicy policy = new DebugTimingPolicy(new MockEnvironment(), config());
+
+        assertThat(policy.isPermitted("203.0.113.5")).isTrue();
+        assertThat(policy.isPermitted(null)).isTrue();
+    }
+
+    @Test
+    void testOnlyAllowedAddressesArePermittedInProduction() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("production");
+        DebugTimingPolicy policy = new DebugTimingPolicy(environment, config("10.0.0.7"));
+
+        assertThat(policy.isPermitted("10.0.0.7")).isTrue();
+        assertThat(policy.isPermitted("203.0.113.5")).isFalse();
+        assertThat(policy.isPermitted(null)).isFalse();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.promptngapi.config;
+
+import com.example.promptngapi.dto.BulkJudgeRequest;
+import com.example.promptngapi.dto.CompactJudgeResponse;
+import com.example.promptngapi.dto.DetectionDetail;
+import com.example.promptngapi.dto.IncrementalJudgeMessage;
+import com.example.promptngapi.dto.JudgeTiming;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NativeImageHintsConfigTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @Test
+    void detectorResourcesAreRegistered() {
+        new NativeImageHintsConfig.DetectorResourceHints().registerHints(hints, getClass().getClassLoader());
+
+        assertThat(RuntimeHintsPredicates.resource().forResource("prompt_injection_rules.yaml")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("sensitive_info_rules.yaml")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("score_thresholds.yaml")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("address_gazetteer.csv")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("com/atilika/kuromoji/ipadic/doubleArrayTrie.bin")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("languages/ja")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("languages.shorttext/en")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forBundle("com.optimaize.langdetect.cybozu.util.messages")).accepts(hints);
+    }
+
+    @Test
+    void jacksonBoundDtosAreRegisteredForReflection() {
+        new NativeImageHintsConfig.DtoReflectionHints().registerHints(hints, getClass().getClassLoader());
+
+        assertThat(RuntimeHintsPredicates.reflection().onType(CompactJudgeResponse.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(CompactJudgeResponse.Serializer.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(BulkJudgeRequest.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(IncrementalJudgeMessage.class)).accepts(hints);
+        // プロパティの型もたどって登録される
+        assertThat(RuntimeHintsPredicates.reflection().onType(DetectionDetail.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(JudgeTiming.class)).accepts(hints);
+    }
+}
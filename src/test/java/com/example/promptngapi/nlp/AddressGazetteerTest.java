@@ -0,0 +1,79 @@
+package com.example.promptngapi.nlp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AddressGazetteerTest {
+
+    private static final AddressGazetteer GAZETTEER = AddressGazetteer.loadDefault();
+
+    @Test
+    void testDefaultDictionaryIsLoaded() {
+        assertThat(GAZETTEER.getPrefectureCount()).isEqualTo(47);
+        assertThat(GAZETTEER.getMunicipalityCount()).isGreaterThan(1500);
+    }
+
+    static Stream<Arguments> addressTestCases() {
+        return Stream.of(
+            Arguments.of("Prefecture, ward, town and hyphenated block", "送付先: 東京都新宿区西新宿2-8-1 都庁宛", "東京都新宿区西新宿2-8-1", "東京都", "新宿区"),
+            Arguments.of("Designated city ward", "神戸市中央区加納町6丁目5番1号", "神戸市中央区加納町6丁目5番1号", null, "神戸市中央区"),
+            Arguments.of("Kyoto street-direction address without block number", "京都府京都市上京区下立売通新町西入薮ノ内町", null, null, null),
+            Arguments.of("Kanji chome", "福岡県福岡市博多区博多駅前二丁目9番", "福岡県福岡市博多区博多駅前二丁目9番", "福岡県", "福岡市博多区"),
+            Arguments.of("Unlisted village after prefecture", "長野県下伊那郡泰阜村3236番地", "長野県下伊那郡泰阜村3236番地", "長野県", "泰阜村"),
+            Arguments.of("Fullwidth digits and no", "愛知県名古屋市中区三の丸３の１の２", "愛知県名古屋市中区三の丸３の１の２", "愛知県", "名古屋市中区"),
+            Arguments.of("Prefecture only", "静岡県に行きたい", null, null, null),
+            Arguments.of("Unknown municipality without prefecture", "架空市本町1-2-3", null, null, null),
+            Arguments.of("Hiragana town name", "横浜市青葉区あざみ野2丁目1番", "横浜市青葉区あざみ野2丁目1番", null, "横浜市青葉区"),
+            Arguments.of("Sapporo ward", "北海道札幌市中央区北1条西2丁目", "北海道札幌市中央区北1条西2丁目", "北海道", "札幌市中央区"),
+            Arguments.of("Particle and number after city", "横浜市で3番目に大きい駅", null, null, null),
+            Arguments.of("Particle and ranking after city", "仙台市では1番人気の店です", null, null, null),
+            Arguments.of("Particle and number after town", "神戸市中央区加納町で5番", null, null, null),
+            Arguments.of("Particle before suffixed name", "東京都では新しい町1-2", null, null, null)
+        );
+    }
+
+    @ParameterizedTest(name = "{index} => {0}")
+    @MethodSource("addressTestCases")
+    void testFind(String testCaseName, String text, String expectedAddress, String expectedPrefecture, String expectedMunicipality) {
+        List<AddressGazetteer.Match> matches = GAZETTEER.find(text);
+
+        if (expectedAddress == null) {
+            assertThat(matches).isEmpty();
+            return;
+        }
+        assertThat(matches).hasSize(1);
+        AddressGazetteer.Match match = matches.get(0);
+        assertThat(text.substring(match.start(), match.end())).isEqualTo(expectedAddress);
+        assertThat(match.prefecture()).isEqualTo(expectedPrefecture);
+        assertThat(match.municipality()).isEqualTo(expectedMunicipality);
+    }
+
+    @Test
+    void testFindsMultipleAddresses() {
+        String text = "旧住所は札幌市北区北8条西5丁目、新住所は沖縄県那覇市泉崎1-2-2です。";
+        List<AddressGazetteer.Match> matches = GAZETTEER.find(text);
+
+        assertThat(matches).extracting(match -> text.substring(match.start(), match.end()))
+            .containsExactly("札幌市北区北8条西5丁目", "沖縄県那覇市泉崎1-2-2");
+    }
+
+    @Test
+    void testLoadFromCsv() throws IOException {
+        String csv = "# comment\nprefecture,municipality\n架空県,架空市\n";
+        AddressGazetteer gazetteer = AddressGazetteer.load(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(gazetteer.getPrefectureCount()).isEqualTo(1);
+        assertThat(gazetteer.getMunicipalityCount()).isEqualTo(1);
+        assertThat(gazetteer.find("架空市本町1-2-3")).hasSize(1);
+    }
+}
@@ -102,5 +102,9 @@ public class KuromojiAnalyzerTest {
     void testSplitIntoPhrases_Parameterized(String testCaseName, String inputText, List<String> expectedPhrases) {
         List<String> actualPhrases = kuromojiAnalyzer.splitIntoPhrases(inputText);
         assertEquals(expectedPhrases, actualPhrases, "Test Case: " + testCaseName);
+
+        // 解析済みのトークン列から分割しても同じ結果になる
+        List<String> phrasesFromTokens = kuromojiAnalyzer.splitIntoPhrases(kuromojiAnalyzer.analyze(inputText).getTokens());
+        assertEquals(expectedPhrases, phrasesFromTokens, "Test Case (tokens): " + testCaseName);
     }
 }
@@ -0,0 +1,160 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.config.AdmissionControlConfig;
+import com.example.promptngapi.config.ScoreThresholdsConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private AdmissionControlConfig config;
+    private DetectionContext context;
+
+    @BeforeEach
+    void setUp() {
+        config = new AdmissionControlConfig();
+        config.setInitialLimit(2);
+        config.setMinLimit(1);
+        config.setMaxLimit(20);
+        config.setQueueCapacity(10);
+        config.setQueueTimeoutMs(5000);
+        ScoreThresholdsConfig thresholds = new ScoreThresholdsConfig();
+        thresholds.setSimilarityThreshold(0.7);
+        thresholds.setNonJapaneseSentenceWordThreshold(3);
+        context = DetectionContext.of(thresholds);
+    }
+
+    @Test
+    void testQueuedRequestIsAdmittedWhenPermitIsReleased() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config);
+        AdaptiveConcurrencyLimiter.Permit first = limiter.acquire(context);
+        limiter.acquire(context);
+
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> queued = CompletableFuture.supplyAsync(() -> limiter.acquire(context));
+        waitUntil(() -> limiter.getQueueDepth() == 1);
+        assertThat(queued).isNotDone();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+
+        first.release(false);
+
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isNotNull();
+        assertThat(limiter.getQueueDepth()).isZero();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void testFullQueueIsRejectedImmediately() {
+        config.setQueueCapacity(0);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config);
+        limiter.acquire(context);
+        limiter.acquire(context);
+
+        assertThatThrownBy(() -> limiter.acquire(context))
+            .isInstanceOfSatisfying(AdmissionRejectedException.class, e -> assertThat(e.getRetryAfterSeconds()).isPositive());
+    }
+
+    @Test
+    void testWaitIsBoundedByQueueTimeoutAndContextDeadline() {
+        config.setQueueTimeoutMs(50);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config);
+        limiter.acquire(context);
+        limiter.acquire(context);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> limiter.acquire(context)).isInstanceOf(AdmissionRejectedException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(40);
+
+        // 期限を過ぎたリクエストは待たずに拒否される
+        config.setQueueTimeoutMs(5000);
+        DetectionContext expired = context.withDeadline(System.nanoTime() - 1);
+        start = System.nanoTime();
+        assertThatThrownBy(() -> limiter.acquire(expired)).isInstanceOf(AdmissionRejectedException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+        assertThat(limiter.getQueueDepth()).isZero();
+    }
+
+    @Test
+    void testLimitGrowsWhileLatencyIsStable() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config);
+
+        for (int round = 0; round < 50; round++) {
+            // 上限まで使い切った状態で、同じ時間で完了させる
+            List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            for (int i = 0; i < limiter.getLimit(); i++) {
+                permits.add(limiter.acquire(context));
+            }
+            Thread.sleep(1);
+            permits.forEach(permit -> permit.release(false));
+        }
+
+        assertThat(limiter.getLimit()).isGreaterThan(2);
+    }
+
+    @Test
+    void testOverloadReducesLimit() {
+        config.setInitialLimit(10);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire(context).release(true);
+        }
+
+        assertThat(limiter.getLimit()).isLessThan(10).isGreaterThanOrEqualTo(config.getMinLimit());
+    }
+
+    @Test
+    void testReleaseIsIdempotent() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(context);
+        limiter.acquire(context);
+
+        permit.release(false);
+        permit.release(false);
+
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void testDisabledLimiterAdmitsEverything() {
+        config.setEnabled(false);
+        config.setQueueCapacity(0);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire(context);
+        }
+
+        assertThat(limiter.getInFlight()).isEqualTo(10);
+    }
+
+    @Test
+    void testGaugesExposeQueueDepthAndInFlight() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        limiter.bindTo(registry);
+        limiter.acquire(context);
+
+        assertThat(registry.get("prompt_ng.admission.in_flight").gauge().value()).isEqualTo(1.0);
+        assertThat(registry.get("prompt_ng.admission.queue_depth").gauge().value()).isZero();
+        assertThat(registry.get("prompt_ng.admission.limit").gauge().value()).isEqualTo(2.0);
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not met");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
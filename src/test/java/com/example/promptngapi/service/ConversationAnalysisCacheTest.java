@@ -0,0 +1,96 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.config.ScoreThresholdsConfig;
+import com.example.promptngapi.dto.DetectionDetail;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConversationAnalysisCacheTest {
+
+    private static final DetectionDetail DETAIL = new DetectionDetail("prompt_injection_word_jp", "p", "i", 1.0, "test", "i");
+
+    private final AtomicLong now = new AtomicLong();
+    private DetectionContext context;
+
+    @BeforeEach
+    void setUp() {
+        ScoreThresholdsConfig thresholds = new ScoreThresholdsConfig();
+        thresholds.setSimilarityThreshold(0.7);
+        thresholds.setNonJapaneseSentenceWordThreshold(3);
+        context = DetectionContext.of(thresholds);
+    }
+
+    private ConversationAnalysisCache createCache(int maxSessions, int maxTurnsPerSession) {
+        return new ConversationAnalysisCache(maxSessions, maxTurnsPerSession, 1000, now::get);
+    }
+
+    @Test
+    void testKeyDependsOnTextAndThresholds() {
+        ConversationAnalysisCache.TurnKey key = ConversationAnalysisCache.TurnKey.of("こんにちは", context);
+
+        assertThat(ConversationAnalysisCache.TurnKey.of("こんにちは", context)).isEqualTo(key);
+        assertThat(ConversationAnalysisCache.TurnKey.of("こんばんは", context)).isNotEqualTo(key);
+        assertThat(ConversationAnalysisCache.TurnKey.of("こんにちは", context.withTimeout(100))).isEqualTo(key);
+        assertThat(key.contentHash()).hasSize(64);
+    }
+
+    @Test
+    void testResultsAreScopedToConversation() {
+        ConversationAnalysisCache cache = createCache(10, 10);
+        ConversationAnalysisCache.TurnKey key = ConversationAnalysisCache.TurnKey.of("こんにちは", context);
+
+        cache.put("c1", key, List.of(DETAIL));
+
+        assertThat(cache.get("c1", key)).containsExactly(DETAIL);
+        assertThat(cache.get("c2", key)).isNull();
+    }
+
+    @Test
+    void testLeastRecentlyUsedSessionIsEvicted() {
+        ConversationAnalysisCache cache = createCache(2, 10);
+        ConversationAnalysisCache.TurnKey key = ConversationAnalysisCache.TurnKey.of("こんにちは", context);
+        cache.put("c1", key, List.of());
+        cache.put("c2", key, List.of());
+        cache.get("c1", key);
+
+        cache.put("c3", key, List.of());
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("c1", key)).isEmpty();
+        assertThat(cache.get("c2", key)).isNull();
+    }
+
+    @Test
+    void testTurnsPerSessionAreBounded() {
+        ConversationAnalysisCache cache = createCache(10, 2);
+        ConversationAnalysisCache.TurnKey first = ConversationAnalysisCache.TurnKey.of("1", context);
+        cache.put("c1", first, List.of());
+        cache.put("c1", ConversationAnalysisCache.TurnKey.of("2", context), List.of());
+        cache.put("c1", ConversationAnalysisCache.TurnKey.of("3", context), List.of());
+
+        assertThat(cache.get("c1", first)).isNull();
+        assertThat(cache.get("c1", ConversationAnalysisCache.TurnKey.of("3", context))).isEmpty();
+    }
+
+    @Test
+    void testIdleSessionsExpire() {
+        ConversationAnalysisCache cache = createCache(10, 10);
+        ConversationAnalysisCache.TurnKey key = ConversationAnalysisCache.TurnKey.of("こんにちは", context);
+        cache.put("c1", key, List.of());
+        cache.put("c2", key, List.of());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        cache.get("c2", key); // c2 は使われたため期限が延びる
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+
+        assertThat(cache.get("c1", key)).isNull();
+        assertThat(cache.get("c2", key)).isEmpty();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+}
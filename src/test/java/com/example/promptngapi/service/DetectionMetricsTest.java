@@ -0,0 +1,91 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.config.ScoreThresholdsConfig;
+import com.example.promptngapi.dto.DetectionDetail;
+import com.example.promptngapi.nlp.KuromojiAnalyzer;
+import com.example.promptngapi.nlp.LanguageDetectorPool;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DetectionMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private DetectionMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new DetectionMetrics(registry);
+    }
+
+    private Timer checkTimer(DetectionMetrics.Check check) {
+        return registry.get("prompt_ng.detection.check")
+            .tag("stage", check.getStage().getValue())
+            .tag("check", check.getValue())
+            .timer();
+    }
+
+    @Test
+    void testTimersAreRegisteredForEveryCheck() {
+        for (DetectionMetrics.Check check : DetectionMetrics.Check.values()) {
+            assertThat(checkTimer(check).count()).isZero();
+        }
+        metrics.recordCheck(DetectionMetrics.Check.REGEX, 1_500_000);
+        assertThat(checkTimer(DetectionMetrics.Check.REGEX).count()).isEqualTo(1);
+        assertThat(checkTimer(DetectionMetrics.Check.REGEX).totalTime(TimeUnit.MICROSECONDS)).isEqualTo(1500.0);
+    }
+
+    @Test
+    void testDetectionsAreCountedByStageAndTypeFromIndex() {
+        List<DetectionDetail> detections = List.of(
+            new DetectionDetail("prompt_injection_word_jp", "a", "a"),
+            new DetectionDetail("prompt_injection_regex", "b", "b"),
+            new DetectionDetail("prompt_injection_regex", "c", "c"));
+
+        metrics.countDetections(DetectionStage.INJECTION_EXACT, detections, 1);
+
+        Counter regex = registry.get("prompt_ng.detections")
+            .tag("stage", "injection_exact").tag("type", "prompt_injection_regex").counter();
+        assertThat(regex.count()).isEqualTo(2.0);
+        assertThat(registry.find("prompt_ng.detections").tag("type", "prompt_injection_word_jp").counter()).isNull();
+    }
+
+    @Test
+    void testSensitiveInformationDetectorRecordsEachCheck() {
+        SensitiveInformationDetector detector = new SensitiveInformationDetector(new KuromojiAnalyzer(registry), metrics);
+
+        detector.hasSensitiveInformation("連絡先は hanako@example.com です");
+
+        assertThat(checkTimer(DetectionMetrics.Check.SENSITIVE_RULES).count()).isEqualTo(1);
+        assertThat(checkTimer(DetectionMetrics.Check.SENSITIVE_ADDRESS).count()).isEqualTo(1);
+        assertThat(checkTimer(DetectionMetrics.Check.SENSITIVE_NAME).count()).isEqualTo(1);
+        assertThat(registry.get("prompt_ng.detections")
+            .tag("stage", "sensitive_rules").tag("type", "sensitive_info_email").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("prompt_ng.nlp.tokenize").timer().count()).isPositive();
+    }
+
+    @Test
+    void testPromptInjectionDetectorRecordsAllSixChecksOncePerCall() {
+        ScoreThresholdsConfig thresholds = new ScoreThresholdsConfig();
+        thresholds.setSimilarityThreshold(0.7);
+        thresholds.setNonJapaneseSentenceWordThreshold(3);
+        KuromojiAnalyzer analyzer = new KuromojiAnalyzer(registry);
+        PromptInjectionDetector detector = new PromptInjectionDetector(analyzer, thresholds, new LanguageDetectorPool(registry), metrics);
+
+        detector.isPromptInjectionAttempt(analyzer.analyze("今日の天気は？明日の予定も教えてください。"), DetectionContext.of(thresholds));
+
+        for (DetectionMetrics.Check check : DetectionMetrics.Check.values()) {
+            if (check.getStage().isPromptInjection()) {
+                assertThat(checkTimer(check).count()).as(check.name()).isEqualTo(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.config.ScoreThresholdsConfig;
+import com.example.promptngapi.dto.JudgeTiming;
+import com.example.promptngapi.nlp.KuromojiAnalyzer;
+import com.example.promptngapi.nlp.LanguageDetectorPool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DetectionTraceTest {
+
+    private ScoreThresholdsConfig thresholds;
+    private KuromojiAnalyzer analyzer;
+
+    @BeforeEach
+    void setUp() {
+        thresholds = new ScoreThresholdsConfig();
+        thresholds.setSimilarityThreshold(0.7);
+        thresholds.setNonJapaneseSentenceWordThreshold(3);
+        analyzer = new KuromojiAnalyzer();
+    }
+
+    @Test
+    void testDetectorsRecordBreakdownIntoTrace() {
+        PromptInjectionDetector injectionDetector = new PromptInjectionDetector(analyzer, thresholds, new LanguageDetectorPool());
+        SensitiveInformationDetector sensitiveDetector = new SensitiveInformationDetector(analyzer);
+        DetectionTrace trace = new DetectionTrace();
+        DetectionContext context = DetectionContext.of(thresholds).withTrace(trace);
+
+        var analyzedText = analyzer.analyze("今日の天気は？明日の予定も教えてください。");
+        injectionDetector.isPromptInjectionAttempt(analyzedText, context);
+        sensitiveDetector.hasSensitiveInformation(analyzedText, context);
+        trace.setAnalysis(1000, analyzedText.getTokens().size());
+        JudgeTiming timing = trace.toTiming(5000);
+
+        assertThat(timing.getTotalNanos()).isEqualTo(5000);
+        assertThat(timing.getAnalyzeNanos()).isEqualTo(1000);
+        assertThat(timing.getTokenCount()).isEqualTo(analyzedText.getTokens().size());
+        assertThat(timing.getPhraseCount()).isGreaterThanOrEqualTo(2);
+        assertThat(timing.getRulesEvaluated()).isPositive();
+        assertThat(timing.getSimilarityComputations()).isPositive().isLessThanOrEqualTo(timing.getRulesEvaluated());
+        assertThat(timing.getStageNanos()).containsKeys("sensitive_rules", "injection_exact", "injection_similarity", "sensitive_name");
+        assertThat(timing.getCheckNanos()).containsKeys("forbidden_words", "regex", "similarity", "rules", "name");
+    }
+
+    @Test
+    void testContextWithoutTraceRecordsNothing() {
+        DetectionContext context = DetectionContext.of(thresholds);
+
+        assertThat(context.getTrace()).isNull();
+        DetectionTrace trace = new DetectionTrace();
+        assertThat(context.withTrace(trace).withTimeout(1000).getTrace()).isSameAs(trace);
+    }
+}
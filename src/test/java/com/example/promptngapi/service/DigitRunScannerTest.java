@@ -0,0 +1,131 @@
+package com.example.promptngapi.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DigitRunScannerTest {
+
+    record TestRule(String id, int minDigits, int maxDigits, int contextChars,
+                    Function<DigitRunScanner.Candidate, String> validator) implements DigitRunScanner.DigitRule {
+
+        @Override
+        public String validate(DigitRunScanner.Candidate candidate) {
+            return validator.apply(candidate);
+        }
+    }
+
+    private static final TestRule CREDIT_CARD = new TestRule("credit_card", 13, 19, 0, PiiValidators::paymentCard);
+    private static final TestRule MY_NUMBER = new TestRule("my_number", 12, 12, 0, c -> PiiValidators.isValidMyNumber(c) ? "" : null);
+    private static final List<TestRule> RULES = List.of(CREDIT_CARD, MY_NUMBER);
+
+    static Stream<Arguments> validNumberTestCases() {
+        return Stream.of(
+            Arguments.of("Visa", "4111111111111111", CREDIT_CARD, "Visa"),
+            Arguments.of("Mastercard (2-series)", "2223003122003222", CREDIT_CARD, "Mastercard"),
+            Arguments.of("American Express", "378282246310005", CREDIT_CARD, "American Express"),
+            Arguments.of("JCB", "3530111333300000", CREDIT_CARD, "JCB"),
+            Arguments.of("Diners Club", "30569309025904", CREDIT_CARD, "Diners Club"),
+            Arguments.of("Discover", "6011111111111117", CREDIT_CARD, "Discover"),
+            Arguments.of("My Number", "123456789018", MY_NUMBER, ""),
+            Arguments.of("My Number (remainder <= 1)", "000000000000", MY_NUMBER, "")
+        );
+    }
+
+    @ParameterizedTest(name = "{index} => {0}")
+    @MethodSource("validNumberTestCases")
+    void testDetectsValidNumbers(String testCaseName, String number, TestRule expectedRule, String expectedLabel) {
+        List<DigitRunScanner.Match> matches = DigitRunScanner.scan("番号: " + number + " です", RULES);
+
+        assertThat(matches).hasSize(1);
+        DigitRunScanner.Match match = matches.get(0);
+        assertThat(match.rule()).isEqualTo(expectedRule);
+        assertThat(match.label()).isEqualTo(expectedLabel);
+        assertThat(match.digits()).isEqualTo(number);
+        assertThat(match.start()).isEqualTo(4);
+        assertThat(match.end()).isEqualTo(4 + number.length());
+    }
+
+    static Stream<Arguments> invalidNumberTestCases() {
+        return Stream.of(
+            Arguments.of("Visa with wrong checksum", "4111111111111112"),
+            Arguments.of("Luhn valid but unknown brand", "1234567812345670"),
+            Arguments.of("My Number with wrong check digit", "123456789012"),
+            Arguments.of("Phone number", "090-1234-5678"),
+            Arguments.of("Double separator breaks the run", "4111 1111  1111 1111"),
+            Arguments.of("Split inside a digit group", "41111111111111110")
+        );
+    }
+
+    @ParameterizedTest(name = "{index} => {0}")
+    @MethodSource("invalidNumberTestCases")
+    void testIgnoresInvalidNumbers(String testCaseName, String text) {
+        assertThat(DigitRunScanner.scan(text, RULES)).isEmpty();
+    }
+
+    @Test
+    void testFeedAcrossMultipleCalls() {
+        List<DigitRunScanner.Match> matches = new ArrayList<>();
+        DigitRunScanner scanner = new DigitRunScanner(RULES, matches::add);
+        scanner.feed("カードは 4111-11");
+        assertThat(matches).isEmpty(); // 数字列は次の呼び出しに持ち越される
+        scanner.feed("11-1111-1111 で、個人番号は 1234 5678 9018");
+        scanner.finish();
+
+        assertThat(matches).extracting(DigitRunScanner.Match::rule).containsExactly(CREDIT_CARD, MY_NUMBER);
+        assertThat(matches.get(0).start()).isEqualTo(5);
+        assertThat(matches.get(0).end()).isEqualTo(24);
+    }
+
+    @Test
+    void testLongSeparatedRunStillFindsNumbersNearTheEnd() {
+        String text = "1 ".repeat(500) + "4111 1111 1111 1111";
+        List<DigitRunScanner.Match> matches = DigitRunScanner.scan(text, RULES);
+
+        assertThat(matches).extracting(DigitRunScanner.Match::digits).contains("4111111111111111");
+    }
+
+    @Test
+    void testEarlierRuleWinsForTheSameCandidate() {
+        TestRule anyTwelve = new TestRule("any_twelve", 12, 12, 0, c -> "");
+        List<DigitRunScanner.Match> matches = DigitRunScanner.scan("123456789018", List.of(anyTwelve, MY_NUMBER));
+
+        assertThat(matches).extracting(DigitRunScanner.Match::rule).containsExactly(anyTwelve);
+    }
+
+    @Test
+    void testRuleSeesPrecedingTextAndGroups() {
+        TestRule account = new TestRule("account", 7, 7, 8,
+            c -> c.precedingText().toString().contains("口座") && c.groupCount() == 1 ? "" : null);
+        List<DigitRunScanner.Match> matches = new ArrayList<>();
+        DigitRunScanner scanner = new DigitRunScanner(List.of(account), matches::add);
+        scanner.feed("注文 1234567、口座番号");
+        scanner.feed(" 7654321、口座 765 4321");
+        scanner.finish();
+
+        assertThat(matches).extracting(DigitRunScanner.Match::digits).containsExactly("7654321");
+    }
+
+    @Test
+    void testMidRunCandidateSeesTextBeforeItselfNotBeforeTheRun() {
+        TestRule account = new TestRule("account", 7, 7, 8,
+            c -> c.precedingText().toString().contains("口座") ? "" : null);
+        List<DigitRunScanner.Match> matches = new ArrayList<>();
+        DigitRunScanner scanner = new DigitRunScanner(List.of(account), matches::add);
+        scanner.feed("口座 1234-5678 76");
+        scanner.feed("54321、口座 12 1234567");
+        scanner.finish();
+
+        // 1 つ目の数字列の 7654321 の直前 8 文字は "34-5678 " で、数字列の前の「口座」は含まない
+        assertThat(matches).extracting(DigitRunScanner.Match::digits).containsExactly("1234567");
+        assertThat(matches).extracting(DigitRunScanner.Match::start).containsExactly(27L);
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.config.ConcurrentDetectionConfig;
+import com.example.promptngapi.config.ScoreThresholdsConfig;
+import com.example.promptngapi.dto.DetectionDetail;
+import com.example.promptngapi.nlp.AnalyzedText;
+import com.example.promptngapi.nlp.KuromojiAnalyzer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PromptJudgeServiceTest {
+
+    private static final DetectionDetail INJECTION = new DetectionDetail("prompt_injection_test", "p", "i", 1.0, "injection", "text");
+    private static final DetectionDetail SENSITIVE = new DetectionDetail("sensitive_info_test", "p", "s", 1.0, "sensitive", "text");
+
+    private final AnalyzedText analyzedText = new KuromojiAnalyzer().analyze("テスト入力です");
+
+    private PromptInjectionDetector promptInjectionDetector;
+    private SensitiveInformationDetector sensitiveInformationDetector;
+    private ConcurrentDetectionConfig config;
+    private PromptJudgeService service;
+    private DetectionContext context;
+
+    @BeforeEach
+    void setUp() {
+        promptInjectionDetector = mock(PromptInjectionDetector.class);
+        sensitiveInformationDetector = mock(SensitiveInformationDetector.class);
+        config = new ConcurrentDetectionConfig();
+        config.setPoolSize(2);
+        config.setTimeoutMs(5000);
+        ScoreThresholdsConfig thresholds = new ScoreThresholdsConfig();
+        thresholds.setSimilarityThreshold(0.7);
+        thresholds.setNonJapaneseSentenceWordThreshold(3);
+        context = DetectionContext.of(thresholds);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    private PromptJudgeService createService() {
+        service = new PromptJudgeService(promptInjectionDetector, sensitiveInformationDetector, config);
+        return service;
+    }
+
+    @Test
+    void testDetectorsRunConcurrently() {
+        // 両方の検出器が同時に実行されていなければ、どちらもラッチを通過できない
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(promptInjectionDetector.isPromptInjectionAttempt(any(AnalyzedText.class), any(DetectionContext.class))).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            assertThat(bothStarted.await(2, TimeUnit.SECONDS)).isTrue();
+            return List.of(INJECTION);
+        });
+        when(sensitiveInformationDetector.hasSensitiveInformation(any(AnalyzedText.class), any(DetectionContext.class))).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            assertThat(bothStarted.await(2, TimeUnit.SECONDS)).isTrue();
+            return List.of(SENSITIVE);
+        });
+
+        assertThat(createService().judge(analyzedText, context)).containsExactly(INJECTION, SENSITIVE);
+    }
+
+    @Test
+    void testContextIsPassedToWorkerThreads() {
+        ScoreThresholdsConfig thresholds = new ScoreThresholdsConfig();
+        thresholds.setSimilarityThreshold(0.7);
+        thresholds.setNonJapaneseSentenceWordThreshold(3);
+        DetectionContext requestContext = DetectionContext.of(thresholds, 0.95, 10);
+        AtomicReference<DetectionContext> seenContext = new AtomicReference<>();
+        AtomicReference<String> injectionThread = new AtomicReference<>();
+        when(promptInjectionDetector.isPromptInjectionAttempt(any(AnalyzedText.class), any(DetectionContext.class))).thenAnswer(invocation -> {
+            injectionThread.set(Thread.currentThread().getName());
+            seenContext.set(invocation.getArgument(1));
+            return List.of();
+        });
+        when(sensitiveInformationDetector.hasSensitiveInformation(any(AnalyzedText.class), any(DetectionContext.class))).thenReturn(List.of());
+
+        createService().judge(analyzedText, requestContext);
+
+        assertThat(injectionThread.get()).startsWith("detector-");
+        assertThat(seenContext.get().getSimilarityThreshold()).isEqualTo(0.95);
+        assertThat(seenContext.get().getNonJapaneseSentenceWordThreshold()).isEqualTo(10);
+        // 検出器には concurrent-detection.timeout-ms の期限が付いたコンテキストが渡される
+        assertThat(seenContext.get().hasDeadline()).isTrue();
+        assertThat(requestContext.hasDeadline()).isFalse();
+    }
+
+    @Test
+    void testEarlierContextDeadlineTakesPrecedence() {
+        CountDownLatch release = new CountDownLatch(1);
+        when(promptInjectionDetector.isPromptInjectionAttempt(any(AnalyzedText.class), any(DetectionContext.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        when(sensitiveInformationDetector.hasSensitiveInformation(any(AnalyzedText.class), any(DetectionContext.class))).thenReturn(List.of());
+
+        long started = System.nanoTime();
+        try {
+            assertThatThrownBy(() -> createService().judge(analyzedText, context.withTimeout(100)))
+                .isInstanceOf(DetectionTimeoutException.class);
+        } finally {
+            release.countDown();
+        }
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(config.getTimeoutMs());
+    }
+
+    @Test
+    void testTimeoutThrowsDetectionTimeoutException() {
+        config.setTimeoutMs(100);
+        CountDownLatch release = new CountDownLatch(1);
+        when(promptInjectionDetector.isPromptInjectionAttempt(any(AnalyzedText.class), any(DetectionContext.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        when(sensitiveInformationDetector.hasSensitiveInformation(any(AnalyzedText.class), any(DetectionContext.class))).thenReturn(List.of());
+
+        try {
+            assertThatThrownBy(() -> createService().judge(analyzedText, context)).isInstanceOf(DetectionTimeoutException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testSaturatedPoolRejectsInsteadOfRunningOnCaller() throws InterruptedException {
+        // 1 スレッド・実行待ち 1 件のプールを、1 件目の判定の 2 つの検出器で埋める
+        config.setPoolSize(1);
+        config.setQueueCapacity(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        String caller = Thread.currentThread().getName();
+        List<String> detectorThreads = new CopyOnWriteArrayList<>();
+        when(promptInjectionDetector.isPromptInjectionAttempt(any(AnalyzedText.class), any(DetectionContext.class))).thenAnswer(invocation -> {
+            detectorThreads.add(Thread.currentThread().getName());
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        when(sensitiveInformationDetector.hasSensitiveInformation(any(AnalyzedText.class), any(DetectionContext.class))).thenAnswer(invocation -> {
+            detectorThreads.add(Thread.currentThread().getName());
+            return List.of();
+        });
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        service = new PromptJudgeService(promptInjectionDetector, sensitiveInformationDetector, config, new DetectionMetrics(registry));
+
+        Thread first = new Thread(() -> service.judge(analyzedText, context));
+        first.start();
+        try {
+            assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> service.judge(analyzedText, context))
+                .isInstanceOf(AdmissionRejectedException.class)
+                .satisfies(e -> assertThat(((AdmissionRejectedException) e).getRetryAfterSeconds()).isPositive());
+            assertThat(registry.get("prompt_ng.detection.rejected").counter().count()).isEqualTo(1.0);
+        } finally {
+            release.countDown();
+            first.join(5000);
+        }
+        // 拒否した判定の検出器は呼び出し元スレッドでも実行されない
+        assertThat(detectorThreads).hasSize(2).doesNotContain(caller).allMatch(name -> name.startsWith("detector-"));
+    }
+
+    @Test
+    void testDetectorExceptionIsRethrown() {
+        when(promptInjectionDetector.isPromptInjectionAttempt(any(AnalyzedText.class), any(DetectionContext.class))).thenThrow(new IllegalStateException("boom"));
+        when(sensitiveInformationDetector.hasSensitiveInformation(any(AnalyzedText.class), any(DetectionContext.class))).thenReturn(List.of());
+
+        assertThatThrownBy(() -> createService().judge(analyzedText, context)).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+    }
+
+    @Test
+    void testSequentialModeRunsOnCallerThread() {
+        config.setEnabled(false);
+        String caller = Thread.currentThread().getName();
+        AtomicReference<String> injectionThread = new AtomicReference<>();
+        when(promptInjectionDetector.isPromptInjectionAttempt(any(AnalyzedText.class), any(DetectionContext.class))).thenAnswer(invocation -> {
+            injectionThread.set(Thread.currentThread().getName());
+            return List.of(INJECTION);
+        });
+        when(sensitiveInformationDetector.hasSensitiveInformation(any(AnalyzedText.class), any(DetectionContext.class))).thenReturn(null);
+
+        assertThat(createService().judge(analyzedText, context)).containsExactly(INJECTION);
+        assertThat(injectionThread.get()).isEqualTo(caller);
+    }
+
+    @Test
+    void testBudgetedJudgementRunsStagesFromCheapest() {
+        List<DetectionStage> executed = new ArrayList<>();
+        doAnswer(invocation -> {
+            executed.add(invocation.getArgument(0));
+            return null;
+        }).when(promptInjectionDetector).detectStage(any(DetectionStage.class), any(AnalyzedText.class), any(DetectionContext.class), anyList());
+        doAnswer(invocation -> {
+            executed.add(invocation.getArgument(0));
+            return null;
+        }).when(sensitiveInformationDetector).detectStage(any(DetectionStage.class), any(AnalyzedText.class), any(DetectionContext.class), anyList());
+
+        PromptJudgeService.BudgetedResult result = createService().judgeWithinBudget(analyzedText, context.withTimeout(5000));
+
+        assertThat(executed).containsExactly(DetectionStage.values());
+        assertThat(result.completedStages()).containsExactly(DetectionStage.values());
+        assertThat(result.partial()).isFalse();
+    }
+
+    @Test
+    void testBudgetedJudgementReturnsPartialResultAfterDeadline() {
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) == DetectionStage.INJECTION_EXACT) {
+                List<DetectionDetail> detections = invocation.getArgument(3);
+                detections.add(INJECTION);
+            }
+            return null;
+        }).when(promptInjectionDetector).detectStage(any(DetectionStage.class), any(AnalyzedText.class), any(DetectionContext.class), anyList());
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) == DetectionStage.SENSITIVE_ADDRESS) {
+                // 住所の段階の途中で期限を過ぎる
+                Thread.sleep(200);
+                DetectionContext stageContext = invocation.getArgument(2);
+                stageContext.checkDeadline();
+            }
+            return null;
+        }).when(sensitiveInformationDetector).detectStage(any(DetectionStage.class), any(AnalyzedText.class), any(DetectionContext.class), anyList());
+
+        PromptJudgeService.BudgetedResult result = createService().judgeWithinBudget(analyzedText, context.withTimeout(100));
+
+        assertThat(result.partial()).isTrue();
+        assertThat(result.completedStages()).containsExactly(DetectionStage.SENSITIVE_RULES, DetectionStage.INJECTION_EXACT);
+        assertThat(result.detections()).containsExactly(INJECTION);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.config.StreamingAnalysisConfig;
+import com.example.promptngapi.nlp.KuromojiAnalyzer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RedactionServiceTest {
+
+    private StreamingAnalysisConfig config;
+    private RedactionService service;
+
+    @BeforeEach
+    void setUp() {
+        KuromojiAnalyzer analyzer = new KuromojiAnalyzer();
+        config = new StreamingAnalysisConfig();
+        config.setMaxChunkChars(60);
+        config.setOverlapChars(25);
+        service = new RedactionService(new SensitiveInformationDetector(analyzer), config, analyzer);
+    }
+
+    private String redact(String text) throws IOException {
+        StringWriter writer = new StringWriter();
+        service.redact(new StringReader(text), writer);
+        return writer.toString();
+    }
+
+    static Stream<Arguments> redactionTestCases() {
+        return Stream.of(
+            Arguments.of("Credit card with hyphens", "カード 4556-7398-7169-5865 で支払います。", "カード ******************* で支払います。"),
+            Arguments.of("My Number", "個人番号は123456789018です。", "個人番号は************です。"),
+            Arguments.of("Name with honorific keeps the honorific", "山田太郎様へ", "****様へ"),
+            Arguments.of("Address", "住所は東京都千代田区千代田1-1です。", "住所は*************です。"),
+            Arguments.of("No sensitive information", "今日は良い天気です。", "今日は良い天気です。"),
+            Arguments.of("Empty input", "", "")
+        );
+    }
+
+    @ParameterizedTest(name = "{index} => {0}")
+    @MethodSource("redactionTestCases")
+    void testRedact(String testCaseName, String text, String expected) throws IOException {
+        assertThat(redact(text)).isEqualTo(expected);
+    }
+
+    @Test
+    void testSpansAcrossChunkBoundariesAreMasked() throws IOException {
+        // 何度チャンクに分かれても、各番号が 1 チャンクで完結して解析されていれば伏せ字になる
+        String sentence = "連絡事項があります。カードは4556-7398-7169-5865です。";
+        String text = sentence.repeat(6);
+
+        String redacted = redact(text);
+
+        assertThat(redacted).hasSameSizeAs(text);
+        assertThat(redacted).doesNotContain("4556").contains("カードは*******************です。");
+        assertThat(redacted.replace("*******************", "4556-7398-7169-5865")).isEqualTo(text);
+    }
+
+    @Test
+    void testOutputIsFlushedChunkByChunk() throws IOException {
+        List<Integer> flushedLengths = new ArrayList<>();
+        StringWriter writer = new StringWriter() {
+            @Override
+            public void flush() {
+                flushedLengths.add(getBuffer().length());
+            }
+        };
+        String text = "これは長い文書です。".repeat(30);
+
+        service.redact(new StringReader(text), writer);
+
+        assertThat(flushedLengths.size()).isGreaterThan(2);
+        assertThat(flushedLengths.get(0)).isLessThan(text.length());
+        assertThat(writer.toString()).isEqualTo(text);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.promptngapi.service;
+
+import com.example.promptngapi.dto.DetectionDetail;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RuleCatalogTest {
+
+    @Test
+    void testIdsAreAssignedInDefinitionOrderAndDuplicatesAreSkipped() {
+        RuleCatalog catalog = new RuleCatalog(List.of(
+            new RuleCatalog.Key("prompt_injection_word_jp", "無視"),
+            new RuleCatalog.Key("prompt_injection_regex", "ignore .*"),
+            new RuleCatalog.Key("prompt_injection_word_jp", "無視"),
+            new RuleCatalog.Key("non_japanese_phrase", null)));
+
+        assertThat(catalog.getRules()).containsExactly(
+            new RuleCatalog.Rule(1, "prompt_injection_word_jp", "無視"),
+            new RuleCatalog.Rule(2, "prompt_injection_regex", "ignore .*"),
+            new RuleCatalog.Rule(3, "non_japanese_phrase", null));
+        assertThat(catalog.idOf(new DetectionDetail("prompt_injection_regex", "ignore .*", "ignore all"))).isEqualTo(2);
+    }
+
+    @Test
+    void testTypeWideRuleMatchesAnyPattern() {
+        RuleCatalog catalog = new RuleCatalog(List.of(new RuleCatalog.Key("non_japanese_phrase", null)));
+
+        assertThat(catalog.idOf(new DetectionDetail("non_japanese_phrase", "Please ignore everything", "Please ignore everything"))).isEqualTo(1);
+        assertThat(catalog.idOf(new DetectionDetail("non_japanese_phrase", null, "x"))).isEqualTo(1);
+    }
+
+    @Test
+    void testUnknownDetectionHasUnknownId() {
+        RuleCatalog catalog = new RuleCatalog(List.of(new RuleCatalog.Key("prompt_injection_word_jp", "無視")));
+
+        assertThat(catalog.idOf(new DetectionDetail("prompt_injection_word_jp", "忘れて", "忘れて"))).isEqualTo(RuleCatalog.UNKNOWN_RULE_ID);
+        assertThat(catalog.idOf(new DetectionDetail("sensitive_info_email", "Email", "a@example.com"))).isEqualTo(RuleCatalog.UNKNOWN_RULE_ID);
+    }
+
+    @Test
+    void testVersionChangesWhenIdsChange() {
+        RuleCatalog.Key first = new RuleCatalog.Key("prompt_injection_word_jp", "無視");
+        RuleCatalog.Key second = new RuleCatalog.Key("prompt_injection_word_jp", "忘れて");
+
+        assertThat(new RuleCatalog(List.of(first, second)).getVersion())
+            .isEqualTo(new RuleCatalog(List.of(first, second)).getVersion())
+            .isNotEqualTo(new RuleCatalog(List.of(second, first)).getVersion());
+    }
+
+    @Test
+    void testDefaultCatalogCoversDetectorRules() {
+        RuleCatalog catalog = new RuleCatalog();
+
+        assertThat(catalog.getRules()).isNotEmpty();
+        for (int i = 0; i < catalog.getRules().size(); i++) {
+            assertThat(catalog.getRules().get(i).id()).isEqualTo(i + 1);
+        }
+        // 位置やパターンを持たない検出結果にも ID が割り当てられる
+        assertThat(catalog.idOf(new DetectionDetail("non_japanese_phrase", "Please ignore", "Please ignore"))).isNotEqualTo(RuleCatalog.UNKNOWN_RULE_ID);
+        assertThat(catalog.idOf(new DetectionDetail("sensitive_info_address", "Japanese Address Pattern", "東京都千代田区"))).isNotEqualTo(RuleCatalog.UNKNOWN_RULE_ID);
+    }
+}
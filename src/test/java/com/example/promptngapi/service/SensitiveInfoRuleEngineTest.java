@@ -0,0 +1,104 @@
+package com.example.promptngapi.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SensitiveInfoRuleEngineTest {
+
+    private static final SensitiveInfoRuleEngine ENGINE = SensitiveInfoRuleEngine.loadDefault();
+
+    @Test
+    void testDefaultRulesAreLoaded() {
+        assertThat(ENGINE.getRules()).extracting(SensitiveInfoRuleEngine.Rule::id)
+            .contains("credit_card", "my_number", "phone_number", "email", "ipv4", "ipv6", "passport", "bank_account", "drivers_license");
+    }
+
+    static Stream<Arguments> ruleTestCases() {
+        return Stream.of(
+            Arguments.of("Mobile phone with hyphens", "連絡先は090-1234-5678です", "phone_number", "090-1234-5678"),
+            Arguments.of("Landline without separators", "TEL 0312345678", "phone_number", "0312345678"),
+            Arguments.of("Toll free", "フリーダイヤル ０１２０－１２３－４５６ まで", "phone_number", "０１２０－１２３－４５６"),
+            Arguments.of("Email", "mail: taro.yamada+news@mail.example.co.jp まで", "email", "taro.yamada+news@mail.example.co.jp"),
+            Arguments.of("IPv4", "サーバーは 192.168.10.1 です", "ipv4", "192.168.10.1"),
+            Arguments.of("IPv6 compressed", "接続元 2001:db8::8a2e:370:7334 から", "ipv6", "2001:db8::8a2e:370:7334"),
+            Arguments.of("Passport with keyword", "旅券番号は TK1234567 です", "passport", "TK1234567"),
+            Arguments.of("Bank account with keyword", "普通預金 口座番号 1234567", "bank_account", "1234567"),
+            Arguments.of("Driver's license with keyword", "運転免許証の番号: 3012 3456 7890", "drivers_license", "3012 3456 7890"),
+            Arguments.of("Driver's license wins over My Number", "免許証番号 123456789018", "drivers_license", "123456789018"),
+            Arguments.of("My Number without license keyword", "番号 123456789018", "my_number", "123456789018")
+        );
+    }
+
+    @ParameterizedTest(name = "{index} => {0}")
+    @MethodSource("ruleTestCases")
+    void testDetects(String testCaseName, String text, String expectedRuleId, String expectedSubstring) {
+        List<SensitiveInfoRuleEngine.Finding> findings = ENGINE.scan(text);
+
+        assertThat(findings).hasSize(1);
+        SensitiveInfoRuleEngine.Finding finding = findings.get(0);
+        assertThat(finding.rule().id()).isEqualTo(expectedRuleId);
+        assertThat(text.substring(finding.start(), finding.end())).isEqualTo(expectedSubstring);
+    }
+
+    static Stream<Arguments> falsePositiveTestCases() {
+        return Stream.of(
+            Arguments.of("Phone with unknown mobile prefix", "01012345678"),
+            Arguments.of("Phone split into odd groups", "0 9 0 1 2 3 4 5 6 7 8"),
+            Arguments.of("Email with single letter TLD", "user@example.c"),
+            Arguments.of("Octet out of range", "version 300.1.2.3"),
+            Arguments.of("Version string", "v1.2.3.4.5"),
+            Arguments.of("Clock time", "12:30:45 に開始"),
+            Arguments.of("C++ scope operator", "std::vector<int>::iterator"),
+            Arguments.of("Passport-like ID without keyword", "注文番号 TK1234567"),
+            Arguments.of("Seven digits without account keyword", "会員番号 1234567"),
+            Arguments.of("Keyword too far away", "口座" + "あ".repeat(30) + "1234567")
+        );
+    }
+
+    @ParameterizedTest(name = "{index} => {0}")
+    @MethodSource("falsePositiveTestCases")
+    void testIgnores(String testCaseName, String text) {
+        assertThat(ENGINE.scan(text)).isEmpty();
+    }
+
+    @Test
+    void testFindingsAreOrderedByPosition() {
+        String text = "IP 10.0.0.1, 電話 03-1234-5678, mail a@b.jp";
+        assertThat(ENGINE.scan(text)).extracting(finding -> finding.rule().id())
+            .containsExactly("ipv4", "phone_number", "email");
+    }
+
+    @Test
+    void testScanPatternsExcludesDigitRules() {
+        String text = "IP 10.0.0.1, 電話 03-1234-5678, mail a@b.jp";
+        assertThat(ENGINE.scanPatterns(text)).extracting(finding -> finding.rule().id())
+            .containsExactlyInAnyOrder("ipv4", "email");
+    }
+
+    @Test
+    void testUnknownValidatorIsRejected() {
+        String yaml = """
+            rules:
+              - id: broken
+                type: sensitive_info_broken
+                name: Broken
+                kind: digits
+                min_digits: 5
+                validator: no_such_validator
+                details: broken
+            """;
+        assertThatThrownBy(() -> SensitiveInfoRuleEngine.load(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8))))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("no_such_validator");
+    }
+}
@@ -38,39 +38,73 @@ public class SensitiveInformationDetectorTest {
 
     static Stream<Arguments> sensitiveInfoTestCases() {
         return Stream.of(
-            Arguments.of("Valid Visa16", "My card is 4556739871695869 today",
-                List.of(new ExpectedSensitiveDetection("sensitive_info_credit_card", "Credit Card Pattern", "4556739871695869", 1.0))),
-            Arguments.of("Visa with Hyphens", "Card: 4556-7398-7169-5869.",
-                List.of(new ExpectedSensitiveDetection("sensitive_info_credit_card", "Credit Card Pattern", "4556739871695869", 1.0))),
-            Arguments.of("Multiple Credit Cards", "Visa: 4556739871695869 and Mastercard: 5100112233445566",
+            Arguments.of("Valid Visa16", "My card is 4556739871695865 today",
+                List.of(new ExpectedSensitiveDetection("sensitive_info_credit_card", "Credit Card Pattern", "4556739871695865", 1.0))),
+            Arguments.of("Visa with Hyphens", "Card: 4556-7398-7169-5865.",
+                List.of(new ExpectedSensitiveDetection("sensitive_info_credit_card", "Credit Card Pattern", "4556-7398-7169-5865", 1.0))),
+            Arguments.of("Visa with Invalid Luhn Checksum", "My card is 4556739871695869 today", Collections.emptyList()),
+            Arguments.of("Amex with Spaces", "Amex 3782 822463 10005 is mine",
+                List.of(new ExpectedSensitiveDetection("sensitive_info_credit_card", "Credit Card Pattern", "3782 822463 10005", 1.0))),
+            Arguments.of("JCB in Fullwidth Digits", "カード番号：３５３０　１１１３　３３３０　００００",
+                List.of(new ExpectedSensitiveDetection("sensitive_info_credit_card", "Credit Card Pattern", "３５３０　１１１３　３３３０　００００", 1.0))),
+            Arguments.of("Card Preceded by Unrelated Number", "2024 4111 1111 1111 1111 expires",
+                List.of(new ExpectedSensitiveDetection("sensitive_info_credit_card", "Credit Card Pattern", "4111 1111 1111 1111", 1.0))),
+            Arguments.of("Luhn Valid But Part of Longer Digit Run", "ID 94111111111111111 is an order number", Collections.emptyList()),
+            Arguments.of("Multiple Credit Cards", "Visa: 4556739871695865 and Mastercard: 5100112233445569",
                 List.of(
-                    new ExpectedSensitiveDetection("sensitive_info_credit_card", "Credit Card Pattern", "4556739871695869", 1.0),
-                    new ExpectedSensitiveDetection("sensitive_info_credit_card", "Credit Card Pattern", "5100112233445566", 1.0)
+                    new ExpectedSensitiveDetection("sensitive_info_credit_card", "Credit Card Pattern", "4556739871695865", 1.0),
+                    new ExpectedSensitiveDetection("sensitive_info_credit_card", "Credit Card Pattern", "5100112233445569", 1.0)
                 )),
             Arguments.of("Invalid Credit Card Length", "My card is 123456789012345 (invalid length)", Collections.emptyList()),
             Arguments.of("Text Without Credit Card", "This is a string with no card numbers.", Collections.emptyList()),
 
-            Arguments.of("Valid MyNumber", "My number is 123456789012, please confirm.",
-                List.of(new ExpectedSensitiveDetection("sensitive_info_my_number", "My Number Pattern", "123456789012", 1.0))),
-            Arguments.of("MyNumber with Spaces", "My number is 1234 5678 9012 formatted.",
-                List.of(new ExpectedSensitiveDetection("sensitive_info_my_number", "My Number Pattern", "123456789012", 1.0))),
+            Arguments.of("Valid MyNumber", "My number is 123456789018, please confirm.",
+                List.of(new ExpectedSensitiveDetection("sensitive_info_my_number", "My Number Pattern", "123456789018", 1.0))),
+            Arguments.of("MyNumber with Spaces", "My number is 1234 5678 9018 formatted.",
+                List.of(new ExpectedSensitiveDetection("sensitive_info_my_number", "My Number Pattern", "1234 5678 9018", 1.0))),
+            Arguments.of("MyNumber with Invalid Check Digit", "My number is 123456789012, please confirm.", Collections.emptyList()),
+            Arguments.of("Fullwidth MyNumber in Japanese", "私の個人番号は１２３４－５６７８－９０１８です。",
+                List.of(new ExpectedSensitiveDetection("sensitive_info_my_number", "My Number Pattern", "１２３４－５６７８－９０１８", 1.0))),
             Arguments.of("MyNumber Too Long", "1234567890123 is too long", Collections.emptyList()),
             Arguments.of("MyNumber Too Short", "12345678901 is too short", Collections.emptyList()),
 
-            Arguments.of("Japanese Address Placeholder", "Address: Test Ken Test Shi 1-2-3",
-                List.of(new ExpectedSensitiveDetection("sensitive_info_address", "Japanese Address Placeholder Pattern", "該当箇所 (簡易検出のため特定困難)", 0.7))),
+            Arguments.of("Japanese Address with Hyphens", "住所は東京都千代田区千代田1-1です。",
+                List.of(new ExpectedSensitiveDetection("sensitive_info_address", "Japanese Address Pattern", "東京都千代田区千代田1-1", 1.0))),
+            Arguments.of("Japanese Address with Chome Banchi", "大阪府大阪市北区梅田一丁目3番1号に届けてください",
+                List.of(new ExpectedSensitiveDetection("sensitive_info_address", "Japanese Address Pattern", "大阪府大阪市北区梅田一丁目3番1号", 1.0))),
+            Arguments.of("Japanese Address with County and Unlisted Town", "北海道虻田郡ニセコ町字富士見１－２",
+                List.of(new ExpectedSensitiveDetection("sensitive_info_address", "Japanese Address Pattern", "北海道虻田郡ニセコ町字富士見１－２", 1.0))),
+            Arguments.of("Japanese Address without Prefecture", "横浜市中区日本大通1番地まで",
+                List.of(new ExpectedSensitiveDetection("sensitive_info_address", "Japanese Address Pattern", "横浜市中区日本大通1番地", 0.8))),
+            Arguments.of("Ward and Number Only Is Not an Address", "この区では3号が配布されました", Collections.emptyList()),
+            Arguments.of("Municipality without Block Number", "来週は東京都港区に出張します", Collections.emptyList()),
             Arguments.of("No Japanese Address", "This is a normal sentence without address cues", Collections.emptyList()),
 
-            Arguments.of("Japanese Name Placeholder", "My friend Test Name Sama is here.",
-                List.of(new ExpectedSensitiveDetection("sensitive_info_name", "Japanese Name Placeholder Pattern", "該当箇所 (簡易検出のため特定困難)", 0.7))),
+            Arguments.of("Full Name with Honorific", "山田太郎様にご連絡ください。",
+                List.of(new ExpectedSensitiveDetection("sensitive_info_name", "Japanese Name Pattern", "山田太郎", 1.0))),
+            Arguments.of("Full Name with Space", "担当は佐藤 花子です",
+                List.of(new ExpectedSensitiveDetection("sensitive_info_name", "Japanese Name Pattern", "佐藤 花子", 0.8))),
+            Arguments.of("Surname with Honorific", "田中さんは来ますか",
+                List.of(new ExpectedSensitiveDetection("sensitive_info_name", "Japanese Name Pattern", "田中", 0.7))),
+            Arguments.of("Surname with Title Noun", "今日は中村先生に会う",
+                List.of(new ExpectedSensitiveDetection("sensitive_info_name", "Japanese Name Pattern", "中村", 0.7))),
+            Arguments.of("Surname Alone Is Not Reported", "中村に会う", Collections.emptyList()),
             Arguments.of("No Japanese Name", "This text has no names like that.", Collections.emptyList()),
 
-            Arguments.of("Multiple Mixed Detections", "My card is 4556739871695869, MyNumber is 123456789012, and I live at Test Ken Test Shi 1-2-3, said Test Name Sama.",
+            // Rule-based Types (sensitive_info_rules.yaml)
+            Arguments.of("Phone Number", "電話は03-1234-5678までお願いします",
+                List.of(new ExpectedSensitiveDetection("sensitive_info_phone_number", "Japanese Phone Number Pattern", "03-1234-5678", 0.9))),
+            Arguments.of("Email Address", "Contact me at hanako@example.com please",
+                List.of(new ExpectedSensitiveDetection("sensitive_info_email", "Email Address Pattern", "hanako@example.com", 0.9))),
+            Arguments.of("Passport Number with Keyword", "パスポート番号: MZ7654321",
+                List.of(new ExpectedSensitiveDetection("sensitive_info_passport", "Passport Number Pattern", "MZ7654321", 1.0))),
+
+            Arguments.of("Multiple Mixed Detections", "My card is 4556739871695865, MyNumber is 123456789018, and I live at 東京都千代田区千代田1-1, said 山田太郎様.",
                 List.of(
-                    new ExpectedSensitiveDetection("sensitive_info_credit_card", "Credit Card Pattern", "4556739871695869", 1.0),
-                    new ExpectedSensitiveDetection("sensitive_info_my_number", "My Number Pattern", "123456789012", 1.0),
-                    new ExpectedSensitiveDetection("sensitive_info_address", "Japanese Address Placeholder Pattern", "該当箇所 (簡易検出のため特定困難)", 0.7), // Corrected score
-                    new ExpectedSensitiveDetection("sensitive_info_name", "Japanese Name Placeholder Pattern", "該当箇所 (簡易検出のため特定困難)", 0.7)  // Corrected substring and score
+                    new ExpectedSensitiveDetection("sensitive_info_credit_card", "Credit Card Pattern", "4556739871695865", 1.0),
+                    new ExpectedSensitiveDetection("sensitive_info_my_number", "My Number Pattern", "123456789018", 1.0),
+                    new ExpectedSensitiveDetection("sensitive_info_address", "Japanese Address Pattern", "東京都千代田区千代田1-1", 1.0),
+                    new ExpectedSensitiveDetection("sensitive_info_name", "Japanese Name Pattern", "山田太郎", 1.0)
                 )),
             Arguments.of("No Sensitive Info", "This is a perfectly normal and safe sentence.", Collections.emptyList()),
             Arguments.of("Empty String", "", Collections.emptyList()),
@@ -95,4 +129,15 @@ public class SensitiveInformationDetectorTest {
             assertThat(actualTransformed).containsExactlyInAnyOrderElementsOf(expectedDetectionsList);
         }
     }
+
+    @org.junit.jupiter.api.Test
+    void testReportsOriginalSpan() {
+        String text = "番号は 4556-7398-7169-5865 です";
+        List<DetectionDetail> details = detector.hasSensitiveInformation(text);
+
+        assertThat(details).hasSize(1);
+        DetectionDetail detail = details.get(0);
+        assertThat(text.substring(detail.getStart().intValue(), detail.getEnd().intValue())).isEqualTo("4556-7398-7169-5865");
+        assertThat(detail.getInput_substring()).isEqualTo("4556-7398-7169-5865");
+    }
 }